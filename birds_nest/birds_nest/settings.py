@@ -214,6 +214,15 @@ DATA_UPLOAD_MAX_MEMORY_SIZE = _get_int_env(
 )
 FILE_UPLOAD_MAX_MEMORY_SIZE = _get_int_env('DJANGO_FILE_UPLOAD_MAX_MEMORY_SIZE', 2621440)
 
+# Input layer rows kept between interactive executions by the process-wide
+# reference data cache. Each row is a model instance held by the web server.
+PYBIRDAI_REFERENCE_CACHE_MAX_MODELS = _get_int_env('PYBIRDAI_REFERENCE_CACHE_MAX_MODELS', 256)
+PYBIRDAI_REFERENCE_CACHE_MAX_ROWS = _get_int_env('PYBIRDAI_REFERENCE_CACHE_MAX_ROWS', 20000)
+
+# Render every template on a background thread after a rendering package
+# import, instead of on first view. Only useful in a long-running web server.
+PYBIRDAI_WARM_TABLE_RENDER_CACHE = _get_bool_env('PYBIRDAI_WARM_TABLE_RENDER_CACHE', default=False)
+
 # Security Settings
 SECURE_BROWSER_XSS_FILTER = True
 SECURE_CONTENT_TYPE_NOSNIFF = True
@@ -21,10 +21,27 @@ from typing import Dict, Any, Optional, Set
 
 _DEBUG_LINEAGE = os.environ.get('PYBIRDAI_DEBUG_LINEAGE', '').lower() in {'1', 'true', 'yes', 'on'}
 
+# PYBIRDAI_LINEAGE_MODE=off resolves @lineage, @lineage_polymorphic and
+# @track_table_init to the undecorated functions when generated modules are
+# imported. Meant for production runs that only need the figures: lineage can
+# not be switched back on in that process.
+_LINEAGE_FAST_PATH = os.environ.get('PYBIRDAI_LINEAGE_MODE', '').lower() in {'off', 'fast'}
+
 def _lineage_debug(message):
     if _DEBUG_LINEAGE:
         print(message)
 
+
+def lineage_fast_path_enabled():
+    """Return True when lineage decorators were resolved to plain functions at import time."""
+    return _LINEAGE_FAST_PATH
+
+
+def _plain_function(func, dependencies):
+    # Keep the declared dependencies available for introspection
+    func._lineage_dependencies = dependencies
+    return func
+
 _lineage_context_var = ContextVar('pybirdai_lineage_context', default=None)
 
 
@@ -59,8 +76,26 @@ class _LineageContext:
 # Context-local registry to track lineage execution context.
 _lineage_context = _LineageContext()
 
+def _active_lineage_orchestration():
+    """Return the context orchestration only if it is recording lineage."""
+    state = _lineage_context_var.get()
+    if state is None:
+        return None
+    orchestration = state.get('orchestration')
+    if orchestration is None or not getattr(orchestration, 'lineage_enabled', False):
+        return None
+    return orchestration
+
+
+def lineage_recording_active():
+    """Return True when calls made in the current context are recorded as lineage."""
+    return not _LINEAGE_FAST_PATH and _active_lineage_orchestration() is not None
+
+
 def set_lineage_orchestration(orchestration):
     """Set the orchestration instance for lineage tracking"""
+    if _LINEAGE_FAST_PATH and orchestration is not None and getattr(orchestration, 'lineage_enabled', False):
+        print("WARNING: PYBIRDAI_LINEAGE_MODE=off is set, lineage decorators are inactive in this process")
     previous_trail = _lineage_context.get('current_trail')
     previous_trail_id = getattr(previous_trail, 'id', None)
     next_trail_id = getattr(getattr(orchestration, 'trail', None), 'id', None) if orchestration else None
@@ -128,10 +163,18 @@ def lineage(dependencies: Dict[str, Any] = None):
         dependencies = {}
     
     def decorator_lineage(func):
+        if _LINEAGE_FAST_PATH:
+            return _plain_function(
+                func,
+                tuple(dependencies.keys()) if isinstance(dependencies, dict) else tuple(dependencies)
+            )
+
         @functools.wraps(func)
         def wrapper_lineage(*args, **kwargs):
             # Get orchestration from context
-            orchestration = _lineage_context.get('orchestration')
+            orchestration = _active_lineage_orchestration()
+            if orchestration is None:
+                return func(*args, **kwargs)
             
             # Execute the function
             value = func(*args, **kwargs)
@@ -327,6 +370,9 @@ def lineage(dependencies: Dict[str, Any] = None):
 
 def track_table_init(func):
     """Decorator for tracking table initialization"""
+    if _LINEAGE_FAST_PATH:
+        return func
+
     @functools.wraps(func)
     def wrapper(*args, **kwargs):
         # Get orchestration from context
@@ -375,10 +421,15 @@ def lineage_polymorphic(base_dependencies: Set[str] = None,
     _lineage_debug(f"lineage_polymorphic decorator applied with dependencies: {base_dependencies}")
     
     def decorator_lineage_polymorphic(func):
+        if _LINEAGE_FAST_PATH:
+            return _plain_function(func, tuple(base_dependencies))
+
         @functools.wraps(func)
         def wrapper_lineage(*args, **kwargs):
             # Get orchestration from context
-            orchestration = _lineage_context.get('orchestration')
+            orchestration = _active_lineage_orchestration()
+            if orchestration is None:
+                return func(*args, **kwargs)
             
             _lineage_debug(f"lineage_polymorphic wrapper called for {func.__name__}, orchestration: {orchestration is not None}")
             
@@ -488,8 +539,8 @@ def lineage_polymorphic(base_dependencies: Set[str] = None,
                                             _lineage_debug(f"Polymorphic: Has track_calculation_used_row: {hasattr(orchestration, 'track_calculation_used_row')}")
                                             if hasattr(orchestration, 'track_calculation_used_row'):
                                                 try:
-                                                    from pybirdai.models import DerivedTableRow
-                                                    derived_row = DerivedTableRow.objects.get(id=derived_row_id)
+                                                    # The row may still be buffered in the lineage sink
+                                                    derived_row = orchestration._find_derived_row_for_object(wrapper_obj)
                                                     
                                                     _lineage_debug(f"Polymorphic: Calling track_calculation_used_row for row {derived_row_id}, calc: {current_calc}")
                                                     orchestration.track_calculation_used_row(current_calc, derived_row)
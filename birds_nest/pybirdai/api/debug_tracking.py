@@ -76,6 +76,7 @@ def debug_populated_tables(trail_id):
         PopulatedDataBaseTable, EvaluatedDerivedTable,
         CalculationUsedRow, CalculationUsedField
     )
+    from pybirdai.process_steps.pybird.lineage_store import TrailRows
 
     print(f"\n=== DATABASE DEBUG FOR TRAIL {trail_id} ===")
 
@@ -89,11 +90,13 @@ def debug_populated_tables(trail_id):
         for table in db_tables:
             print(f"  - {table.name} (id: {table.id})")
 
+        trail_rows = TrailRows.for_trail(trail)
+
         # Check populated tables for this trail
         pop_tables = PopulatedDataBaseTable.objects.filter(trail=trail)
         print(f"PopulatedDataBaseTables for trail {trail_id}: {pop_tables.count()}")
         for table in pop_tables:
-            rows_count = table.databaserow_set.count()
+            rows_count = trail_rows.database_row_count(table)
             print(f"  - {table.table.name} with {rows_count} rows")
 
         # Check derived tables
@@ -103,8 +106,9 @@ def debug_populated_tables(trail_id):
         eval_tables = EvaluatedDerivedTable.objects.filter(trail=trail)
         print(f"EvaluatedDerivedTables for trail {trail_id}: {eval_tables.count()}")
         for table in eval_tables:
-            rows_count = table.derivedtablerow_set.count()
+            rows_count = trail_rows.derived_row_count(table)
             print(f"  - {table.table.name} with {rows_count} rows")
+        trail_rows.close()
 
         # Check usage tracking
         used_rows = CalculationUsedRow.objects.filter(trail=trail)
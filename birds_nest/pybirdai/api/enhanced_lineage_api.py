@@ -39,6 +39,9 @@ from functools import lru_cache
 import logging
 import re
 from pybirdai.utils.secure_logging import sanitize_log_value
+from pybirdai.process_steps.pybird.lineage_closure import RowSourceIndex, cell_closure
+from pybirdai.process_steps.pybird.lineage_store import TrailRows
+from pybirdai.process_steps.pybird.lineage_output_tables import get_output_table_names
 from textwrap import dedent
 
 
@@ -157,202 +160,8 @@ def _resolve_reference_output_table_name(trail, table_name, output_table_names=N
     return candidate_names[0]
 
 
-def _get_table_names_for_derived_rows(row_ids):
-    if not row_ids:
-        return set()
-
-    return set(
-        DerivedTableRow.objects.filter(
-            id__in=row_ids
-        ).values_list(
-            'populated_table__table__name',
-            flat=True,
-        )
-    )
-
-
-def _candidate_output_tables_from_cell_name(cell_name, available_table_names):
-    """
-    Resolve output tables from a generated cell/calculation name without knowing
-    any specific report table names.
-
-    Generated cells usually embed the output table name after ``Cell_`` and
-    before the final cell identifier. We choose the longest available evaluated
-    table name that prefixes that remainder.
-    """
-    if not cell_name:
-        return []
-
-    remainder = cell_name[5:] if cell_name.startswith('Cell_') else cell_name
-    matches = [
-        table_name
-        for table_name in available_table_names
-        if remainder == table_name or remainder.startswith(f'{table_name}_')
-    ]
-    return sorted(matches, key=len, reverse=True)
-
-
-def _candidate_output_tables_from_declared_output(output_table_name, available_table_names):
-    """
-    Resolve product-level output tables when the declared report output table was
-    not evaluated directly.
-
-    Some datapoints execute product tables such as
-    ``F_05_01_REF_FINREP_3_0_Other_loans`` without creating the parent
-    ``F_05_01_REF_FINREP_3_0`` union table. Those product tables still carry the
-    reference output-layer cube context and should be treated as output wrappers
-    for complete ROL display.
-    """
-    if not output_table_name:
-        return []
-
-    matches = [
-        table_name
-        for table_name in available_table_names
-        if (
-            table_name == output_table_name
-            or (
-                table_name.startswith(f'{output_table_name}_')
-                and not table_name.endswith('_Table')
-            )
-        )
-    ]
-    return sorted(matches, key=len, reverse=True)
-
-
-def _get_output_table_names(trail, calculation_name=None):
-    """
-    Infer output tables from lineage metadata instead of from literal table names.
-
-    Prefer explicit calculation chains/cell lineage. Fall back to data-flow sinks,
-    which are tables that receive lineage edges but do not feed another table.
-    """
-    available_table_names = set(
-        EvaluatedDerivedTable.objects.filter(
-            trail=trail
-        ).values_list(
-            'table__name',
-            flat=True,
-        )
-    )
-    output_table_names = set()
-
-    chain_query = CalculationChain.objects.filter(trail=trail)
-    if calculation_name:
-        chain_query = chain_query.filter(chain_name=calculation_name)
-
-    for chain in chain_query:
-        for candidate_name in _candidate_output_tables_from_declared_output(
-            chain.output_table,
-            available_table_names,
-        ):
-            output_table_names.add(candidate_name)
-
-        for candidate_name in _candidate_output_tables_from_cell_name(
-            chain.output_cell_name or chain.chain_name,
-            available_table_names,
-        ):
-            output_table_names.add(candidate_name)
-
-    cell_query = CellLineage.objects.filter(trail=trail)
-    if calculation_name:
-        cell_query = cell_query.filter(cell_code=calculation_name)
-
-    for cell in cell_query:
-        cell_table_name = cell.cell_code if str(cell.cell_code).startswith('Cell_') else f'Cell_{cell.cell_code}'
-        if cell_table_name in available_table_names:
-            output_table_names.add(cell_table_name)
-
-        for candidate_name in _candidate_output_tables_from_cell_name(cell.cell_code, available_table_names):
-            output_table_names.add(candidate_name)
-
-    if not output_table_names:
-        source_labels = set(
-            DataFlowEdge.objects.filter(
-                trail=trail
-            ).values_list(
-                'source_label',
-                flat=True,
-            )
-        )
-        target_labels = set(
-            DataFlowEdge.objects.filter(
-                trail=trail
-            ).values_list(
-                'target_label',
-                flat=True,
-            )
-        )
-        for sink_name in target_labels - source_labels:
-            if sink_name in available_table_names:
-                output_table_names.add(sink_name)
-
-    return output_table_names
-
-
-def _get_root_derived_row_ids(derived_row_ids, output_table_names=None):
-    if not derived_row_ids:
-        return set()
-
-    output_table_names = set(output_table_names or [])
-    if output_table_names:
-        output_row_ids = set(
-            DerivedTableRow.objects.filter(
-                id__in=derived_row_ids,
-                populated_table__table__name__in=output_table_names,
-            ).values_list('id', flat=True)
-        )
-        if output_row_ids:
-            return output_row_ids
-
-    derived_row_content_type = ContentType.objects.get_for_model(DerivedTableRow)
-    rows_reused_by_other_used_rows = set(
-        DerivedRowSourceReference.objects.filter(
-            derived_row_id__in=derived_row_ids,
-            content_type=derived_row_content_type,
-            object_id__in=derived_row_ids,
-        ).values_list('object_id', flat=True)
-    )
-
-    root_row_ids = set(derived_row_ids) - rows_reused_by_other_used_rows
-    return root_row_ids or set(derived_row_ids)
-
-
-def _trace_used_rows_backwards(root_derived_row_ids):
-    """
-    Walk row-source lineage backwards from dynamic calculation roots.
-
-    Returns the derived/database row ids that transitively contributed to those
-    roots, plus whether at least one row-source relationship existed.
-    """
-    from collections import deque
-
-    traced_derived_row_ids = set(root_derived_row_ids)
-    traced_database_row_ids = set()
-    queue = deque(root_derived_row_ids)
-    found_row_sources = False
-
-    while queue:
-        current_row_id = queue.popleft()
-        refs = DerivedRowSourceReference.objects.filter(
-            derived_row_id=current_row_id
-        ).select_related(
-            'content_type'
-        )
-
-        if refs.exists():
-            found_row_sources = True
-
-        for ref in refs:
-            if ref.content_type.model == 'derivedtablerow':
-                source_row_id = ref.object_id
-                if source_row_id not in traced_derived_row_ids:
-                    traced_derived_row_ids.add(source_row_id)
-                    queue.append(source_row_id)
-            elif ref.content_type.model == 'databaserow':
-                traced_database_row_ids.add(ref.object_id)
-
-    return found_row_sources, traced_derived_row_ids, traced_database_row_ids
+def _get_table_names_for_derived_rows(trail_rows, row_ids):
+    return trail_rows.derived_row_table_names(row_ids)
 
 
 def _get_display_table_for_output(trail, output_table_name, eval_table_by_name, output_table_names=None):
@@ -387,7 +196,7 @@ def _get_display_table_for_output(trail, output_table_name, eval_table_by_name,
     return candidates[0]
 
 
-def _get_display_table_from_row_sources(output_table, eval_table_by_row_id, output_table_names=None):
+def _get_display_table_from_row_sources(trail_rows, output_table, eval_table_by_row_id, output_table_names=None):
     """Find display rows by walking runtime row-source lineage from an output table."""
     from collections import deque
 
@@ -404,17 +213,13 @@ def _get_display_table_from_row_sources(output_table, eval_table_by_row_id, outp
 
     while queue:
         current_row_id = queue.popleft()
-        row_refs = DerivedRowSourceReference.objects.filter(
-            derived_row_id=current_row_id,
-        ).select_related(
-            'content_type',
-        )
+        row_refs = trail_rows.row_sources(derived_row_ids=[current_row_id])
 
         for ref in row_refs:
-            if ref.content_type.model != 'derivedtablerow':
+            if ref.source_type != 'derivedtablerow':
                 continue
 
-            source_row_id = ref.object_id
+            source_row_id = ref.source_id
             if source_row_id not in visited_row_ids:
                 visited_row_ids.add(source_row_id)
                 queue.append(source_row_id)
@@ -575,6 +380,7 @@ def get_trail_filtered_lineage(request, trail_id):
     calculation_name = request.GET.get('calculation_name')
     include_unused = request.GET.get('include_unused', 'false').lower() == 'true'
     
+    trail_rows = TrailRows.for_trail(trail)
     try:
         # Get all calculations for this trail
         if calculation_name:
@@ -612,7 +418,7 @@ def get_trail_filtered_lineage(request, trail_id):
             elif used_field.content_type.model == 'function':
                 used_field_ids['Function'].add(used_field.object_id)
 
-        output_table_names = _get_output_table_names(trail, calculation_name)
+        output_table_names = get_output_table_names(trail, calculation_name)
         
         # STRICT: Only include explicitly tracked functions and their direct dependencies
         calculation_relevant_function_ids = used_field_ids['Function'].copy()
@@ -651,11 +457,22 @@ def get_trail_filtered_lineage(request, trail_id):
         
         if not include_unused and allowed_derived_row_ids:
             try:
-                root_derived_row_ids = _get_root_derived_row_ids(
-                    allowed_derived_row_ids,
-                    output_table_names,
-                )
-                root_table_names = _get_table_names_for_derived_rows(root_derived_row_ids)
+                # The closure stored by finalize_lineage, or a walk over the
+                # trail's row sources loaded in one query
+                stored_closure = cell_closure(trail, calculation_name) if calculation_name else None
+                if stored_closure is not None:
+                    root_derived_row_ids, traced_derived_row_ids, traced_database_row_ids = stored_closure
+                    backwards_tracing_worked = True
+                else:
+                    row_sources = RowSourceIndex.for_trail(trail)
+                    root_derived_row_ids = row_sources.root_derived_row_ids(
+                        allowed_derived_row_ids,
+                        output_table_names,
+                    )
+                    backwards_tracing_worked, traced_derived_row_ids, traced_database_row_ids = (
+                        row_sources.trace_backwards(root_derived_row_ids)
+                    )
+                root_table_names = _get_table_names_for_derived_rows(trail_rows, root_derived_row_ids)
                 if not output_table_names:
                     output_table_names.update(root_table_names)
 
@@ -664,10 +481,6 @@ def get_trail_filtered_lineage(request, trail_id):
                     f"{len(root_derived_row_ids)} rows across {sorted(root_table_names)}"
                 )
 
-                backwards_tracing_worked, traced_derived_row_ids, traced_database_row_ids = _trace_used_rows_backwards(
-                    root_derived_row_ids
-                )
-
                 if backwards_tracing_worked:
                     original_derived_count = len(allowed_derived_row_ids)
                     original_db_count = len(allowed_db_row_ids)
@@ -734,7 +547,7 @@ def get_trail_filtered_lineage(request, trail_id):
             # Include explicitly used rows plus rows reached by lineage tracing.
             table_has_used_rows = False
             if not include_unused:
-                for row in pop_table.databaserow_set.all():
+                for row in trail_rows.database_rows(pop_table):
                     if row.id in allowed_db_row_ids:
                         table_has_used_rows = True
                         break
@@ -777,7 +590,7 @@ def get_trail_filtered_lineage(request, trail_id):
                 }
                 
                 # Add explicitly used rows plus traced source rows.
-                for row in pop_table.databaserow_set.all():
+                for row in trail_rows.database_rows(pop_table):
                     if include_unused or row.id in allowed_db_row_ids:
                         row_data = {
                             "id": row.id,
@@ -835,7 +648,7 @@ def get_trail_filtered_lineage(request, trail_id):
             # Include explicitly used rows plus rows reached by lineage tracing.
             table_has_used_rows = False
             if not include_unused:
-                for row in eval_table.derivedtablerow_set.all():
+                for row in trail_rows.derived_rows(eval_table):
                     if row.id in allowed_derived_row_ids:
                         table_has_used_rows = True
                         break
@@ -844,10 +657,8 @@ def get_trail_filtered_lineage(request, trail_id):
             
             # Check if this table appears in evaluated_derived_tables (for consistency)
             table_will_appear_in_evaluated = False
-            if eval_table.derivedtablerow_set.exists():
-                table_will_appear_in_evaluated = EvaluatedFunction.objects.filter(
-                    row__populated_table=eval_table
-                ).exists()
+            if trail_rows.derived_row_count(eval_table):
+                table_will_appear_in_evaluated = trail_rows.has_function_values(evaluated_table=eval_table)
             
             # ENHANCED LOGIC: Also include tables that have functions used in calculations
             # but we'll still only show the specific rows that were used
@@ -910,7 +721,7 @@ def get_trail_filtered_lineage(request, trail_id):
                     
                     # First, get all function names that have evaluated values for this table
                     evaluated_function_names = set()
-                    for row in eval_table.derivedtablerow_set.all():
+                    for row in trail_rows.derived_rows(eval_table):
                         for eval_func in row.evaluated_functions.all():
                             # Only include functions that match the table name pattern
                             if eval_func.function.table.name == table.name:
@@ -934,11 +745,10 @@ def get_trail_filtered_lineage(request, trail_id):
                         # Check if this function has evaluated values in this table for this trail
                         # The relationship is: EvaluatedFunction -> row (DerivedTableRow) -> populated_table (EvaluatedDerivedTable)
                         # Also ensure the function belongs to the correct table
-                        has_evaluated_values_by_id = EvaluatedFunction.objects.filter(
-                            function_id=function.id,
-                            function__table_id=table.id,
-                            row__populated_table=eval_table
-                        ).exists()
+                        has_evaluated_values_by_id = (
+                            function.table_id == table.id and
+                            trail_rows.has_function_values([function.id], evaluated_table=eval_table)
+                        )
                         
                         # BALANCED: Include functions that are calculation-relevant OR have evaluated values in included tables
                         has_evaluated_values_by_name = False
@@ -959,10 +769,7 @@ def get_trail_filtered_lineage(request, trail_id):
                             polymorphic_functions = Function.objects.filter(name__contains=f"{function.name}@")
                             for poly_func in polymorphic_functions:
                                 # Check if the polymorphic function has evaluated values
-                                poly_evaluated = EvaluatedFunction.objects.filter(
-                                    function_id=poly_func.id,
-                                    row__populated_table__trail=trail
-                                ).exists()
+                                poly_evaluated = trail_rows.has_function_values([poly_func.id])
                                 if poly_evaluated:
                                     has_polymorphic_values = True
                                     break
@@ -1019,7 +826,7 @@ def get_trail_filtered_lineage(request, trail_id):
                         pass
                 
                 # Add only rows that contributed to the final calculation (via backwards tracing)
-                for row in eval_table.derivedtablerow_set.all():
+                for row in trail_rows.derived_rows(eval_table):
                     # Use dynamic backwards tracing from the current calculation roots.
                     include_row = (
                         include_unused or
@@ -1170,16 +977,14 @@ def get_trail_filtered_lineage(request, trail_id):
                 })
 
             # Derived row source references for rows included in the filtered lineage.
-            row_refs = DerivedRowSourceReference.objects.filter(
-                derived_row__id__in=allowed_derived_row_ids
-            ).select_related('derived_row', 'content_type')
+            row_refs = trail_rows.row_sources(derived_row_ids=allowed_derived_row_ids)
             
             for ref in row_refs:
                 lineage_data['lineage_relationships']['derived_row_source_references'].append({
                     "id": ref.id,
-                    "derived_row_id": ref.derived_row.id,
-                    "source_object_type": ref.content_type.model,
-                    "source_object_id": ref.object_id
+                    "derived_row_id": ref.owner_id,
+                    "source_object_type": ref.source_type,
+                    "source_object_id": ref.source_id
                 })
 
             table_creation_function_ids = {
@@ -1495,22 +1300,18 @@ def get_trail_filtered_lineage(request, trail_id):
                 for row in output_table.get('rows', [])
                 if row.get('id')
             ]
-            row_source_refs = DerivedRowSourceReference.objects.filter(
-                derived_row_id__in=output_row_ids,
-            ).select_related(
-                'content_type',
-            )
+            row_source_refs = trail_rows.row_sources(derived_row_ids=output_row_ids)
             for ref in row_source_refs:
-                if ref.content_type.model == 'derivedtablerow':
-                    source_et = eval_table_by_row_id.get(ref.object_id)
+                if ref.source_type == 'derivedtablerow':
+                    source_et = eval_table_by_row_id.get(ref.source_id)
                     if source_et:
                         add_source_table(
                             source_et.get('table_name'),
                             source_et,
                             "derived",
                         )
-                elif ref.content_type.model == 'databaserow':
-                    source_pt = pop_db_table_by_row_id.get(ref.object_id)
+                elif ref.source_type == 'databaserow':
+                    source_pt = pop_db_table_by_row_id.get(ref.source_id)
                     if source_pt:
                         add_source_table(
                             source_pt.get('table_name'),
@@ -1526,6 +1327,7 @@ def get_trail_filtered_lineage(request, trail_id):
             )
             if not display_table:
                 display_table = _get_display_table_from_row_sources(
+                    trail_rows,
                     output_table,
                     eval_table_by_row_id,
                     output_table_names,
@@ -1617,6 +1419,8 @@ def get_trail_filtered_lineage(request, trail_id):
             "error": "An internal error occurred.",
             "trail_id": trail_id
         }, status=500)
+    finally:
+        trail_rows.close()
 
 
 @require_http_methods(["GET"])
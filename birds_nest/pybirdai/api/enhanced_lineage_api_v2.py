@@ -25,6 +25,7 @@ from django.db.models import Count, Sum, Avg, Max
 from django.contrib.contenttypes.models import ContentType
 from pybirdai.utils.secure_error_handling import SecureErrorHandler
 from pybirdai.utils.secure_logging import sanitize_log_value
+from pybirdai.process_steps.pybird.lineage_store import TrailRows, open_trail_store
 from pybirdai.models import (
     Trail, MetaDataTrail, DatabaseTable, DerivedTable,
     DatabaseField, Function, FunctionText, TableCreationFunction,
@@ -87,6 +88,7 @@ def get_enhanced_lineage(request, trail_id):
     include_flow = request.GET.get('include_flow', 'true').lower() == 'true'
     include_steps = request.GET.get('include_steps', 'true').lower() == 'true'
     include_cells = request.GET.get('include_cells', 'true').lower() == 'true'
+    stored_trail = None
 
     try:
         lineage_data = {
@@ -110,14 +112,17 @@ def get_enhanced_lineage(request, trail_id):
             }
         }
 
+        # Row-level data of large trails may be archived in the columnar store
+        stored_trail = open_trail_store(trail)
+
         # Process database tables
-        lineage_data = process_database_tables(trail, lineage_data, detail_level, max_rows, hide_empty)
+        lineage_data = process_database_tables(trail, lineage_data, detail_level, max_rows, hide_empty, stored_trail)
 
         # Process derived tables
-        lineage_data = process_derived_tables(trail, lineage_data, detail_level, max_rows, hide_empty)
+        lineage_data = process_derived_tables(trail, lineage_data, detail_level, max_rows, hide_empty, stored_trail)
 
         # Process lineage relationships
-        lineage_data = process_lineage_relationships(trail, lineage_data)
+        lineage_data = process_lineage_relationships(trail, lineage_data, stored_trail)
 
         # Add transformation steps if requested
         if include_steps:
@@ -163,6 +168,9 @@ def get_enhanced_lineage(request, trail_id):
                 'trail_name': trail.name,
             },
         )
+    finally:
+        if stored_trail is not None:
+            stored_trail.close()
 
 
 def serialize_trail(trail):
@@ -176,8 +184,8 @@ def serialize_trail(trail):
     }
 
 
-def process_database_tables(trail, lineage_data, detail_level, max_rows, hide_empty):
-    """Process database tables and their data"""
+def process_database_tables(trail, lineage_data, detail_level, max_rows, hide_empty, stored_trail=None):
+    """Process database tables and their data, reading rows from stored_trail when given"""
     populated_tables = PopulatedDataBaseTable.objects.filter(
         trail=trail
     ).select_related('table').prefetch_related(
@@ -189,7 +197,12 @@ def process_database_tables(trail, lineage_data, detail_level, max_rows, hide_em
 
     for pop_table in populated_tables:
         table = pop_table.table
-        rows = list(pop_table.databaserow_set.all()[:max_rows])
+        if stored_trail is not None:
+            rows = stored_trail.database_rows(
+                pop_table.id, limit=max_rows, include_values=detail_level == 'value'
+            )
+        else:
+            rows = list(pop_table.databaserow_set.all()[:max_rows])
 
         if hide_empty and not rows:
             continue
@@ -224,7 +237,11 @@ def process_database_tables(trail, lineage_data, detail_level, max_rows, hide_em
             "rows": []
         }
 
-        if detail_level in ['row', 'value']:
+        if stored_trail is not None:
+            pop_table_data['row_count'] = stored_trail.database_row_count(pop_table.id)
+            if detail_level in ['row', 'value']:
+                pop_table_data['rows'] = rows
+        elif detail_level in ['row', 'value']:
             for row in rows:
                 row_data = {
                     "id": row.id,
@@ -251,8 +268,8 @@ def process_database_tables(trail, lineage_data, detail_level, max_rows, hide_em
     return lineage_data
 
 
-def process_derived_tables(trail, lineage_data, detail_level, max_rows, hide_empty):
-    """Process derived tables and their data"""
+def process_derived_tables(trail, lineage_data, detail_level, max_rows, hide_empty, stored_trail=None):
+    """Process derived tables and their data, reading rows from stored_trail when given"""
     evaluated_tables = EvaluatedDerivedTable.objects.filter(
         trail=trail
     ).select_related('table', 'table__table_creation_function').prefetch_related(
@@ -262,7 +279,12 @@ def process_derived_tables(trail, lineage_data, detail_level, max_rows, hide_emp
 
     for eval_table in evaluated_tables:
         table = eval_table.table
-        rows = list(eval_table.derivedtablerow_set.all()[:max_rows])
+        if stored_trail is not None:
+            rows = stored_trail.derived_rows(
+                eval_table.id, limit=max_rows, include_values=detail_level == 'value'
+            )
+        else:
+            rows = list(eval_table.derivedtablerow_set.all()[:max_rows])
 
         if hide_empty and not rows:
             continue
@@ -300,7 +322,11 @@ def process_derived_tables(trail, lineage_data, detail_level, max_rows, hide_emp
             "rows": []
         }
 
-        if detail_level in ['row', 'value']:
+        if stored_trail is not None:
+            eval_table_data['row_count'] = stored_trail.derived_row_count(eval_table.id)
+            if detail_level in ['row', 'value']:
+                eval_table_data['rows'] = rows
+        elif detail_level in ['row', 'value']:
             for row in rows:
                 row_data = {
                     "id": row.id,
@@ -327,7 +353,7 @@ def process_derived_tables(trail, lineage_data, detail_level, max_rows, hide_emp
     return lineage_data
 
 
-def process_lineage_relationships(trail, lineage_data):
+def process_lineage_relationships(trail, lineage_data, stored_trail=None):
     """Process all lineage relationship types"""
     derived_table_ids = {dt['id'] for dt in lineage_data['derived_tables']}
 
@@ -385,7 +411,14 @@ def process_lineage_relationships(trail, lineage_data):
     eval_table_ids = [et['id'] for et in lineage_data['evaluated_derived_tables']]
 
     # Derived row source references
-    if eval_table_ids:
+    if eval_table_ids and stored_trail is not None:
+        lineage_data['lineage_relationships']['derived_row_source_references'].extend(
+            stored_trail.derived_row_source_references(eval_table_ids)
+        )
+        lineage_data['lineage_relationships']['evaluated_function_source_values'].extend(
+            stored_trail.evaluated_function_source_values(eval_table_ids)
+        )
+    elif eval_table_ids:
         row_refs = DerivedRowSourceReference.objects.filter(
             derived_row__populated_table__id__in=eval_table_ids
         ).select_related('derived_row', 'content_type')
@@ -741,6 +774,7 @@ def get_lineage_graph_data(request, trail_id):
     max_rows = int(request.GET.get('max_rows', 10))
     hide_empty = request.GET.get('hide_empty', 'true').lower() == 'true'
 
+    trail_rows = TrailRows.for_trail(trail)
     try:
         nodes = []
         edges = []
@@ -752,7 +786,7 @@ def get_lineage_graph_data(request, trail_id):
 
         for pop_table in populated_tables:
             table = pop_table.table
-            row_count = pop_table.databaserow_set.count()
+            row_count = trail_rows.database_row_count(pop_table)
 
             if hide_empty and row_count == 0:
                 continue
@@ -794,7 +828,7 @@ def get_lineage_graph_data(request, trail_id):
 
         for eval_table in evaluated_tables:
             table = eval_table.table
-            row_count = eval_table.derivedtablerow_set.count()
+            row_count = trail_rows.derived_row_count(eval_table)
 
             if hide_empty and row_count == 0:
                 continue
@@ -889,6 +923,8 @@ def get_lineage_graph_data(request, trail_id):
             request,
             'Graph data generation failed',
         )
+    finally:
+        trail_rows.close()
 
 
 @require_http_methods(["GET"])
@@ -898,6 +934,7 @@ def get_lineage_sankey_data(request, trail_id):
     """
     trail = get_object_or_404(Trail, pk=trail_id)
 
+    trail_rows = TrailRows.for_trail(trail)
     try:
         nodes = []
         links = []
@@ -910,7 +947,7 @@ def get_lineage_sankey_data(request, trail_id):
 
         for pop_table in db_tables:
             table = pop_table.table
-            row_count = pop_table.databaserow_set.count()
+            row_count = trail_rows.database_row_count(pop_table)
             if row_count > 0:
                 node_id = f"db_{table.id}"
                 node_index[node_id] = len(nodes)
@@ -928,7 +965,7 @@ def get_lineage_sankey_data(request, trail_id):
 
         for eval_table in derived_tables:
             table = eval_table.table
-            row_count = eval_table.derivedtablerow_set.count()
+            row_count = trail_rows.derived_row_count(eval_table)
             if row_count > 0:
                 is_output = bool(re.match(r'^F_\d{2}_\d{2}_REF_', table.name)) and 'UnionItem' not in table.name
                 node_id = f"derived_{table.id}"
@@ -982,3 +1019,5 @@ def get_lineage_sankey_data(request, trail_id):
             request,
             'Sankey data generation failed',
         )
+    finally:
+        trail_rows.close()
@@ -30,6 +30,7 @@ from datetime import datetime
 import logging
 
 from pybirdai.utils.secure_error_handling import SecureErrorHandler
+from pybirdai.process_steps.pybird.lineage_store import open_trail_store
 
 
 logger = logging.getLogger(__name__)
@@ -55,6 +56,7 @@ def get_trail_complete_lineage(request, trail_id):
     - All lineage relationships
     """
     trail = get_object_or_404(Trail, pk=trail_id)
+    stored_trail = None
     
     try:
         # Initialize the complete lineage structure
@@ -94,6 +96,9 @@ def get_trail_complete_lineage(request, trail_id):
             }
         }
         
+        # Row-level data of large trails may be archived in the columnar store
+        stored_trail = open_trail_store(trail)
+
         # 1. Get all populated database tables for this trail
         populated_db_tables = PopulatedDataBaseTable.objects.filter(
             trail=trail
@@ -136,6 +141,11 @@ def get_trail_complete_lineage(request, trail_id):
             }
             
             # Add rows and values
+            if stored_trail is not None:
+                pop_table_data['rows'] = stored_trail.database_rows(pop_table.id)
+                lineage_data['populated_database_tables'].append(pop_table_data)
+                continue
+
             for row in pop_table.databaserow_set.all():
                 row_data = {
                     "id": row.id,
@@ -237,6 +247,11 @@ def get_trail_complete_lineage(request, trail_id):
             }
             
             # Add rows and evaluated functions
+            if stored_trail is not None:
+                eval_table_data['rows'] = stored_trail.derived_rows(eval_table.id)
+                lineage_data['evaluated_derived_tables'].append(eval_table_data)
+                continue
+
             for row in eval_table.derivedtablerow_set.all():
                 row_data = {
                     "id": row.id,
@@ -302,7 +317,14 @@ def get_trail_complete_lineage(request, trail_id):
         
         # Derived row source references
         eval_table_ids = [et.id for et in evaluated_tables]
-        if eval_table_ids:
+        if eval_table_ids and stored_trail is not None:
+            lineage_data['lineage_relationships']['derived_row_source_references'].extend(
+                stored_trail.derived_row_source_references(eval_table_ids)
+            )
+            lineage_data['lineage_relationships']['evaluated_function_source_values'].extend(
+                stored_trail.evaluated_function_source_values(eval_table_ids)
+            )
+        elif eval_table_ids:
             row_refs = DerivedRowSourceReference.objects.filter(
                 derived_row__populated_table__id__in=eval_table_ids
             ).select_related('derived_row', 'content_type')
@@ -316,7 +338,7 @@ def get_trail_complete_lineage(request, trail_id):
                 })
         
         # Evaluated function source values
-        if eval_table_ids:
+        if eval_table_ids and stored_trail is None:
             value_refs = EvaluatedFunctionSourceValue.objects.filter(
                 evaluated_function__row__populated_table__id__in=eval_table_ids
             ).select_related('evaluated_function', 'content_type')
@@ -545,6 +567,9 @@ def get_trail_complete_lineage(request, trail_id):
             'trail_name': trail.name,
             'error_type': 'complete_lineage_extraction_failed'
         }, status=500)
+    finally:
+        if stored_trail is not None:
+            stored_trail.close()
 
 
 @require_http_methods(["GET"])
@@ -559,21 +584,31 @@ def get_trail_lineage_summary(request, trail_id):
         populated_db_tables = PopulatedDataBaseTable.objects.filter(trail=trail)
         evaluated_tables = EvaluatedDerivedTable.objects.filter(trail=trail)
         
-        total_db_rows = DatabaseRow.objects.filter(
-            populated_table__trail=trail
-        ).count()
-        
-        total_derived_rows = DerivedTableRow.objects.filter(
-            populated_table__trail=trail
-        ).count()
-        
-        total_column_values = DatabaseColumnValue.objects.filter(
-            row__populated_table__trail=trail
-        ).count()
-        
-        total_evaluated_functions = EvaluatedFunction.objects.filter(
-            row__populated_table__trail=trail
-        ).count()
+        stored_trail = open_trail_store(trail)
+        if stored_trail is not None:
+            # The archive holds the same rows, without joining the AORTA tables
+            with stored_trail:
+                stored_counts = stored_trail.counts()
+            total_db_rows = stored_counts['database_rows']
+            total_derived_rows = stored_counts['derived_rows']
+            total_column_values = stored_counts['column_values']
+            total_evaluated_functions = stored_counts['evaluated_functions']
+        else:
+            total_db_rows = DatabaseRow.objects.filter(
+                populated_table__trail=trail
+            ).count()
+
+            total_derived_rows = DerivedTableRow.objects.filter(
+                populated_table__trail=trail
+            ).count()
+
+            total_column_values = DatabaseColumnValue.objects.filter(
+                row__populated_table__trail=trail
+            ).count()
+
+            total_evaluated_functions = EvaluatedFunction.objects.filter(
+                row__populated_table__trail=trail
+            ).count()
         
         summary = {
             "trail": {
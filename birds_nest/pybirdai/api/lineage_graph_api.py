@@ -0,0 +1,235 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Paginated lineage graph API for large trails.
+
+Unlike the complete and filtered lineage endpoints, which return a whole
+trail in one response, these endpoints page through the trail's cached
+LineageGraph (see process_steps/pybird/lineage_graph_index.py):
+
+    api/trail/<id>/lineage-graph/nodes/   nodes, optionally of one type
+    api/trail/<id>/lineage-graph/edges/   edges, optionally of one type
+    api/trail/<id>/lineage-graph/expand/  nodes within `depth` edges of `node`
+
+Nodes are identified as '<type>:<pk>', e.g. 'derived_row:42'. Each response
+carries a `next_cursor` to pass back as `cursor` for the following page, or
+null on the last page. A cursor is bound to the graph it was issued for and
+is rejected once the trail's lineage has changed.
+"""
+
+import base64
+import binascii
+import logging
+
+from django.http import JsonResponse
+from django.shortcuts import get_object_or_404
+from django.views.decorators.http import require_http_methods
+
+from pybirdai.models import Trail
+from pybirdai.process_steps.pybird.lineage_graph_index import (
+    BOTH, DIRECTIONS, EDGE_TYPES, NODE_KINDS, get_trail_graph,
+)
+from pybirdai.utils.secure_error_handling import SecureErrorHandler
+from pybirdai.utils.secure_logging import sanitize_log_value
+
+logger = logging.getLogger(__name__)
+
+DEFAULT_PAGE_SIZE = 500
+MAX_PAGE_SIZE = 5000
+DEFAULT_DEPTH = 1
+MAX_DEPTH = 20
+
+
+class _BadRequest(Exception):
+    pass
+
+
+def _int_parameter(request, name, default, minimum, maximum):
+    raw = request.GET.get(name)
+    if raw in (None, ''):
+        return default
+    try:
+        value = int(raw)
+    except ValueError:
+        raise _BadRequest(f"{name} must be an integer")
+    if not minimum <= value <= maximum:
+        raise _BadRequest(f"{name} must be between {minimum} and {maximum}")
+    return value
+
+
+def _choice_parameter(request, name, choices, default=None):
+    value = request.GET.get(name) or default
+    if value is not None and value not in choices:
+        raise _BadRequest(f"{name} must be one of {', '.join(choices)}")
+    return value
+
+
+def _encode_cursor(graph, offset):
+    return base64.urlsafe_b64encode(f"{graph.version}|{offset}".encode()).decode()
+
+
+def _decode_cursor(request, graph):
+    cursor = request.GET.get('cursor')
+    if not cursor:
+        return 0
+    try:
+        version, _, offset = base64.urlsafe_b64decode(cursor.encode()).decode().rpartition('|')
+        offset = int(offset)
+    except (binascii.Error, UnicodeDecodeError, ValueError):
+        raise _BadRequest("Invalid cursor")
+    if version != graph.version or offset < 0:
+        raise _BadRequest("Cursor is from an older version of this trail's lineage; start again without cursor")
+    return offset
+
+
+def _page(request, graph, items):
+    limit = _int_parameter(request, 'limit', DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE)
+    offset = _decode_cursor(request, graph)
+    stop = offset + limit
+    next_cursor = _encode_cursor(graph, stop) if stop < len(items) else None
+    return offset, stop, next_cursor
+
+
+def _serialize_node(graph, node, depth=None):
+    parent = graph.parents[node]
+    data = {
+        "id": graph.node_key(node),
+        "type": NODE_KINDS[graph.kinds[node]],
+        "object_id": graph.objects[node],
+        "label": graph.labels[node],
+        "table": graph.node_key(parent) if parent != -1 else None,
+        "in_degree": len(graph.in_edges(node)),
+        "out_degree": len(graph.out_edges(node)),
+    }
+    if depth is not None:
+        data["depth"] = depth
+    return data
+
+
+def _serialize_edge(graph, edge):
+    return {
+        "id": edge,
+        "source": graph.node_key(graph.edge_sources[edge]),
+        "target": graph.node_key(graph.edge_targets[edge]),
+        "type": EDGE_TYPES[graph.edge_types[edge]],
+    }
+
+
+def _serialize_summary(graph, summary):
+    return {
+        "total_nodes": graph.node_count,
+        "total_edges": graph.edge_count,
+        "generated_at": summary.generated_at.isoformat() if summary else None,
+        **graph.counts(),
+    }
+
+
+def _graph_response(request, trail_id, build_payload):
+    trail = get_object_or_404(Trail, pk=trail_id)
+    try:
+        graph, summary = get_trail_graph(trail)
+        payload = build_payload(graph)
+        payload["trail_id"] = trail.id
+        payload["summary"] = _serialize_summary(graph, summary)
+        return JsonResponse(payload)
+    except _BadRequest as e:
+        return JsonResponse({'error': str(e)}, status=400)
+    except Exception as e:
+        logger.exception("Error paging lineage graph of trail %s", sanitize_log_value(trail_id))
+        error_data = SecureErrorHandler.handle_exception(e, f'paging lineage graph of trail {trail_id}', request)
+        return JsonResponse({'error': 'Lineage graph query failed', 'message': error_data['message']}, status=500)
+
+
+@require_http_methods(["GET"])
+def get_lineage_graph_nodes(request, trail_id):
+    """
+    One page of the trail's graph nodes.
+
+    Query parameters:
+    - type: database_table, derived_table, database_row or derived_row (default: all)
+    - limit: Page size (default: 500, at most 5000)
+    - cursor: next_cursor of the previous page
+    """
+    def payload(graph):
+        nodes = graph.nodes(_choice_parameter(request, 'type', NODE_KINDS))
+        offset, stop, next_cursor = _page(request, graph, nodes)
+        return {
+            "nodes": [_serialize_node(graph, node) for node in nodes[offset:stop]],
+            "next_cursor": next_cursor,
+            "total": len(nodes),
+        }
+    return _graph_response(request, trail_id, payload)
+
+
+@require_http_methods(["GET"])
+def get_lineage_graph_edges(request, trail_id):
+    """
+    One page of the trail's graph edges.
+
+    Query parameters:
+    - type: contains, data_flow or derived_from (default: all)
+    - limit: Page size (default: 500, at most 5000)
+    - cursor: next_cursor of the previous page
+    """
+    def payload(graph):
+        edges = graph.edges(_choice_parameter(request, 'type', EDGE_TYPES))
+        offset, stop, next_cursor = _page(request, graph, edges)
+        return {
+            "edges": [_serialize_edge(graph, edge) for edge in edges[offset:stop]],
+            "next_cursor": next_cursor,
+            "total": len(edges),
+        }
+    return _graph_response(request, trail_id, payload)
+
+
+@require_http_methods(["GET"])
+def expand_lineage_graph_node(request, trail_id):
+    """
+    Nodes reachable from one node within a number of edges, nearest first.
+
+    Each page also carries the edges connecting its nodes to nodes of the
+    same or earlier pages, so a client can add pages to its graph as they
+    arrive.
+
+    Query parameters:
+    - node: Start node, e.g. derived_row:42 (required)
+    - depth: Number of edges to follow (default: 1, at most 20)
+    - direction: upstream (towards sources), downstream or both (default: both)
+    - limit: Page size (default: 500, at most 5000)
+    - cursor: next_cursor of the previous page
+    """
+    def payload(graph):
+        node_key = request.GET.get('node')
+        if not node_key:
+            raise _BadRequest("node is required")
+        start = graph.find_node(node_key)
+        if start is None:
+            raise _BadRequest(f"Unknown node {node_key}")
+        depth = _int_parameter(request, 'depth', DEFAULT_DEPTH, 0, MAX_DEPTH)
+        direction = _choice_parameter(request, 'direction', DIRECTIONS, BOTH)
+
+        expansion = graph.expand(start, depth, direction)
+        offset, stop, next_cursor = _page(request, graph, expansion.order)
+        return {
+            "node": graph.node_key(start),
+            "depth": depth,
+            "direction": direction,
+            "nodes": [
+                _serialize_node(graph, node, expansion.depths[node])
+                for node in expansion.order[offset:stop]
+            ],
+            "edges": [_serialize_edge(graph, edge) for edge in expansion.edges_for_page(offset, stop)],
+            "next_cursor": next_cursor,
+            "total": len(expansion),
+        }
+    return _graph_response(request, trail_id, payload)
@@ -0,0 +1,605 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+
+"""
+Compact in-memory storage for the large SDDContext dictionaries.
+
+A full DPM import keeps hundreds of thousands of MEMBER, COMBINATION,
+TABLE_CELL, COMBINATION_ITEM, CELL_POSITION and ORDINATE_ITEM instances in
+SDDContext. Every Django instance carries its own
+__dict__, a ModelState with a fields cache, and a private copy of each
+string it was built from, so the dictionaries end up far larger than the
+data in them.
+
+CompactModelStore is a dict replacement for such a dictionary. Values are
+kept column-wise: one array of integer surrogate keys per concrete field,
+pointing into a shared ValuePool in which every distinct value (ids, codes,
+names, foreign key ids) is stored once, interned. Auto field columns hold
+the integer ids themselves, since no two rows share one. Instances are rebuilt on
+access; a weak cache returns the same instance for as long as someone still
+holds it, so objects waiting for bulk_create keep their identity. When the
+last reference to an instance goes away its fields are written back to the
+columns, so changes made to it after it was stored are not lost.
+CompactListStore does the same for the dictionaries of lists (combination
+items, cell positions and ordinate items per parent id).
+
+The stores only pay off for instances nobody else holds: a member that is
+also a key of member_id_to_domain_map stays alive as a full instance.
+memory_report() counts those held instances against the store.
+"""
+
+import sys
+import weakref
+from array import array
+from collections.abc import MutableMapping, MutableSequence
+from itertools import islice
+
+
+class ValuePool:
+    """Distinct field values, each stored once and addressed by an integer."""
+
+    __slots__ = ('_ids', '_values')
+
+    def __init__(self):
+        self._ids = {}
+        self._values = []
+
+    def id_for(self, value):
+        # The type is part of the key so that 1, 1.0 and True stay distinct
+        try:
+            key = (value.__class__, value)
+            return self._ids[key]
+        except KeyError:
+            pass
+        except TypeError:
+            self._values.append(value)
+            return len(self._values) - 1
+        if isinstance(value, str):
+            value = sys.intern(value)
+        value_id = len(self._values)
+        self._values.append(value)
+        self._ids[(value.__class__, value)] = value_id
+        return value_id
+
+    def value(self, value_id):
+        return self._values[value_id]
+
+    def __len__(self):
+        return len(self._values)
+
+    def approximate_size(self):
+        values = sum(sys.getsizeof(value) for value in self._values)
+        return sys.getsizeof(self._ids) + sys.getsizeof(self._values) + 64 * len(self._ids) + values
+
+
+# Stands for None in the columns of auto fields, which hold the ids themselves
+_NONE_ID = -2 ** 63
+
+
+def _is_auto_field(field):
+    get_internal_type = getattr(field, 'get_internal_type', None)
+    return get_internal_type is not None and get_internal_type().endswith('AutoField')
+
+
+class CompactModelStore(MutableMapping):
+    """
+    Dict of Django model instances of one class, stored as columns of pooled values.
+
+    Example:
+        members = CompactModelStore(MEMBER, pool, related={'domain_id': domain_dictionary.get})
+        members[member.member_id] = member
+        members.get('EBA_AT_x1')  # a MEMBER, rebuilt if nobody else holds it
+    """
+
+    __slots__ = ('model', 'related', '_pool', '_attnames', '_raw', '_columns', '_index', '_free',
+                 '_live', '_held', '_on_release', '_other', '__weakref__')
+
+    def __init__(self, model, pool=None, related=None):
+        """
+        Args:
+            model: Django model class of the stored instances
+            pool: ValuePool shared with other stores, a private one by default
+            related: {foreign key field name: callable(pk) returning the related
+                     instance or None}, used to prefill the relation on rebuilt
+                     instances instead of leaving it to a database query
+        """
+        self.model = model
+        self.related = dict(related or {})
+        self._pool = pool if pool is not None else ValuePool()
+        self._attnames = tuple(field.attname for field in model._meta.concrete_fields)
+        self._raw = tuple(_is_auto_field(field) for field in model._meta.concrete_fields)
+        self._columns = tuple(array('q') for _ in self._attnames)
+        self._index = {}
+        self._free = []
+        # Row -> weak reference to the instance stored or rebuilt for it, and
+        # row -> that instance's __dict__, written back to the row once the
+        # instance is gone. A replaced or released row drops both, so a late
+        # write-back never lands on another record.
+        self._live = {}
+        self._held = {}
+        store = weakref.ref(self)
+
+        def on_release(reference):
+            owner = store()
+            if owner is not None:
+                owner._write_back(reference)
+
+        self._on_release = on_release
+        # Values of another type are kept as they are
+        self._other = {}
+
+    @property
+    def pool(self):
+        return self._pool
+
+    def __len__(self):
+        return len(self._index) + len(self._other)
+
+    def __iter__(self):
+        yield from self._index
+        yield from self._other
+
+    def __contains__(self, key):
+        return key in self._index or key in self._other
+
+    def __getitem__(self, key):
+        row = self._index.get(key)
+        if row is None:
+            return self._other[key]
+        return self._instance(row)
+
+    def get(self, key, default=None):
+        try:
+            return self[key]
+        except KeyError:
+            return default
+
+    def __setitem__(self, key, instance):
+        if type(instance) is not self.model:
+            if key in self._index:
+                self._drop(self._index.pop(key))
+            self._other[key] = instance
+            return
+        self._other.pop(key, None)
+        if isinstance(key, str):
+            key = sys.intern(key)
+        self._index[key] = self._store(instance, self._index.get(key))
+
+    def __delitem__(self, key):
+        if key in self._index:
+            self._drop(self._index.pop(key))
+        else:
+            del self._other[key]
+
+    def clear(self):
+        self._index.clear()
+        self._free.clear()
+        self._other.clear()
+        self._live = {}
+        self._held = {}
+        for column in self._columns:
+            del column[:]
+
+    @property
+    def live_count(self):
+        """Number of stored instances that are currently held somewhere."""
+        return len(self._live)
+
+    def _store(self, instance, row=None):
+        """Write instance into row, a free or new one by default, and return the row."""
+        if row is None and self._free:
+            row = self._free.pop()
+        encoded = self._encode(instance.__dict__)
+        if row is None:
+            row = len(self._columns[0])
+            for column, value in zip(self._columns, encoded):
+                column.append(value)
+        else:
+            for column, value in zip(self._columns, encoded):
+                column[row] = value
+        self._hold(row, instance)
+        return row
+
+    def _encode(self, values):
+        id_for = self._pool.id_for
+        for attname, raw in zip(self._attnames, self._raw):
+            value = values.get(attname)
+            if raw:
+                yield _NONE_ID if value is None else value
+            else:
+                yield id_for(value)
+
+    def _instance(self, row):
+        reference = self._live.get(row)
+        instance = reference() if reference is not None else None
+        if instance is None:
+            if reference is not None:
+                self._write_back(reference)
+            instance = self._materialise(row)
+            self._hold(row, instance)
+        return instance
+
+    def _drop(self, row):
+        self._live.pop(row, None)
+        self._held.pop(row, None)
+        self._free.append(row)
+
+    def _hold(self, row, instance):
+        self._live[row] = weakref.KeyedRef(instance, self._on_release, row)
+        self._held[row] = instance.__dict__
+
+    def _write_back(self, reference):
+        row = reference.key
+        if self._live.get(row) is not reference:
+            return
+        del self._live[row]
+        for column, value in zip(self._columns, self._encode(self._held.pop(row))):
+            column[row] = value
+
+    def _materialise(self, row):
+        value = self._pool.value
+        values = []
+        for column, raw in zip(self._columns, self._raw):
+            encoded = column[row]
+            if raw:
+                values.append(None if encoded == _NONE_ID else encoded)
+            else:
+                values.append(value(encoded))
+        instance = self.model.from_db(None, self._attnames, values)
+        for field_name, resolve in self.related.items():
+            related_id = instance.__dict__.get(field_name + '_id')
+            if related_id is None:
+                continue
+            related = resolve(related_id)
+            if related is not None:
+                instance._state.fields_cache[field_name] = related
+        return instance
+
+    def _held_instances(self):
+        return [instance for instance in (reference() for reference in self._live.values())
+                if instance is not None]
+
+    def approximate_size(self):
+        """
+        Bytes held by this store, not counting the shared pool. Instances that
+        are still held, by the caller or by another dictionary, are counted too:
+        they stay in memory next to their compact record.
+        """
+        columns = sum(column.buffer_info()[1] * column.itemsize for column in self._columns)
+        held = self._held_instances()
+        return (sys.getsizeof(self._index) + columns + sys.getsizeof(self._free)
+                + sys.getsizeof(self._live) + sys.getsizeof(self._held)
+                + 80 * len(self._live)
+                + approximate_mapping_size(self._other)
+                + _approximate_sample_size(held, len(held)))
+
+
+class CompactListStore(MutableMapping):
+    """
+    Dict of lists of Django model instances of one class, such as the
+    combination items of each combination.
+
+    The instances of all lists are records of one CompactModelStore and each
+    list is an array of their rows. A list read from the store is a
+    CompactList view: appending to it appends to the stored list. A list
+    assigned to a key is copied into the store, so append to the view
+    returned by store[key] or store.setdefault(key, []) afterwards, not to
+    the assigned list.
+
+    Example:
+        items = CompactListStore(COMBINATION_ITEM, pool, related={...})
+        items.setdefault(combination_id, []).append(combination_item)
+    """
+
+    __slots__ = ('_records', '_lists', '_objects')
+
+    def __init__(self, model, pool=None, related=None):
+        self._records = CompactModelStore(model, pool, related)
+        self._lists = {}
+        # Values of another type, addressed by negative rows
+        self._objects = []
+
+    @property
+    def model(self):
+        return self._records.model
+
+    @property
+    def pool(self):
+        return self._records.pool
+
+    @property
+    def live_count(self):
+        return self._records.live_count
+
+    def __len__(self):
+        return len(self._lists)
+
+    def __iter__(self):
+        return iter(self._lists)
+
+    def __contains__(self, key):
+        return key in self._lists
+
+    def __getitem__(self, key):
+        if key not in self._lists:
+            raise KeyError(key)
+        return CompactList(self, key)
+
+    def __setitem__(self, key, values):
+        if isinstance(key, str):
+            key = sys.intern(key)
+        values = list(values)
+        old_rows = self._lists.get(key)
+        self._lists[key] = array('q', [self._add(value) for value in values])
+        if old_rows is not None:
+            self._release(old_rows)
+
+    def __delitem__(self, key):
+        self._release(self._lists.pop(key))
+
+    def setdefault(self, key, default=None):
+        if key not in self._lists:
+            self[key] = default if default is not None else []
+        return self[key]
+
+    def clear(self):
+        self._lists.clear()
+        self._records.clear()
+        del self._objects[:]
+
+    def _add(self, value):
+        if type(value) is self._records.model:
+            return self._records._store(value)
+        self._objects.append(value)
+        return -len(self._objects)
+
+    def _value(self, row):
+        if row < 0:
+            return self._objects[-row - 1]
+        return self._records._instance(row)
+
+    def _release(self, rows):
+        for row in rows:
+            if row >= 0:
+                self._records._drop(row)
+
+    def approximate_size(self):
+        """Bytes held by this store, not counting the shared pool."""
+        return (self._records.approximate_size() + sys.getsizeof(self._lists)
+                + _approximate_sample_size(self._lists.values(), len(self._lists))
+                + _approximate_sample_size(self._objects, len(self._objects)))
+
+
+class CompactList(MutableSequence):
+    """One list of a CompactListStore, read and written through the store."""
+
+    __slots__ = ('_store', '_key')
+
+    def __init__(self, store, key):
+        self._store = store
+        self._key = key
+
+    def _rows(self):
+        return self._store._lists[self._key]
+
+    def __len__(self):
+        return len(self._rows())
+
+    def __iter__(self):
+        value = self._store._value
+        for row in self._rows():
+            yield value(row)
+
+    def __getitem__(self, index):
+        if isinstance(index, slice):
+            return [self._store._value(row) for row in self._rows()[index]]
+        return self._store._value(self._rows()[index])
+
+    def __setitem__(self, index, value):
+        rows = self._rows()
+        old_row = rows[index]
+        rows[index] = self._store._add(value)
+        self._store._release((old_row,))
+
+    def __delitem__(self, index):
+        rows = self._rows()
+        removed = rows[index] if isinstance(index, slice) else (rows[index],)
+        del rows[index]
+        self._store._release(removed)
+
+    def insert(self, index, value):
+        self._rows().insert(index, self._store._add(value))
+
+    def append(self, value):
+        self._rows().append(self._store._add(value))
+
+    def __eq__(self, other):
+        if isinstance(other, (list, CompactList)):
+            return list(self) == list(other)
+        return NotImplemented
+
+    def __repr__(self):
+        return repr(list(self))
+
+
+def _approximate_value_size(value):
+    if isinstance(value, (list, tuple, set)):
+        return sys.getsizeof(value) + sum(_approximate_value_size(item) for item in value)
+    size = sys.getsizeof(value)
+    attributes = getattr(value, '__dict__', None)
+    if attributes is None:
+        return size
+    size += sys.getsizeof(attributes)
+    for attribute in attributes.values():
+        if isinstance(attribute, str):
+            size += sys.getsizeof(attribute)
+    state = attributes.get('_state')
+    if state is not None:
+        size += sys.getsizeof(state) + sys.getsizeof(state.__dict__)
+        size += sys.getsizeof(state.__dict__.get('fields_cache', {}))
+    return size
+
+
+def approximate_mapping_size(mapping, sample=200):
+    """
+    Estimate the bytes held by a dictionary of model instances (or lists of them).
+
+    Values are measured on a sample of up to `sample` entries, which is enough
+    to compare layouts without walking a dictionary of a million members.
+    Strings shared between instances are counted for each of them.
+    """
+    if isinstance(mapping, (CompactModelStore, CompactListStore)):
+        return mapping.approximate_size()
+    return sys.getsizeof(mapping) + _approximate_sample_size(mapping.items(), len(mapping), sample)
+
+
+def _approximate_sample_size(values, count, sample=200):
+    taken = list(islice(values, sample))
+    if not taken:
+        return 0
+    return sum(_approximate_value_size(value) for value in taken) * count // len(taken)
+
+
+def memory_report(dictionaries, pool=None):
+    """
+    Describe the size of a set of dictionaries.
+
+    Args:
+        dictionaries: {name: dict or CompactModelStore}
+        pool: ValuePool shared by the compact stores, counted once
+
+    Returns:
+        {'dictionaries': {name: {'entries': n, 'held': n, 'bytes': approx}},
+         'pool_bytes': n, 'total_bytes': n}, where held is the number of
+        entries of a compact store that are also alive as full instances
+    """
+    report = {'dictionaries': {}, 'pool_bytes': 0, 'total_bytes': 0}
+    for name, mapping in dictionaries.items():
+        size = approximate_mapping_size(mapping)
+        held = (mapping.live_count if isinstance(mapping, (CompactModelStore, CompactListStore))
+                else len(mapping))
+        report['dictionaries'][name] = {'entries': len(mapping), 'held': held, 'bytes': size}
+        report['total_bytes'] += size
+    if pool is not None:
+        report['pool_bytes'] = pool.approximate_size()
+        report['total_bytes'] += report['pool_bytes']
+    return report
+
+
+def metadata_store_layout(owner):
+    """
+    The SDD context dictionaries kept in compact stores, as
+    {name: (store class, model, related lookups)}. Related instances are
+    looked up in the dictionaries of owner, the context class or instance
+    holding the store.
+    """
+    from pybirdai.models.bird_meta_data_model import (
+        CELL_POSITION, COMBINATION, COMBINATION_ITEM, MEMBER, ORDINATE_ITEM, TABLE_CELL,
+    )
+
+    def lookup(dictionary_name):
+        return lambda pk: getattr(owner, dictionary_name).get(pk)
+
+    return {
+        'member_dictionary': (CompactModelStore, MEMBER, {
+            'maintenance_agency_id': lookup('agency_dictionary'),
+            'domain_id': lookup('domain_dictionary'),
+        }),
+        'combination_dictionary': (CompactModelStore, COMBINATION, {
+            'maintenance_agency_id': lookup('agency_dictionary'),
+            'metric': lookup('variable_dictionary'),
+        }),
+        'table_cell_dictionary': (CompactModelStore, TABLE_CELL, {
+            'table_id': lookup('report_tables_dictionary'),
+        }),
+        'combination_item_dictionary': (CompactListStore, COMBINATION_ITEM, {
+            'combination_id': lookup('combination_dictionary'),
+            'variable_id': lookup('variable_dictionary'),
+            'subdomain_id': lookup('subdomain_dictionary'),
+            'member_id': lookup('member_dictionary'),
+            'member_hierarchy': lookup('member_hierarchy_dictionary'),
+        }),
+        'cell_positions_dictionary': (CompactListStore, CELL_POSITION, {
+            'cell_id': lookup('table_cell_dictionary'),
+            'axis_ordinate_id': lookup('axis_ordinate_dictionary'),
+        }),
+        'axis_ordinate_to_ordinate_items_map': (CompactListStore, ORDINATE_ITEM, {
+            'axis_ordinate_id': lookup('axis_ordinate_dictionary'),
+            'variable_id': lookup('variable_dictionary'),
+            'member_id': lookup('member_dictionary'),
+            'member_hierarchy_id': lookup('member_hierarchy_dictionary'),
+            'starting_member_id': lookup('member_dictionary'),
+        }),
+    }
+
+
+def _shared_pool(owner):
+    context_class = owner if isinstance(owner, type) else type(owner)
+    if context_class.value_pool is None:
+        context_class.value_pool = ValuePool()
+    return context_class.value_pool
+
+
+def enable_compact_metadata_stores(context_class):
+    """
+    Move the metadata_store_layout dictionaries of a context class into
+    compact stores. Dictionaries that are plain dicts again are converted
+    with their current content.
+
+    Returns:
+        (report before, report after) of the converted dictionaries, or None
+        if none of them had entries
+    """
+    layout = metadata_store_layout(context_class)
+    plain = {name: getattr(context_class, name) for name in layout
+             if not isinstance(getattr(context_class, name), layout[name][0])}
+    if not plain:
+        return None
+    pool = _shared_pool(context_class)
+    before = memory_report(plain) if any(plain.values()) else None
+
+    names = list(plain)
+    for name in names:
+        store_class, model, related = layout[name]
+        store = store_class(model, pool, related)
+        # Popped so the converted instances are released before measuring
+        store.update(plain.pop(name))
+        setattr(context_class, name, store)
+
+    if before is None:
+        return None
+    return before, memory_report({name: getattr(context_class, name) for name in names}, pool)
+
+
+def reset_metadata_dictionary(owner, name):
+    """
+    Give owner, a context class or instance, an empty dictionary called name:
+    a compact store when the context uses them, a dict otherwise. Resets of
+    the metadata_store_layout dictionaries go through here, an assignment of
+    {} would take the dictionary out of its store.
+    """
+    if getattr(owner, 'use_compact_metadata_store', False):
+        store_class, model, related = metadata_store_layout(owner)[name]
+        setattr(owner, name, store_class(model, _shared_pool(owner), related))
+    else:
+        setattr(owner, name, {})
+
+
+def format_memory_report(report):
+    lines = [f"{name}: {entry['entries']} entries ({entry['held']} held as instances), "
+             f"~{entry['bytes'] / 1048576:.1f} MB"
+             for name, entry in report['dictionaries'].items()]
+    if report['pool_bytes']:
+        lines.append(f"shared value pool: ~{report['pool_bytes'] / 1048576:.1f} MB")
+    lines.append(f"total: ~{report['total_bytes'] / 1048576:.1f} MB")
+    return "\n".join(lines)
@@ -51,6 +51,20 @@ class Context:
 
     check_domain_members_during_join_meta_data_creation = False
 
+    # Worker processes JoinsMetaDataCreator forks to create the joins of
+    # several reports at once. 0 creates them one after the other
+    joins_meta_data_workers = 0
+
+    # How generated Cell_ classes filter product tables: 'loop' calls the
+    # filter per item, 'vectorised' uses the columnar kernels in filter_kernels.py
+    executable_filter_mode = 'loop'
+
+    # Where the lineage APIs read the row-level lineage of large trails: 'orm'
+    # queries the AORTA tables, 'columnar' moves the rows of trails with at least
+    # columnar_lineage_min_rows rows to results/lineage_store (see lineage_store.py)
+    lineage_storage_backend = 'orm'
+    columnar_lineage_min_rows = 50000
+
     enrich_ldm_relationships = False
     use_codes = True
 
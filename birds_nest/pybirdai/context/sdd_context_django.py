@@ -11,6 +11,9 @@
 #    Neil Mackenzie - initial API and implementation
 #
 
+import logging
+
+logger = logging.getLogger(__name__)
 
 
 class SDDContext:
@@ -33,6 +36,8 @@ class SDDContext:
     subdomain_enumeration_dictionary = {}
     members_that_are_nodes = {}
     member_plus_hierarchy_to_child_literals = {}
+    # MemberHierarchyClosure over member_plus_hierarchy_to_child_literals
+    member_hierarchy_closure = None
     domain_to_hierarchy_dictionary = {}
     combinations_dictionary = {}
     member_dictionary = {}
@@ -104,8 +109,43 @@ class SDDContext:
 
     save_sdd_to_db = True
 
+    # Keep members, combinations, table cells and the combination item, cell
+    # position and ordinate item lists in column stores of pooled, interned
+    # values instead of dicts of model instances, see
+    # pybirdai.context.compact_store. Reset those dictionaries with
+    # compact_store.reset_metadata_dictionary, not by assigning {}.
+    use_compact_metadata_store = True
+    value_pool = None
+
     exclude_reference_info_from_website = False
 
     def __init__(self):
-
-        pass
+        if SDDContext.use_compact_metadata_store:
+            SDDContext.enable_compact_metadata_store()
+
+    @classmethod
+    def enable_compact_metadata_store(cls):
+        '''
+        Move the compact_store.metadata_store_layout dictionaries into compact
+        stores. Dictionaries that were replaced by a plain dict since are
+        converted again with their current content.
+        '''
+        from pybirdai.context.compact_store import enable_compact_metadata_stores, format_memory_report
+
+        reports = enable_compact_metadata_stores(cls)
+        if reports is not None:
+            logger.info("SDD context dictionaries before compaction:\n%s\nafter:\n%s",
+                        *(format_memory_report(report) for report in reports))
+
+    @classmethod
+    def memory_report(cls):
+        '''
+        Approximate size of the largest SDD context dictionaries, see
+        pybirdai.context.compact_store.memory_report.
+        '''
+        from pybirdai.context.compact_store import memory_report
+
+        names = ('member_dictionary', 'combination_dictionary', 'table_cell_dictionary',
+                 'combination_item_dictionary', 'cell_positions_dictionary',
+                 'axis_ordinate_to_ordinate_items_map', 'members_that_are_nodes')
+        return memory_report({name: getattr(cls, name) for name in names}, cls.value_pool)
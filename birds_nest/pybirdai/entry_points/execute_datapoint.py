@@ -58,6 +58,24 @@ class RunExecuteDataPoint(AppConfig):
              data_point_id
         )
 
+    @staticmethod
+    def run_execute_data_points(data_point_ids, max_workers=None, suppress_lineage=None):
+        """
+        Execute a list of datapoints across a pool of worker processes.
+
+        Returns a DataPointBatchResult holding the value, error and timing of
+        every datapoint in the order they were requested.
+        """
+        from pybirdai.process_steps.pybird.execute_datapoint_batch import (
+            ExecuteDataPointBatch
+        )
+
+        return ExecuteDataPointBatch.execute_data_points(
+            data_point_ids,
+            max_workers=max_workers,
+            suppress_lineage=suppress_lineage
+        )
+
     def ready(self):
         # This method is still needed for Django's AppConfig
         pass
@@ -66,7 +66,8 @@ class RunANCRDTTable(AppConfig):
 
     @staticmethod
     def run_execute_ancrdt_table(table_name, filters=None,
-                                 aggregate_by=None, aggregate_func=None, aggregate_column=None):
+                                 aggregate_by=None, aggregate_func=None, aggregate_column=None,
+                                 stream=False, chunk_size=None):
         """
         Execute an ANCRDT table transformation by name with optional filtering and aggregation.
 
@@ -80,6 +81,8 @@ class RunANCRDTTable(AppConfig):
             aggregate_by (str or list, optional): Column name(s) to group by for aggregation
             aggregate_func (str, optional): Aggregation function - 'count', 'sum', or 'mean'
             aggregate_column (str, optional): Column to aggregate (required for sum/mean)
+            stream (bool, optional): Process the rows in chunks with bounded memory
+            chunk_size (int, optional): Rows per chunk when streaming
 
         Returns:
             dict: Execution results containing:
@@ -134,7 +137,9 @@ class RunANCRDTTable(AppConfig):
             filters=filters,
             aggregate_by=aggregate_by,
             aggregate_func=aggregate_func,
-            aggregate_column=aggregate_column
+            aggregate_column=aggregate_column,
+            stream=stream,
+            chunk_size=chunk_size
         )
 
     def ready(self):
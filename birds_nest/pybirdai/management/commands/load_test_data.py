@@ -441,6 +441,11 @@ class Command(BaseCommand):
             # Close Django connections to ensure data visibility
             connection.close()
 
+            # Raw inserts send no signals, so drop the input data cached
+            # by earlier executions in this process
+            from pybirdai.process_steps.pybird.orchestration import invalidate_input_data_caches
+            invalidate_input_data_caches()
+
             if self.verbose:
                 self.stdout.write(self.style.SUCCESS(
                     f"Successfully loaded {len(statements)} SQL statements"
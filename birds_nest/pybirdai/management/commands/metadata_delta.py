@@ -0,0 +1,72 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Benjamin Arfa - initial API and implementation
+
+"""
+Management command to sync metadata between environments with delta exports.
+
+Usage:
+    python manage.py metadata_delta export               # Rows changed since the last delta export
+    python manage.py metadata_delta export --rebase      # Every row, as the start of a new chain
+    python manage.py metadata_delta apply results/database_export_delta.zip
+    python manage.py metadata_delta apply delta.zip --force
+"""
+
+from django.core.management.base import BaseCommand, CommandError
+import os
+
+
+class Command(BaseCommand):
+    help = 'Export or apply a delta of the metadata tables'
+
+    def add_arguments(self, parser):
+        parser.add_argument('action', choices=['export', 'apply'])
+        parser.add_argument(
+            'zip_path',
+            nargs='?',
+            type=str,
+            help='Delta zip to apply'
+        )
+        parser.add_argument(
+            '--rebase',
+            action='store_true',
+            help='Export every table in full and start a new chain of deltas'
+        )
+        parser.add_argument(
+            '--force',
+            action='store_true',
+            help='Apply even when the delta does not follow the last applied one'
+        )
+
+    def handle(self, *args, **options):
+        if options['action'] == 'export':
+            from pybirdai.views.core.export_db import _export_database_delta
+
+            zip_file_path, manifest = _export_database_delta(rebase=options['rebase'])
+            self.stdout.write(self.style.SUCCESS(
+                f"Wrote {zip_file_path}: {len(manifest['tables'])} changed tables, "
+                f"{manifest['unchanged_tables']} unchanged"
+            ))
+            return
+
+        zip_path = options['zip_path']
+        if not zip_path or not os.path.exists(zip_path):
+            raise CommandError(f'Delta zip not found: {zip_path}')
+
+        from pybirdai.utils.clone_mode.import_from_metadata_export import CSVDataImporter
+
+        try:
+            results = CSVDataImporter().apply_delta_zip(zip_path, force=options['force'])
+        except ValueError as e:
+            raise CommandError(str(e))
+        for table_name, counts in results.items():
+            self.stdout.write(f"  {table_name}: {counts['changed']} changed, {counts['deleted']} deleted")
+        self.stdout.write(self.style.SUCCESS(f'Applied delta to {len(results)} tables'))
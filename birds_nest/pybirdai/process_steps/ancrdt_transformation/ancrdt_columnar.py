@@ -0,0 +1,212 @@
+# coding=UTF-8
+# Copyright (c) 2025 Arfa Digital Consulting
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Benjamin Arfa - initial API and implementation
+#
+"""
+Columnar post-processing of ANCRDT table rows.
+
+ExecuteANCRDTTable.filter_rows and aggregate_rows used to call
+row.DIMENSION() for every row, once for each filter and once more for each
+group key and aggregate. Here every dimension the request needs is read from
+the rows exactly once, into a pandas frame. The filters then become isin
+masks and the aggregation a groupby. Results have the same shape and values
+as the row-by-row implementation:
+- A row lacking a filtered dimension, or whose method raises, does not match.
+- Group keys are str(value), or None when the value cannot be read.
+- sum and mean skip values that are None or not convertible to float.
+
+StreamingAggregate does the same aggregation over chunks of rows, for
+ExecuteANCRDTTable.execute_table(stream=True).
+"""
+
+import logging
+
+import numpy as np
+import pandas as pd
+
+from pybirdai.utils.secure_logging import sanitize_log_value
+
+logger = logging.getLogger(__name__)
+
+# Value of a dimension that a row does not have or could not compute
+MISSING = object()
+
+VALUE_COLUMN = '__value__'
+
+
+def _read_column(rows, dimension, convert=None):
+    values = []
+    failures = 0
+    last_error = None
+    for row in rows:
+        method = getattr(row, dimension, None)
+        if method is None:
+            values.append(MISSING)
+            continue
+        try:
+            value = method()
+            if convert is not None:
+                value = convert(value)
+        except Exception as e:
+            failures += 1
+            last_error = e
+            value = MISSING
+        values.append(value)
+    if failures:
+        logger.warning(
+            "Could not get value for dimension %s on %s rows: %s",
+            sanitize_log_value(dimension),
+            failures,
+            sanitize_log_value(last_error),
+        )
+    return values
+
+
+def _float_or_none(value):
+    return None if value is None else float(value)
+
+
+def materialise(rows, dimensions, value_column=None):
+    """
+    Read the given dimensions of every row into an object-typed frame.
+
+    Args:
+        rows: Row objects exposing dimensions as methods
+        dimensions: Names of the dimensions to read
+        value_column: Dimension read as float for sum/mean, stored as VALUE_COLUMN
+
+    Returns:
+        pandas.DataFrame indexed by row position
+    """
+    data = {dimension: _read_column(rows, dimension) for dimension in dict.fromkeys(dimensions)}
+    if value_column:
+        data[VALUE_COLUMN] = _read_column(rows, value_column, _float_or_none)
+    return pd.DataFrame({name: pd.Series(values, dtype=object) for name, values in data.items()},
+                        index=pd.RangeIndex(len(rows)))
+
+
+def filter_mask(frame, filters):
+    """Boolean numpy mask of the frame rows matching all filters."""
+    mask = np.ones(len(frame), dtype=bool)
+    for dimension, allowed_values in filters.items():
+        mask &= frame[dimension].isin(list(allowed_values)).to_numpy()
+    return mask
+
+
+def _smart_sort_key(aggregate_by):
+    def numeric(value):
+        try:
+            return int(value)
+        except (ValueError, TypeError):
+            try:
+                return float(value)
+            except (ValueError, TypeError):
+                return value
+
+    def key(row_dict):
+        return tuple(numeric(row_dict.get(dimension, '')) for dimension in aggregate_by)
+    return key
+
+
+def _group_totals(frame, aggregate_by, aggregate_func):
+    """
+    Yield (group key, total, count) for every group of the frame.
+
+    For count, total and count are both the number of rows. For sum and mean,
+    total is the sum of the group's VALUE_COLUMN and count the number of values
+    it summed. Missing group values are None in the key.
+    """
+    keys = pd.DataFrame({
+        dimension: frame[dimension].map(lambda value: None if value is MISSING else str(value))
+        for dimension in aggregate_by
+    })
+    group_columns = list(keys.columns)
+    if aggregate_func == 'count':
+        grouped = keys.groupby(group_columns, dropna=False, sort=False).size()
+        totals = ((group_key, size, size) for group_key, size in grouped.items())
+    else:
+        values = pd.to_numeric(frame[VALUE_COLUMN].map(lambda value: np.nan if value is None or value is MISSING else value))
+        keys[VALUE_COLUMN] = values
+        grouped = keys.groupby(group_columns, dropna=False, sort=False)[VALUE_COLUMN].agg(['sum', 'count'])
+        totals = zip(grouped.index, grouped['sum'], grouped['count'])
+
+    for group_key, total, count in totals:
+        if not isinstance(group_key, tuple):
+            group_key = (group_key,)
+        yield tuple(None if pd.isna(key_value) else key_value for key_value in group_key), total, count
+
+
+def _aggregated_rows(totals, aggregate_by, aggregate_func):
+    aggregated = []
+    for group_key, total, count in totals:
+        result = dict(zip(aggregate_by, group_key))
+        result[aggregate_func] = _aggregate_value(aggregate_func, total, count)
+        aggregated.append(result)
+
+    aggregated.sort(key=_smart_sort_key(aggregate_by))
+    return aggregated
+
+
+def aggregate(frame, aggregate_by, aggregate_func):
+    """
+    Group the frame by aggregate_by and compute count, sum or mean.
+
+    Sum and mean use the VALUE_COLUMN written by materialise().
+
+    Returns:
+        List of dicts {dimension: group value, ..., aggregate_func: result},
+        sorted numerically where the group values are numbers
+    """
+    if frame.empty:
+        return []
+    return _aggregated_rows(_group_totals(frame, aggregate_by, aggregate_func), aggregate_by, aggregate_func)
+
+
+class StreamingAggregate:
+    """
+    Aggregation over frames that arrive one chunk at a time.
+
+    Only the running total and count of each group are kept, so memory grows
+    with the number of groups rather than rows. results() gives the same rows
+    as aggregate() over the concatenated chunks.
+    """
+
+    def __init__(self, aggregate_by, aggregate_func):
+        self.aggregate_by = list(aggregate_by)
+        self.aggregate_func = aggregate_func
+        self.totals = {}
+
+    def add(self, frame):
+        if frame.empty:
+            return
+        for group_key, total, count in _group_totals(frame, self.aggregate_by, self.aggregate_func):
+            running = self.totals.get(group_key)
+            if running is None:
+                self.totals[group_key] = [total, count]
+            else:
+                running[0] += total
+                running[1] += count
+
+    def results(self):
+        return _aggregated_rows(
+            ((group_key, total, count) for group_key, (total, count) in self.totals.items()),
+            self.aggregate_by,
+            self.aggregate_func,
+        )
+
+
+def _aggregate_value(aggregate_func, total, count):
+    if aggregate_func == 'count':
+        return int(total)
+    if aggregate_func == 'sum':
+        # An empty sum stays the integer 0, as in the row-by-row implementation
+        return float(total) if count else 0
+    return float(total) / count if count else 0
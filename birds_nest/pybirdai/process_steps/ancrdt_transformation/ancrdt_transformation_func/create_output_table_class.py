@@ -5,7 +5,7 @@
 """
 Create Output Table Class
 
-Builds output table class with calc and init methods.
+Builds output table class with iter, calc and init methods.
 """
 
 import ast
@@ -29,6 +29,26 @@ def create_output_table_class(rolc_id: str) -> ast.ClassDef:
     union_table_attr = create_attribute(f"{rolc_id}_UnionTable", "None")
     items_attr = create_attribute(f"{rolc_id}s", "[]")
     
+    # iter method yields one output item per union item, so the table can be
+    # consumed in chunks (see ExecuteANCRDTTable.execute_table(stream=True))
+    iter_body = [
+        create_for_loop(
+            var_name="item",
+            iter_expr=f"self.{rolc_id}_UnionTable.iter_{rolc_id}_UnionItems()",
+            body=[
+                create_assignment("newItem", f"{rolc_id}()"),
+                create_expr_stmt("newItem.unionOfLayers = item"),
+                create_expr_stmt("yield newItem")
+            ]
+        )
+    ]
+    
+    iter_method = create_method_with_body(
+        name=f"iter_{rolc_id}s",
+        return_type=None,
+        body_stmts=iter_body
+    )
+    
     # calc method body
     calc_body = [
         create_assignment("items", "[]"),
@@ -70,5 +90,5 @@ def create_output_table_class(rolc_id: str) -> ast.ClassDef:
     return create_class(
         name=f"{rolc_id}_Table",
         bases=[],
-        body=[union_table_attr, items_attr, calc_method, init_method]
+        body=[union_table_attr, items_attr, iter_method, calc_method, init_method]
     )
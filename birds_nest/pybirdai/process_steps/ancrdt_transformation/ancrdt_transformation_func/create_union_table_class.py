@@ -5,7 +5,7 @@
 """
 Create UnionTable Class
 
-Builds UnionTable class with dynamic attributes and calc/init methods.
+Builds UnionTable class with dynamic attributes and iter/calc/init methods.
 """
 
 import ast
@@ -46,8 +46,9 @@ def create_union_table_class(rolc_id: str, cube_link_to_join_for_report_id_map,
                     body_nodes.append(attr)
                     join_ids_added.append(join_id)
     
-    # Build calc method with nested for loops
-    calc_body = [create_assignment("items", "[]")]
+    # Build iter method with one for loop per join; items are yielded so
+    # the union can be consumed in chunks without building the whole list
+    iter_body = []
     
     join_ids_added = []
     for join_for_rolc_id, cube_links in cube_link_to_join_for_report_id_map.items():
@@ -64,18 +65,27 @@ def create_union_table_class(rolc_id: str, cube_link_to_join_for_report_id_map,
                         body=[
                             create_assignment("newItem", f"{rolc_id}_UnionItem()"),
                             create_expr_stmt("newItem.base = item"),
-                            create_expr_stmt("items.append(newItem)")
+                            create_expr_stmt("yield newItem")
                         ]
                     )
-                    calc_body.append(for_loop)
+                    iter_body.append(for_loop)
                     join_ids_added.append(join_id)
     
-    calc_body.append(create_return("items"))
+    if not iter_body:
+        iter_body = [create_expr_stmt("yield from ()")]
     
+    iter_method = create_method_with_body(
+        name=f"iter_{rolc_id}_UnionItems",
+        return_type=None,
+        body_stmts=iter_body
+    )
+    body_nodes.append(iter_method)
+    
+    # calc method collects the iter method
     calc_method = create_method_with_body(
         name=f"calc_{rolc_id}_UnionItems",
         return_type=f"list[{rolc_id}_UnionItem]",
-        body_stmts=calc_body
+        body_stmts=[create_return(f"list(self.iter_{rolc_id}_UnionItems())")]
     )
     body_nodes.append(calc_method)
     
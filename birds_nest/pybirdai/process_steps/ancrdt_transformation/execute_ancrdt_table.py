@@ -18,11 +18,17 @@ similar to execute_datapoint.py but for table-based outputs instead of
 single datapoint values.
 """
 
+import csv
 import importlib
+import itertools
 import logging
 import os
 from datetime import datetime
+
+import numpy as np
 from django.conf import settings
+
+from pybirdai.process_steps.ancrdt_transformation import ancrdt_columnar
 from pybirdai.utils.secure_logging import sanitize_log_value
 
 logger = logging.getLogger(__name__)
@@ -37,6 +43,51 @@ class ExecuteANCRDTTable:
     validation of generated data.
     """
 
+    # Below this many rows, building a frame costs more than it saves
+    COLUMNAR_MIN_ROWS = 1000
+    # Rows generated, filtered and written per step of execute_table(stream=True)
+    STREAM_CHUNK_SIZE = 5000
+    # Filtered rows a streamed, non-aggregated execution returns
+    STREAM_PREVIEW_ROWS = 1000
+
+    @staticmethod
+    def _use_columnar(rows, filters=None):
+        if len(rows) < ExecuteANCRDTTable.COLUMNAR_MIN_ROWS:
+            return False
+        # A string of allowed values is matched by substring, row by row
+        return not any(isinstance(allowed, str) for allowed in (filters or {}).values())
+
+    @staticmethod
+    def filter_and_aggregate(rows, filters=None, aggregate_by=None, aggregate_func=None, aggregate_column=None):
+        """
+        Apply filters and then aggregation, reading every needed dimension once.
+
+        Same results as filter_rows followed by aggregate_rows. On the columnar
+        path the frame built for the filters is reused for the aggregation, so
+        no row method is called twice.
+
+        Returns:
+            tuple: (filtered rows, aggregated dictionaries or None without aggregation)
+        """
+        aggregate = bool(aggregate_by and aggregate_func)
+        if isinstance(aggregate_by, str):
+            aggregate_by = [aggregate_by]
+        if not (filters and aggregate and ExecuteANCRDTTable._use_columnar(rows, filters)
+                and aggregate_func in ('count', 'sum', 'mean')
+                and (aggregate_func == 'count' or aggregate_column)):
+            filtered_rows = ExecuteANCRDTTable.filter_rows(rows, filters)
+            if not aggregate:
+                return filtered_rows, None
+            return filtered_rows, ExecuteANCRDTTable.aggregate_rows(
+                filtered_rows, aggregate_by, aggregate_func, aggregate_column)
+
+        value_column = aggregate_column if aggregate_func != 'count' else None
+        frame = ancrdt_columnar.materialise(rows, list(filters) + aggregate_by, value_column)
+        positions = np.flatnonzero(ancrdt_columnar.filter_mask(frame, filters))
+        filtered_rows = [rows[position] for position in positions]
+        aggregated = ancrdt_columnar.aggregate(frame.iloc[positions], aggregate_by, aggregate_func)
+        return filtered_rows, aggregated
+
     @staticmethod
     def filter_rows(rows, filters):
         """
@@ -64,6 +115,14 @@ class ExecuteANCRDTTable:
         if not filters:
             return rows
 
+        if ExecuteANCRDTTable._use_columnar(rows, filters):
+            frame = ancrdt_columnar.materialise(rows, filters)
+            mask = ancrdt_columnar.filter_mask(frame, filters)
+            return [rows[position] for position in np.flatnonzero(mask)]
+        return ExecuteANCRDTTable._filter_rows_per_row(rows, filters)
+
+    @staticmethod
+    def _filter_rows_per_row(rows, filters):
         filtered = []
         for row in rows:
             match = True
@@ -139,6 +198,14 @@ class ExecuteANCRDTTable:
         if aggregate_func in ['sum', 'mean'] and not aggregate_column:
             raise ValueError(f"aggregate_column is required for aggregate_func='{aggregate_func}'")
 
+        if ExecuteANCRDTTable._use_columnar(rows):
+            value_column = aggregate_column if aggregate_func != 'count' else None
+            frame = ancrdt_columnar.materialise(rows, aggregate_by, value_column)
+            return ancrdt_columnar.aggregate(frame, aggregate_by, aggregate_func)
+        return ExecuteANCRDTTable._aggregate_rows_per_row(rows, aggregate_by, aggregate_func, aggregate_column)
+
+    @staticmethod
+    def _aggregate_rows_per_row(rows, aggregate_by, aggregate_func, aggregate_column):
         # Group rows by aggregate_by dimensions
         groups = {}
         for row in rows:
@@ -239,7 +306,223 @@ class ExecuteANCRDTTable:
         return aggregated
 
     @staticmethod
-    def execute_table(table_name, filters=None, aggregate_by=None, aggregate_func=None, aggregate_column=None):
+    def _chunks(rows, chunk_size):
+        rows = iter(rows)
+        while True:
+            chunk = list(itertools.islice(rows, chunk_size))
+            if not chunk:
+                return
+            yield chunk
+
+    @staticmethod
+    def _input_pages(model, page_size):
+        """Yield the rows of model in primary key order, page_size rows at a time."""
+        related_fields = [field.name for field in model._meta.fields
+                          if getattr(field, 'remote_field', None) and (field.many_to_one or field.one_to_one)]
+        queryset = model.objects.select_related(*related_fields) if related_fields else model.objects.all()
+        queryset = queryset.order_by('pk')
+        last_pk = None
+        while True:
+            page = list((queryset if last_pk is None else queryset.filter(pk__gt=last_pk))[:page_size])
+            if not page:
+                return
+            yield page
+            last_pk = page[-1].pk
+
+    @staticmethod
+    def _partitioned_joins(module, union_class):
+        """
+        Return (join attribute, join class, main cube attribute, model) for each
+        join table the union reads from, or None when one of them cannot be
+        read page by page.
+        """
+        from pybirdai.process_steps.pybird.orchestration import _TableReference
+
+        joins = []
+        for join_attr in [name for name in vars(union_class) if name.endswith('_Table')]:
+            join_class = getattr(module, join_attr, None)
+            if not isinstance(join_class, type):
+                return None
+            # The generator declares the main cube, the one the join loops over, first
+            main_attr = next((name for name in vars(join_class) if name.endswith('_Table')), None)
+            model = _TableReference(main_attr).model if main_attr else None
+            if model is None:
+                return None
+            joins.append((join_attr, join_class, main_attr, model))
+        return joins
+
+    @staticmethod
+    def _partition_union(union_table, joins, table_name, page_size):
+        """
+        Wire the join tables of union_table so they are built one page of
+        their main input cube at a time.
+
+        Each join table is wired by Orchestration().init() with its main cube
+        already set, so only the related cubes are read in full. The union's
+        iter method is replaced on the instance by one that loads a page of
+        the main cube, runs the join's calc method on it and yields the union
+        items of that page before loading the next.
+        """
+        from pybirdai.process_steps.pybird.orchestration import Orchestration
+
+        join_tables = []
+        for join_attr, join_class, main_attr, model in joins:
+            join_table = join_class()
+            setattr(join_table, main_attr, model.objects.none())
+            Orchestration().init(join_table)
+            setattr(union_table, join_attr, join_table)
+            items_attr = join_attr[len(table_name) + 1:-len('_Table')] + 's'
+            join_tables.append((join_table, main_attr, model, items_attr))
+
+        iterate_union = getattr(type(union_table), f"iter_{table_name}_UnionItems")
+
+        def iterate():
+            for join_table, main_attr, model, items_attr in join_tables:
+                calc = getattr(join_table, f"calc_{items_attr}")
+                for page in ExecuteANCRDTTable._input_pages(model, page_size):
+                    setattr(join_table, main_attr, page)
+                    setattr(join_table, items_attr, calc())
+                    yield from iterate_union(union_table)
+                    setattr(join_table, items_attr, [])
+                setattr(join_table, main_attr, model.objects.none())
+
+        setattr(union_table, f"iter_{table_name}_UnionItems", iterate)
+
+    @staticmethod
+    def _iter_table_rows(module, table_instance, table_name, page_size=None):
+        """
+        Wire table_instance and yield its rows one at a time.
+
+        The union table is wired without calling its init(), so neither the
+        union items nor the output rows are ever held in a list. With a
+        page_size, the join tables the union reads from are built from
+        page_size rows of their main input cube at a time; otherwise, or when
+        a join's main cube is not a Django model, Orchestration().init()
+        builds them in full. Tables generated before the iter_* methods
+        existed are initialised as usual and their row list is iterated
+        instead.
+        """
+        from pybirdai.process_steps.pybird.orchestration import Orchestration
+
+        union_attr_name = f"{table_name}_UnionTable"
+        iterate = getattr(table_instance, f"iter_{table_name}s", None)
+        union_class = getattr(module, union_attr_name, None)
+        if iterate is None or union_class is None or not hasattr(union_class, f"iter_{table_name}_UnionItems"):
+            logger.warning(
+                "Table %s has no iter methods, rows are materialised before streaming. "
+                "Regenerate the ANCRDT code to stream the union and output rows.",
+                sanitize_log_value(table_name),
+            )
+            table_instance.init()
+            return iter(getattr(table_instance, f"{table_name}s"))
+
+        union_table = union_class()
+        joins = ExecuteANCRDTTable._partitioned_joins(module, union_class) if page_size else None
+        if joins:
+            ExecuteANCRDTTable._partition_union(union_table, joins, table_name, page_size)
+        elif page_size:
+            logger.info(
+                "The joins of %s cannot be read page by page, they are built in full.",
+                sanitize_log_value(table_name),
+            )
+        Orchestration().init(union_table)
+        setattr(table_instance, union_attr_name, union_table)
+        Orchestration().init(table_instance)
+        return iterate()
+
+    @staticmethod
+    def stream_table(module, table_instance, table_name, csv_path, filters=None, aggregate_by=None,
+                     aggregate_func=None, aggregate_column=None, chunk_size=None, preview_rows=None):
+        """
+        Generate, filter, aggregate and write the rows of a table chunk by chunk.
+
+        The join tables are built from chunk_size rows of their main input
+        cube at a time, and each chunk of generated rows is written to
+        csv_path, filtered, and added to running per-group totals before the
+        next chunk is generated, so neither the main input rows, the join
+        items, the union items nor the output rows are ever all held at once.
+        The related cubes of each join are still read in full. Without
+        aggregation only the first preview_rows filtered rows are kept.
+        csv_path is written through a temporary file and only replaced once
+        every row was written.
+
+        Returns:
+            dict: row_count_total, row_count_filtered, chunk_count, the kept
+                filtered rows (preview) and the aggregated rows (None without
+                aggregation)
+        """
+        chunk_size = chunk_size or ExecuteANCRDTTable.STREAM_CHUNK_SIZE
+        if preview_rows is None:
+            preview_rows = ExecuteANCRDTTable.STREAM_PREVIEW_ROWS
+        if isinstance(aggregate_by, str):
+            aggregate_by = [aggregate_by]
+        aggregator = None
+        value_column = None
+        if aggregate_by and aggregate_func:
+            if aggregate_func not in ('count', 'sum', 'mean'):
+                raise ValueError(f"Invalid aggregate_func '{aggregate_func}'. Must be one of: ['count', 'sum', 'mean']")
+            if aggregate_func != 'count':
+                if not aggregate_column:
+                    raise ValueError(f"aggregate_column is required for aggregate_func='{aggregate_func}'")
+                value_column = aggregate_column
+            aggregator = ancrdt_columnar.StreamingAggregate(aggregate_by, aggregate_func)
+        # A string of allowed values is matched by substring, row by row
+        columnar_filters = bool(filters) and not any(isinstance(allowed, str) for allowed in filters.values())
+
+        from pybirdai.process_steps.pybird.csv_converter import CSVConverter
+
+        row_count_total = 0
+        row_count_filtered = 0
+        chunk_count = 0
+        preview = []
+        temporary_path = csv_path + "." + str(os.getpid()) + ".tmp"
+        try:
+            with open(temporary_path, "w", newline='', encoding='utf-8') as file:
+                writer = csv.writer(file, lineterminator='\n')
+                rows = ExecuteANCRDTTable._iter_table_rows(module, table_instance, table_name, chunk_size)
+                for chunk in ExecuteANCRDTTable._chunks(rows, chunk_size):
+                    if not chunk_count:
+                        writer.writerow(CSVConverter.getCSVHeaderValuesForRow(chunk[0], False))
+                    chunk_count += 1
+                    row_count_total += len(chunk)
+                    for row in chunk:
+                        writer.writerow(CSVConverter.getCSVValuesForRow(row, True, False))
+
+                    if columnar_filters:
+                        frame = ancrdt_columnar.materialise(
+                            chunk, list(filters) + (aggregate_by if aggregator else []), value_column)
+                        positions = np.flatnonzero(ancrdt_columnar.filter_mask(frame, filters))
+                        kept = [chunk[position] for position in positions]
+                        if aggregator:
+                            aggregator.add(frame.iloc[positions])
+                    else:
+                        kept = ExecuteANCRDTTable._filter_rows_per_row(chunk, filters) if filters else chunk
+                        if aggregator:
+                            aggregator.add(ancrdt_columnar.materialise(kept, aggregate_by, value_column))
+
+                    row_count_filtered += len(kept)
+                    if not aggregator and len(preview) < preview_rows:
+                        preview.extend(kept[:preview_rows - len(preview)])
+                    logger.debug(
+                        "Streamed chunk %s: %s rows, %s kept",
+                        chunk_count, len(chunk), len(kept),
+                    )
+            os.replace(temporary_path, csv_path)
+        finally:
+            if os.path.exists(temporary_path):
+                os.remove(temporary_path)
+
+        return {
+            'row_count_total': row_count_total,
+            'row_count_filtered': row_count_filtered,
+            'chunk_count': chunk_count,
+            'preview': preview,
+            'aggregated': aggregator.results() if aggregator else None,
+        }
+
+    @staticmethod
+    def execute_table(table_name, filters=None, aggregate_by=None, aggregate_func=None, aggregate_column=None,
+                      stream=False, chunk_size=None):
         """
         Execute an ANCRDT table transformation by name with optional filtering and aggregation.
 
@@ -250,6 +533,12 @@ class ExecuteANCRDTTable:
             aggregate_by (str or list, optional): Column name(s) to group by for aggregation
             aggregate_func (str, optional): Aggregation function - 'count', 'sum', or 'mean'
             aggregate_column (str, optional): Column to aggregate (required for sum/mean)
+            stream (bool, optional): Generate and post-process the rows in chunks of
+                chunk_size (default STREAM_CHUNK_SIZE) instead of as one list. The join
+                tables read their main input cube chunk_size rows at a time, so only
+                their related cubes are held in full. Without aggregation, rows then
+                holds only the first STREAM_PREVIEW_ROWS filtered rows.
+            chunk_size (int, optional): Rows per chunk, and main input rows per page, when streaming
 
         Returns:
             dict: Execution results containing:
@@ -260,6 +549,7 @@ class ExecuteANCRDTTable:
                 - rows (list): List of row objects or aggregated dictionaries
                 - filters_applied (dict): Filters that were applied (if any)
                 - aggregation_applied (dict): Aggregation params that were applied (if any)
+                - streamed, chunk_count, rows_truncated: Present when stream=True
 
         Raises:
             AttributeError: If table class not found in ancrdt_output_tables
@@ -335,30 +625,6 @@ class ExecuteANCRDTTable:
                 from pybirdai.api.debug_tracking import add_debug_to_orchestration
                 add_debug_to_orchestration(orchestration)
 
-            # Initialize the table
-            # The init() method will:
-            # 1. Call Orchestration().init(self) to wire up dependencies
-            # 2. Call calc_*s() methods to generate row items
-            # 3. Auto-save to CSV via CSVConverter
-            logger.debug(
-                "Initializing table class: %s",
-                sanitize_log_value(table_class_name),
-            )
-            table_instance = table_class()
-            table_instance.init()
-
-            # Extract generated rows
-            # Table class has attribute like ANCRDT_INSTRMNT_C_1s (table name + 's')
-            rows_attr_name = f"{table_name}s"
-            if not hasattr(table_instance, rows_attr_name):
-                raise AttributeError(
-                    f"Table instance does not have expected rows attribute '{rows_attr_name}'. "
-                    f"Check generated code structure."
-                )
-
-            rows = getattr(table_instance, rows_attr_name)
-            row_count_total = len(rows)
-
             # CSV file path (auto-generated by CSVConverter.persist_object_as_csv)
             csv_path = os.path.join(
                 settings.BASE_DIR,
@@ -367,36 +633,78 @@ class ExecuteANCRDTTable:
                 f'{table_name}_longnames.csv'
             )
 
-            logger.info(
-                "Table execution completed: %s rows generated",
-                sanitize_log_value(row_count_total),
-            )
-            logger.info("CSV saved to: %s", sanitize_log_value(csv_path))
-
-            # Apply post-execution filtering if filters provided
+            if aggregate_by and aggregate_func:
+                logger.info(f"Applying aggregation: GROUP BY {aggregate_by}, {aggregate_func.upper()}" +
+                      (f"({aggregate_column})" if aggregate_column else ""))
             if filters:
                 logger.info(
                     "Applying post-execution filters: %s",
                     sanitize_log_value(filters),
                 )
-                filtered_rows = ExecuteANCRDTTable.filter_rows(rows, filters)
-                row_count_filtered = len(filtered_rows)
-                logger.info(f"Filtering completed: {row_count_filtered} rows match filters (from {row_count_total} total)")
+
+            table_instance = table_class()
+            streamed = None
+            if stream:
+                # Rows are generated, written to the CSV file, filtered and
+                # aggregated one chunk at a time
+                streamed = ExecuteANCRDTTable.stream_table(
+                    module, table_instance, table_name, csv_path,
+                    filters, aggregate_by, aggregate_func, aggregate_column, chunk_size
+                )
+                row_count_total = streamed['row_count_total']
+                row_count_filtered = streamed['row_count_filtered']
+                filtered_rows = streamed['preview']
+                aggregated_rows = streamed['aggregated']
+                logger.info(
+                    "Streamed table execution completed: %s rows generated in %s chunks",
+                    sanitize_log_value(row_count_total),
+                    sanitize_log_value(streamed['chunk_count']),
+                )
             else:
-                filtered_rows = rows
-                row_count_filtered = row_count_total
+                # Initialize the table
+                # The init() method will:
+                # 1. Call Orchestration().init(self) to wire up dependencies
+                # 2. Call calc_*s() methods to generate row items
+                # 3. Auto-save to CSV via CSVConverter
+                logger.debug(
+                    "Initializing table class: %s",
+                    sanitize_log_value(table_class_name),
+                )
+                table_instance.init()
+
+                # Extract generated rows
+                # Table class has attribute like ANCRDT_INSTRMNT_C_1s (table name + 's')
+                rows_attr_name = f"{table_name}s"
+                if not hasattr(table_instance, rows_attr_name):
+                    raise AttributeError(
+                        f"Table instance does not have expected rows attribute '{rows_attr_name}'. "
+                        f"Check generated code structure."
+                    )
 
-            # Apply post-execution aggregation if aggregation parameters provided
-            aggregation_applied = None
-            if aggregate_by and aggregate_func:
-                logger.info(f"Applying aggregation: GROUP BY {aggregate_by}, {aggregate_func.upper()}" +
-                      (f"({aggregate_column})" if aggregate_column else ""))
-                aggregated_rows = ExecuteANCRDTTable.aggregate_rows(
-                    filtered_rows,
+                rows = getattr(table_instance, rows_attr_name)
+                row_count_total = len(rows)
+
+                logger.info(
+                    "Table execution completed: %s rows generated",
+                    sanitize_log_value(row_count_total),
+                )
+
+                # Apply post-execution filtering and aggregation; both read the
+                # dimensions they need from the rows only once
+                filtered_rows, aggregated_rows = ExecuteANCRDTTable.filter_and_aggregate(
+                    rows,
+                    filters,
                     aggregate_by,
                     aggregate_func,
                     aggregate_column
                 )
+                row_count_filtered = len(filtered_rows)
+            logger.info("CSV saved to: %s", sanitize_log_value(csv_path))
+            aggregation_applied = None
+            if filters:
+                logger.info(f"Filtering completed: {row_count_filtered} rows match filters (from {row_count_total} total)")
+
+            if aggregated_rows is not None:
                 row_count_aggregated = len(aggregated_rows)
                 logger.info(f"Aggregation completed: {row_count_aggregated} groups (from {row_count_filtered} rows)")
 
@@ -417,6 +725,8 @@ class ExecuteANCRDTTable:
 
             # Print lineage summary if enabled
             if isinstance(orchestration, OrchestrationWithLineage) and orchestration.lineage_enabled:
+                # The lineage rows buffered by the sink are counted below
+                orchestration.flush_pending_calculation_usage()
                 trail = orchestration.get_lineage_trail()
                 if trail:
                     logger.debug(
@@ -456,6 +766,11 @@ class ExecuteANCRDTTable:
             if aggregation_applied:
                 result['aggregation_applied'] = aggregation_applied
 
+            if streamed:
+                result['streamed'] = True
+                result['chunk_count'] = streamed['chunk_count']
+                result['rows_truncated'] = aggregated_rows is None and len(final_rows) < final_row_count
+
             # Collect intermediate table information from orchestration
             intermediate_tables = []
             trail_id = None
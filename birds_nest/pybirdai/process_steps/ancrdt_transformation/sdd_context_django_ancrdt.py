@@ -103,6 +103,10 @@ class SDDContext:
 
     save_sdd_to_db = True
 
+    # Same switch as pybirdai.context.sdd_context_django.SDDContext
+    use_compact_metadata_store = True
+    value_pool = None
+
     exclude_reference_info_from_website = False
 
     cube_dictionary = {}
@@ -110,5 +114,24 @@ class SDDContext:
     cube_structure_dictionary = {}
 
     def __init__(self):
-
-        pass
+        if SDDContext.use_compact_metadata_store:
+            SDDContext.enable_compact_metadata_store()
+
+    @classmethod
+    def enable_compact_metadata_store(cls):
+        '''
+        Move the compact_store.metadata_store_layout dictionaries into compact
+        stores, see pybirdai.context.compact_store.
+        '''
+        from pybirdai.context.compact_store import enable_compact_metadata_stores
+
+        enable_compact_metadata_stores(cls)
+
+    @classmethod
+    def memory_report(cls):
+        from pybirdai.context.compact_store import memory_report
+
+        names = ('member_dictionary', 'combination_dictionary', 'table_cell_dictionary',
+                 'combination_item_dictionary', 'cell_positions_dictionary',
+                 'axis_ordinate_to_ordinate_items_map')
+        return memory_report({name: getattr(cls, name) for name in names}, cls.value_pool)
@@ -11,6 +11,7 @@
 #    Neil Mackenzie - initial API and implementation
 #
 
+from pybirdai.context.compact_store import reset_metadata_dictionary
 from pybirdai.models.bird_meta_data_model import *
 from concurrent.futures import ThreadPoolExecutor
 from datetime import datetime
@@ -303,7 +304,7 @@ class ImportDatabaseToSDDModel:
         '''
         Import all the members
         '''
-        context.member_dictionary = {}
+        reset_metadata_dictionary(context, 'member_dictionary')
         context.member_id_to_domain_map = {}
         context.member_id_to_member_code_map = {}
         for member in MEMBER.objects.all().select_related('domain_id', 'maintenance_agency_id'):
@@ -378,7 +379,7 @@ class ImportDatabaseToSDDModel:
         '''
         import all the axis_ordinate from the rendering package
         '''
-        sdd_context.axis_ordinate_to_ordinate_items_map = {}
+        reset_metadata_dictionary(sdd_context, 'axis_ordinate_to_ordinate_items_map')
         for ordinate_item in ORDINATE_ITEM.objects.all().select_related('axis_ordinate_id', 'variable_id', 'member_id'):
             try:
                 ordinate_item_list = sdd_context.axis_ordinate_to_ordinate_items_map[
@@ -392,7 +393,7 @@ class ImportDatabaseToSDDModel:
         '''
         import all the axis_ordinate from the rendering package
         '''
-        context.table_cell_dictionary = {}
+        reset_metadata_dictionary(context, 'table_cell_dictionary')
         context.table_to_table_cell_dictionary = {}
         for table_cell in TABLE_CELL.objects.all().select_related('table_id'):
             context.table_cell_dictionary[table_cell.cell_id] = table_cell
@@ -413,7 +414,7 @@ class ImportDatabaseToSDDModel:
         '''
         import all the axis_ordinate from the rendering package
         '''
-        context.cell_positions_dictionary = {}
+        reset_metadata_dictionary(context, 'cell_positions_dictionary')
         for cell_position in CELL_POSITION.objects.all().select_related('cell_id', 'axis_ordinate_id'):
             try:
                 cell_position_list = context.cell_positions_dictionary[
@@ -452,7 +453,7 @@ class ImportDatabaseToSDDModel:
         '''
         Import all the combination items
         '''
-        context.combination_item_dictionary = {}
+        reset_metadata_dictionary(context, 'combination_item_dictionary')
         for combination_item in COMBINATION_ITEM.objects.all().select_related('combination_id', 'variable_id', 'member_id', 'subdomain_id'):
             try:
                 combination_item_list = context.combination_item_dictionary[
@@ -467,7 +468,7 @@ class ImportDatabaseToSDDModel:
         '''
         Import all the combinations
         '''
-        context.combination_dictionary = {}
+        reset_metadata_dictionary(context, 'combination_dictionary')
         for combination in COMBINATION.objects.all():
             context.combination_dictionary[
                 combination.combination_id] = combination
@@ -16,6 +16,7 @@ import logging
 from pybirdai.models.bird_meta_data_model import *
 from django.apps import apps
 from django.conf import settings
+from django.db import connections, transaction
 from django.db.models.fields import (
     CharField,
     DateTimeField,
@@ -32,7 +33,9 @@ from pybirdai.process_steps.joins_meta_data.member_hierarchy_service import (
     MemberHierarchyService,
 )
 import itertools
+import multiprocessing
 import traceback
+from concurrent.futures import ProcessPoolExecutor
 
 from pybirdai.process_steps.joins_meta_data.ldm_search import ELDMSearch
 
@@ -45,13 +48,81 @@ logging.basicConfig(
 )
 
 
+# Creator, context, sdd_context and framework that forked workers of
+# add_joins_for_products_il_in_parallel inherit from the parent process
+_parallel_joins_state = None
+
+# Per worker process: id() of each CUBE_STRUCTURE_ITEM -> (cube structure, index)
+_cube_structure_item_positions = None
+
+
+def _cube_structure_item_position(sdd_context: Any, cube_structure_item: Any) -> Tuple[str, int]:
+    global _cube_structure_item_positions
+    if _cube_structure_item_positions is None:
+        _cube_structure_item_positions = {
+            id(item): (cube_structure_key, index)
+            for cube_structure_key, items in sdd_context.bird_cube_structure_item_dictionary.items()
+            for index, item in enumerate(items)
+        }
+    return _cube_structure_item_positions[id(cube_structure_item)]
+
+
+def _cube_structure_item_at(sdd_context: Any, position: Tuple[str, int]) -> Any:
+    cube_structure_key, index = position
+    return sdd_context.bird_cube_structure_item_dictionary[cube_structure_key][index]
+
+
+def _create_report_joins(cube_id: str) -> List[Tuple]:
+    """
+    Worker side of add_joins_for_products_il_in_parallel: create the joins of
+    one report and return them as (cube link values, item link values) tuples.
+    Cube structure items are identified by their position in the inherited
+    bird_cube_structure_item_dictionary, which the parent shares.
+    """
+    creator, context, sdd_context, framework = _parallel_joins_state
+    known_links = set(sdd_context.cube_link_dictionary)
+    known_item_link_counts = {
+        cube_link_id: len(item_links)
+        for cube_link_id, item_links in sdd_context.cube_structure_item_link_to_cube_link_map.items()
+    }
+    creator.create_joins_for_products_il(
+        context, sdd_context, sdd_context.bird_cube_dictionary[cube_id], framework
+    )
+
+    report_links = []
+    for cube_link_id, cube_link in sdd_context.cube_link_dictionary.items():
+        if cube_link_id in known_links:
+            continue
+        item_links = sdd_context.cube_structure_item_link_to_cube_link_map.get(cube_link_id, [])
+        item_links = item_links[known_item_link_counts.get(cube_link_id, 0):]
+        report_links.append((
+            (
+                cube_link.cube_link_id,
+                cube_link.name,
+                cube_link.description,
+                cube_link.join_identifier,
+                cube_link.primary_cube_id.cube_id if cube_link.primary_cube_id else None,
+                cube_link.foreign_cube_id.cube_id,
+            ),
+            [
+                (
+                    csil.cube_structure_item_link_id,
+                    _cube_structure_item_position(sdd_context, csil.foreign_cube_variable_code),
+                    _cube_structure_item_position(sdd_context, csil.primary_cube_variable_code),
+                )
+                for csil in item_links
+            ],
+        ))
+    return report_links
+
+
 class JoinsMetaDataCreator:
     """
     A class for creating generation rules for reports and tables.
     """
 
     def generate_joins_meta_data(
-        self, context: Any, sdd_context: Any, framework: str
+        self, context: Any, sdd_context: Any, framework: str, max_workers: int = None
     ) -> None:
         """
         Generate generation rules for the given context and framework.
@@ -60,8 +131,10 @@ class JoinsMetaDataCreator:
             context (Any): The context object containing necessary data.
             sdd_context (Any): The SDD context object.
             framework (str): The framework being used (e.g., "FINREP_REF").
+            max_workers (int): Worker processes generating reports in parallel.
+                Defaults to context.joins_meta_data_workers; 0 or 1 runs serially.
         """
-        self.add_reports(context, sdd_context, framework)
+        self.add_reports(context, sdd_context, framework, max_workers)
 
     def do_stuff_and_prepare_context(self, context: Any, sdd_context: Any):
 
@@ -128,7 +201,9 @@ class JoinsMetaDataCreator:
 
         return context, sdd_context
 
-    def add_reports(self, context: Any, sdd_context: Any, framework: str) -> None:
+    def add_reports(
+        self, context: Any, sdd_context: Any, framework: str, max_workers: int = None
+    ) -> None:
         """
         Add reports based on the given context and framework.
 
@@ -136,6 +211,7 @@ class JoinsMetaDataCreator:
             context (Any): The context object containing necessary data.
             sdd_context (Any): The SDD context object.
             framework (str): The framework being used (e.g., "FINREP_REF").
+            max_workers (int): Worker processes generating reports in parallel.
         """
         # joins_configuration files are now in artefacts directory
         file_location = os.path.join(
@@ -149,6 +225,7 @@ class JoinsMetaDataCreator:
 
         context, sdd_context = self.do_stuff_and_prepare_context(context, sdd_context)
 
+        generated_output_layers = []
         with open(file_location, encoding="utf-8") as csvfile:
             filereader = csv.reader(csvfile, delimiter=",", quotechar='"')
             next(filereader)  # Skip header
@@ -158,9 +235,111 @@ class JoinsMetaDataCreator:
                     sdd_context, report_template, framework
                 )
                 if generated_output_layer:
-                    self.add_join_for_products_il(
-                        context, sdd_context, generated_output_layer, framework
+                    generated_output_layers.append(generated_output_layer)
+
+        if max_workers is None:
+            max_workers = context.joins_meta_data_workers
+        if (
+            max_workers > 1
+            and len(generated_output_layers) > 1
+            and "fork" in multiprocessing.get_all_start_methods()
+        ):
+            self.add_joins_for_products_il_in_parallel(
+                context, sdd_context, generated_output_layers, framework, max_workers
+            )
+        else:
+            for generated_output_layer in generated_output_layers:
+                self.add_join_for_products_il(
+                    context, sdd_context, generated_output_layer, framework
+                )
+
+    def add_joins_for_products_il_in_parallel(
+        self,
+        context: Any,
+        sdd_context: Any,
+        generated_output_layers: List[Any],
+        framework: str,
+        max_workers: int,
+    ) -> None:
+        """
+        Create the joins of each report in a forked worker process, then
+        merge them into the sdd_context and save them in one bulk write.
+
+        The workers inherit the prepared context (category_to_ci,
+        domain_to_member, facetted_items and the sdd_context dictionaries)
+        from the fork instead of rebuilding it, and send back only ID tuples.
+        Reports are merged in their serial order and a cube link that an
+        earlier report already created is skipped with its items, so the
+        result is the same as running add_join_for_products_il per report.
+        """
+        global _parallel_joins_state
+
+        # Make sure workers never fall back to loading these themselves
+        self.load_cube_structure_dictionaries(sdd_context)
+        cube_ids = [layer.cube_id for layer in generated_output_layers]
+
+        # A forked child must not share the parent's database connection
+        connections.close_all()
+        _parallel_joins_state = (self, context, sdd_context, framework)
+        cube_links_to_create = []
+        cube_structure_item_links_to_create = []
+        try:
+            with ProcessPoolExecutor(
+                max_workers=min(max_workers, len(cube_ids)),
+                mp_context=multiprocessing.get_context("fork"),
+            ) as executor:
+                for report_links in executor.map(_create_report_joins, cube_ids):
+                    self._merge_report_joins(
+                        context,
+                        sdd_context,
+                        report_links,
+                        cube_links_to_create,
+                        cube_structure_item_links_to_create,
                     )
+        finally:
+            _parallel_joins_state = None
+
+        with transaction.atomic():
+            self.save_joins(context, cube_links_to_create, cube_structure_item_links_to_create)
+
+    def _merge_report_joins(
+        self,
+        context: Any,
+        sdd_context: Any,
+        report_links: List[Tuple],
+        cube_links_to_create: List,
+        cube_structure_item_links_to_create: List,
+    ) -> None:
+        """
+        Rebuild the links a worker created for one report from their ID
+        tuples, using the parent's own CUBE and CUBE_STRUCTURE_ITEM objects.
+        """
+        for link_values, item_link_values in report_links:
+            cube_link_id, name, description, join_identifier, primary_cube_id, foreign_cube_id = link_values
+            if cube_link_id in sdd_context.cube_link_dictionary:
+                continue
+            cube_link = CUBE_LINK()
+            cube_link.cube_link_id = cube_link_id
+            cube_link.name = name
+            cube_link.description = description
+            cube_link.join_identifier = join_identifier
+            if primary_cube_id:
+                cube_link.primary_cube_id = sdd_context.bird_cube_dictionary[primary_cube_id]
+            cube_link.foreign_cube_id = sdd_context.bird_cube_dictionary[foreign_cube_id]
+            self.register_cube_link(sdd_context, cube_link)
+
+            for item_link_id, foreign_position, primary_position in item_link_values:
+                csil = CUBE_STRUCTURE_ITEM_LINK()
+                csil.cube_structure_item_link_id = item_link_id
+                csil.foreign_cube_variable_code = _cube_structure_item_at(sdd_context, foreign_position)
+                csil.primary_cube_variable_code = _cube_structure_item_at(sdd_context, primary_position)
+                csil.cube_link_id = cube_link
+                self.register_cube_structure_item_link(sdd_context, csil, cube_link)
+                if context.save_derived_sdd_items:
+                    cube_structure_item_links_to_create.append(csil)
+
+            if context.save_derived_sdd_items and item_link_values:
+                cube_links_to_create.append(cube_link)
 
     def create_ldm_entity_to_linked_entities_map(
         self, context: Any, sdd_context: Any
@@ -233,6 +412,25 @@ class JoinsMetaDataCreator:
             generated_output_layer (Any): The generated output layer.
             framework (str): The framework being used (e.g., "FINREP_REF", "AE_REF", "COREP_REF").
         """
+        cube_links_to_create, cube_structure_item_links_to_create = self.create_joins_for_products_il(
+            context, sdd_context, generated_output_layer, framework
+        )
+        self.save_joins(context, cube_links_to_create, cube_structure_item_links_to_create)
+
+    def create_joins_for_products_il(
+        self,
+        context: Any,
+        sdd_context: Any,
+        generated_output_layer: Any,
+        framework: str,
+    ) -> Tuple[List, List]:
+        """
+        Create the CUBE_LINKs and CUBE_STRUCTURE_ITEM_LINKs of one report
+        and register them in the sdd_context, without saving them.
+
+        Returns:
+            Tuple[List, List]: The CUBE_LINKs and CUBE_STRUCTURE_ITEM_LINKs to save.
+        """
         tables_for_main_category_map = self._get_framework_map(
             context, 'tables_for_main_category_map', framework
         )
@@ -342,49 +540,7 @@ class JoinsMetaDataCreator:
                                         cube_link.cube_link_id
                                         not in sdd_context.cube_link_dictionary
                                     ):
-                                        sdd_context.cube_link_dictionary[
-                                            cube_link.cube_link_id
-                                        ] = cube_link
-                                        foreign_cube = cube_link.foreign_cube_id
-                                        join_identifier = cube_link.join_identifier
-                                        join_for_report_id = (
-                                            foreign_cube.cube_id
-                                            + ":"
-                                            + cube_link.join_identifier
-                                        )
-
-                                        if (
-                                            foreign_cube.cube_id
-                                            not in sdd_context.cube_link_to_foreign_cube_map
-                                        ):
-                                            sdd_context.cube_link_to_foreign_cube_map[
-                                                foreign_cube.cube_id
-                                            ] = []
-                                        sdd_context.cube_link_to_foreign_cube_map[
-                                            foreign_cube.cube_id
-                                        ].append(cube_link)
-
-                                        if (
-                                            join_identifier
-                                            not in sdd_context.cube_link_to_join_identifier_map
-                                        ):
-                                            sdd_context.cube_link_to_join_identifier_map[
-                                                join_identifier
-                                            ] = []
-                                        sdd_context.cube_link_to_join_identifier_map[
-                                            join_identifier
-                                        ].append(cube_link)
-
-                                        if (
-                                            join_for_report_id
-                                            not in sdd_context.cube_link_to_join_for_report_id_map
-                                        ):
-                                            sdd_context.cube_link_to_join_for_report_id_map[
-                                                join_for_report_id
-                                            ] = []
-                                        sdd_context.cube_link_to_join_for_report_id_map[
-                                            join_for_report_id
-                                        ].append(cube_link)
+                                        self.register_cube_link(sdd_context, cube_link)
 
                                         num_of_cube_link_items = self.add_field_to_field_lineage_to_rules_for_join_for_product(
                                             context,
@@ -410,6 +566,38 @@ class JoinsMetaDataCreator:
         except KeyError:
             logging.warning(f"no main category for report :{report_template}")
 
+        return cube_links_to_create, cube_structure_item_links_to_create
+
+    def register_cube_link(self, sdd_context: Any, cube_link: Any) -> None:
+        """
+        Add a new CUBE_LINK to the cube link dictionaries of the sdd_context.
+        """
+        sdd_context.cube_link_dictionary[cube_link.cube_link_id] = cube_link
+        foreign_cube = cube_link.foreign_cube_id
+        join_identifier = cube_link.join_identifier
+        join_for_report_id = foreign_cube.cube_id + ":" + join_identifier
+
+        if foreign_cube.cube_id not in sdd_context.cube_link_to_foreign_cube_map:
+            sdd_context.cube_link_to_foreign_cube_map[foreign_cube.cube_id] = []
+        sdd_context.cube_link_to_foreign_cube_map[foreign_cube.cube_id].append(cube_link)
+
+        if join_identifier not in sdd_context.cube_link_to_join_identifier_map:
+            sdd_context.cube_link_to_join_identifier_map[join_identifier] = []
+        sdd_context.cube_link_to_join_identifier_map[join_identifier].append(cube_link)
+
+        if join_for_report_id not in sdd_context.cube_link_to_join_for_report_id_map:
+            sdd_context.cube_link_to_join_for_report_id_map[join_for_report_id] = []
+        sdd_context.cube_link_to_join_for_report_id_map[join_for_report_id].append(cube_link)
+
+    def save_joins(
+        self,
+        context: Any,
+        cube_links_to_create: List,
+        cube_structure_item_links_to_create: List,
+    ) -> None:
+        """
+        Bulk save CUBE_LINKs and the CUBE_STRUCTURE_ITEM_LINKs that reference them.
+        """
         # Phase 1: Bulk create CUBE_LINK objects
         if context.save_derived_sdd_items and cube_links_to_create:
             CUBE_LINK.objects.bulk_create(cube_links_to_create, batch_size=BULK_CREATE_BATCH_SIZE_DEFAULT)
@@ -465,14 +653,8 @@ class JoinsMetaDataCreator:
         if not hasattr(context, 'operation_exists_cache'):
             context.operation_exists_cache = {}
 
-        if len(sdd_context.bird_cube_structure_item_dictionary) == 0:
-            #rebuild the dictionary rembering that it si structure key to list of items
-            for cube_structure_item in CUBE_STRUCTURE_ITEM.objects.all():
-                cube_structure_key = cube_structure_item.cube_structure_id.cube_structure_id
-                if cube_structure_key not in sdd_context.bird_cube_structure_item_dictionary.keys():
-                    sdd_context.bird_cube_structure_item_dictionary[cube_structure_key] = []
-                sdd_context.bird_cube_structure_item_dictionary[cube_structure_key].append(cube_structure_item)
-            
+        self.load_cube_structure_dictionaries(sdd_context)
+
         cube_structure_key = output_entity.cube_id + "_cube_structure"
         if framework == "COREP_REF":
             cube_structure_key = output_entity.cube_id[0:-5] + "_cube_structure"
@@ -553,6 +735,10 @@ class JoinsMetaDataCreator:
             ]
         )
 
+        self.register_cube_structure_item_link(sdd_context, csil, cube_link)
+        return csil, sdd_context
+
+    def register_cube_structure_item_link(self, sdd_context, csil, cube_link):
         sdd_context.cube_structure_item_links_dictionary[
             csil.cube_structure_item_link_id
         ] = csil
@@ -567,7 +753,6 @@ class JoinsMetaDataCreator:
         sdd_context.cube_structure_item_link_to_cube_link_map[
             cube_link.cube_link_id
         ].append(csil)
-        return csil, sdd_context
 
     def valid_operation(
         self,
@@ -927,14 +1112,29 @@ class JoinsMetaDataCreator:
         Returns:
             Any: The input layer cube if found, None otherwise.
         """
-        if len(sdd_context.bird_cube_structure_dictionary) == 0:
-            sdd_context.bird_cube_structure_dictionary = {}
-            for cube_structure in CUBE_STRUCTURE.objects.all():
-                sdd_context.bird_cube_structure_dictionary[cube_structure.cube_structure_id] = cube_structure
+        self.load_cube_structure_dictionaries(sdd_context)
 
         try:
             return sdd_context.bird_cube_structure_dictionary.get(input_layer_name)
         except Exception as e:
             logging.error(f"Error getting cube structure for {input_layer_name}: {e}")
             return None
+
+    def load_cube_structure_dictionaries(self, sdd_context: Any) -> None:
+        """
+        Load the cube structures and their items from the database when the
+        sdd_context does not hold them yet.
+        """
+        if len(sdd_context.bird_cube_structure_dictionary) == 0:
+            sdd_context.bird_cube_structure_dictionary = {}
+            for cube_structure in CUBE_STRUCTURE.objects.all():
+                sdd_context.bird_cube_structure_dictionary[cube_structure.cube_structure_id] = cube_structure
+
+        if len(sdd_context.bird_cube_structure_item_dictionary) == 0:
+            #rebuild the dictionary rembering that it si structure key to list of items
+            for cube_structure_item in CUBE_STRUCTURE_ITEM.objects.all():
+                cube_structure_key = cube_structure_item.cube_structure_id.cube_structure_id
+                if cube_structure_key not in sdd_context.bird_cube_structure_item_dictionary.keys():
+                    sdd_context.bird_cube_structure_item_dictionary[cube_structure_key] = []
+                sdd_context.bird_cube_structure_item_dictionary[cube_structure_key].append(cube_structure_item)
        
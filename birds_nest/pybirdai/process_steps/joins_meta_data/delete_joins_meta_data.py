@@ -10,6 +10,7 @@
 # Contributors:
 #    Neil Mackenzie - initial API and implementation
 #
+from pybirdai.context.compact_store import reset_metadata_dictionary
 from pybirdai.context.sdd_context_django import SDDContext
 from pybirdai.models.bird_meta_data_model import *
 from pybirdai.models.bird_meta_data_model_extension import MAPPING_ORDINATE_LINK
@@ -58,8 +59,8 @@ class TransformationMetaDataDestroyer:
             if key.endswith('_cube_structure'):
                 del sdd_context.bird_cube_structure_dictionary[key]
 
-        sdd_context.combination_item_dictionary = {}
-        sdd_context.combination_dictionary = {}
+        reset_metadata_dictionary(sdd_context, 'combination_item_dictionary')
+        reset_metadata_dictionary(sdd_context, 'combination_dictionary')
         sdd_context.combination_to_rol_cube_map = {}
 
 
@@ -219,7 +220,7 @@ class TransformationMetaDataDestroyer:
         sdd_context.agency_dictionary = {}
         sdd_context.framework_dictionary = {}
         sdd_context.domain_dictionary = {}
-        sdd_context.member_dictionary = {}
+        reset_metadata_dictionary(sdd_context, 'member_dictionary')
         sdd_context.member_id_to_domain_map = {}
         sdd_context.member_id_to_member_code_map = {}
         sdd_context.variable_dictionary = {}
@@ -231,14 +232,14 @@ class TransformationMetaDataDestroyer:
         sdd_context.report_tables_dictionary = {}
         sdd_context.axis_dictionary = {}
         sdd_context.axis_ordinate_dictionary = {}
-        sdd_context.axis_ordinate_to_ordinate_items_map = {}
-        sdd_context.table_cell_dictionary = {}
+        reset_metadata_dictionary(sdd_context, 'axis_ordinate_to_ordinate_items_map')
+        reset_metadata_dictionary(sdd_context, 'table_cell_dictionary')
         sdd_context.table_to_table_cell_dictionary = {}
-        sdd_context.cell_positions_dictionary = {}
+        reset_metadata_dictionary(sdd_context, 'cell_positions_dictionary')
         sdd_context.member_mapping_dictionary = {}
         sdd_context.member_mapping_items_dictionary = {}
-        sdd_context.combination_item_dictionary = {}
-        sdd_context.combination_dictionary = {}
+        reset_metadata_dictionary(sdd_context, 'combination_item_dictionary')
+        reset_metadata_dictionary(sdd_context, 'combination_dictionary')
         sdd_context.combination_to_rol_cube_map = {}
         sdd_context.cube_link_dictionary = {}
         sdd_context.cube_link_to_foreign_cube_map = {}
@@ -265,7 +266,7 @@ class TransformationMetaDataDestroyer:
         SDDContext.agency_dictionary = {}
         SDDContext.framework_dictionary = {}
         SDDContext.domain_dictionary = {}
-        SDDContext.member_dictionary = {}
+        reset_metadata_dictionary(SDDContext, 'member_dictionary')
         SDDContext.member_id_to_domain_map = {}
         SDDContext.member_id_to_member_code_map = {}
         SDDContext.variable_dictionary = {}
@@ -277,14 +278,14 @@ class TransformationMetaDataDestroyer:
         SDDContext.report_tables_dictionary = {}
         SDDContext.axis_dictionary = {}
         SDDContext.axis_ordinate_dictionary = {}
-        SDDContext.axis_ordinate_to_ordinate_items_map = {}
-        SDDContext.table_cell_dictionary = {}
+        reset_metadata_dictionary(SDDContext, 'axis_ordinate_to_ordinate_items_map')
+        reset_metadata_dictionary(SDDContext, 'table_cell_dictionary')
         SDDContext.table_to_table_cell_dictionary = {}
-        SDDContext.cell_positions_dictionary = {}
+        reset_metadata_dictionary(SDDContext, 'cell_positions_dictionary')
         SDDContext.member_mapping_dictionary = {}
         SDDContext.member_mapping_items_dictionary = {}
-        SDDContext.combination_item_dictionary = {}
-        SDDContext.combination_dictionary = {}
+        reset_metadata_dictionary(SDDContext, 'combination_item_dictionary')
+        reset_metadata_dictionary(SDDContext, 'combination_dictionary')
         SDDContext.combination_to_rol_cube_map = {}
         SDDContext.cube_link_dictionary = {}
         SDDContext.cube_link_to_foreign_cube_map = {}
@@ -14,6 +14,122 @@
 from django.db.models.fields.related import ForeignKey
 from django.apps import apps
 
+# Foreign key links followed from an entity when looking for related entities.
+# Superclasses and disjoint subtyping parents do not count as a link.
+LINK_LIMIT = 4
+
+
+class ELDMReachabilityIndex:
+    """
+    The related entities of each ELDM entity, as ELDMSearch's recursive
+    search finds them, worked out once per entity.
+
+    The index holds two adjacency maps, built once from the Django models:
+    associations (foreign keys, except parent_ and _delegate ones, in field
+    order) and parents (the parents an entity is a disjoint subtype of, then
+    its superclass). related_entities() replays the recursive search over
+    these maps. The search expands a parent only the first time it meets it,
+    so what it finds depends on that order, and the replay keeps it.
+
+    The replay skips the calls that cannot add anything. Once the
+    associations of an entity have been followed with n links left, every
+    entity and parent on the way is found. Following them again with n or
+    fewer links left meets nothing new.
+    """
+
+    _app_index = None
+
+    def __init__(self, associations, parents, link_limit=LINK_LIMIT):
+        self.associations = associations
+        self.parents = parents
+        self.link_limit = link_limit
+        self.models = None
+        self._related = {}
+
+    @classmethod
+    def for_app(cls, app_label="pybirdai"):
+        """
+        Return the index of the app's models, building it on first use or
+        when the registered models have changed.
+        """
+        models = tuple(
+            model for model in apps.get_models() if model._meta.app_label == app_label
+        )
+        index = cls._app_index
+        if index is None or index.models != models:
+            index = cls.from_models(models)
+            index.models = models
+            cls._app_index = index
+        return index
+
+    @classmethod
+    def from_models(cls, models, link_limit=LINK_LIMIT):
+        delegates = {}
+        for model in models:
+            for feature in model._meta.get_fields():
+                if isinstance(feature, ForeignKey) and feature.name.endswith("_delegate"):
+                    delegates.setdefault(feature.name[0:len(feature.name) - 9], []).append(model)
+
+        associations = {}
+        parents = {}
+        pending = list(models)
+        while pending:
+            model = pending.pop()
+            if model in associations:
+                continue
+            associations[model] = [
+                feature.related_model
+                for feature in model._meta.get_fields()
+                if isinstance(feature, ForeignKey)
+                and not feature.name.startswith("parent_")
+                and not feature.name.endswith("_delegate")
+            ]
+            parents[model] = delegates.get(model.__name__, []) + model._meta.get_parent_list()[:1]
+            pending.extend(associations[model])
+            pending.extend(parents[model])
+        return cls(associations, parents, link_limit)
+
+    def related_entities(self, entity):
+        """
+        Return the entities related to entity, the same list
+        ELDMSearch.search_related_entities returns. The entity itself is
+        included only when a path leads back to it.
+        """
+        related = self._related.get(entity)
+        if related is None:
+            related = self._search(entity)
+            self._related[entity] = related
+        return related
+
+    def _search(self, entity):
+        entities = set()
+        # Entities whose associations were followed to the end, with the
+        # fewest links used at the time
+        followed = {}
+
+        def follow_parents(source, link_count):
+            for parent in self.parents.get(source, ()):
+                if parent not in entities:
+                    entities.add(parent)
+                    follow_associations(parent, link_count)
+                    follow_parents(parent, link_count)
+
+        def follow_associations(source, link_count):
+            if link_count >= followed.get(source, self.link_limit):
+                return
+            for target in self.associations.get(source, ()):
+                entities.add(target)
+                follow_parents(target, link_count + 1)
+                follow_associations(target, link_count + 1)
+            followed[source] = min(link_count, followed.get(source, self.link_limit))
+
+        follow_parents(entity, 0)
+        follow_associations(entity, 0)
+        # Entities are added in the search's order, so the set iterates
+        # in the same order as the search's own set
+        return tuple(entities)
+
+
 class ELDMSearch:
     """
     A class for searching and retrieving related entities in a Django model hierarchy.
@@ -30,11 +146,18 @@ class ELDMSearch:
         Returns:
             list: A list of related entities.
         """
+        return list(ELDMReachabilityIndex.for_app().related_entities(entity))
+
+    def search_related_entities(self, context, entity, memoization_parents_from_disjoint_subtyping_eldm_search):
+        """
+        Find the related entities of an entity with the recursive search that
+        ELDMReachabilityIndex replaced, kept to compare the two.
+        """
         entities = set()
         ELDMSearch._get_superclasses_and_associated_entities(
-            context, entity, entities, 0, 4, memoization_parents_from_disjoint_subtyping_eldm_search
+            context, entity, entities, 0, LINK_LIMIT, memoization_parents_from_disjoint_subtyping_eldm_search
         )
-        ELDMSearch._get_associated_entities(context, entity, entities, 0, 4, memoization_parents_from_disjoint_subtyping_eldm_search)
+        ELDMSearch._get_associated_entities(context, entity, entities, 0, LINK_LIMIT, memoization_parents_from_disjoint_subtyping_eldm_search)
         return list(entities)
 
     def _get_associated_entities(
@@ -14,6 +14,59 @@
 from pybirdai.models.bird_meta_data_model import MEMBER_HIERARCHY, MEMBER_LINK
 
 
+class MemberHierarchyClosure:
+    """
+    Ancestor/descendant closure of the member hierarchies in
+    sdd_context.member_plus_hierarchy_to_child_literals.
+
+    Each (member, hierarchy) entry is worked out once, from the closures of
+    the member's children, and holds every member below it in the order a
+    depth first walk of the hierarchy meets them first. Expanding a member
+    is then a single lookup, however often the same member shows up in
+    combination items. The closure is kept on the sdd_context, so
+    MemberHierarchyService and CreateExecutableFilters share it, and it is
+    rebuilt only when the child map it was built from is replaced.
+    """
+
+    def __init__(self, child_literals):
+        self.child_literals = child_literals
+        self._descendants = {}
+        self._in_progress = set()
+
+    @classmethod
+    def for_context(cls, sdd_context):
+        closure = getattr(sdd_context, 'member_hierarchy_closure', None)
+        if closure is None or closure.child_literals is not sdd_context.member_plus_hierarchy_to_child_literals:
+            closure = cls(sdd_context.member_plus_hierarchy_to_child_literals)
+            sdd_context.member_hierarchy_closure = closure
+        return closure
+
+    def descendants(self, member, hierarchy_id):
+        """
+        Return the members below member in the hierarchy, nodes included.
+        A member that is its own ancestor is not followed round the cycle.
+        """
+        key = (member.member_id, hierarchy_id)
+        found = self._descendants.get(key)
+        if found is not None:
+            return found
+        if key in self._in_progress:
+            return ()
+
+        self._in_progress.add(key)
+        ordered = {}
+        for child in self.child_literals.get(f"{member.member_id}:{hierarchy_id}", ()):
+            if child is not None:
+                ordered.setdefault(child)
+                for descendant in self.descendants(child, hierarchy_id):
+                    ordered.setdefault(descendant)
+        self._in_progress.discard(key)
+
+        found = tuple(ordered)
+        self._descendants[key] = found
+        return found
+
+
 class MemberHierarchyService:
     def __init__(self):
         self._member_list_cache = {}
@@ -44,6 +97,10 @@ class MemberHierarchyService:
                 if node.member_id not in child_list:
                     child_list.append(node.member_id)
 
+        sdd_context.member_hierarchy_closure = MemberHierarchyClosure(
+            sdd_context.member_plus_hierarchy_to_child_literals
+        )
+
         # Pre-build domain_to_hierarchy_dictionary with domain_id strings as keys
         # to avoid FK descriptor overhead during lookups
         sdd_context.domain_to_hierarchy_dictionary = {}
@@ -96,13 +153,7 @@ class MemberHierarchyService:
         return return_list.copy()
 
     def get_member_list_considering_hierarchy(self, sdd_context, member, hierarchy, member_list):
-        key = f"{member.member_id}:{hierarchy}"
-        try:
-            child_members = sdd_context.member_plus_hierarchy_to_child_literals[key]
-            for item in child_members:
-                if item is not None and item not in member_list:
-                    if not self.is_member_a_node(sdd_context, item):
-                        member_list.add(item)
-                    self.get_member_list_considering_hierarchy(sdd_context, item, hierarchy, member_list)
-        except KeyError:
-            pass
+        closure = MemberHierarchyClosure.for_context(sdd_context)
+        for item in closure.descendants(member, hierarchy):
+            if not self.is_member_a_node(sdd_context, item):
+                member_list.add(item)
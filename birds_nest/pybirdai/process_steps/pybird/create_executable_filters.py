@@ -16,10 +16,16 @@ from pybirdai.process_steps.pybird.orchestration import Orchestration
 from pybirdai.models import Trail, MetaDataTrail, DerivedTable, FunctionText, TableCreationFunction
 from datetime import datetime
 from pybirdai.process_steps.pybird.typ_instrmnt_mapping import TypInstrmntMapper
+from pybirdai.process_steps.joins_meta_data.member_hierarchy_service import MemberHierarchyClosure
 
 import os
 import shutil
 
+# calc_referenced_items loops over every item and calls filter_passed checks per item
+FILTER_MODE_LOOP = 'loop'
+# calc_referenced_items filters each product table with column-oriented kernels
+FILTER_MODE_VECTORISED = 'vectorised'
+
 
 class CreateExecutableFilters:
     def __init__(self):
@@ -68,7 +74,15 @@ class CreateExecutableFilters:
 
         return product_classes
 
+    def get_filter_mode(self, context):
+        filter_mode = getattr(context, 'executable_filter_mode', FILTER_MODE_LOOP) or FILTER_MODE_LOOP
+        if filter_mode not in (FILTER_MODE_LOOP, FILTER_MODE_VECTORISED):
+            print(f"WARNING: Unknown executable filter mode {filter_mode}, using {FILTER_MODE_LOOP}")
+            return FILTER_MODE_LOOP
+        return filter_mode
+
     def create_executable_filters(self, context, sdd_context):
+        filter_mode = self.get_filter_mode(context)
         CreateExecutableFilters.delete_generated_python_filter_files(self, context)
         CreateExecutableFilters.delete_generated_html_filter_files(self, context)
         CreateExecutableFilters.prepare_node_dictionaries_and_lists(self, sdd_context)
@@ -100,6 +114,8 @@ class CreateExecutableFilters:
         file.write("# Note: output_tables.py no longer needed - using direct product-specific classes\n")
         file.write("from pybirdai.process_steps.pybird.orchestration import Orchestration\n")
         file.write("from pybirdai.annotations.decorators import lineage\n")
+        if filter_mode == FILTER_MODE_VECTORISED:
+            file.write("from pybirdai.process_steps.pybird.filter_kernels import filter_items\n")
         
         # Import all logic files that contain product-specific classes
         logic_files = set()
@@ -149,6 +165,8 @@ class CreateExecutableFilters:
                     # Create attributes for each product-specific class
                     for product_class in product_classes:
                         file.write("\t" + product_class + " = None\n")
+                    # Lets the orchestration skip reflecting over the class for its table references
+                    file.write("\t__table_refs__ = " + repr(tuple(product_classes)) + "\n")
                     
                     file.write("\t" + cube_id + "s = []\n")
                     
@@ -207,6 +225,18 @@ class CreateExecutableFilters:
                         # No product classes found - this shouldn't happen
                         calc_string += "\t\t# ERROR: No TYP_INSTRMNT found for this combination\n"
                         calc_string += "\t\tpass\n"
+                    elif filter_mode == FILTER_MODE_VECTORISED:
+                        # Columnar filtering shared by every cell on the same product table
+                        calc_string += "\t\t# Filter product-specific classes with columnar kernels\n"
+
+                        for product_class in product_classes:
+                            product_name = product_class.replace(cube_id + "_", "").replace("_Table", "") + "s"
+
+                            calc_string += f"\t\t# Process {product_class}\n"
+                            calc_string += f"\t\tif self.{product_class} is not None:\n"
+                            calc_string += self._generate_vectorised_filter_logic(combination_item_list, sdd_context,
+                                                                                  product_class, product_name,
+                                                                                  "self." + cube_id + "s", "\t\t\t")
                     else:
                         # Direct filtering on product-specific classes
                         calc_string += "\t\t# Filter directly on product-specific classes\n"
@@ -256,10 +286,8 @@ class CreateExecutableFilters:
         report_html_file.write("</html>\n")
         report_html_file.write("{% endblock %}\n")
 
-    def _generate_filter_logic(self, combination_item_list, sdd_context, indent):
-        """Generate filter logic using all([...]) pattern with 'in' checks"""
-
-        # Collect all filter conditions
+    def _collect_filter_conditions(self, combination_item_list, sdd_context):
+        """Return (variable_name, valid_codes) pairs for the combination items that filter"""
         filter_conditions = []
 
         for combination_item in combination_item_list:
@@ -277,16 +305,23 @@ class CreateExecutableFilters:
 
                 # Collect all valid codes
                 valid_codes = [str(leaf_node_member.code) for leaf_node_member in leaf_node_members]
-
-                # Build the condition: item.VARIABLE() in ['val1', 'val2', ...]
-                condition = f"item.{combination_item.variable_id.name}() in ["
-                condition += ", ".join([f"'{code}'" for code in valid_codes])
-                condition += "]"
-
-                filter_conditions.append(condition)
+                filter_conditions.append((combination_item.variable_id.name, valid_codes))
             else:
                 print("No leaf node members for " + combination_item.variable_id.name + ":" + combination_item.member_id.member_id)
 
+        return filter_conditions
+
+    def _generate_filter_logic(self, combination_item_list, sdd_context, indent):
+        """Generate filter logic using all([...]) pattern with 'in' checks"""
+
+        # Build each condition: item.VARIABLE() in ['val1', 'val2', ...]
+        filter_conditions = []
+        for variable_name, valid_codes in self._collect_filter_conditions(combination_item_list, sdd_context):
+            condition = f"item.{variable_name}() in ["
+            condition += ", ".join([f"'{code}'" for code in valid_codes])
+            condition += "]"
+            filter_conditions.append(condition)
+
         # Generate the filter_passed = all([...]) statement
         if filter_conditions:
             filter_string = indent + "filter_passed = all([\n"
@@ -297,6 +332,16 @@ class CreateExecutableFilters:
         else:
             return ""
 
+    def _generate_vectorised_filter_logic(self, combination_item_list, sdd_context, product_class, items_attribute, target_list, indent):
+        """Generate a filter_items(...) call that filters a whole product table with boolean masks"""
+        filter_string = indent + f"{target_list}.extend(filter_items(self.{product_class}, '{items_attribute}', (\n"
+        for variable_name, valid_codes in self._collect_filter_conditions(combination_item_list, sdd_context):
+            filter_string += indent + f"\t('{variable_name}', ("
+            filter_string += ", ".join([f"'{code}'" for code in valid_codes])
+            filter_string += ",)),\n"
+        filter_string += indent + ")))\n"
+        return filter_string
+
     def get_leaf_node_codes(self, sdd_context, member, member_hierarchy):
         return_list = []
         if member is not None:
@@ -380,6 +425,10 @@ class CreateExecutableFilters:
                     if node.member_id not in sdd_context.member_plus_hierarchy_to_child_literals[member_plus_hierarchy]:
                         sdd_context.member_plus_hierarchy_to_child_literals[member_plus_hierarchy].append(node.member_id)
 
+        sdd_context.member_hierarchy_closure = MemberHierarchyClosure(
+            sdd_context.member_plus_hierarchy_to_child_literals
+        )
+
         # Build domain hierarchy mapping
         for hierarchy in sdd_context.member_hierarchy_dictionary.values():
             domain_id = hierarchy.domain_id
@@ -418,16 +467,10 @@ class CreateExecutableFilters:
         return return_list.copy()  # Return a copy to prevent modifications
 
     def get_member_list_considering_hierarchy(self, sdd_context, member, hierarchy, member_list):
-        key = f"{member.member_id}:{hierarchy}"
-        try:
-            child_members = sdd_context.member_plus_hierarchy_to_child_literals[key]
-            for item in child_members:
-                if item is not None and item not in member_list:
-                    if not self.is_member_a_node(sdd_context, item):
-                        member_list.append(item)
-                    self.get_member_list_considering_hierarchy(sdd_context, item, hierarchy, member_list)
-        except KeyError:
-            pass
+        closure = MemberHierarchyClosure.for_context(sdd_context)
+        for item in closure.descendants(member, hierarchy):
+            if item not in member_list and not self.is_member_a_node(sdd_context, item):
+                member_list.append(item)
 
     def delete_generated_python_filter_files(self, context):
         base_dir = settings.BASE_DIR
@@ -9,10 +9,13 @@
 #
 # Contributors:
 #    Neil Mackenzie - initial API and implementation
+import csv
+import io
 import os
 import threading
 
 from pybirdai.context.sdd_context_django import SDDContext
+from pybirdai.process_steps.pybird.lineage_snapshot_cache import lineage_snapshot_cache
 from django.conf import settings
 from django.db.models import QuerySet
 from django.db.models.fields.related import ReverseOneToOneDescriptor
@@ -26,29 +29,29 @@ def _csv_debug(message):
 class CSVConverter:
 	_django_references_cache = {}
 	_operations_cache = {}
+	# Guards _file_locks; each output file has its own lock so different
+	# tables can be persisted concurrently
 	_write_lock = threading.Lock()
+	_file_locks = {}
+	# Rows fetched per round trip when streaming an unevaluated queryset
+	queryset_chunk_size = 2000
+	# Copy unchanged input tables from results/lineage_snapshots instead of
+	# rendering them again (see lineage_snapshot_cache.py)
+	reuse_unchanged_snapshots = True
 
 	def persist_object_as_csv(theObject,useLongNames):
 		if _DEBUG_LINEAGE:
 			_csv_debug("persist_object_as_csv theObject: " + str(theObject))
 		#if 'FNNCL_ASST_INSTRMNT_DRVD_DT' in str(theObject):
 		#	import pdb;pdb.set_trace()
-		fileName = ""
-		base_dir = settings.BASE_DIR 
-		output_directory = os.path.join(base_dir, 'results','lineage')
 		table_name = CSVConverter.get_table_name(theObject)
-		csvString = CSVConverter.createCSVStringForTable(theObject,useLongNames,table_name)
+		file_path = CSVConverter.get_csv_path(table_name, useLongNames)
+		fileName = os.path.basename(file_path)
 		try:
-			with CSVConverter._write_lock:
-				if (useLongNames):
-					fileName = table_name + "_longnames.csv"
-					with open(output_directory + os.sep + fileName, "w",  encoding='utf-8') as file:
-						file.write(csvString)
-				else:
-					fileName = table_name + ".csv"
-					with open(output_directory + os.sep + fileName, "w",  encoding='utf-8') as file:
-						file.write(csvString)
-
+			if isinstance(theObject, QuerySet) and CSVConverter.reuse_unchanged_snapshots:
+				CSVConverter._write_queryset_csv(theObject, useLongNames, file_path)
+			else:
+				CSVConverter.write_csv_for_table(theObject, useLongNames, file_path)
 		except Exception as e: 
 			print("Exception  " + str(e)  )
 			print("File " + fileName  + " already exists" )
@@ -56,6 +59,51 @@ class CSVConverter:
 		if _DEBUG_LINEAGE:
 			_csv_debug("persist_object_as_csv succesfully written: " + str(theObject))
 
+	def get_csv_path(table_name, useLongNames):
+		output_directory = os.path.join(settings.BASE_DIR, 'results','lineage')
+		if (useLongNames):
+			return output_directory + os.sep + table_name + "_longnames.csv"
+		return output_directory + os.sep + table_name + ".csv"
+
+	def _lock_for_file(file_path):
+		with CSVConverter._write_lock:
+			lock = CSVConverter._file_locks.get(file_path)
+			if lock is None:
+				lock = threading.Lock()
+				CSVConverter._file_locks[file_path] = lock
+			return lock
+
+	def _write_queryset_csv(queryset, useLongNames, file_path):
+		snapshots = lineage_snapshot_cache()
+		fingerprint = snapshots.fingerprint(queryset)
+		change_count = snapshots.change_count(queryset.model)
+		with CSVConverter._lock_for_file(file_path):
+			restored = snapshots.restore(file_path, fingerprint)
+		if restored:
+			_csv_debug("persist_object_as_csv reused unchanged snapshot: " + file_path)
+			return
+		CSVConverter.write_csv_for_table(queryset, useLongNames, file_path)
+		snapshots.remember(file_path, fingerprint, change_count)
+
+	def write_csv_for_table(theObject, useLongNames, file_path):
+		'''
+		Stream the rows of theObject to file_path without building the CSV in memory.
+		Rows go to a temporary file which replaces file_path once complete, so
+		readers never see a half written table.
+		'''
+		with CSVConverter._lock_for_file(file_path):
+			# Batch worker processes may persist the same table
+			temporary_path = file_path + "." + str(os.getpid()) + ".tmp"
+			try:
+				with open(temporary_path, "w", newline='', encoding='utf-8') as file:
+					writer = csv.writer(file, lineterminator='\n')
+					for row in CSVConverter.iterCSVRowsForTable(theObject, useLongNames):
+						writer.writerow(row)
+				os.replace(temporary_path, file_path)
+			finally:
+				if os.path.exists(temporary_path):
+					os.remove(temporary_path)
+
 	def get_table_name(theObject):
 		table_name = None
 		if isinstance(theObject, QuerySet):
@@ -64,14 +112,22 @@ class CSVConverter:
 			class_name = theObject.__class__.__name__
 			table_name = class_name.split('_Table')[0]
 		return table_name
-	
-	def createCSVStringForTable( theObject,  useLongNames, table_name):
+
+	def _iterate_queryset(queryset):
+		# An evaluated queryset already holds its rows; iterator() would query again
+		if queryset._result_cache is not None:
+			return iter(queryset)
+		return queryset.iterator(chunk_size=CSVConverter.queryset_chunk_size)
+
+	def iterCSVRowsForTable(theObject, useLongNames):
+		'''
+		Yield the header and then one list of values per row of theObject
+		'''
 		object_list = []
 		headerCreated = False
-		csv_lines = []
 		django_model = False
 		if isinstance(theObject, QuerySet):
-			object_list = theObject
+			object_list = CSVConverter._iterate_queryset(theObject)
 			django_model = True
 
 			# Note: Removed broad Django model access tracking as it pollutes lineage with unused fields
@@ -82,13 +138,16 @@ class CSVConverter:
 
 		for o in object_list:
 			if not headerCreated:
-				csv_lines.append(CSVConverter.createCSVHeaderStringForRow(o,django_model).rstrip('\n'))
+				yield CSVConverter.getCSVHeaderValuesForRow(o,django_model)
 				headerCreated = True
-			csv_lines.append(CSVConverter.createCSVStringForRow(o, useLongNames,django_model).rstrip('\n'))
-
+			yield CSVConverter.getCSVValuesForRow(o, useLongNames,django_model)
 
-
-		return "\n".join(csv_lines) + "\n"
+	def createCSVStringForTable( theObject,  useLongNames, table_name):
+		output = io.StringIO()
+		writer = csv.writer(output, lineterminator='\n')
+		for row in CSVConverter.iterCSVRowsForTable(theObject, useLongNames):
+			writer.writerow(row)
+		return output.getvalue() or "\n"
 
 	def _get_django_references(model_class):
 		references = CSVConverter._django_references_cache.get(model_class)
@@ -145,9 +204,7 @@ class CSVConverter:
 
 					
 
-	def createCSVStringForRow(theObject,useLongNames,django_model):
-		clazz = None
-		eClass = theObject.__class__
+	def getCSVValuesForRow(theObject,useLongNames,django_model):
 		values = []
 		if django_model:
 			references = CSVConverter._get_django_references(theObject.__class__)
@@ -156,7 +213,7 @@ class CSVConverter:
 				referencedItemString = str(referencedItem)
 				if referencedItemString.endswith(".None"):
 					referencedItemString = "None"
-				values.append(str(referencedItemString))
+				values.append(referencedItemString)
 		else:
 			# For non-Django objects (like ANCRDT row objects), call methods to get values
 			# Get all callable methods (same as header creation logic)
@@ -172,18 +229,19 @@ class CSVConverter:
 					# If method call fails, use empty string
 					values.append("")
 
-		return ",".join(values) + "\n"
+		return values
 
-	def createCSVHeaderStringForRow(theObject,django_model):
-		clazz = None
-		eClass = theObject.__class__
-		
+	def getCSVHeaderValuesForRow(theObject,django_model):
 		if django_model:
-			return ",".join(CSVConverter._get_django_references(theObject.__class__)) + "\n"
+			return list(CSVConverter._get_django_references(theObject.__class__))
 		else:
-			return ",".join(CSVConverter._get_operations(theObject.__class__)) + "\n"
+			return list(CSVConverter._get_operations(theObject.__class__))
 
-		return "\n"
+	def createCSVStringForRow(theObject,useLongNames,django_model):
+		return ",".join(CSVConverter.getCSVValuesForRow(theObject,useLongNames,django_model)) + "\n"
+
+	def createCSVHeaderStringForRow(theObject,django_model):
+		return ",".join(CSVConverter.getCSVHeaderValuesForRow(theObject,django_model)) + "\n"
 
 	
 	def getReferencedItemString(eStructuralFeature, referencedItem,useLongNames):
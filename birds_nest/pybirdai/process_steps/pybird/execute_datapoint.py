@@ -17,6 +17,7 @@ from django.conf import settings
 from django.db import transaction
 from contextlib import contextmanager
 from contextvars import ContextVar
+from pybirdai.process_steps.pybird.lineage_store import archive_trail_on_commit
 
 _lineage_cleanup_state = ContextVar('pybirdai_lineage_cleanup_state', default=None)
 
@@ -133,6 +134,7 @@ class ExecuteDataPoint:
                 try:
                     # Count contributing rows
                     from pybirdai.models import CalculationUsedRow
+                    orchestration.flush_pending_calculation_usage()
                     contributing_rows = CalculationUsedRow.objects.filter(
                         trail=orchestration.trail,
                         calculation_name=orchestration.current_calculation
@@ -221,6 +223,9 @@ class ExecuteDataPoint:
 
                 print(f"\n=== End Lineage Summary ===\n")
 
+            if trail:
+                archive_trail_on_commit(trail)
+
         del datapoint
         return metric_value
 
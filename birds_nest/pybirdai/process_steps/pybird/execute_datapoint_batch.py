@@ -0,0 +1,255 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+"""
+Batch execution of datapoints across a process pool.
+
+Each worker process boots Django once, keeps one reference cache and one
+derived table cache for its whole lifetime and then runs
+ExecuteDataPoint.execute_data_point for every datapoint it is given. Reference data is therefore loaded at most once
+per worker; when the parent has already warmed a shared_reference_cache() and
+the platform supports fork, the workers inherit those rows copy-on-write and
+never query them at all.
+
+Every datapoint still runs through execute_data_point, so each cell keeps its
+own transaction and its own lineage Trail. With lineage on, those
+transactions write, so on SQLite, which allows a single writer, the batch
+runs in the calling process. With lineage suppressed the cells only read,
+so they fan out to the workers on SQLite as well.
+"""
+import logging
+import math
+import multiprocessing
+import os
+import time
+from concurrent.futures import ProcessPoolExecutor
+from contextlib import ExitStack, nullcontext
+from multiprocessing.util import Finalize
+from dataclasses import dataclass, field
+from typing import Any, Dict, List, Optional
+
+logger = logging.getLogger(__name__)
+
+DEFAULT_BATCH_PROCESSES = max(1, min(8, os.cpu_count() or 1))
+
+# Worker-process state, populated by _init_worker.
+_worker_state = {
+    'stack': None,
+    'suppress_lineage': False,
+}
+
+
+@dataclass
+class DataPointResult:
+    """Outcome of a single datapoint in a batch."""
+    data_point_id: str
+    success: bool
+    value: Optional[str] = None
+    error: Optional[str] = None
+    duration_ms: int = 0
+    worker_pid: Optional[int] = None
+
+    def to_dict(self) -> Dict[str, Any]:
+        return {
+            'data_point_id': self.data_point_id,
+            'success': self.success,
+            'value': self.value,
+            'error': self.error,
+            'duration_ms': self.duration_ms,
+            'worker_pid': self.worker_pid,
+        }
+
+
+@dataclass
+class DataPointBatchResult:
+    """Per-cell results of a batch, in the order the IDs were requested."""
+    results: List[DataPointResult] = field(default_factory=list)
+    duration_ms: int = 0
+    worker_count: int = 1
+
+    @property
+    def succeeded(self) -> int:
+        return sum(1 for result in self.results if result.success)
+
+    @property
+    def failed(self) -> int:
+        return len(self.results) - self.succeeded
+
+    def values(self) -> Dict[str, Optional[str]]:
+        return {result.data_point_id: result.value for result in self.results}
+
+    def to_dict(self) -> Dict[str, Any]:
+        return {
+            'total': len(self.results),
+            'succeeded': self.succeeded,
+            'failed': self.failed,
+            'duration_ms': self.duration_ms,
+            'worker_count': self.worker_count,
+            'results': [result.to_dict() for result in self.results],
+        }
+
+
+def _preferred_mp_context():
+    # fork lets workers inherit an already warmed reference cache without pickling it
+    if 'fork' in multiprocessing.get_all_start_methods():
+        return multiprocessing.get_context('fork')
+    return multiprocessing.get_context('spawn')
+
+
+def _supports_parallel_writes():
+    from django.db import connections
+    return connections['default'].vendor != 'sqlite'
+
+
+def _init_worker(inherited_reference_cache, suppress_lineage):
+    os.environ.setdefault('DJANGO_SETTINGS_MODULE', 'birds_nest.settings')
+    import django
+    from django.apps import apps
+    if not apps.ready:
+        django.setup()
+
+    from pybirdai.process_steps.pybird.execute_datapoint import lineage_file_cleanup_scope
+    from pybirdai.process_steps.pybird.orchestration import _reference_queryset_cache, shared_derived_table_cache
+
+    stack = ExitStack()
+    # The parent already cleaned results/lineage once for the whole batch
+    stack.enter_context(lineage_file_cleanup_scope(cleaned=True))
+    stack.enter_context(shared_derived_table_cache())
+    _reference_queryset_cache.set(dict(inherited_reference_cache or {}))
+    _worker_state['stack'] = stack
+    # Runs when the worker process exits, fork or spawn alike
+    Finalize(None, stack.close, exitpriority=10)
+    _worker_state['suppress_lineage'] = suppress_lineage
+
+
+def _execute_one(data_point_id, suppress_lineage):
+    from pybirdai.context.context import lineage_tracking_override
+    from pybirdai.process_steps.pybird.execute_datapoint import ExecuteDataPoint
+
+    start_time = time.perf_counter()
+    lineage_context = lineage_tracking_override(False) if suppress_lineage else nullcontext()
+    try:
+        with lineage_context:
+            value = ExecuteDataPoint.execute_data_point(data_point_id)
+        return DataPointResult(
+            data_point_id=data_point_id,
+            success=True,
+            value=value,
+            duration_ms=int((time.perf_counter() - start_time) * 1000),
+            worker_pid=os.getpid(),
+        )
+    except Exception as e:
+        logger.exception("Error executing datapoint %s", data_point_id)
+        return DataPointResult(
+            data_point_id=data_point_id,
+            success=False,
+            error=f"{type(e).__name__}: {e}",
+            duration_ms=int((time.perf_counter() - start_time) * 1000),
+            worker_pid=os.getpid(),
+        )
+
+
+def _execute_chunk(start_index, data_point_ids):
+    suppress_lineage = _worker_state['suppress_lineage']
+    return start_index, [_execute_one(data_point_id, suppress_lineage) for data_point_id in data_point_ids]
+
+
+def _chunks(data_point_ids, worker_count):
+    # Several small chunks per worker keep the pool balanced when cell costs differ
+    chunk_size = max(1, math.ceil(len(data_point_ids) / (worker_count * 4)))
+    for start in range(0, len(data_point_ids), chunk_size):
+        yield start, data_point_ids[start:start + chunk_size]
+
+
+class ExecuteDataPointBatch:
+    """Execute many datapoints in parallel worker processes."""
+
+    @staticmethod
+    def execute_data_points(data_point_ids, max_workers=None, suppress_lineage=None):
+        """
+        Execute a list of datapoints and return a DataPointBatchResult.
+
+        Args:
+            data_point_ids: datapoint IDs as accepted by ExecuteDataPoint.execute_data_point
+            max_workers: number of worker processes, defaults to the CPU count (max 8)
+            suppress_lineage: force lineage off in the workers. Defaults to the current
+                lineage setting, so each cell still gets its own Trail when enabled.
+        """
+        from django.db import connections
+        from pybirdai.context.context import Context
+        from pybirdai.process_steps.pybird.execute_datapoint import ExecuteDataPoint
+        from pybirdai.process_steps.pybird.orchestration import _reference_queryset_cache
+
+        data_point_ids = [str(data_point_id) for data_point_id in data_point_ids]
+        batch = DataPointBatchResult()
+        if not data_point_ids:
+            return batch
+
+        if suppress_lineage is None:
+            # ContextVar overrides do not cross process boundaries, so resolve them here
+            suppress_lineage = not Context.get_current_lineage_setting()
+
+        try:
+            worker_count = int(max_workers) if max_workers is not None else DEFAULT_BATCH_PROCESSES
+        except (TypeError, ValueError):
+            worker_count = DEFAULT_BATCH_PROCESSES
+        worker_count = max(1, min(worker_count, len(data_point_ids)))
+        if worker_count > 1 and not suppress_lineage and not _supports_parallel_writes():
+            # Workers would only queue for the database write lock to record lineage
+            logger.info(
+                "Running %s datapoints serially: lineage is recorded and the database allows one writer",
+                len(data_point_ids),
+            )
+            worker_count = 1
+        batch.worker_count = worker_count
+
+        start_time = time.perf_counter()
+        ExecuteDataPoint.delete_lineage_data()
+
+        if worker_count == 1:
+            from pybirdai.process_steps.pybird.execute_datapoint import lineage_file_cleanup_scope
+            from pybirdai.process_steps.pybird.orchestration import shared_reference_cache
+
+            inherited = _reference_queryset_cache.get()
+            reference_scope = nullcontext() if inherited is not None else shared_reference_cache()
+            with lineage_file_cleanup_scope(cleaned=True), reference_scope:
+                batch.results = [
+                    _execute_one(data_point_id, suppress_lineage) for data_point_id in data_point_ids
+                ]
+        else:
+            # Never hand open SQLite handles to the children
+            connections.close_all()
+            mp_context = _preferred_mp_context()
+            inherited = _reference_queryset_cache.get() if mp_context.get_start_method() == 'fork' else None
+
+            chunk_results = []
+            with ProcessPoolExecutor(
+                max_workers=worker_count,
+                mp_context=mp_context,
+                initializer=_init_worker,
+                initargs=(inherited, suppress_lineage),
+            ) as executor:
+                futures = [
+                    executor.submit(_execute_chunk, start_index, chunk)
+                    for start_index, chunk in _chunks(data_point_ids, worker_count)
+                ]
+                for future in futures:
+                    chunk_results.append(future.result())
+
+            for _, results in sorted(chunk_results, key=lambda item: item[0]):
+                batch.results.extend(results)
+
+        batch.duration_ms = int((time.perf_counter() - start_time) * 1000)
+        logger.info(
+            "Executed %s datapoints with %s worker(s) in %sms (%s failed)",
+            len(batch.results), worker_count, batch.duration_ms, batch.failed,
+        )
+        return batch
@@ -0,0 +1,135 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+"""
+Column-oriented filter kernels used by Cell_ classes generated in the
+'vectorised' filter mode of CreateExecutableFilters.
+
+Instead of calling item.VARIABLE() for every item and every cell, the values
+of a variable are read once per input table into a column and every cell that
+filters that table combines boolean masks built with pandas.isin. Columns are
+cached against the table object, so all cells sharing a table within a batch
+reuse them: each item method is still called, but once per table and
+variable rather than once per cell.
+
+While lineage is being recorded, every item call belongs to the cell being
+executed, so the kernels evaluate the conditions item by item, as the loop
+mode does, and neither read nor fill the column cache.
+"""
+import weakref
+from operator import methodcaller
+
+import numpy as np
+import pandas as pd
+
+from pybirdai.annotations.decorators import lineage_recording_active
+
+# table object -> {items attribute name: _ColumnarItems}
+_columnar_cache = weakref.WeakKeyDictionary()
+
+
+class _ColumnarItems:
+    """Lazily materialised columns for one list of items on a table object."""
+
+    def __init__(self, items):
+        self.items = items
+        self.size = len(items)
+        self.columns = {}
+
+    def is_current(self, items):
+        return self.items is items and self.size == len(items)
+
+    def column(self, variable_name):
+        column = self.columns.get(variable_name)
+        if column is None:
+            column = pd.Series(list(map(methodcaller(variable_name), self.items)), dtype=object)
+            self.columns[variable_name] = column
+        return column
+
+
+def _columnar_items(table, items_attribute):
+    items = getattr(table, items_attribute, None)
+    if items is None:
+        return None
+
+    try:
+        per_table = _columnar_cache.get(table)
+    except TypeError:
+        # Table object does not support weak references; build uncached columns
+        return _ColumnarItems(list(items))
+
+    if per_table is None:
+        per_table = {}
+        _columnar_cache[table] = per_table
+
+    columnar = per_table.get(items_attribute)
+    if columnar is None or not columnar.is_current(items):
+        if not isinstance(items, list):
+            items = list(items)
+        columnar = _ColumnarItems(items)
+        per_table[items_attribute] = columnar
+    return columnar
+
+
+def _passes_all(item, conditions):
+    # Same evaluation as the loop mode's all([...]): every condition is called
+    return all([getattr(item, variable_name)() in allowed_values for variable_name, allowed_values in conditions])
+
+
+def filter_mask(table, items_attribute, conditions):
+    """
+    Return a numpy boolean mask over getattr(table, items_attribute).
+
+    Args:
+        table: the product table object, e.g. an F_05_01_REF_FINREP_3_0_Other_loans_Table
+        items_attribute: name of the list of items on the table, e.g. 'Other_loanss'
+        conditions: iterable of (variable_name, allowed_values) pairs, all of which must hold
+    """
+    if lineage_recording_active():
+        items = getattr(table, items_attribute, None) or []
+        return np.array([_passes_all(item, conditions) for item in items], dtype=bool)
+
+    columnar = _columnar_items(table, items_attribute)
+    if columnar is None:
+        return np.zeros(0, dtype=bool)
+
+    mask = np.ones(columnar.size, dtype=bool)
+    for variable_name, allowed_values in conditions:
+        if not mask.any():
+            break
+        mask &= columnar.column(variable_name).isin(allowed_values).to_numpy()
+    return mask
+
+
+def filter_items(table, items_attribute, conditions):
+    """Return the items of getattr(table, items_attribute) passing every condition."""
+    if lineage_recording_active():
+        items = getattr(table, items_attribute, None) or []
+        return [item for item in items if _passes_all(item, conditions)]
+
+    columnar = _columnar_items(table, items_attribute)
+    if columnar is None:
+        return []
+
+    mask = filter_mask(table, items_attribute, conditions)
+    items = columnar.items
+    return [items[index] for index in np.flatnonzero(mask)]
+
+
+def clear_filter_kernel_cache(table=None):
+    """Drop cached columns for one table object, or for every table."""
+    if table is None:
+        _columnar_cache.clear()
+    else:
+        try:
+            _columnar_cache.pop(table, None)
+        except TypeError:
+            pass
@@ -0,0 +1,253 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Cell-to-source-row closure of a trail.
+
+The filtered lineage view shows, for one calculation, the rows it read and
+every row those were derived from. Following DerivedRowSourceReference one
+row at a time costs a query per row. RowSourceIndex loads a trail's row
+sources in a single query, or from its columnar archive when it has one
+(see lineage_store.open_trail_store), and walks them in memory.
+
+finalize_lineage() goes one step further and calls build_cell_closures(). For
+each CellLineage of the trail, this stores the result of that walk as
+CellSourceRow entries:
+    LINEAGE_ROOT     derived rows the calculation started from
+    LINEAGE_CLOSURE  every other derived or database row that contributed
+The view then reads a cell's rows with one query (cell_closure()). The
+columns a calculation used are already listed directly by
+CalculationUsedField.
+"""
+import logging
+from collections import deque
+
+import numpy as np
+from django.contrib.contenttypes.models import ContentType
+from django.db import transaction
+
+from pybirdai.models import (
+    CalculationUsedRow, CellLineage, CellSourceRow, DatabaseRow, DerivedRowSourceReference,
+    DerivedTableRow, EvaluatedDerivedTable,
+)
+from pybirdai.process_steps.pybird.lineage_output_tables import get_output_table_names
+from pybirdai.process_steps.pybird.lineage_store import open_trail_store
+
+logger = logging.getLogger(__name__)
+
+CLOSURE_ROOT = 'LINEAGE_ROOT'
+CLOSURE_ROW = 'LINEAGE_CLOSURE'
+CLOSURE_TYPES = (CLOSURE_ROOT, CLOSURE_ROW)
+BULK_BATCH_SIZE = 5000
+
+
+class RowSourceIndex:
+    """In-memory DerivedRowSourceReference adjacency of one trail."""
+
+    def __init__(self, trail, stored_trail=None):
+        """
+        Args:
+            trail: the Trail whose row sources are indexed
+            stored_trail: its ColumnarTrail, read instead of the database when
+                          given; the index keeps no reference to it
+        """
+        self.trail = trail
+        self.derived_sources = {}
+        self.database_sources = {}
+        # Populated table of each derived row, for archived trails
+        self._stored_row_ids = None
+        self._stored_row_tables = None
+        if stored_trail is not None:
+            self._stored_row_ids = stored_trail.column('derived_row_id')
+            self._stored_row_tables = stored_trail.column('derived_row_table')
+            references = (
+                (int(owner), str(source_model), int(source_id))
+                for owner, source_model, source_id in zip(
+                    stored_trail.column('row_source_owner'), stored_trail.column('row_source_type'),
+                    stored_trail.column('row_source_object'))
+            )
+        else:
+            references = DerivedRowSourceReference.objects.filter(
+                derived_row__populated_table__trail=trail
+            ).values_list('derived_row_id', 'content_type__model', 'object_id').iterator(
+                chunk_size=BULK_BATCH_SIZE)
+        for derived_row_id, source_model, source_id in references:
+            if source_model == 'derivedtablerow':
+                self.derived_sources.setdefault(derived_row_id, []).append(source_id)
+            elif source_model == 'databaserow':
+                self.database_sources.setdefault(derived_row_id, []).append(source_id)
+
+    @classmethod
+    def for_trail(cls, trail):
+        """The index of a trail, read from its columnar archive when it has one."""
+        stored_trail = open_trail_store(trail)
+        if stored_trail is None:
+            return cls(trail)
+        with stored_trail:
+            return cls(trail, stored_trail)
+
+    def has_sources(self, derived_row_id):
+        return derived_row_id in self.derived_sources or derived_row_id in self.database_sources
+
+    def root_derived_row_ids(self, derived_row_ids, output_table_names=None):
+        """
+        The rows a calculation started from: its rows in the output tables, or
+        else the used rows that no other used row was derived from.
+        """
+        if not derived_row_ids:
+            return set()
+
+        output_table_names = set(output_table_names or [])
+        if output_table_names:
+            output_row_ids = self._output_row_ids(derived_row_ids, output_table_names)
+            if output_row_ids:
+                return output_row_ids
+
+        derived_row_ids = set(derived_row_ids)
+        rows_reused_by_other_used_rows = {
+            source_id
+            for row_id in derived_row_ids
+            for source_id in self.derived_sources.get(row_id, ())
+            if source_id in derived_row_ids
+        }
+        root_row_ids = derived_row_ids - rows_reused_by_other_used_rows
+        return root_row_ids or derived_row_ids
+
+    def _output_row_ids(self, derived_row_ids, output_table_names):
+        if self._stored_row_ids is None:
+            return set(
+                DerivedTableRow.objects.filter(
+                    id__in=derived_row_ids,
+                    populated_table__table__name__in=output_table_names,
+                ).values_list('id', flat=True)
+            )
+        output_tables = EvaluatedDerivedTable.objects.filter(
+            trail=self.trail, table__name__in=output_table_names).values_list('id', flat=True)
+        in_output_tables = (np.isin(self._stored_row_ids, list(derived_row_ids))
+                            & np.isin(self._stored_row_tables, list(output_tables)))
+        return {int(row_id) for row_id in self._stored_row_ids[in_output_tables]}
+
+    def trace_backwards(self, root_derived_row_ids):
+        """
+        Walk row-source lineage backwards from calculation roots.
+
+        Returns whether at least one row-source relationship existed, and the
+        derived and database row ids that transitively contributed to the roots.
+        """
+        traced_derived_row_ids = set(root_derived_row_ids)
+        traced_database_row_ids = set()
+        queue = deque(root_derived_row_ids)
+        found_row_sources = False
+
+        while queue:
+            current_row_id = queue.popleft()
+            if self.has_sources(current_row_id):
+                found_row_sources = True
+            for source_row_id in self.derived_sources.get(current_row_id, ()):
+                if source_row_id not in traced_derived_row_ids:
+                    traced_derived_row_ids.add(source_row_id)
+                    queue.append(source_row_id)
+            traced_database_row_ids.update(self.database_sources.get(current_row_id, ()))
+
+        return found_row_sources, traced_derived_row_ids, traced_database_row_ids
+
+
+def _used_rows_by_calculation(trail):
+    used = {}
+    rows = CalculationUsedRow.objects.filter(trail=trail).values_list(
+        'calculation_name', 'content_type__model', 'object_id')
+    for calculation_name, model, object_id in rows.iterator(chunk_size=BULK_BATCH_SIZE):
+        derived, database = used.setdefault(calculation_name, (set(), set()))
+        if model == 'derivedtablerow':
+            derived.add(object_id)
+        elif model == 'databaserow':
+            database.add(object_id)
+    return used
+
+
+def build_cell_closures(trail):
+    """
+    Store the contributing rows of every CellLineage of a trail as CellSourceRow
+    entries, replacing any closure stored before. Returns the number of rows written.
+    """
+    cells = list(CellLineage.objects.filter(trail=trail))
+    if not cells:
+        return 0
+
+    derived_type = ContentType.objects.get_for_model(DerivedTableRow)
+    database_type = ContentType.objects.get_for_model(DatabaseRow)
+    used_by_calculation = _used_rows_by_calculation(trail)
+    index = RowSourceIndex.for_trail(trail)
+
+    closure_rows = []
+    for cell in cells:
+        used_derived, used_database = used_by_calculation.get(cell.cell_code, (set(), set()))
+        derived_row_ids = set(used_derived)
+        database_row_ids = set(used_database)
+        root_row_ids = set()
+        if derived_row_ids:
+            root_row_ids = index.root_derived_row_ids(
+                derived_row_ids, get_output_table_names(trail, cell.cell_code))
+            found_row_sources, traced_derived, traced_database = index.trace_backwards(root_row_ids)
+            if found_row_sources:
+                derived_row_ids = traced_derived
+                database_row_ids |= traced_database
+
+        for row_id in sorted(root_row_ids):
+            closure_rows.append(CellSourceRow(
+                cell=cell, row_content_type=derived_type, row_object_id=row_id,
+                contribution_type=CLOSURE_ROOT))
+        for row_id in sorted(derived_row_ids - root_row_ids):
+            closure_rows.append(CellSourceRow(
+                cell=cell, row_content_type=derived_type, row_object_id=row_id,
+                contribution_type=CLOSURE_ROW))
+        for row_id in sorted(database_row_ids):
+            closure_rows.append(CellSourceRow(
+                cell=cell, row_content_type=database_type, row_object_id=row_id,
+                contribution_type=CLOSURE_ROW))
+        cell.source_row_count = len(derived_row_ids) + len(database_row_ids)
+
+    with transaction.atomic():
+        CellSourceRow.objects.filter(cell__trail=trail, contribution_type__in=CLOSURE_TYPES).delete()
+        CellSourceRow.objects.bulk_create(closure_rows, batch_size=BULK_BATCH_SIZE)
+        CellLineage.objects.bulk_update(cells, ['source_row_count'], batch_size=BULK_BATCH_SIZE)
+
+    logger.info("Stored %s closure rows for %s cells of trail %s", len(closure_rows), len(cells), trail.id)
+    return len(closure_rows)
+
+
+def cell_closure(trail, calculation_name):
+    """
+    The stored closure of one calculation.
+
+    Returns:
+        (root derived row ids, derived row ids, database row ids), or None when
+        no closure was stored for the calculation
+    """
+    root_row_ids, derived_row_ids, database_row_ids = set(), set(), set()
+    rows = CellSourceRow.objects.filter(
+        cell__trail=trail,
+        cell__cell_code=calculation_name,
+        contribution_type__in=CLOSURE_TYPES,
+    ).values_list('row_content_type__model', 'row_object_id', 'contribution_type')
+    found = False
+    for model, row_id, contribution_type in rows:
+        found = True
+        if model == 'databaserow':
+            database_row_ids.add(row_id)
+            continue
+        derived_row_ids.add(row_id)
+        if contribution_type == CLOSURE_ROOT:
+            root_row_ids.add(row_id)
+    if not found:
+        return None
+    return root_row_ids, derived_row_ids, database_row_ids
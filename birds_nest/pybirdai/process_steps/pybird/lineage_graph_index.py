@@ -0,0 +1,449 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Per-trail lineage graph index for the paginated lineage graph API.
+
+The full lineage endpoints assemble every table, row and relationship of a
+trail into one response, which does not finish for trails with hundreds of
+thousands of rows. LineageGraph instead holds only the shape of the graph:
+one node per populated/evaluated table and per row, and the edges between
+them, in integer arrays with forward and backward adjacency. Pages of nodes
+and edges, and depth-limited expansions from one node, are then read from
+memory.
+
+Edges always point downstream:
+    contains      table -> one of its rows
+    data_flow     source table -> derived table (TableCreationSourceTable)
+    derived_from  source row -> derived row (DerivedRowSourceReference)
+
+get_trail_graph() keeps the most recently used graphs in memory. Their
+validity is tracked through the trail's LineageSummaryCache row: a graph is
+reused while that row is not stale and has the generated_at timestamp the
+graph was built for. Building a graph refreshes the summary counts, and
+invalidate_trail_graph() marks the row stale once a trail's lineage changes.
+"""
+import logging
+import threading
+from array import array
+from collections import OrderedDict, deque
+
+logger = logging.getLogger(__name__)
+
+DATABASE_TABLE = 0
+DERIVED_TABLE = 1
+DATABASE_ROW = 2
+DERIVED_ROW = 3
+NODE_KINDS = ('database_table', 'derived_table', 'database_row', 'derived_row')
+
+CONTAINS = 0
+DATA_FLOW = 1
+DERIVED_FROM = 2
+EDGE_TYPES = ('contains', 'data_flow', 'derived_from')
+
+UPSTREAM = 'upstream'
+DOWNSTREAM = 'downstream'
+BOTH = 'both'
+DIRECTIONS = (UPSTREAM, DOWNSTREAM, BOTH)
+
+# Content type models of DerivedRowSourceReference sources
+_ROW_SOURCE_KINDS = {'databaserow': DATABASE_ROW, 'derivedtablerow': DERIVED_ROW}
+_TABLE_SOURCE_KINDS = {'databasetable': DATABASE_TABLE, 'derivedtable': DERIVED_TABLE}
+
+MEMORY_CACHE_TRAILS = 4
+EXPANSION_CACHE_SIZE = 32
+READ_CHUNK_SIZE = 20000
+
+
+def _adjacency(node_count, owners):
+    """Compressed adjacency: edges of node n are edge_ids[offsets[n]:offsets[n + 1]]."""
+    offsets = array('l', [0]) * (node_count + 1)
+    for owner in owners:
+        offsets[owner + 1] += 1
+    for node in range(node_count):
+        offsets[node + 1] += offsets[node]
+    position = array('l', offsets)
+    edge_ids = array('l', [0]) * len(owners)
+    for edge, owner in enumerate(owners):
+        edge_ids[position[owner]] = edge
+        position[owner] += 1
+    return offsets, edge_ids
+
+
+class LineageGraph:
+    """Read-only node and edge index of one trail."""
+
+    def __init__(self, version, kinds, objects, labels, parents, edge_sources, edge_targets, edge_types):
+        """
+        Args:
+            version: Token identifying the lineage state the graph was built from
+            kinds, objects, labels, parents: Per node its kind, model pk, label
+                and the node index of its table (-1 for tables)
+            edge_sources, edge_targets, edge_types: Per edge its node indexes and type
+        """
+        self.version = version
+        self.kinds = array('b', kinds)
+        self.objects = array('q', objects)
+        self.labels = list(labels)
+        self.parents = array('l', parents)
+        self.edge_sources = array('l', edge_sources)
+        self.edge_targets = array('l', edge_targets)
+        self.edge_types = array('b', edge_types)
+        self._index = {(kind, obj): node for node, (kind, obj) in enumerate(zip(self.kinds, self.objects))}
+        self._out = _adjacency(len(self.kinds), self.edge_sources)
+        self._in = _adjacency(len(self.kinds), self.edge_targets)
+        self._expansions = OrderedDict()
+        self._lock = threading.Lock()
+
+    @property
+    def node_count(self):
+        return len(self.kinds)
+
+    @property
+    def edge_count(self):
+        return len(self.edge_types)
+
+    def node_key(self, node):
+        return f"{NODE_KINDS[self.kinds[node]]}:{self.objects[node]}"
+
+    def find_node(self, key):
+        """Node index for a key such as 'derived_row:42', or None."""
+        kind, _, obj = str(key).partition(':')
+        if kind not in NODE_KINDS or not obj.lstrip('-').isdigit():
+            return None
+        return self._index.get((NODE_KINDS.index(kind), int(obj)))
+
+    def out_edges(self, node):
+        offsets, edge_ids = self._out
+        return edge_ids[offsets[node]:offsets[node + 1]]
+
+    def in_edges(self, node):
+        offsets, edge_ids = self._in
+        return edge_ids[offsets[node]:offsets[node + 1]]
+
+    def nodes(self, kind=None):
+        """Node indexes in index order, optionally of one kind."""
+        if kind is None:
+            return range(self.node_count)
+        kind_id = NODE_KINDS.index(kind)
+        return [node for node, node_kind in enumerate(self.kinds) if node_kind == kind_id]
+
+    def edges(self, edge_type=None):
+        """Edge indexes in index order, optionally of one type."""
+        if edge_type is None:
+            return range(self.edge_count)
+        type_id = EDGE_TYPES.index(edge_type)
+        return [edge for edge, current in enumerate(self.edge_types) if current == type_id]
+
+    def counts(self):
+        counts = {f"{kind}_nodes": 0 for kind in NODE_KINDS}
+        counts.update({f"{edge_type}_edges": 0 for edge_type in EDGE_TYPES})
+        for kind in self.kinds:
+            counts[f"{NODE_KINDS[kind]}_nodes"] += 1
+        for edge_type in self.edge_types:
+            counts[f"{EDGE_TYPES[edge_type]}_edges"] += 1
+        return counts
+
+    def expand(self, start, depth, direction=BOTH):
+        """
+        Breadth-first expansion from one node.
+
+        Args:
+            start: Node index
+            depth: Largest number of edges between start and a returned node
+            direction: UPSTREAM follows edges backwards, DOWNSTREAM forwards
+
+        Returns:
+            Expansion with the reached nodes in discovery order; cached per
+            (start, depth, direction) so later pages are not recomputed.
+        """
+        key = (start, depth, direction)
+        with self._lock:
+            expansion = self._expansions.get(key)
+            if expansion is not None:
+                self._expansions.move_to_end(key)
+                return expansion
+
+        order = [start]
+        depths = {start: 0}
+        queue = deque([start])
+        while queue:
+            node = queue.popleft()
+            node_depth = depths[node]
+            if node_depth >= depth:
+                continue
+            for neighbour in self._neighbours(node, direction):
+                if neighbour not in depths:
+                    depths[neighbour] = node_depth + 1
+                    order.append(neighbour)
+                    queue.append(neighbour)
+        expansion = Expansion(self, order, depths, direction)
+
+        with self._lock:
+            self._expansions[key] = expansion
+            while len(self._expansions) > EXPANSION_CACHE_SIZE:
+                self._expansions.popitem(last=False)
+        return expansion
+
+    def _neighbours(self, node, direction):
+        if direction in (DOWNSTREAM, BOTH):
+            for edge in self.out_edges(node):
+                yield self.edge_targets[edge]
+        if direction in (UPSTREAM, BOTH):
+            for edge in self.in_edges(node):
+                yield self.edge_sources[edge]
+
+
+class Expansion:
+    """Nodes reached from one start node, in discovery order."""
+
+    def __init__(self, graph, order, depths, direction):
+        self.graph = graph
+        self.order = order
+        self.depths = depths
+        self.direction = direction
+        self._positions = {node: position for position, node in enumerate(order)}
+
+    def __len__(self):
+        return len(self.order)
+
+    def edges_for_page(self, start, stop):
+        """
+        Edges among the expanded nodes whose later-discovered end lies in
+        order[start:stop]. Taken over all pages, every such edge is returned
+        exactly once, and always together with or after both of its nodes.
+        """
+        graph = self.graph
+        positions = self._positions
+        edges = []
+        for position in range(start, min(stop, len(self.order))):
+            node = self.order[position]
+            if self.direction in (DOWNSTREAM, BOTH):
+                for edge in graph.in_edges(node):
+                    other = positions.get(graph.edge_sources[edge])
+                    if other is not None and other < position:
+                        edges.append(edge)
+            if self.direction in (UPSTREAM, BOTH):
+                for edge in graph.out_edges(node):
+                    other = positions.get(graph.edge_targets[edge])
+                    if other is not None and other < position:
+                        edges.append(edge)
+        return sorted(set(edges))
+
+
+class LineageGraphBuilder:
+    """Collects nodes and edges; nodes are keyed by (kind, model pk)."""
+
+    def __init__(self):
+        self.kinds = array('b')
+        self.objects = array('q')
+        self.labels = []
+        self.parents = array('l')
+        self.edge_sources = array('l')
+        self.edge_targets = array('l')
+        self.edge_types = array('b')
+        self._index = {}
+
+    def add_node(self, kind, obj, label=None, parent=-1):
+        node = self._index.get((kind, obj))
+        if node is None:
+            node = len(self.kinds)
+            self._index[(kind, obj)] = node
+            self.kinds.append(kind)
+            self.objects.append(obj)
+            self.labels.append(label)
+            self.parents.append(parent)
+        return node
+
+    def node(self, kind, obj):
+        return self._index.get((kind, obj))
+
+    def add_edge(self, source, target, edge_type):
+        self.edge_sources.append(source)
+        self.edge_targets.append(target)
+        self.edge_types.append(edge_type)
+
+    def build(self, version):
+        return LineageGraph(version, self.kinds, self.objects, self.labels, self.parents,
+                            self.edge_sources, self.edge_targets, self.edge_types)
+
+
+def _row_records(stored_trail, prefix, queryset):
+    """(row id, populated table id, row identifier) from the columnar store or the database."""
+    if stored_trail is not None:
+        ids = stored_trail.column(f'{prefix}_id')
+        tables = stored_trail.column(f'{prefix}_table')
+        identifiers = stored_trail.column(f'{prefix}_identifier')
+        nulls = stored_trail.column(f'{prefix}_identifier_null')
+        for row_id, table_id, identifier, is_null in zip(ids, tables, identifiers, nulls):
+            yield int(row_id), int(table_id), None if is_null else str(identifier)
+        return
+    yield from queryset.values_list('id', 'populated_table_id', 'row_identifier').order_by('id').iterator(
+        chunk_size=READ_CHUNK_SIZE)
+
+
+def _row_source_records(stored_trail, queryset):
+    """(derived row id, source content type model, source row id)."""
+    if stored_trail is not None:
+        columns = zip(stored_trail.column('row_source_owner'), stored_trail.column('row_source_type'),
+                      stored_trail.column('row_source_object'))
+        for owner, source_type, source_id in columns:
+            yield int(owner), str(source_type), int(source_id)
+        return
+    yield from queryset.values_list('derived_row_id', 'content_type__model', 'object_id').order_by('id').iterator(
+        chunk_size=READ_CHUNK_SIZE)
+
+
+def build_trail_graph(trail, version=None):
+    """Read the tables, rows and relationships of a trail into a LineageGraph."""
+    from pybirdai.models import (
+        DatabaseRow, DerivedRowSourceReference, DerivedTableRow, EvaluatedDerivedTable,
+        PopulatedDataBaseTable, TableCreationSourceTable,
+    )
+    from pybirdai.process_steps.pybird.lineage_store import open_trail_store
+
+    builder = LineageGraphBuilder()
+    database_table_nodes = {}
+    for populated_id, table_id, name in PopulatedDataBaseTable.objects.filter(
+            trail=trail).values_list('id', 'table_id', 'table__name').order_by('id'):
+        database_table_nodes[populated_id] = builder.add_node(DATABASE_TABLE, table_id, name)
+
+    derived_table_nodes = {}
+    creation_functions = {}
+    for evaluated_id, table_id, name, creation_function_id in EvaluatedDerivedTable.objects.filter(
+            trail=trail).values_list('id', 'table_id', 'table__name',
+                                     'table__table_creation_function_id').order_by('id'):
+        node = builder.add_node(DERIVED_TABLE, table_id, name)
+        derived_table_nodes[evaluated_id] = node
+        if creation_function_id is not None:
+            creation_functions.setdefault(creation_function_id, []).append(node)
+
+    for creation_function_id, source_type, source_id in TableCreationSourceTable.objects.filter(
+            table_creation_function_id__in=list(creation_functions)).values_list(
+            'table_creation_function_id', 'content_type__model', 'object_id').order_by('id'):
+        kind = _TABLE_SOURCE_KINDS.get(source_type)
+        source = builder.node(kind, source_id) if kind is not None else None
+        if source is None:
+            continue
+        for target in creation_functions[creation_function_id]:
+            if target != source:
+                builder.add_edge(source, target, DATA_FLOW)
+
+    stored_trail = open_trail_store(trail)
+    try:
+        for kind, prefix, table_nodes, queryset in (
+                (DATABASE_ROW, 'database_row', database_table_nodes,
+                 DatabaseRow.objects.filter(populated_table__trail=trail)),
+                (DERIVED_ROW, 'derived_row', derived_table_nodes,
+                 DerivedTableRow.objects.filter(populated_table__trail=trail))):
+            for row_id, populated_id, identifier in _row_records(stored_trail, prefix, queryset):
+                table_node = table_nodes.get(populated_id, -1)
+                node = builder.add_node(kind, row_id, identifier, table_node)
+                if table_node != -1:
+                    builder.add_edge(table_node, node, CONTAINS)
+
+        for derived_row_id, source_type, source_id in _row_source_records(
+                stored_trail, DerivedRowSourceReference.objects.filter(derived_row__populated_table__trail=trail)):
+            target = builder.node(DERIVED_ROW, derived_row_id)
+            kind = _ROW_SOURCE_KINDS.get(source_type)
+            source = builder.node(kind, source_id) if kind is not None else None
+            if target is not None and source is not None:
+                builder.add_edge(source, target, DERIVED_FROM)
+    finally:
+        if stored_trail is not None:
+            stored_trail.close()
+
+    return builder.build(version)
+
+
+_graphs = OrderedDict()
+_graphs_lock = threading.Lock()
+_build_lock = threading.Lock()
+
+
+def _summary_version(summary):
+    return summary.generated_at.isoformat() if summary is not None and not summary.is_stale else None
+
+
+def _cached_graph(trail_id, version):
+    with _graphs_lock:
+        graph = _graphs.get(trail_id)
+        if graph is not None and graph.version == version:
+            _graphs.move_to_end(trail_id)
+            return graph
+    return None
+
+
+def _refresh_summary(trail, graph):
+    from django.db.models import Avg, Max
+    from pybirdai.models import CalculationChain, CellLineage, LineageSummaryCache, TransformationStep
+
+    counts = graph.counts()
+    chains = CalculationChain.objects.filter(trail=trail)
+    chain_stats = chains.filter(total_steps__gt=0).aggregate(average=Avg('total_steps'), longest=Max('total_steps'))
+    summary, _ = LineageSummaryCache.objects.update_or_create(trail=trail, defaults={
+        'total_database_tables': counts['database_table_nodes'],
+        'total_derived_tables': counts['derived_table_nodes'],
+        'total_database_rows': counts['database_row_nodes'],
+        'total_derived_rows': counts['derived_row_nodes'],
+        'total_transformation_steps': TransformationStep.objects.filter(trail=trail).count(),
+        'total_calculation_chains': chains.count(),
+        'total_output_cells': CellLineage.objects.filter(trail=trail).count(),
+        'avg_chain_length': chain_stats['average'] or 0,
+        'max_chain_length': chain_stats['longest'] or 0,
+        'total_data_flow_edges': counts['data_flow_edges'],
+        'is_stale': False,
+    })
+    return summary
+
+
+def get_trail_graph(trail):
+    """
+    Return the LineageGraph of a trail, building it when there is no current one.
+
+    Returns:
+        (LineageGraph, LineageSummaryCache)
+    """
+    from pybirdai.models import LineageSummaryCache
+
+    summary = LineageSummaryCache.objects.filter(trail=trail).first()
+    graph = _cached_graph(trail.id, _summary_version(summary))
+    if graph is not None:
+        return graph, summary
+
+    with _build_lock:
+        # Another request may have built it while we waited
+        summary = LineageSummaryCache.objects.filter(trail=trail).first()
+        graph = _cached_graph(trail.id, _summary_version(summary))
+        if graph is not None:
+            return graph, summary
+
+        graph = build_trail_graph(trail)
+        summary = _refresh_summary(trail, graph)
+        graph.version = _summary_version(summary)
+        logger.info("Built lineage graph of trail %s: %s nodes, %s edges",
+                    trail.id, graph.node_count, graph.edge_count)
+        with _graphs_lock:
+            _graphs[trail.id] = graph
+            _graphs.move_to_end(trail.id)
+            while len(_graphs) > MEMORY_CACHE_TRAILS:
+                _graphs.popitem(last=False)
+    return graph, summary
+
+
+def invalidate_trail_graph(trail_id):
+    """Mark a trail's cached graph and summary as out of date."""
+    from pybirdai.models import LineageSummaryCache
+
+    with _graphs_lock:
+        _graphs.pop(trail_id, None)
+    LineageSummaryCache.objects.filter(trail_id=trail_id).update(is_stale=True)
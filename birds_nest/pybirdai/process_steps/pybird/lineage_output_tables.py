@@ -0,0 +1,140 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#    Benjamin Arfa - improvements
+#
+"""
+Output tables of a lineage trail.
+
+Shared by the filtered lineage view in api/enhanced_lineage_api.py and the
+closures finalize_lineage stores with lineage_closure.build_cell_closures(),
+so that both start their walk from the same rows.
+"""
+from pybirdai.models import CalculationChain, CellLineage, DataFlowEdge, EvaluatedDerivedTable
+
+
+def candidate_output_tables_from_cell_name(cell_name, available_table_names):
+    """
+    Resolve output tables from a generated cell/calculation name without knowing
+    any specific report table names.
+
+    Generated cells usually embed the output table name after ``Cell_`` and
+    before the final cell identifier. We choose the longest available evaluated
+    table name that prefixes that remainder.
+    """
+    if not cell_name:
+        return []
+
+    remainder = cell_name[5:] if cell_name.startswith('Cell_') else cell_name
+    matches = [
+        table_name
+        for table_name in available_table_names
+        if remainder == table_name or remainder.startswith(f'{table_name}_')
+    ]
+    return sorted(matches, key=len, reverse=True)
+
+
+def candidate_output_tables_from_declared_output(output_table_name, available_table_names):
+    """
+    Resolve product-level output tables when the declared report output table was
+    not evaluated directly.
+
+    Some datapoints execute product tables such as
+    ``F_05_01_REF_FINREP_3_0_Other_loans`` without creating the parent
+    ``F_05_01_REF_FINREP_3_0`` union table. Those product tables still carry the
+    reference output-layer cube context and should be treated as output wrappers
+    for complete ROL display.
+    """
+    if not output_table_name:
+        return []
+
+    matches = [
+        table_name
+        for table_name in available_table_names
+        if (
+            table_name == output_table_name
+            or (
+                table_name.startswith(f'{output_table_name}_')
+                and not table_name.endswith('_Table')
+            )
+        )
+    ]
+    return sorted(matches, key=len, reverse=True)
+
+
+def get_output_table_names(trail, calculation_name=None):
+    """
+    Infer output tables from lineage metadata instead of from literal table names.
+
+    Prefer explicit calculation chains/cell lineage. Fall back to data-flow sinks,
+    which are tables that receive lineage edges but do not feed another table.
+    """
+    available_table_names = set(
+        EvaluatedDerivedTable.objects.filter(
+            trail=trail
+        ).values_list(
+            'table__name',
+            flat=True,
+        )
+    )
+    output_table_names = set()
+
+    chain_query = CalculationChain.objects.filter(trail=trail)
+    if calculation_name:
+        chain_query = chain_query.filter(chain_name=calculation_name)
+
+    for chain in chain_query:
+        for candidate_name in candidate_output_tables_from_declared_output(
+            chain.output_table,
+            available_table_names,
+        ):
+            output_table_names.add(candidate_name)
+
+        for candidate_name in candidate_output_tables_from_cell_name(
+            chain.output_cell_name or chain.chain_name,
+            available_table_names,
+        ):
+            output_table_names.add(candidate_name)
+
+    cell_query = CellLineage.objects.filter(trail=trail)
+    if calculation_name:
+        cell_query = cell_query.filter(cell_code=calculation_name)
+
+    for cell in cell_query:
+        cell_table_name = cell.cell_code if str(cell.cell_code).startswith('Cell_') else f'Cell_{cell.cell_code}'
+        if cell_table_name in available_table_names:
+            output_table_names.add(cell_table_name)
+
+        for candidate_name in candidate_output_tables_from_cell_name(cell.cell_code, available_table_names):
+            output_table_names.add(candidate_name)
+
+    if not output_table_names:
+        source_labels = set(
+            DataFlowEdge.objects.filter(
+                trail=trail
+            ).values_list(
+                'source_label',
+                flat=True,
+            )
+        )
+        target_labels = set(
+            DataFlowEdge.objects.filter(
+                trail=trail
+            ).values_list(
+                'target_label',
+                flat=True,
+            )
+        )
+        for sink_name in target_labels - source_labels:
+            if sink_name in available_table_names:
+                output_table_names.add(sink_name)
+
+    return output_table_names
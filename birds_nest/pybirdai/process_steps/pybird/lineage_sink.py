@@ -0,0 +1,264 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Buffered writer for AORTA lineage models.
+
+OrchestrationWithLineage hands unsaved lineage instances to a LineageSink
+instead of calling objects.create() for each one. The sink groups them per
+model and writes them with bulk_create, parents before children, whenever
+max_pending instances have accumulated and when the orchestration flushes
+(before summaries and in finalize_lineage).
+
+Generic references (content_type + object_id pairs) can point at instances
+that are still buffered: pass them as generic_refs and the object_id is filled
+in from the parent's primary key once the parent has been written.
+
+Rows whose id is needed straight away (DatabaseRow, DerivedTableRow,
+EvaluatedFunction, DatabaseColumnValue) go through reserve(), which gives
+the instance a primary key from a block reserved in the database before
+buffering it. On SQLite the block is reserved by raising the table's
+sqlite_sequence entry, on PostgreSQL by drawing from its sequence; on other
+databases reserve() saves the instance at once. Code reading these tables
+before the sink is flushed does not see the buffered rows, so the
+orchestration flushes first where it reads them back.
+
+On SQLite the sink only batches: every write runs synchronously on the
+calling thread. The background writer is used only when the sink is
+created outside a transaction on a database that allows concurrent
+writers, so computation continues while a batch is inserted. Inside
+transaction.atomic, or on SQLite, a background connection would wait for
+the caller's own write lock. That includes ExecuteDataPoint.execute_data_point,
+which runs each datapoint in a transaction. A failed background write is
+raised from the next flush(wait=True) or close().
+"""
+import logging
+import queue
+from collections import deque
+import threading
+
+from django.db import connection, connections, transaction
+
+logger = logging.getLogger(__name__)
+
+DEFAULT_MAX_PENDING = 5000
+DEFAULT_BATCH_SIZE = 1000
+
+
+class LineageSink:
+    """Buffer lineage model instances and write them in foreign key order."""
+
+    def __init__(self, max_pending=DEFAULT_MAX_PENDING, batch_size=DEFAULT_BATCH_SIZE, background=None):
+        self.max_pending = max_pending
+        self.batch_size = batch_size
+        self._pending = {}
+        self._pending_count = 0
+        self._reserved_ids = {}
+        self.written_count = 0
+        self.write_count = 0
+
+        if background is None:
+            background = self.background_writes_safe()
+        self.background = background
+        self._queue = None
+        self._writer = None
+        self._writer_errors = []
+
+    @staticmethod
+    def background_writes_safe():
+        return connection.vendor != 'sqlite' and not connection.in_atomic_block
+
+    def __len__(self):
+        return self._pending_count
+
+    def add(self, instance, generic_refs=None):
+        """
+        Buffer an unsaved model instance.
+
+        Args:
+            instance: the unsaved lineage model instance
+            generic_refs: optional {object_id attribute name: referenced instance} for
+                generic references whose target may not have a primary key yet
+        """
+        self._pending.setdefault(type(instance), []).append((instance, generic_refs))
+        self._pending_count += 1
+        if self._pending_count >= self.max_pending:
+            self.flush(wait=False)
+        return instance
+
+    def reserve(self, instance):
+        """
+        Give an unsaved model instance its primary key and buffer it.
+
+        The id can be cached, registered and referenced by other buffered
+        instances before the row is written. Where the database cannot
+        reserve ids the instance is saved instead.
+        """
+        model = type(instance)
+        ids = self._reserved_ids.get(model)
+        if not ids:
+            ids = self.reserve_ids(model, self.batch_size)
+            if ids is None:
+                instance.save()
+                return instance
+            self._reserved_ids[model] = ids
+        instance.pk = ids.popleft()
+        return self.add(instance)
+
+    @staticmethod
+    def reserve_ids(model, count):
+        """Reserve count primary keys of model, or return None where the database cannot."""
+        db_table = model._meta.db_table
+        pk_column = model._meta.pk.column
+        with connection.cursor() as cursor:
+            if connection.vendor == 'sqlite':
+                # AUTOINCREMENT never hands out an id at or below the table's
+                # sqlite_sequence entry, so raising it keeps later inserts,
+                # from any connection, clear of the block
+                cursor.execute(
+                    "INSERT INTO sqlite_sequence (name, seq) SELECT %s, 0 "
+                    "WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = %s)",
+                    [db_table, db_table])
+                cursor.execute(
+                    f"UPDATE sqlite_sequence SET seq = MAX(seq, (SELECT COALESCE(MAX("
+                    f"{connection.ops.quote_name(pk_column)}), 0) FROM {connection.ops.quote_name(db_table)}"
+                    f")) + %s WHERE name = %s",
+                    [count, db_table])
+                cursor.execute("SELECT seq FROM sqlite_sequence WHERE name = %s", [db_table])
+                last_id = cursor.fetchone()[0]
+                return deque(range(last_id - count + 1, last_id + 1))
+            if connection.vendor == 'postgresql':
+                cursor.execute(
+                    "SELECT nextval(pg_get_serial_sequence(%s, %s)) FROM generate_series(1, %s)",
+                    [db_table, pk_column, count])
+                return deque(row[0] for row in cursor.fetchall())
+        return None
+
+    def flush(self, wait=True):
+        """Write everything buffered so far. With wait=True, return only once it is in the database."""
+        batch = self._take_pending()
+        if not self.background:
+            if batch:
+                self._write(batch)
+            return
+
+        if batch:
+            self._ensure_writer()
+            self._queue.put(batch)
+        if wait and self._queue is not None:
+            self._queue.join()
+            self._raise_writer_errors()
+
+    def close(self):
+        """Flush and stop the background writer, also when the last write failed."""
+        try:
+            self.flush(wait=True)
+        finally:
+            if self._writer is not None:
+                self._queue.put(None)
+                self._writer.join()
+                self._writer = None
+                self._queue = None
+
+    def _take_pending(self):
+        batch = self._pending
+        self._pending = {}
+        self._pending_count = 0
+        return batch
+
+    def _ensure_writer(self):
+        if self._writer is not None:
+            return
+        self._queue = queue.Queue()
+        self._writer = threading.Thread(target=self._writer_loop, name='lineage-sink-writer', daemon=True)
+        self._writer.start()
+
+    def _writer_loop(self):
+        try:
+            while True:
+                batch = self._queue.get()
+                try:
+                    if batch is None:
+                        return
+                    with transaction.atomic():
+                        self._write(batch)
+                except Exception as e:
+                    logger.exception("Background lineage write failed")
+                    self._writer_errors.append(e)
+                finally:
+                    self._queue.task_done()
+        finally:
+            connections.close_all()
+
+    def _raise_writer_errors(self):
+        if self._writer_errors:
+            error = self._writer_errors[0]
+            self._writer_errors = []
+            raise error
+
+    @staticmethod
+    def _dependencies(model, entries, models):
+        dependencies = set()
+        for field in model._meta.concrete_fields:
+            if field.is_relation and field.related_model in models and field.related_model is not model:
+                dependencies.add(field.related_model)
+        for _, generic_refs in entries:
+            if generic_refs:
+                for target in generic_refs.values():
+                    target_model = type(target)
+                    if target_model in models and target_model is not model:
+                        dependencies.add(target_model)
+        return dependencies
+
+    @classmethod
+    def write_order(cls, batch):
+        """Order the models of a batch so that every model comes after the models it references."""
+        models = list(batch.keys())
+        model_set = set(models)
+        remaining = {model: cls._dependencies(model, batch[model], model_set) for model in models}
+        ordered = []
+        while remaining:
+            ready = [model for model in models if model in remaining and not remaining[model]]
+            if not ready:
+                # Cycle between buffered models: keep insertion order for the rest
+                ready = [model for model in models if model in remaining]
+            for model in ready:
+                ordered.append(model)
+                del remaining[model]
+                for dependencies in remaining.values():
+                    dependencies.discard(model)
+        return ordered
+
+    def _write(self, batch):
+        models = self.write_order(batch)
+        referenced_models = set()
+        for model in models:
+            referenced_models.update(self._dependencies(model, batch[model], set(models)))
+        can_return_ids = connection.features.can_return_rows_from_bulk_insert
+
+        for model in models:
+            instances = []
+            for instance, generic_refs in batch[model]:
+                if generic_refs:
+                    for attribute, target in generic_refs.items():
+                        setattr(instance, attribute, target.pk)
+                instances.append(instance)
+
+            if model in referenced_models and not can_return_ids and any(
+                    instance.pk is None for instance in instances):
+                # Children in this batch need the primary keys
+                for instance in instances:
+                    instance.save()
+            else:
+                model.objects.bulk_create(instances, batch_size=self.batch_size)
+            self.written_count += len(instances)
+            self.write_count += 1
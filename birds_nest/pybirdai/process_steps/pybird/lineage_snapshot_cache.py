@@ -0,0 +1,276 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Fingerprint cache for the input table CSVs written to results/lineage.
+
+The first time a batch references an input model, the orchestration writes
+the whole table to results/lineage/<table>_longnames.csv, and
+delete_lineage_data empties that directory before every run. Most runs use
+the same input data, so the same files are rebuilt again and again.
+
+This cache keeps a copy of every CSV it has written in
+results/lineage_snapshots, together with a manifest of fingerprints: the
+model, a hash of the query, row count, highest primary key and a checksum
+over every column of the selected rows. The database computes the checksum:
+an MD5 per row over its columns, folded into sums by the same query, so only
+a few numbers leave the database and no model instance is built. The CSV
+renders a foreign key as the referenced object, whose default __str__ only
+shows its key, so the columns of the model cover everything the CSV shows.
+An edit made anywhere, by another process or by raw SQL, changes the
+checksum.
+
+post_save/post_delete receivers on the model and on the models its foreign
+keys point at drop the affected manifest entries as soon as this process
+sees a change, and a CSV rendered while its model changed is not
+remembered. When a queryset's fingerprint matches the one stored for its
+file, the snapshot is copied back instead of rendering the table again. Both
+the snapshots and the manifest live outside results/lineage, so they survive
+delete_lineage_data and server restarts.
+"""
+import hashlib
+import json
+import logging
+import os
+import shutil
+import threading
+
+from django.conf import settings
+from django.core.exceptions import EmptyResultSet
+from django.db import connections
+from django.db.models import Count, Max, TextField, Value
+from django.db.models.functions import MD5, Cast, Concat
+from django.db.models.signals import post_delete, post_save
+
+logger = logging.getLogger(__name__)
+
+# Bump when the CSV layout written by CSVConverter changes
+SNAPSHOT_FORMAT_VERSION = 4
+MANIFEST_FILE_NAME = 'manifest.json'
+COLUMN_SEPARATOR = '\x1f'
+HEX_DIGITS = '0123456789abcdef'
+# (first hex digit, digit count) of the parts of each row's MD5 that are
+# summed over the table. Seven digits keep a part below 2**28, so a sum
+# fits a 64-bit integer for up to 2**35 rows
+CHECKSUM_PARTS = ((1, 7), (8, 7), (15, 7), (22, 7))
+
+
+def _on_model_changed(sender, **kwargs):
+    lineage_snapshot_cache().model_changed(sender)
+
+
+class LineageSnapshotCache:
+    """Reuse unchanged reference table CSVs across executions."""
+
+    _lock = threading.Lock()
+    # Model label -> labels of the watched models whose CSVs render its rows
+    _dependents = {}
+    # Model label -> changes seen by this process, so a CSV rendered while
+    # its model changed is not remembered
+    _changes = {}
+
+    def __init__(self, snapshot_directory=None):
+        self.snapshot_directory = snapshot_directory or os.path.join(
+            settings.BASE_DIR, 'results', 'lineage_snapshots'
+        )
+        self.manifest_path = os.path.join(self.snapshot_directory, MANIFEST_FILE_NAME)
+        self.restored_count = 0
+        self.written_count = 0
+        # Labels already dropped from the manifest since they were last remembered
+        self._forgotten = set()
+        self._all_forgotten = False
+
+    @classmethod
+    def watch(cls, model):
+        """Forget the snapshots of model when it or a model it references changes."""
+        label = model._meta.label
+        if label in cls._changes:
+            return
+        cls._changes[label] = 0
+        targets = {model}
+        targets.update(field.related_model for field in model._meta.concrete_fields
+                       if field.is_relation and field.related_model is not None)
+        for target in targets:
+            target_label = target._meta.label
+            cls._dependents.setdefault(target_label, set()).add(label)
+            # Connected per model: a receiver without a sender would disable
+            # Django's fast delete path for every model in the project
+            post_save.connect(_on_model_changed, sender=target, weak=False,
+                              dispatch_uid=f'lineage_snapshot_save_{target_label}')
+            post_delete.connect(_on_model_changed, sender=target, weak=False,
+                                dispatch_uid=f'lineage_snapshot_delete_{target_label}')
+
+    @classmethod
+    def change_count(cls, model):
+        return cls._changes.get(model._meta.label, 0)
+
+    @classmethod
+    def fingerprint(cls, queryset):
+        """Return a JSON-serialisable fingerprint of the rows a queryset selects."""
+        model = queryset.model
+        cls.watch(model)
+        unordered = queryset.order_by()
+        totals = unordered.aggregate(row_count=Count('pk'), max_pk=Max('pk'))
+        return {
+            'format_version': SNAPSHOT_FORMAT_VERSION,
+            'model': model._meta.label,
+            # Different filters over the same model must not share a snapshot
+            'query': hashlib.sha256(str(unordered.query).encode('utf-8')).hexdigest(),
+            'row_count': totals['row_count'],
+            'max_pk': None if totals['max_pk'] is None else str(totals['max_pk']),
+            'checksum': cls.checksum(unordered),
+        }
+
+    @staticmethod
+    def checksum(queryset):
+        """
+        Return a checksum over every column of the rows a queryset selects,
+        or None when it selects no rows. The rows are hashed and summed by
+        the database in one query; the sums do not depend on row order.
+        """
+        columns = []
+        for field in queryset.model._meta.concrete_fields:
+            columns.append(Cast(field.attname, output_field=TextField()))
+            columns.append(Value(COLUMN_SEPARATOR))
+        rows = queryset.order_by().annotate(
+            lineage_row_hash=MD5(Concat(*columns, output_field=TextField()))
+        ).values('lineage_row_hash')
+        try:
+            rows_sql, params = rows.query.sql_with_params()
+        except EmptyResultSet:
+            return None
+
+        connection = connections[queryset.db]
+        # Both take (string, substring) and return a 1-based position
+        position = 'STRPOS' if connection.vendor == 'postgresql' else 'INSTR'
+        row_hash = connection.ops.quote_name('lineage_row_hash')
+        sums = []
+        for first_digit, digit_count in CHECKSUM_PARTS:
+            part = ' + '.join(
+                f"({position}('{HEX_DIGITS}', SUBSTR({row_hash}, {first_digit + offset}, 1)) - 1)"
+                f" * {16 ** (digit_count - offset - 1)}"
+                for offset in range(digit_count)
+            )
+            sums.append(f'SUM({part})')
+        with connection.cursor() as cursor:
+            cursor.execute(f"SELECT {', '.join(sums)} FROM ({rows_sql}) lineage_rows", params)
+            totals = cursor.fetchone()
+        if totals is None or totals[0] is None:
+            return None
+        return '-'.join(str(int(total)) for total in totals)
+
+    def _read_manifest(self):
+        try:
+            with open(self.manifest_path, 'r', encoding='utf-8') as manifest_file:
+                return json.load(manifest_file)
+        except (FileNotFoundError, ValueError):
+            return {}
+
+    def _write_manifest(self, manifest):
+        temporary_manifest = f'{self.manifest_path}.{os.getpid()}.tmp'
+        with open(temporary_manifest, 'w', encoding='utf-8') as manifest_file:
+            json.dump(manifest, manifest_file, indent=2, sort_keys=True)
+        os.replace(temporary_manifest, self.manifest_path)
+
+    def _snapshot_path(self, file_name):
+        return os.path.join(self.snapshot_directory, file_name)
+
+    def restore(self, file_path, fingerprint):
+        """Copy the snapshot for file_path into place if its fingerprint still matches."""
+        file_name = os.path.basename(file_path)
+        snapshot_path = self._snapshot_path(file_name)
+        if self._read_manifest().get(file_name) != fingerprint or not os.path.exists(snapshot_path):
+            return False
+        try:
+            shutil.copyfile(snapshot_path, file_path)
+        except OSError as e:
+            logger.warning("Could not restore lineage snapshot %s: %s", file_name, e)
+            return False
+        self.restored_count += 1
+        return True
+
+    def remember(self, file_path, fingerprint, change_count=None):
+        """
+        Store a copy of a freshly written CSV and its fingerprint. Pass the
+        model's change_count() from before the CSV was rendered; the snapshot
+        is skipped when the model changed in the meantime.
+        """
+        label = fingerprint['model']
+        if change_count is not None and LineageSnapshotCache._changes.get(label, 0) != change_count:
+            return
+        file_name = os.path.basename(file_path)
+        try:
+            os.makedirs(self.snapshot_directory, exist_ok=True)
+            temporary_path = f'{self._snapshot_path(file_name)}.{os.getpid()}.tmp'
+            shutil.copyfile(file_path, temporary_path)
+            os.replace(temporary_path, self._snapshot_path(file_name))
+
+            with LineageSnapshotCache._lock:
+                # Re-read so entries written by other processes are kept
+                manifest = self._read_manifest()
+                manifest[file_name] = fingerprint
+                self._write_manifest(manifest)
+                self._forgotten.discard(label)
+                self._all_forgotten = False
+            self.written_count += 1
+        except OSError as e:
+            logger.warning("Could not store lineage snapshot %s: %s", file_name, e)
+
+    def model_changed(self, model):
+        """Forget the snapshots that render rows of model."""
+        labels = LineageSnapshotCache._dependents.get(model._meta.label, ())
+        for label in labels:
+            LineageSnapshotCache._changes[label] = LineageSnapshotCache._changes.get(label, 0) + 1
+        self.forget(labels)
+
+    def forget(self, labels=None):
+        """Drop the manifest entries of the given model labels, or of every model."""
+        with LineageSnapshotCache._lock:
+            # Bulk saves would otherwise rewrite the manifest per row
+            if labels is None:
+                if self._all_forgotten:
+                    return
+            else:
+                labels = set(labels) - self._forgotten
+                if self._all_forgotten or not labels:
+                    return
+            manifest = self._read_manifest()
+            kept = {
+                file_name: fingerprint for file_name, fingerprint in manifest.items()
+                if labels is not None and fingerprint.get('model') not in labels
+            }
+            if len(kept) != len(manifest):
+                try:
+                    self._write_manifest(kept)
+                except OSError as e:
+                    logger.warning("Could not update lineage snapshot manifest: %s", e)
+                    return
+            if labels is None:
+                self._all_forgotten = True
+            else:
+                self._forgotten.update(labels)
+
+    def clear(self):
+        """Forget every snapshot, forcing the next run to rewrite all CSVs."""
+        with LineageSnapshotCache._lock:
+            shutil.rmtree(self.snapshot_directory, ignore_errors=True)
+
+
+_shared_cache = None
+
+
+def lineage_snapshot_cache():
+    """Return the process-wide LineageSnapshotCache."""
+    global _shared_cache
+    if _shared_cache is None:
+        _shared_cache = LineageSnapshotCache()
+    return _shared_cache
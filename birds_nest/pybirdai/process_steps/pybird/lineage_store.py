@@ -0,0 +1,694 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Columnar on-disk store for the row-level data of large lineage trails.
+
+The AORTA models keep one database row per DatabaseRow, DatabaseColumnValue,
+DerivedTableRow, EvaluatedFunction and per source edge. For a trail over a
+full input data set that is millions of rows, most of which are only ever
+read back by the lineage APIs. When Context.lineage_storage_backend is
+'columnar', execute_data_point schedules trails with at least
+Context.columnar_lineage_min_rows rows for archive_trail_if_configured() once
+its transaction commits, which writes those rows as compressed numpy columns
+to results/lineage_store/trail_<id>.npz.
+
+Once the archive is written, the archived rows are deleted from the
+database. Table definitions, populated/evaluated table instances, function
+column references, data flow edges, cell lineage and the usage records stay
+in the database, so small trails and everything that is not row-level keep
+working unchanged.
+
+Readers find a trail's rows through open_trail_store(), which returns the
+archive when one exists. api/lineage_api.py, api/enhanced_lineage_api_v2.py,
+lineage_graph_index.py and lineage_closure.RowSourceIndex read the archive's
+columns directly. Readers that walk rows as model instances use
+TrailRows.for_trail(), which hands out the same attributes from either store.
+Arrays in an .npz file are only decompressed when first accessed.
+"""
+import logging
+import os
+from collections import namedtuple
+
+import numpy as np
+from django.conf import settings
+from django.db import transaction
+
+from pybirdai.models import (
+    DatabaseColumnValue, DatabaseField, DatabaseRow, DerivedRowSourceReference,
+    DerivedTableRow, EvaluatedDerivedTable, EvaluatedFunction, EvaluatedFunctionSourceValue,
+    Function, Trail,
+)
+
+logger = logging.getLogger(__name__)
+
+BACKEND_ORM = 'orm'
+BACKEND_COLUMNAR = 'columnar'
+STORE_FORMAT_VERSION = 1
+EXPORT_CHUNK_SIZE = 20000
+
+
+def _store_directory():
+    return os.path.join(settings.BASE_DIR, 'results', 'lineage_store')
+
+
+def _int_column(values):
+    return np.asarray(values, dtype=np.int64)
+
+
+def _number_column(values):
+    return np.asarray([np.nan if value is None else value for value in values], dtype=np.float64)
+
+
+def _string_columns(values):
+    """Return (strings, null mask); numpy string arrays have no None."""
+    nulls = np.asarray([value is None for value in values], dtype=bool)
+    strings = np.asarray(['' if value is None else str(value) for value in values], dtype=str)
+    return strings, nulls
+
+
+def _number_or_none(value):
+    return None if np.isnan(value) else float(value)
+
+
+def _string_or_none(value, is_null):
+    return None if is_null else str(value)
+
+
+class ColumnarTrail:
+    """Read-only view over one archived trail."""
+
+    def __init__(self, path):
+        self.path = path
+        self._archive = np.load(path, allow_pickle=False)
+        self._columns = {}
+        self._row_positions = {}
+
+    def close(self):
+        self._archive.close()
+
+    def __enter__(self):
+        return self
+
+    def __exit__(self, exc_type, exc_value, traceback):
+        self.close()
+
+    def column(self, name):
+        column = self._columns.get(name)
+        if column is None:
+            column = self._archive[name]
+            self._columns[name] = column
+        return column
+
+    @property
+    def trail_id(self):
+        return int(self.column('trail_id')[0])
+
+    @property
+    def trail_created_at(self):
+        return str(self.column('trail_created_at')[0])
+
+    def _positions_for_tables(self, prefix, populated_table_ids):
+        key = (prefix, tuple(sorted(populated_table_ids)))
+        positions = self._row_positions.get(key)
+        if positions is None:
+            positions = np.flatnonzero(np.isin(self.column(f'{prefix}_table'), list(populated_table_ids)))
+            self._row_positions[key] = positions
+        return positions
+
+    def _rows(self, prefix, populated_table_id, limit):
+        positions = self._positions_for_tables(prefix, [populated_table_id])
+        if limit is not None:
+            positions = positions[:limit]
+        ids = self.column(f'{prefix}_id')[positions]
+        identifiers = self.column(f'{prefix}_identifier')[positions]
+        nulls = self.column(f'{prefix}_identifier_null')[positions]
+        return [
+            {'id': int(row_id), 'row_identifier': _string_or_none(identifier, is_null)}
+            for row_id, identifier, is_null in zip(ids, identifiers, nulls)
+        ]
+
+    def _values(self, prefix, owner_column, row_ids, names, owner_key):
+        positions = np.flatnonzero(np.isin(self.column(f'{prefix}_row'), list(row_ids)))
+        values_by_row = {}
+        columns = zip(
+            self.column(f'{prefix}_id')[positions],
+            self.column(f'{prefix}_row')[positions],
+            self.column(f'{prefix}_{owner_column}')[positions],
+            self.column(f'{prefix}_number')[positions],
+            self.column(f'{prefix}_string')[positions],
+            self.column(f'{prefix}_string_null')[positions],
+        )
+        for value_id, row_id, owner_id, number, string, is_null in columns:
+            owner_id = int(owner_id)
+            values_by_row.setdefault(int(row_id), []).append({
+                'id': int(value_id),
+                'value': _number_or_none(number),
+                'string_value': _string_or_none(string, is_null),
+                f'{owner_key}_id': owner_id,
+                f'{owner_key}_name': names.get(owner_id),
+                'row_id': int(row_id),
+            })
+        return values_by_row
+
+    def counts(self):
+        return {
+            'database_rows': len(self.column('database_row_id')),
+            'derived_rows': len(self.column('derived_row_id')),
+            'column_values': len(self.column('column_value_id')),
+            'evaluated_functions': len(self.column('function_value_id')),
+        }
+
+    def database_row_count(self, populated_table_id):
+        return len(self._positions_for_tables('database_row', [populated_table_id]))
+
+    def derived_row_count(self, populated_table_id):
+        return len(self._positions_for_tables('derived_row', [populated_table_id]))
+
+    def database_rows(self, populated_table_id, limit=None, include_values=True):
+        """Rows of a PopulatedDataBaseTable shaped like the lineage API payload."""
+        rows = self._rows('database_row', populated_table_id, limit)
+        values_by_row = {}
+        if include_values and rows:
+            row_ids = [row['id'] for row in rows]
+            column_ids = np.unique(
+                self.column('column_value_column')[np.isin(self.column('column_value_row'), row_ids)]
+            )
+            names = dict(DatabaseField.objects.filter(id__in=column_ids.tolist()).values_list('id', 'name'))
+            values_by_row = self._values('column_value', 'column', row_ids, names, 'column')
+        for row in rows:
+            row['populated_table_id'] = populated_table_id
+            row['values'] = values_by_row.get(row['id'], [])
+        return rows
+
+    def derived_rows(self, populated_table_id, limit=None, include_values=True):
+        """Rows of an EvaluatedDerivedTable shaped like the lineage API payload."""
+        rows = self._rows('derived_row', populated_table_id, limit)
+        values_by_row = {}
+        if include_values and rows:
+            row_ids = [row['id'] for row in rows]
+            function_ids = np.unique(
+                self.column('function_value_function')[np.isin(self.column('function_value_row'), row_ids)]
+            )
+            names = dict(Function.objects.filter(id__in=function_ids.tolist()).values_list('id', 'name'))
+            values_by_row = self._values('function_value', 'function', row_ids, names, 'function')
+        for row in rows:
+            row['populated_table_id'] = populated_table_id
+            row['evaluated_functions'] = values_by_row.get(row['id'], [])
+        return rows
+
+    def _source_edges(self, prefix, owner_key, owner_ids):
+        positions = np.flatnonzero(np.isin(self.column(f'{prefix}_owner'), owner_ids))
+        columns = zip(
+            self.column(f'{prefix}_id')[positions],
+            self.column(f'{prefix}_owner')[positions],
+            self.column(f'{prefix}_type')[positions],
+            self.column(f'{prefix}_object')[positions],
+        )
+        return [
+            {
+                'id': int(edge_id),
+                owner_key: int(owner_id),
+                'source_object_type': str(source_type),
+                'source_object_id': int(source_id),
+            }
+            for edge_id, owner_id, source_type, source_id in columns
+        ]
+
+    def derived_row_source_references(self, populated_table_ids):
+        positions = self._positions_for_tables('derived_row', populated_table_ids)
+        row_ids = self.column('derived_row_id')[positions]
+        return self._source_edges('row_source', 'derived_row_id', row_ids)
+
+    def evaluated_function_source_values(self, populated_table_ids):
+        positions = self._positions_for_tables('derived_row', populated_table_ids)
+        row_ids = self.column('derived_row_id')[positions]
+        function_value_ids = self.column('function_value_id')[
+            np.isin(self.column('function_value_row'), row_ids)
+        ]
+        return self._source_edges('value_source', 'evaluated_function_id', function_value_ids)
+
+
+class ColumnarLineageStore:
+    """Writes and opens per-trail .npz archives."""
+
+    def __init__(self, directory=None):
+        self.directory = directory or _store_directory()
+
+    def path_for(self, trail_id):
+        return os.path.join(self.directory, f'trail_{trail_id}.npz')
+
+    def has_trail(self, trail_id):
+        return os.path.exists(self.path_for(trail_id))
+
+    def open_trail(self, trail):
+        """Return a ColumnarTrail for a Trail, or None when it is not archived."""
+        path = self.path_for(trail.id)
+        if not os.path.exists(path):
+            return None
+        stored = ColumnarTrail(path)
+        if stored.trail_created_at != trail.created_at.isoformat():
+            # Left over from a database that has since been recreated
+            stored.close()
+            return None
+        return stored
+
+    def delete_trail(self, trail_id):
+        try:
+            os.remove(self.path_for(trail_id))
+        except FileNotFoundError:
+            pass
+
+    @staticmethod
+    def row_count(trail):
+        return (
+            DatabaseRow.objects.filter(populated_table__trail=trail).count()
+            + DerivedTableRow.objects.filter(populated_table__trail=trail).count()
+        )
+
+    @staticmethod
+    def _read(queryset, fields):
+        columns = [[] for _ in fields]
+        for values in queryset.values_list(*fields).order_by('id').iterator(chunk_size=EXPORT_CHUNK_SIZE):
+            for column, value in zip(columns, values):
+                column.append(value)
+        return columns
+
+    def _rows_arrays(self, prefix, queryset):
+        ids, tables, identifiers = self._read(queryset, ('id', 'populated_table_id', 'row_identifier'))
+        strings, nulls = _string_columns(identifiers)
+        return {
+            f'{prefix}_id': _int_column(ids),
+            f'{prefix}_table': _int_column(tables),
+            f'{prefix}_identifier': strings,
+            f'{prefix}_identifier_null': nulls,
+        }
+
+    def _values_arrays(self, prefix, owner_column, queryset):
+        ids, rows, owners, numbers, strings = self._read(
+            queryset, ('id', 'row_id', f'{owner_column}_id', 'value', 'string_value')
+        )
+        string_values, nulls = _string_columns(strings)
+        return {
+            f'{prefix}_id': _int_column(ids),
+            f'{prefix}_row': _int_column(rows),
+            f'{prefix}_{owner_column}': _int_column(owners),
+            f'{prefix}_number': _number_column(numbers),
+            f'{prefix}_string': string_values,
+            f'{prefix}_string_null': nulls,
+        }
+
+    def _edges_arrays(self, prefix, owner_field, queryset):
+        ids, owners, types, objects = self._read(
+            queryset, ('id', owner_field, 'content_type__model', 'object_id')
+        )
+        return {
+            f'{prefix}_id': _int_column(ids),
+            f'{prefix}_owner': _int_column(owners),
+            f'{prefix}_type': np.asarray(types, dtype=str),
+            f'{prefix}_object': _int_column(objects),
+        }
+
+    def export_trail(self, trail):
+        """Write the row-level lineage of a trail to its .npz archive."""
+        arrays = {
+            'format_version': np.asarray([STORE_FORMAT_VERSION]),
+            'trail_id': np.asarray([trail.id], dtype=np.int64),
+            'trail_created_at': np.asarray([trail.created_at.isoformat()], dtype=str),
+        }
+        arrays.update(self._rows_arrays(
+            'database_row', DatabaseRow.objects.filter(populated_table__trail=trail)))
+        arrays.update(self._values_arrays(
+            'column_value', 'column', DatabaseColumnValue.objects.filter(row__populated_table__trail=trail)))
+        arrays.update(self._rows_arrays(
+            'derived_row', DerivedTableRow.objects.filter(populated_table__trail=trail)))
+        arrays.update(self._values_arrays(
+            'function_value', 'function', EvaluatedFunction.objects.filter(row__populated_table__trail=trail)))
+        arrays.update(self._edges_arrays(
+            'row_source', 'derived_row_id',
+            DerivedRowSourceReference.objects.filter(derived_row__populated_table__trail=trail)))
+        arrays.update(self._edges_arrays(
+            'value_source', 'evaluated_function_id',
+            EvaluatedFunctionSourceValue.objects.filter(evaluated_function__row__populated_table__trail=trail)))
+
+        os.makedirs(self.directory, exist_ok=True)
+        path = self.path_for(trail.id)
+        temporary_path = f'{path}.tmp.npz'
+        try:
+            np.savez_compressed(temporary_path, **arrays)
+            os.replace(temporary_path, path)
+        finally:
+            if os.path.exists(temporary_path):
+                os.remove(temporary_path)
+        return path
+
+    @staticmethod
+    def prune_trail(trail):
+        """Delete the archived row-level records of a trail from the database."""
+        # Children first, so the collector has no cascades left to follow
+        with transaction.atomic():
+            EvaluatedFunctionSourceValue.objects.filter(
+                evaluated_function__row__populated_table__trail=trail).delete()
+            DerivedRowSourceReference.objects.filter(derived_row__populated_table__trail=trail).delete()
+            EvaluatedFunction.objects.filter(row__populated_table__trail=trail).delete()
+            DerivedTableRow.objects.filter(populated_table__trail=trail).delete()
+            DatabaseColumnValue.objects.filter(row__populated_table__trail=trail).delete()
+            DatabaseRow.objects.filter(populated_table__trail=trail).delete()
+
+
+def open_trail_store(trail):
+    """Return the ColumnarTrail for a trail, or None when its rows are in the database."""
+    try:
+        return ColumnarLineageStore().open_trail(trail)
+    except Exception as e:
+        logger.warning("Could not open columnar lineage store for trail %s: %s", trail.id, e)
+        return None
+
+
+def archive_trail_if_configured(trail):
+    """
+    Move a finished trail's rows to the columnar store when the columnar
+    backend is selected and the trail is large enough: write the archive,
+    then delete the archived rows from the database. Returns the archive
+    path, or None when the trail stays in the database.
+
+    When the rows cannot be deleted, the archive is kept and read instead of
+    them; both hold the same rows.
+    """
+    from pybirdai.context.context import Context
+
+    if trail is None or Context.lineage_storage_backend != BACKEND_COLUMNAR:
+        return None
+
+    store = ColumnarLineageStore()
+    row_count = store.row_count(trail)
+    if row_count < Context.columnar_lineage_min_rows:
+        return None
+
+    path = store.export_trail(trail)
+    store.prune_trail(trail)
+    logger.info("Moved %s lineage rows of trail %s to %s", row_count, trail.id, path)
+    removed = delete_orphaned_trail_files()
+    if removed:
+        logger.info("Removed %s lineage archives of deleted trails", removed)
+    return path
+
+
+def archive_trail_on_commit(trail):
+    """
+    Archive a trail once the transaction that recorded it has committed, so
+    the archive never holds rows that were rolled back. Errors are logged;
+    the trail stays readable from the database or its archive.
+    """
+    def archive():
+        try:
+            archive_trail_if_configured(trail)
+        except Exception as e:
+            logger.error("Error archiving lineage trail %s to the columnar store: %s", trail.id, e)
+
+    transaction.on_commit(archive)
+
+
+def delete_orphaned_trail_files():
+    """Remove archives whose trail no longer exists."""
+    store = ColumnarLineageStore()
+    if not os.path.isdir(store.directory):
+        return 0
+    existing = set(Trail.objects.values_list('id', flat=True))
+    removed = 0
+    for file_name in os.listdir(store.directory):
+        if not (file_name.startswith('trail_') and file_name.endswith('.npz')):
+            continue
+        try:
+            trail_id = int(file_name[len('trail_'):-len('.npz')])
+        except ValueError:
+            continue
+        if trail_id not in existing:
+            store.delete_trail(trail_id)
+            removed += 1
+    return removed
+
+
+# A DerivedRowSourceReference or EvaluatedFunctionSourceValue. source_type is
+# the content type model of the source, owner_id the derived row or
+# evaluated function it belongs to.
+SourceEdge = namedtuple('SourceEdge', 'id owner_id source_type source_id')
+
+
+class _Related(list):
+    """A list in place of a related manager: all() returns the list itself."""
+
+    def all(self):
+        return self
+
+
+class ArchivedRow:
+    """A DatabaseRow or DerivedTableRow read back from an archive."""
+
+    def __init__(self, row_id, row_identifier, populated_table_id):
+        self.id = row_id
+        self.pk = row_id
+        self.row_identifier = row_identifier
+        self.populated_table_id = populated_table_id
+        self.column_values = _Related()
+        self.evaluated_functions = _Related()
+
+
+class ArchivedValue:
+    """A DatabaseColumnValue (with column) or EvaluatedFunction (with function) read back from an archive."""
+
+    def __init__(self, value_id, value, string_value, row_id, column=None, function=None):
+        self.id = value_id
+        self.pk = value_id
+        self.value = value
+        self.string_value = string_value
+        self.row_id = row_id
+        self.column = column
+        self.function = function
+
+
+class TrailRows:
+    """
+    The row-level lineage of one trail, read from the AORTA tables.
+
+    for_trail() returns an ArchivedTrailRows instead when the trail's rows
+    were moved to the columnar store. Rows and values of both have the
+    attributes the lineage views use: id, row_identifier, column_values and
+    evaluated_functions on rows; id, value, string_value, row_id and column
+    or function on values.
+    """
+
+    def __init__(self, trail):
+        self.trail = trail
+
+    @staticmethod
+    def for_trail(trail):
+        stored_trail = open_trail_store(trail)
+        if stored_trail is not None:
+            return ArchivedTrailRows(trail, stored_trail)
+        return TrailRows(trail)
+
+    def close(self):
+        pass
+
+    def __enter__(self):
+        return self
+
+    def __exit__(self, exc_type, exc_value, traceback):
+        self.close()
+
+    def database_rows(self, populated_table):
+        return populated_table.databaserow_set.all()
+
+    def derived_rows(self, evaluated_table):
+        return evaluated_table.derivedtablerow_set.all()
+
+    def database_row_count(self, populated_table):
+        return populated_table.databaserow_set.count()
+
+    def derived_row_count(self, evaluated_table):
+        return evaluated_table.derivedtablerow_set.count()
+
+    def row_sources(self, derived_row_ids=None, evaluated_table_ids=None, limit=None):
+        """Source edges of the given derived rows, or of the rows of the given evaluated tables."""
+        queryset = DerivedRowSourceReference.objects.order_by('id')
+        if derived_row_ids is not None:
+            queryset = queryset.filter(derived_row_id__in=list(derived_row_ids))
+        if evaluated_table_ids is not None:
+            queryset = queryset.filter(derived_row__populated_table_id__in=list(evaluated_table_ids))
+        queryset = queryset.values_list('id', 'derived_row_id', 'content_type__model', 'object_id')
+        if limit is not None:
+            queryset = queryset[:limit]
+        return [SourceEdge(*edge) for edge in queryset]
+
+    def value_sources(self, evaluated_table_ids, limit=None):
+        """Source edges of the evaluated functions of the given evaluated tables."""
+        queryset = EvaluatedFunctionSourceValue.objects.filter(
+            evaluated_function__row__populated_table_id__in=list(evaluated_table_ids)
+        ).order_by('id').values_list('id', 'evaluated_function_id', 'content_type__model', 'object_id')
+        if limit is not None:
+            queryset = queryset[:limit]
+        return [SourceEdge(*edge) for edge in queryset]
+
+    def column_value(self, value_id):
+        return DatabaseColumnValue.objects.select_related('column').filter(id=value_id).first()
+
+    def evaluated_function(self, value_id):
+        return EvaluatedFunction.objects.select_related('function', 'function__table').filter(id=value_id).first()
+
+    def derived_row_table_names(self, row_ids):
+        if not row_ids:
+            return set()
+        return set(DerivedTableRow.objects.filter(id__in=list(row_ids)).values_list(
+            'populated_table__table__name', flat=True))
+
+    def has_function_values(self, function_ids=None, evaluated_table=None):
+        """
+        Whether any of the functions, or any function at all, was evaluated in
+        the evaluated table, or anywhere in the trail.
+        """
+        queryset = EvaluatedFunction.objects.all()
+        if function_ids is not None:
+            queryset = queryset.filter(function_id__in=list(function_ids))
+        if evaluated_table is not None:
+            return queryset.filter(row__populated_table=evaluated_table).exists()
+        return queryset.filter(row__populated_table__trail=self.trail).exists()
+
+
+class ArchivedTrailRows(TrailRows):
+    """TrailRows of a trail whose rows are in the columnar store."""
+
+    def __init__(self, trail, stored_trail):
+        super().__init__(trail)
+        self.stored_trail = stored_trail
+        self._database_rows = {}
+        self._derived_rows = {}
+
+    def close(self):
+        self.stored_trail.close()
+
+    def database_rows(self, populated_table):
+        rows = self._database_rows.get(populated_table.id)
+        if rows is None:
+            stored_rows = self.stored_trail.database_rows(populated_table.id)
+            fields = DatabaseField.objects.select_related('table').in_bulk(
+                {value['column_id'] for row in stored_rows for value in row['values']})
+            rows = self._database_rows[populated_table.id] = self._rows(
+                stored_rows, 'values', 'column_values', lambda value: {'column': fields.get(value['column_id'])})
+        return rows
+
+    def derived_rows(self, evaluated_table):
+        rows = self._derived_rows.get(evaluated_table.id)
+        if rows is None:
+            stored_rows = self.stored_trail.derived_rows(evaluated_table.id)
+            functions = Function.objects.select_related('table', 'function_text').in_bulk(
+                {value['function_id'] for row in stored_rows for value in row['evaluated_functions']})
+            rows = self._derived_rows[evaluated_table.id] = self._rows(
+                stored_rows, 'evaluated_functions', 'evaluated_functions',
+                lambda value: {'function': functions.get(value['function_id'])})
+        return rows
+
+    @staticmethod
+    def _rows(stored_rows, values_key, values_attribute, owner):
+        rows = []
+        for stored_row in stored_rows:
+            row = ArchivedRow(stored_row['id'], stored_row['row_identifier'], stored_row['populated_table_id'])
+            getattr(row, values_attribute).extend(
+                ArchivedValue(value['id'], value['value'], value['string_value'], row.id, **owner(value))
+                for value in stored_row[values_key]
+            )
+            rows.append(row)
+        return rows
+
+    def database_row_count(self, populated_table):
+        return self.stored_trail.database_row_count(populated_table.id)
+
+    def derived_row_count(self, evaluated_table):
+        return self.stored_trail.derived_row_count(evaluated_table.id)
+
+    def row_sources(self, derived_row_ids=None, evaluated_table_ids=None, limit=None):
+        stored_trail = self.stored_trail
+        if evaluated_table_ids is not None:
+            owner_ids = stored_trail.column('derived_row_id')[
+                stored_trail._positions_for_tables('derived_row', evaluated_table_ids)]
+        else:
+            owner_ids = stored_trail.column('row_source_owner')
+        if derived_row_ids is not None:
+            owner_ids = owner_ids[np.isin(owner_ids, list(derived_row_ids))]
+        edges = stored_trail._source_edges('row_source', 'owner_id', owner_ids)
+        return self._edges(edges, limit)
+
+    def value_sources(self, evaluated_table_ids, limit=None):
+        edges = self.stored_trail.evaluated_function_source_values(evaluated_table_ids)
+        return self._edges(edges, limit, owner_key='evaluated_function_id')
+
+    @staticmethod
+    def _edges(edges, limit, owner_key='owner_id'):
+        edges = sorted(edges, key=lambda edge: edge['id'])
+        if limit is not None:
+            edges = edges[:limit]
+        return [
+            SourceEdge(edge['id'], edge[owner_key], edge['source_object_type'], edge['source_object_id'])
+            for edge in edges
+        ]
+
+    def _value(self, prefix, value_id, owner_column):
+        stored_trail = self.stored_trail
+        positions = np.flatnonzero(stored_trail.column(f'{prefix}_id') == value_id)
+        if not len(positions):
+            return None
+        position = positions[0]
+        string_value = _string_or_none(
+            stored_trail.column(f'{prefix}_string')[position], stored_trail.column(f'{prefix}_string_null')[position])
+        return (
+            int(stored_trail.column(f'{prefix}_row')[position]),
+            int(stored_trail.column(f'{prefix}_{owner_column}')[position]),
+            _number_or_none(stored_trail.column(f'{prefix}_number')[position]),
+            string_value,
+        )
+
+    def column_value(self, value_id):
+        stored = self._value('column_value', value_id, 'column')
+        if stored is None:
+            return None
+        row_id, column_id, value, string_value = stored
+        column = DatabaseField.objects.filter(id=column_id).first()
+        return ArchivedValue(value_id, value, string_value, row_id, column=column)
+
+    def evaluated_function(self, value_id):
+        stored = self._value('function_value', value_id, 'function')
+        if stored is None:
+            return None
+        row_id, function_id, value, string_value = stored
+        function = Function.objects.select_related('table').filter(id=function_id).first()
+        return ArchivedValue(value_id, value, string_value, row_id, function=function)
+
+    def derived_row_table_names(self, row_ids):
+        if not row_ids:
+            return set()
+        stored_trail = self.stored_trail
+        table_ids = np.unique(stored_trail.column('derived_row_table')[
+            np.isin(stored_trail.column('derived_row_id'), list(row_ids))])
+        return set(EvaluatedDerivedTable.objects.filter(id__in=table_ids.tolist()).values_list(
+            'table__name', flat=True))
+
+    def has_function_values(self, function_ids=None, evaluated_table=None):
+        stored_trail = self.stored_trail
+        if function_ids is None:
+            evaluated = np.ones(len(stored_trail.column('function_value_id')), dtype=bool)
+        else:
+            evaluated = np.isin(stored_trail.column('function_value_function'), list(function_ids))
+        if evaluated_table is not None:
+            row_ids = stored_trail.column('derived_row_id')[
+                stored_trail._positions_for_tables('derived_row', [evaluated_table.id])]
+            evaluated &= np.isin(stored_trail.column('function_value_row'), row_ids)
+        return bool(evaluated.any())
@@ -32,25 +32,239 @@ from django.contrib.contenttypes.models import ContentType
 
 from contextlib import contextmanager
 from contextvars import ContextVar
+from django.db.models.signals import post_delete, post_save
 import importlib
 import os
 import re
 import time
 from pybirdai.process_steps.pybird.lineage_collector import get_collector, reset_collector, finalize_collector
+from pybirdai.process_steps.pybird.lineage_sink import LineageSink
+from pybirdai.process_steps.pybird.lineage_graph_index import invalidate_trail_graph
+from pybirdai.process_steps.pybird.lineage_closure import build_cell_closures
+from pybirdai.process_steps.pybird.reference_data_cache import invalidate_process_reference_cache
+from pybirdai.process_steps.pybird.lineage_snapshot_cache import lineage_snapshot_cache
 
 _reference_queryset_cache = ContextVar('pybirdai_reference_queryset_cache', default=None)
+_derived_table_cache = ContextVar('pybirdai_derived_table_cache', default=None)
+
+# Bumped whenever input-layer data changes; derived tables built for an older
+# version are never handed out again.
+_input_data_version = 0
+
+
+def get_input_data_version():
+	return _input_data_version
+
+
+def invalidate_input_data_caches():
+	"""Mark input data as changed so every derived table cache rebuilds its tables."""
+	global _input_data_version
+	_input_data_version += 1
+	reference_cache = _reference_queryset_cache.get()
+	if reference_cache is not None:
+		reference_cache.clear()
+	invalidate_process_reference_cache()
+	lineage_snapshot_cache().forget()
+
+
+_watched_input_models = set()
+
+
+def _on_input_data_changed(sender, **kwargs):
+	invalidate_input_data_caches()
+
+
+def watch_input_model(model):
+	"""Invalidate the input data caches whenever a row of model is saved or deleted (admin edits, fixture loads)."""
+	if model in _watched_input_models:
+		return
+	# Connected per model: a receiver without a sender would disable
+	# Django's fast delete path for every model in the project
+	post_save.connect(_on_input_data_changed, sender=model, weak=False,
+		dispatch_uid=f'input_data_save_{model._meta.label}')
+	post_delete.connect(_on_input_data_changed, sender=model, weak=False,
+		dispatch_uid=f'input_data_delete_{model._meta.label}')
+	_watched_input_models.add(model)
+
+
+@contextmanager
+def shared_derived_table_cache():
+	"""Share initialised *_Table join objects across a batch of datapoint executions."""
+	token = _derived_table_cache.set({})
+	try:
+		yield
+	finally:
+		_derived_table_cache.reset(token)
 
 
 @contextmanager
 def shared_reference_cache():
-	"""Share read-only Django reference data across a batch of datapoint executions."""
+	"""Share read-only Django reference data, and the derived tables built from it, across a batch of datapoint executions."""
 	token = _reference_queryset_cache.set({})
 	try:
-		yield
+		with shared_derived_table_cache():
+			yield
 	finally:
 		_reference_queryset_cache.reset(token)
 
 
+def _get_shared_derived_table(eReference):
+	"""Return the derived table already built for eReference in this batch, if any."""
+	derived_cache = _derived_table_cache.get()
+	if derived_cache is None:
+		return None
+	return derived_cache.get((eReference, _input_data_version))
+
+
+def _remember_shared_derived_table(eReference, table_object):
+	derived_cache = _derived_table_cache.get()
+	if derived_cache is None or table_object is None:
+		return
+	stale_keys = [key for key in derived_cache if key[1] != _input_data_version]
+	for key in stale_keys:
+		del derived_cache[key]
+	derived_cache[(eReference, _input_data_version)] = table_object
+
+
+def _derived_table_sharing_allowed():
+	# A lineage run must initialise its tables itself so each Trail records them
+	from pybirdai.annotations.decorators import _lineage_context
+	orchestration = _lineage_context.get('orchestration')
+	return not (orchestration and getattr(orchestration, 'lineage_enabled', False))
+
+
+_ANCRDT_INTERMEDIATE_PATTERNS = ('Union', 'Loans_and_advances', '_filtered_', '_aggregated_')
+_UNRESOLVED = object()
+
+
+class _TableReference:
+	"""One *Table attribute of a generated class, with its Django model resolved once."""
+	__slots__ = ('name', 'table_name', 'is_ancrdt_intermediate', '_model')
+
+	def __init__(self, name):
+		self.name = name
+		self.table_name = name.split('_Table')[0]
+		# For ANCRDT intermediate tables - skip Django model lookup, create directly
+		self.is_ancrdt_intermediate = (self.table_name.startswith('ANCRDT_') and
+			any(pattern in self.table_name for pattern in _ANCRDT_INTERMEDIATE_PATTERNS))
+		self._model = _UNRESOLVED
+
+	@property
+	def model(self):
+		"""The pybirdai model for this reference, or None for generated tables."""
+		if self._model is _UNRESOLVED:
+			model = None
+			if not self.is_ancrdt_intermediate:
+				try:
+					model = apps.get_model('pybirdai', self.table_name)
+				except LookupError:
+					model = None
+			self._model = model
+		return self._model
+
+
+# class -> (tuple of _TableReference, has callable init)
+_class_descriptors = {}
+# eReference -> class found by _resolve_reference_class
+_reference_class_cache = {}
+
+
+def _class_descriptor(clazz):
+	"""
+	Return the table references and init flag of a generated class, computed
+	once per class. Classes may list their references in a __table_refs__
+	manifest; otherwise they are found by reflection as before.
+	"""
+	descriptor = _class_descriptors.get(clazz)
+	if descriptor is None:
+		names = clazz.__dict__.get('__table_refs__')
+		if names is None:
+			names = [name for name in dir(clazz) if not name.startswith('__') and
+				name.endswith("Table") and not callable(getattr(clazz, name))]
+		descriptor = (
+			tuple(_TableReference(name) for name in names),
+			callable(getattr(clazz, 'init', None)),
+		)
+		_class_descriptors[clazz] = descriptor
+	return descriptor
+
+
+def _resolve_reference_class(eReference):
+	"""Find the generated class named eReference, remembering it once found."""
+	cls = _reference_class_cache.get(eReference)
+	if cls is not None:
+		return cls
+
+	# First try the old output_tables location for backwards compatibility
+	try:
+		cls = getattr(importlib.import_module('pybirdai.process_steps.filter_code.output_tables'), eReference)
+		_reference_class_cache[eReference] = cls
+		return cls
+	except (ImportError, AttributeError):
+		pass
+
+	# If that fails, try to find the class in the logic files
+	# Extract the report prefix from the class name (e.g., F_05_01_REF_FINREP_3_0 from F_05_01_REF_FINREP_3_0_Other_loans_Table)
+	if "_" in eReference:
+		parts = eReference.split("_")
+		# Look for report pattern: F_XX_XX_REF_FINREP_X_X
+		if len(parts) >= 7 and parts[0] == "F" and parts[3] == "REF" and parts[4] == "FINREP":
+			# Extract report prefix (first 7 parts: F_05_01_REF_FINREP_3_0)
+			report_prefix = "_".join(parts[:7])
+			logic_module_name = f"pybirdai.process_steps.filter_code.{report_prefix}_logic"
+
+			try:
+				module = importlib.import_module(logic_module_name)
+				cls = getattr(module, eReference)
+				_reference_class_cache[eReference] = cls
+				return cls
+			except (ImportError, AttributeError) as e:
+				print(f"Could not find {eReference} in {logic_module_name}: {e}")
+
+		# Check for ANCRDT pattern: ANCRDT_INSTRMNT_C_1_UnionTable
+		if len(parts) >= 2 and parts[0] == "ANCRDT":
+			# Extract report prefix by finding the _C_<number> pattern
+			# Pattern: ANCRDT_INSTRMNT_C_1_Loans_and_advances_Table -> ANCRDT_INSTRMNT_C_1
+			# Pattern: ANCRDT_INSTRMNT_C_1_UnionTable -> ANCRDT_INSTRMNT_C_1
+			match = re.search(r'(ANCRDT_\w+_C_\d+)', eReference)
+			if match:
+				report_prefix = match.group(1)
+			else:
+				# Fallback to old suffix removal logic for backward compatibility
+				report_prefix = eReference
+				for suffix in ['_UnionTable', '_Table', '_UnionItem', '_Base']:
+					if report_prefix.endswith(suffix):
+						report_prefix = report_prefix[:-len(suffix)]
+						break
+
+			# Import from filter_code (executable production code)
+			logic_module_name = f"pybirdai.process_steps.filter_code.{report_prefix}_logic"
+
+			try:
+				module = importlib.import_module(logic_module_name)
+				cls = getattr(module, eReference)
+				_reference_class_cache[eReference] = cls
+				return cls
+			except (ImportError, AttributeError) as e:
+				print(f"Could not find {eReference} in {logic_module_name}: {e}")
+
+	# Not cached: the class may be generated later in this process
+	return None
+
+
+def _create_object_from_reference_type(eReference):
+	try:
+		cls = _resolve_reference_class(eReference)
+		if cls is None:
+			# If all else fails, print error
+			print(f"Error: Could not find class {eReference} in any expected location")
+			return None
+		return cls()
+	except Exception as e:
+		print(f"Error creating object from reference {eReference}: {e}")
+		return None
+
+
 class OrchestrationWithLineage:
 	# Class variable to track initialized objects
 	_initialized_objects = set()
@@ -78,7 +292,8 @@ class OrchestrationWithLineage:
 		self._calculation_used_field_keys = set()
 		self._calculation_used_row_object_keys = set()
 		self._calculation_used_field_name_keys = set()
-		self._pending_calculation_used_fields = []
+		# Lineage rows are buffered and bulk written in FK order
+		self.lineage_sink = LineageSink()
 		self._derived_row_source_reference_keys = set()
 		self._evaluated_function_source_value_keys = set()
 		self._table_creation_function_cache = {}
@@ -113,13 +328,8 @@ class OrchestrationWithLineage:
 			print(message)
 
 	def flush_pending_calculation_usage(self):
-		"""Write buffered calculation usage rows before summaries or external reads."""
-		if self._pending_calculation_used_fields:
-			CalculationUsedField.objects.bulk_create(
-				self._pending_calculation_used_fields,
-				batch_size=1000
-			)
-			self._pending_calculation_used_fields = []
+		"""Write buffered lineage rows before summaries or external reads."""
+		self.lineage_sink.flush()
 
 	def _get_content_type(self, model_or_obj):
 		model_class = model_or_obj if isinstance(model_or_obj, type) else model_or_obj.__class__
@@ -723,108 +933,110 @@ class OrchestrationWithLineage:
 		Ensure that all table references are properly set for the object.
 		This is called both during full initialization and when initialization is skipped.
 		"""
-		references = [method for method in dir(theObject.__class__) if not callable(
-		getattr(theObject.__class__, method)) and not method.startswith('__')]
-		for eReference in references:
-			if eReference.endswith("Table"):
-				# Only set the reference if it's currently None
-				if getattr(theObject, eReference) is None:
-					from django.apps import apps
-					table_name = eReference.split('_Table')[0]
-
-					# For ANCRDT intermediate tables - skip Django model lookup, create directly
-					is_ancrdt_intermediate = (table_name.startswith('ANCRDT_') and
-						any(pattern in table_name for pattern in ['Union', 'Loans_and_advances', '_filtered_', '_aggregated_']))
-
-					relevant_model = None
-					if not is_ancrdt_intermediate:
-						relevant_model = self._get_django_model(table_name)
-						if relevant_model is None:
-							self._debug("LookupError: " + table_name)
-
-					if relevant_model:
-						reference_cache = _reference_queryset_cache.get()
-						cache_entry = reference_cache.get(relevant_model) if reference_cache is not None else None
-						if cache_entry is None:
-							newObject = self._get_queryset_for_django_reference(relevant_model)
-							rows = list(newObject)
-							cache_entry = {
-								'queryset': newObject,
-								'rows': rows,
-								'csv_persisted': False,
-							}
-							if reference_cache is not None:
-								reference_cache[relevant_model] = cache_entry
-						else:
-							newObject = cache_entry['queryset']
-							rows = cache_entry['rows']
-
-						if self.debug_lineage:
-							self._debug("relevant_model: " + str(relevant_model))
-							self._debug("newObject: " + str(newObject))
-						if rows:
-							setattr(theObject,eReference,newObject)
-							# Original CSV persistence
-							if not cache_entry['csv_persisted']:
-								CSVConverter.persist_object_as_csv(newObject,True);
-								cache_entry['csv_persisted'] = True
-							
-							# Enhanced lineage tracking - track when tables are created but distinguish from usage tracking
-							if self.debug_lineage and self.lineage_enabled and self.trail and hasattr(newObject, '__iter__'):
-								try:
-									row_count = len(rows)
-									if row_count:
-										self._debug(f"Table Created: {row_count} {table_name} objects available")
-								except Exception as e:
-									self._debug(f"Warning: Could not process {table_name} objects for lineage: {e}")
-
+		references, _ = _class_descriptor(theObject.__class__)
+		for reference in references:
+			eReference = reference.name
+			# Only set the reference if it's currently None
+			if getattr(theObject, eReference) is None:
+				table_name = reference.table_name
+				# Resolved once per class; None for ANCRDT intermediate tables
+				relevant_model = reference.model
+				if relevant_model is None and not reference.is_ancrdt_intermediate:
+					self._debug("LookupError: " + table_name)
+
+				if relevant_model:
+					watch_input_model(relevant_model)
+					reference_cache = _reference_queryset_cache.get()
+					cache_entry = reference_cache.get(relevant_model) if reference_cache is not None else None
+					if cache_entry is None:
+						newObject = self._get_queryset_for_django_reference(relevant_model)
+						rows = list(newObject)
+						cache_entry = {
+							'queryset': newObject,
+							'rows': rows,
+							'csv_persisted': False,
+						}
+						if reference_cache is not None:
+							reference_cache[relevant_model] = cache_entry
 					else:
-						newObject = OrchestrationWithLineage.createObjectFromReferenceType(eReference);
-
-						operations = [method for method in dir(newObject.__class__) if callable(
-							getattr(newObject.__class__, method)) and not method.startswith('__')]
-
-						for operation in operations:
-							if operation == "init":
-								try:
-									getattr(newObject, operation)()
-
-									# Check if lineage tracking is enabled and track data after initialization
-									from pybirdai.annotations.decorators import _lineage_context
-									orchestration = _lineage_context.get('orchestration')
-									if (orchestration and orchestration.lineage_enabled and
-										hasattr(newObject, '__class__') and
-										newObject.__class__.__name__.endswith('_Table')):
-
-										# Debug: print orchestration state
-										self._debug(f"Orchestration for {newObject.__class__.__name__}:")
-										self._debug(f"  Trail: {orchestration.trail.id if orchestration.trail else None}")
-										self._debug(f"  MetaDataTrail: {orchestration.metadata_trail.id if orchestration.metadata_trail else None}")
-
-										# First track the table itself if not already tracked
-										if orchestration.metadata_trail:
-											orchestration._track_object_initialization(newObject)
-										else:
-											self._debug(f"WARNING: No metadata_trail for {newObject.__class__.__name__}")
-
-										# Track any data that was populated during initialization
-										table_name = newObject.__class__.__name__.replace('_Table', '')
-										for attr_name in dir(newObject):
-											if (not attr_name.startswith('_') and
-												hasattr(newObject, attr_name)):
-												attr_value = getattr(newObject, attr_name)
-												if isinstance(attr_value, list) and len(attr_value) > 0:
-													# CRITICAL FIX: DO NOT auto-track derived table data during initialization
-													# Only track when explicitly used in calculations
-													if orchestration.metadata_trail:
-														self._debug(f"Found {len(attr_value)} items in {table_name}_{attr_name} (not tracking as used yet)")
-													else:
-														self._debug(f"WARNING: Cannot process data for {table_name}_{attr_name} - no metadata_trail")
-
-								except Exception as e:
-									print(f"Could not call function called {operation}: {e}")
+						newObject = cache_entry['queryset']
+						rows = cache_entry['rows']
+
+					if self.debug_lineage:
+						self._debug("relevant_model: " + str(relevant_model))
+						self._debug("newObject: " + str(newObject))
+					if rows:
+						setattr(theObject,eReference,newObject)
+						# Original CSV persistence
+						if not cache_entry['csv_persisted']:
+							CSVConverter.persist_object_as_csv(newObject,True);
+							cache_entry['csv_persisted'] = True
+						
+						# Enhanced lineage tracking - track when tables are created but distinguish from usage tracking
+						if self.debug_lineage and self.lineage_enabled and self.trail and hasattr(newObject, '__iter__'):
+							try:
+								row_count = len(rows)
+								if row_count:
+									self._debug(f"Table Created: {row_count} {table_name} objects available")
+							except Exception as e:
+								self._debug(f"Warning: Could not process {table_name} objects for lineage: {e}")
 
+				else:
+					sharing_allowed = _derived_table_sharing_allowed()
+					newObject = _get_shared_derived_table(eReference) if sharing_allowed else None
+					if newObject is not None:
+						self._debug(f"Reusing shared {eReference} for {theObject.__class__.__name__}")
 						setattr(theObject,eReference,newObject)
+						continue
+
+					newObject = OrchestrationWithLineage.createObjectFromReferenceType(eReference);
+
+					# init is the only operation called; the class descriptor records whether it exists
+					operations = ("init",) if _class_descriptor(newObject.__class__)[1] else ()
+
+					for operation in operations:
+						if operation == "init":
+							try:
+								getattr(newObject, operation)()
+
+								# Check if lineage tracking is enabled and track data after initialization
+								from pybirdai.annotations.decorators import _lineage_context
+								orchestration = _lineage_context.get('orchestration')
+								if (orchestration and orchestration.lineage_enabled and
+									hasattr(newObject, '__class__') and
+									newObject.__class__.__name__.endswith('_Table')):
+
+									# Debug: print orchestration state
+									self._debug(f"Orchestration for {newObject.__class__.__name__}:")
+									self._debug(f"  Trail: {orchestration.trail.id if orchestration.trail else None}")
+									self._debug(f"  MetaDataTrail: {orchestration.metadata_trail.id if orchestration.metadata_trail else None}")
+
+									# First track the table itself if not already tracked
+									if orchestration.metadata_trail:
+										orchestration._track_object_initialization(newObject)
+									else:
+										self._debug(f"WARNING: No metadata_trail for {newObject.__class__.__name__}")
+
+									# Track any data that was populated during initialization
+									table_name = newObject.__class__.__name__.replace('_Table', '')
+									for attr_name in dir(newObject):
+										if (not attr_name.startswith('_') and
+											hasattr(newObject, attr_name)):
+											attr_value = getattr(newObject, attr_name)
+											if isinstance(attr_value, list) and len(attr_value) > 0:
+												# CRITICAL FIX: DO NOT auto-track derived table data during initialization
+												# Only track when explicitly used in calculations
+												if orchestration.metadata_trail:
+													self._debug(f"Found {len(attr_value)} items in {table_name}_{attr_name} (not tracking as used yet)")
+												else:
+													self._debug(f"WARNING: Cannot process data for {table_name}_{attr_name} - no metadata_trail")
+
+							except Exception as e:
+								print(f"Could not call function called {operation}: {e}")
+
+					if sharing_allowed:
+						_remember_shared_derived_table(eReference, newObject)
+					setattr(theObject,eReference,newObject)
 
 	@classmethod
 	def reset_initialization(cls):
@@ -850,66 +1062,7 @@ class OrchestrationWithLineage:
 
 	@staticmethod
 	def createObjectFromReferenceType(eReference):
-		try:
-			# First try the old output_tables location for backwards compatibility
-			try:
-				cls = getattr(importlib.import_module('pybirdai.process_steps.filter_code.output_tables'), eReference)
-				new_object = cls()
-				return new_object
-			except (ImportError, AttributeError):
-				pass
-
-			# If that fails, try to find the class in the logic files
-			# Extract the report prefix from the class name (e.g., F_05_01_REF_FINREP_3_0 from F_05_01_REF_FINREP_3_0_Other_loans_Table)
-			if "_" in eReference:
-				parts = eReference.split("_")
-				# Look for report pattern: F_XX_XX_REF_FINREP_X_X
-				if len(parts) >= 7 and parts[0] == "F" and parts[3] == "REF" and parts[4] == "FINREP":
-					# Extract report prefix (first 7 parts: F_05_01_REF_FINREP_3_0)
-					report_prefix = "_".join(parts[:7])
-					logic_module_name = f"pybirdai.process_steps.filter_code.{report_prefix}_logic"
-
-					try:
-						module = importlib.import_module(logic_module_name)
-						cls = getattr(module, eReference)
-						new_object = cls()
-						return new_object
-					except (ImportError, AttributeError) as e:
-						print(f"Could not find {eReference} in {logic_module_name}: {e}")
-
-				# Check for ANCRDT pattern: ANCRDT_INSTRMNT_C_1_UnionTable
-				if len(parts) >= 2 and parts[0] == "ANCRDT":
-					# Extract report prefix by finding the _C_<number> pattern
-					# Pattern: ANCRDT_INSTRMNT_C_1_Loans_and_advances_Table -> ANCRDT_INSTRMNT_C_1
-					# Pattern: ANCRDT_INSTRMNT_C_1_UnionTable -> ANCRDT_INSTRMNT_C_1
-					match = re.search(r'(ANCRDT_\w+_C_\d+)', eReference)
-					if match:
-						report_prefix = match.group(1)
-					else:
-						# Fallback to old suffix removal logic for backward compatibility
-						report_prefix = eReference
-						for suffix in ['_UnionTable', '_Table', '_UnionItem', '_Base']:
-							if report_prefix.endswith(suffix):
-								report_prefix = report_prefix[:-len(suffix)]
-								break
-
-					# Import from filter_code (executable production code)
-					logic_module_name = f"pybirdai.process_steps.filter_code.{report_prefix}_logic"
-
-					try:
-						module = importlib.import_module(logic_module_name)
-						cls = getattr(module, eReference)
-						new_object = cls()
-						return new_object
-					except (ImportError, AttributeError) as e:
-						print(f"Could not find {eReference} in {logic_module_name}: {e}")
-
-			# If all else fails, print error
-			print(f"Error: Could not find class {eReference} in any expected location")
-			return None
-		except Exception as e:
-			print(f"Error creating object from reference {eReference}: {e}")
-			return None
+		return _create_object_from_reference_type(eReference)
 
 	# AORTA Lineage Tracking Methods
 
@@ -1487,6 +1640,7 @@ class OrchestrationWithLineage:
 						row_cache[row_cache_key] = existing_row
 			elif not is_derived_table and isinstance(row_data, dict):
 				# For database tables, check if a row with the same data already exists
+				self.lineage_sink.flush()
 				existing_rows = populated_table.databaserow_set.all()
 				for existing in existing_rows:
 					if self._rows_have_same_data(existing, row_data):
@@ -1499,6 +1653,8 @@ class OrchestrationWithLineage:
 			else:
 				# Create row identifier if not provided
 				if not row_identifier:
+					# The rows counted include the ones still buffered
+					self.lineage_sink.flush()
 					if is_derived_table:
 						row_identifier = f"row_{len(populated_table.derivedtablerow_set.all()) + 1}"
 					else:
@@ -1507,10 +1663,10 @@ class OrchestrationWithLineage:
 				# Create appropriate row type
 				if is_derived_table:
 					# Create DerivedTableRow for derived tables
-					db_row = DerivedTableRow.objects.create(
+					db_row = self.lineage_sink.reserve(DerivedTableRow(
 						populated_table=populated_table,
 						row_identifier=row_identifier
-					)
+					))
 					self._new_derived_row_ids.add(db_row.id)
 					self._derived_row_cache[(populated_table.id, row_identifier)] = db_row
 					self._derived_row_by_id_cache[db_row.id] = db_row
@@ -1518,10 +1674,10 @@ class OrchestrationWithLineage:
 					self.collector.register_row('DerivedTableRow', db_row.id, table_name, row_identifier, row_data)
 				else:
 					# Create DatabaseRow for database tables
-					db_row = DatabaseRow.objects.create(
+					db_row = self.lineage_sink.reserve(DatabaseRow(
 						populated_table=populated_table,
 						row_identifier=row_identifier
-					)
+					))
 					self._new_database_row_ids.add(db_row.id)
 					self._database_row_cache[(populated_table.id, row_identifier)] = db_row
 					# Register with collector for deferred resolution
@@ -1566,12 +1722,12 @@ class OrchestrationWithLineage:
 			# Try to convert to float, otherwise use string_value
 			numeric_value, string_value = self._split_numeric_value(value)
 
-			column_value = DatabaseColumnValue.objects.create(
+			column_value = self.lineage_sink.reserve(DatabaseColumnValue(
 				value=numeric_value,
 				string_value=string_value,
 				column=field,
 				row=db_row
-			)
+			))
 			self._remember_value_object(value, column_value)
 
 			# print(f"Tracked column value: {table.name}.{column_name} = {value}")
@@ -1631,9 +1787,9 @@ class OrchestrationWithLineage:
 				return
 
 			# Create DerivedTableRow
-			derived_row = DerivedTableRow.objects.create(
+			derived_row = self.lineage_sink.reserve(DerivedTableRow(
 				populated_table=evaluated_table
-			)
+			))
 			self._new_derived_row_ids.add(derived_row.id)
 			self._derived_row_by_id_cache[derived_row.id] = derived_row
 
@@ -1643,14 +1799,16 @@ class OrchestrationWithLineage:
 
 			# Track source row references
 			if source_row_ids:
+				# The source rows may still be buffered
+				self.lineage_sink.flush()
 				for source_row_id in source_row_ids:
 					try:
 						source_row = DatabaseRow.objects.get(id=source_row_id)
-						DerivedRowSourceReference.objects.create(
+						self.lineage_sink.add(DerivedRowSourceReference(
 							derived_row=derived_row,
 							content_type=self._get_content_type(DatabaseRow),
 							object_id=source_row.id
-						)
+						))
 					except DatabaseRow.DoesNotExist:
 						print(f"Source row {source_row_id} not found")
 
@@ -1758,12 +1916,12 @@ class OrchestrationWithLineage:
 			numeric_value, string_value = self._split_numeric_value(computed_value)
 
 			self._debug(f"track_value_computation: Creating EvaluatedFunction for {function.name} (ID: {function.id}) on row {derived_row.id}")
-			evaluated_function = EvaluatedFunction.objects.create(
+			evaluated_function = self.lineage_sink.reserve(EvaluatedFunction(
 				value=numeric_value,
 				string_value=string_value,
 				function=function,
 				row=derived_row
-			)
+			))
 			self._new_evaluated_function_ids.add(evaluated_function.id)
 			self._evaluated_function_lookup_cache[evaluated_lookup_key] = evaluated_function
 			self._debug(f"track_value_computation: Created EvaluatedFunction ID: {evaluated_function.id}")
@@ -1885,10 +2043,10 @@ class OrchestrationWithLineage:
 				derived_row_id = derived_row.id
 			else:
 				# Create a new DerivedTableRow
-				derived_row = DerivedTableRow.objects.create(
+				derived_row = self.lineage_sink.reserve(DerivedTableRow(
 					populated_table=evaluated_table,
 					row_identifier=row_identifier
-				)
+				))
 				derived_row_id = derived_row.id
 				self._new_derived_row_ids.add(derived_row_id)
 				self._derived_row_cache[row_cache_key] = derived_row
@@ -2062,10 +2220,10 @@ class OrchestrationWithLineage:
 					pass
 				else:
 					# Create new database row for this model instance
-					db_row = DatabaseRow.objects.create(
+					db_row = self.lineage_sink.reserve(DatabaseRow(
 						populated_table=populated_table,
 						row_identifier=object_identifier
-					)
+					))
 					self._new_database_row_ids.add(db_row.id)
 					self._database_row_cache[row_cache_key] = db_row
 					# Register with collector for deferred resolution
@@ -2148,10 +2306,10 @@ class OrchestrationWithLineage:
 						pass
 					else:
 						# Create new derived table row for this object
-						tracked_row = DerivedTableRow.objects.create(
+						tracked_row = self.lineage_sink.reserve(DerivedTableRow(
 							populated_table=evaluated_table,
 							row_identifier=object_identifier
-						)
+						))
 						self._new_derived_row_ids.add(tracked_row.id)
 						self._derived_row_cache[row_cache_key] = tracked_row
 						self._derived_row_by_id_cache[tracked_row.id] = tracked_row
@@ -2197,12 +2355,12 @@ class OrchestrationWithLineage:
 				).exists()
 			
 			if not existing:
-				CalculationUsedRow.objects.create(
+				self.lineage_sink.add(CalculationUsedRow(
 					trail=self.trail,
 					calculation_name=calculation_name,
 					content_type=content_type,
 					object_id=row.id
-				)
+				))
 				self._debug(f"Created CalculationUsedRow: {calculation_name} -> {type(row).__name__} (id: {row.id})")
 			else:
 				self._debug(f"CalculationUsedRow already exists for {calculation_name} -> {type(row).__name__}")
@@ -2346,10 +2504,7 @@ class OrchestrationWithLineage:
 					row_content_type=row_content_type,
 					row_object_id=row_object_id
 				)
-				if self._trail_is_new:
-					self._pending_calculation_used_fields.append(used_field)
-				else:
-					used_field.save()
+				self.lineage_sink.add(used_field)
 				# print(f"Tracked used field for {calculation_name}: {field_name}")
 			self._calculation_used_field_keys.add(used_field_key)
 			self._calculation_used_field_name_keys.add(raw_field_key)
@@ -2361,6 +2516,7 @@ class OrchestrationWithLineage:
 		"""Get all rows that were used in a specific calculation"""
 		if not self.trail:
 			return []
+		self.flush_pending_calculation_usage()
 		
 		used_rows = CalculationUsedRow.objects.filter(
 			trail=self.trail,
@@ -2446,7 +2602,9 @@ class OrchestrationWithLineage:
 					source_row_id = self._ensure_derived_row_context(source_obj, f"{source_class_name}.init")
 					if source_row_id:
 						try:
-							source_row = DerivedTableRow.objects.get(id=source_row_id)
+							source_row = self._derived_row_by_id_cache.get(source_row_id)
+							if source_row is None:
+								source_row = DerivedTableRow.objects.get(id=source_row_id)
 							ref = self.create_derived_row_source_reference(tracked_row, source_row)
 							if ref:
 								relationships_created += 1
@@ -2566,7 +2724,7 @@ class OrchestrationWithLineage:
 				self._transitive_tracking_stack.discard(id(business_object))
 
 	def _track_column_values_for_django_row(self, db_row, django_model_instance, table):
-		"""Track non-null Django model field values for a DatabaseRow using bulk inserts."""
+		"""Track non-null Django model field values for a DatabaseRow through the lineage sink."""
 		try:
 			field_values = []
 			for model_field in django_model_instance._meta.fields:
@@ -2583,27 +2741,18 @@ class OrchestrationWithLineage:
 				[field_name for field_name, _ in field_values]
 			)
 
-			column_values = []
-			original_values = []
 			for field_name, field_value in field_values:
 				field = fields_by_name.get(field_name)
 				if not field:
 					continue
 				numeric_value, string_value = self._split_numeric_value(field_value)
-				column_values.append(DatabaseColumnValue(
+				column_value = self.lineage_sink.reserve(DatabaseColumnValue(
 					value=numeric_value,
 					string_value=string_value,
 					column=field,
 					row=db_row
 				))
-				original_values.append(field_value)
-
-			created_values = DatabaseColumnValue.objects.bulk_create(
-				column_values,
-				batch_size=1000
-			)
-			for original_value, column_value in zip(original_values, created_values):
-				self._remember_value_object(original_value, column_value)
+				self._remember_value_object(field_value, column_value)
 
 		except Exception as e:
 			print(f"Error tracking Django row fields: {e}")
@@ -2617,12 +2766,12 @@ class OrchestrationWithLineage:
 			# Create DatabaseColumnValue
 			numeric_value, string_value = self._split_numeric_value(field_value)
 			
-			column_value = DatabaseColumnValue.objects.create(
+			column_value = self.lineage_sink.reserve(DatabaseColumnValue(
 				value=numeric_value,
 				string_value=string_value,
 				column=field,
 				row=db_row
-			)
+			))
 			self._remember_value_object(field_value, column_value)
 			
 		except Exception as e:
@@ -2652,6 +2801,8 @@ class OrchestrationWithLineage:
 
 			# Look for DatabaseColumnValue with matching value
 			source_row_id = self.current_rows.get('source') if hasattr(self, 'current_rows') and self.current_rows else None
+			# The database lookups below miss rows that are still buffered
+			self.lineage_sink.flush()
 			if source_row_id:
 				source_row = DatabaseRow.objects.get(id=source_row_id)
 				column_values = source_row.column_values.filter(value=str(source_value))
@@ -2975,11 +3126,11 @@ class OrchestrationWithLineage:
 
 		try:
 			content_type = ContentType.objects.get_for_model(source_table.__class__)
-			TransformationStepInput.objects.create(
+			self.lineage_sink.add(TransformationStepInput(
 				step=self._current_transformation_step,
 				source_content_type=content_type,
 				source_object_id=source_table.id
-			)
+			))
 		except Exception as e:
 			print(f"Error adding step input: {e}")
 
@@ -2990,11 +3141,11 @@ class OrchestrationWithLineage:
 
 		try:
 			content_type = ContentType.objects.get_for_model(target_table.__class__)
-			TransformationStepOutput.objects.create(
+			self.lineage_sink.add(TransformationStepOutput(
 				step=self._current_transformation_step,
 				target_content_type=content_type,
 				target_object_id=target_table.id
-			)
+			))
 		except Exception as e:
 			print(f"Error adding step output: {e}")
 
@@ -3160,13 +3311,13 @@ class OrchestrationWithLineage:
 		try:
 			row_content_type = self._get_content_type(source_row)
 
-			CellSourceRow.objects.create(
+			self.lineage_sink.add(CellSourceRow(
 				cell=cell,
 				row_content_type=row_content_type,
 				row_object_id=source_row.id,
 				contribution_type=contribution_type,
 				contributed_value=contributed_value
-			)
+			), generic_refs={'row_object_id': source_row})
 		except Exception as e:
 			print(f"Error adding cell source row: {e}")
 
@@ -3369,11 +3520,11 @@ class OrchestrationWithLineage:
 				).exists()
 
 			if not existing:
-				ref = DerivedRowSourceReference.objects.create(
+				ref = self.lineage_sink.add(DerivedRowSourceReference(
 					derived_row=derived_row,
 					content_type=content_type,
 					object_id=source_row.id
-				)
+				))
 				self._derived_row_source_reference_keys.add(ref_key)
 				self._debug(f"Created DerivedRowSourceReference: row {derived_row.id} <- row {source_row.id}")
 				return ref
@@ -3405,11 +3556,11 @@ class OrchestrationWithLineage:
 				).exists()
 
 			if not existing:
-				ref = EvaluatedFunctionSourceValue.objects.create(
+				ref = self.lineage_sink.add(EvaluatedFunctionSourceValue(
 					evaluated_function=evaluated_function,
 					content_type=content_type,
 					object_id=source_value_obj.id
-				)
+				))
 				self._evaluated_function_source_value_keys.add(ref_key)
 				self._debug(f"Created EvaluatedFunctionSourceValue: {evaluated_function.function.name} <- value {source_value_obj.id}")
 				return ref
@@ -3514,6 +3665,24 @@ class OrchestrationWithLineage:
 		except Exception as e:
 			print(f"Error finalizing lineage: {e}")
 
+		try:
+			self.lineage_sink.close()
+			self._debug(f"Lineage sink wrote {self.lineage_sink.written_count} rows in {self.lineage_sink.write_count} bulk writes")
+		except Exception as e:
+			print(f"Error writing buffered lineage rows: {e}")
+
+		try:
+			# Rows each output cell was computed from, for the filtered lineage view
+			build_cell_closures(self.trail)
+		except Exception as e:
+			print(f"Error building cell source row closure: {e}")
+
+		try:
+			# A graph cached for this trail by the lineage graph API no longer matches it
+			invalidate_trail_graph(self.trail.id)
+		except Exception as e:
+			print(f"Error invalidating cached lineage graph: {e}")
+
 	def get_lineage_trail(self):
 		"""Get the current lineage trail"""
 		return self.trail
@@ -3593,68 +3762,66 @@ class OrchestrationOriginal:
 		Ensure that all table references are properly set for the object.
 		This is called both during full initialization and when initialization is skipped.
 		"""
-		references = [method for method in dir(theObject.__class__) if not callable(
-		getattr(theObject.__class__, method)) and not method.startswith('__')]
-		for eReference in references:
-			if eReference.endswith("Table"):
-				# Only set the reference if it's currently None
-				if getattr(theObject, eReference) is None:
-					from django.apps import apps
-					table_name = eReference.split('_Table')[0]
-
-					# For ANCRDT intermediate tables - skip Django model lookup, create directly
-					is_ancrdt_intermediate = (table_name.startswith('ANCRDT_') and
-						any(pattern in table_name for pattern in ['Union', 'Loans_and_advances', '_filtered_', '_aggregated_']))
-
-					relevant_model = None
-					if not is_ancrdt_intermediate:
-						try:
-							relevant_model = apps.get_model('pybirdai',table_name)
-						except LookupError:
-							self._debug("LookupError: " + table_name)
-
-					if relevant_model:
-						reference_cache = _reference_queryset_cache.get()
-						cache_entry = reference_cache.get(relevant_model) if reference_cache is not None else None
-						if cache_entry is None:
-							newObject = relevant_model.objects.all()
-							rows = list(newObject)
-							cache_entry = {
-								'queryset': newObject,
-								'rows': rows,
-								'csv_persisted': False,
-							}
-							if reference_cache is not None:
-								reference_cache[relevant_model] = cache_entry
-						else:
-							newObject = cache_entry['queryset']
-							rows = cache_entry['rows']
-
-						if self.debug_lineage:
-							self._debug("relevant_model: " + str(relevant_model))
-							self._debug("newObject: " + str(newObject))
-						# Always set the QuerySet even if empty (empty QuerySet evaluates to False in boolean context)
+		references, _ = _class_descriptor(theObject.__class__)
+		for reference in references:
+			eReference = reference.name
+			# Only set the reference if it's currently None
+			if getattr(theObject, eReference) is None:
+				table_name = reference.table_name
+				# Resolved once per class; None for ANCRDT intermediate tables
+				relevant_model = reference.model
+				if relevant_model is None and not reference.is_ancrdt_intermediate:
+					self._debug("LookupError: " + table_name)
+
+				if relevant_model:
+					reference_cache = _reference_queryset_cache.get()
+					cache_entry = reference_cache.get(relevant_model) if reference_cache is not None else None
+					if cache_entry is None:
+						newObject = relevant_model.objects.all()
+						rows = list(newObject)
+						cache_entry = {
+							'queryset': newObject,
+							'rows': rows,
+							'csv_persisted': False,
+						}
+						if reference_cache is not None:
+							reference_cache[relevant_model] = cache_entry
+					else:
+						newObject = cache_entry['queryset']
+						rows = cache_entry['rows']
+
+					if self.debug_lineage:
+						self._debug("relevant_model: " + str(relevant_model))
+						self._debug("newObject: " + str(newObject))
+					# Always set the QuerySet even if empty (empty QuerySet evaluates to False in boolean context)
+					setattr(theObject,eReference,newObject)
+					if rows and not cache_entry['csv_persisted']:
+						CSVConverter.persist_object_as_csv(newObject,True);
+						cache_entry['csv_persisted'] = True
+
+				else:
+					newObject = _get_shared_derived_table(eReference)
+					if newObject is not None:
+						self._debug(f"Reusing shared {eReference} for {theObject.__class__.__name__}")
 						setattr(theObject,eReference,newObject)
-						if rows and not cache_entry['csv_persisted']:
-							CSVConverter.persist_object_as_csv(newObject,True);
-							cache_entry['csv_persisted'] = True
+						continue
 
-					else:
-						newObject = OrchestrationOriginal.createObjectFromReferenceType(eReference);
+					newObject = OrchestrationOriginal.createObjectFromReferenceType(eReference);
 
-						operations = [method for method in dir(newObject.__class__) if callable(
-							getattr(newObject.__class__, method)) and not method.startswith('__')]
+					# init is the only operation called; the class descriptor records whether it exists
+					operations = ("init",) if _class_descriptor(newObject.__class__)[1] else ()
 
-						for operation in operations:
-							if operation == "init":
-								try:
-									getattr(newObject, operation)()
-								except Exception as e:
-									import traceback
-									print(f" could not call function called {operation}:")
-									traceback.print_exc()
+					for operation in operations:
+						if operation == "init":
+							try:
+								getattr(newObject, operation)()
+							except Exception as e:
+								import traceback
+								print(f" could not call function called {operation}:")
+								traceback.print_exc()
 
-						setattr(theObject,eReference,newObject)
+					_remember_shared_derived_table(eReference, newObject)
+					setattr(theObject,eReference,newObject)
 
 	@classmethod
 	def reset_initialization(cls):
@@ -3680,66 +3847,7 @@ class OrchestrationOriginal:
 
 	@staticmethod
 	def createObjectFromReferenceType(eReference):
-		try:
-			# First try the old output_tables location for backwards compatibility
-			try:
-				cls = getattr(importlib.import_module('pybirdai.process_steps.filter_code.output_tables'), eReference)
-				new_object = cls()
-				return new_object
-			except (ImportError, AttributeError):
-				pass
-
-			# If that fails, try to find the class in the logic files
-			# Extract the report prefix from the class name (e.g., F_05_01_REF_FINREP_3_0 from F_05_01_REF_FINREP_3_0_Other_loans_Table)
-			if "_" in eReference:
-				parts = eReference.split("_")
-				# Look for report pattern: F_XX_XX_REF_FINREP_X_X
-				if len(parts) >= 7 and parts[0] == "F" and parts[3] == "REF" and parts[4] == "FINREP":
-					# Extract report prefix (first 7 parts: F_05_01_REF_FINREP_3_0)
-					report_prefix = "_".join(parts[:7])
-					logic_module_name = f"pybirdai.process_steps.filter_code.{report_prefix}_logic"
-
-					try:
-						module = importlib.import_module(logic_module_name)
-						cls = getattr(module, eReference)
-						new_object = cls()
-						return new_object
-					except (ImportError, AttributeError) as e:
-						print(f"Could not find {eReference} in {logic_module_name}: {e}")
-
-				# Check for ANCRDT pattern: ANCRDT_INSTRMNT_C_1_UnionTable
-				if len(parts) >= 2 and parts[0] == "ANCRDT":
-					# Extract report prefix by finding the _C_<number> pattern
-					# Pattern: ANCRDT_INSTRMNT_C_1_Loans_and_advances_Table -> ANCRDT_INSTRMNT_C_1
-					# Pattern: ANCRDT_INSTRMNT_C_1_UnionTable -> ANCRDT_INSTRMNT_C_1
-					match = re.search(r'(ANCRDT_\w+_C_\d+)', eReference)
-					if match:
-						report_prefix = match.group(1)
-					else:
-						# Fallback to old suffix removal logic for backward compatibility
-						report_prefix = eReference
-						for suffix in ['_UnionTable', '_Table', '_UnionItem', '_Base']:
-							if report_prefix.endswith(suffix):
-								report_prefix = report_prefix[:-len(suffix)]
-								break
-
-					# Import from filter_code (executable production code)
-					logic_module_name = f"pybirdai.process_steps.filter_code.{report_prefix}_logic"
-
-					try:
-						module = importlib.import_module(logic_module_name)
-						cls = getattr(module, eReference)
-						new_object = cls()
-						return new_object
-					except (ImportError, AttributeError) as e:
-						print(f"Could not find {eReference} in {logic_module_name}: {e}")
-
-			# If all else fails, print error
-			print(f"Error: Could not find class {eReference} in any expected location")
-			return None
-		except Exception as e:
-			print(f"Error creating object from reference {eReference}: {e}")
-			return None
+		return _create_object_from_reference_type(eReference)
 
 
 # Factory function to create the appropriate Orchestration instance
@@ -3749,12 +3857,19 @@ def create_orchestration():
 	based on the context configuration.
 	"""
 	from pybirdai.context.context import Context
+	from pybirdai.annotations.decorators import lineage_fast_path_enabled
 
 	# Use the static method to read directly from config file
 	# This avoids the issue where Context class attribute isn't updated yet
 	lineage_enabled = Context.get_current_lineage_setting()
 	debug_lineage = os.environ.get('PYBIRDAI_DEBUG_LINEAGE', '').lower() in {'1', 'true', 'yes', 'on'}
 
+	# With PYBIRDAI_LINEAGE_MODE=off the decorators are plain methods, so lineage can not be recorded
+	if lineage_enabled and lineage_fast_path_enabled():
+		if debug_lineage:
+			print("PYBIRDAI_LINEAGE_MODE=off: using original orchestrator")
+		lineage_enabled = False
+
 	if lineage_enabled:
 		if debug_lineage:
 			print("Using lineage-enhanced orchestrator")
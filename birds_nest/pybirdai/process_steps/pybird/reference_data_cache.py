@@ -0,0 +1,218 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Process-wide cache of input layer reference data.
+
+shared_reference_cache() in orchestration.py only lives for one batch, so
+every interactive cell execution from the web UI loads each input model again.
+process_reference_cache() installs a long-lived ReferenceDataCache in the same
+ContextVar instead. It holds the same entries ({'queryset', 'rows',
+'csv_persisted'}) keyed by Django model, bounded by model count and total rows
+and evicted least recently used first. The entries keep model instances alive
+in the web server, so the bounds are small by default; raise them with the
+PYBIRDAI_REFERENCE_CACHE_MAX_MODELS and PYBIRDAI_REFERENCE_CACHE_MAX_ROWS
+settings.
+
+An entry is dropped when:
+- a post_save or post_delete signal fires for its model,
+- invalidate_input_data_caches() bumps the input data version, or
+- the model's row count or highest primary key no longer match the values
+  recorded when it was loaded. This catches bulk_create and raw SQL imports,
+  which send no signals.
+"""
+import logging
+import os
+import threading
+from collections import OrderedDict
+from contextlib import contextmanager
+
+from django.conf import settings
+from django.db.models import Count, Max
+from django.db.models.signals import post_delete, post_save
+
+logger = logging.getLogger(__name__)
+
+DEFAULT_MAX_MODELS = 256
+DEFAULT_MAX_ROWS = 20000
+
+
+def _table_state(model):
+    totals = model.objects.order_by().aggregate(row_count=Count('pk'), max_pk=Max('pk'))
+    return totals['row_count'], totals['max_pk']
+
+
+class ReferenceDataCache:
+    """Size-bounded, thread-safe map from Django model to reference cache entry."""
+
+    def __init__(self, max_models=DEFAULT_MAX_MODELS, max_rows=DEFAULT_MAX_ROWS, validate_table_state=True):
+        self.max_models = max_models
+        self.max_rows = max_rows
+        self.validate_table_state = validate_table_state
+        self._entries = OrderedDict()
+        self._row_count = 0
+        self._lock = threading.RLock()
+        self._connected_models = set()
+        self.hits = 0
+        self.misses = 0
+
+    def __len__(self):
+        return len(self._entries)
+
+    def __contains__(self, model):
+        return model in self._entries
+
+    def keys(self):
+        with self._lock:
+            return list(self._entries.keys())
+
+    def __getitem__(self, model):
+        entry = self.get(model)
+        if entry is None:
+            raise KeyError(model)
+        return entry
+
+    def get(self, model, default=None):
+        from pybirdai.process_steps.pybird.orchestration import get_input_data_version
+
+        with self._lock:
+            stored = self._entries.get(model)
+            if stored is None:
+                self.misses += 1
+                return default
+            if stored['version'] != get_input_data_version():
+                self._discard(model)
+                self.misses += 1
+                return default
+
+        if self.validate_table_state and _table_state(model) != stored['table_state']:
+            with self._lock:
+                self._discard(model)
+                self.misses += 1
+            return default
+
+        with self._lock:
+            if model in self._entries:
+                self._entries.move_to_end(model)
+            self.hits += 1
+
+        entry = dict(stored['entry'])
+        # results/lineage is emptied between executions, so only trust the
+        # flag while the file it refers to is still there
+        entry['csv_persisted'] = os.path.exists(stored['csv_path'])
+        return entry
+
+    def __setitem__(self, model, entry):
+        from pybirdai.process_steps.pybird.csv_converter import CSVConverter
+        from pybirdai.process_steps.pybird.orchestration import get_input_data_version
+
+        row_count = len(entry.get('rows') or ())
+        if row_count > self.max_rows:
+            return
+        table_state = _table_state(model) if self.validate_table_state else None
+
+        with self._lock:
+            self._discard(model)
+            self._entries[model] = {
+                'entry': entry,
+                'version': get_input_data_version(),
+                'table_state': table_state,
+                'row_count': row_count,
+                'csv_path': CSVConverter.get_csv_path(model.__name__, True),
+            }
+            self._row_count += row_count
+            self._connect_signals(model)
+            while self._entries and (len(self._entries) > self.max_models or self._row_count > self.max_rows):
+                self._discard(next(iter(self._entries)))
+
+    def invalidate(self, model=None):
+        """Drop the entry for one model, or every entry."""
+        with self._lock:
+            if model is None:
+                self._entries.clear()
+                self._row_count = 0
+            else:
+                self._discard(model)
+
+    def clear(self):
+        self.invalidate()
+
+    def _discard(self, model):
+        stored = self._entries.pop(model, None)
+        if stored is not None:
+            self._row_count -= stored['row_count']
+
+    def _connect_signals(self, model):
+        # Connected per model: a receiver without a sender would disable
+        # Django's fast delete path for every model in the project
+        if model in self._connected_models:
+            return
+        post_save.connect(self._on_model_changed, sender=model, weak=False,
+                          dispatch_uid=f'reference_data_cache_save_{id(self)}_{model._meta.label}')
+        post_delete.connect(self._on_model_changed, sender=model, weak=False,
+                            dispatch_uid=f'reference_data_cache_delete_{id(self)}_{model._meta.label}')
+        self._connected_models.add(model)
+
+    def _on_model_changed(self, sender, **kwargs):
+        self.invalidate(sender)
+
+    def stats(self):
+        with self._lock:
+            return {
+                'models': len(self._entries),
+                'rows': self._row_count,
+                'hits': self.hits,
+                'misses': self.misses,
+            }
+
+
+_process_cache = None
+_process_cache_lock = threading.Lock()
+
+
+def process_reference_data_cache():
+    """Return the process-wide ReferenceDataCache, creating it on first use."""
+    global _process_cache
+    if _process_cache is None:
+        with _process_cache_lock:
+            if _process_cache is None:
+                _process_cache = ReferenceDataCache(
+                    max_models=getattr(settings, 'PYBIRDAI_REFERENCE_CACHE_MAX_MODELS', DEFAULT_MAX_MODELS),
+                    max_rows=getattr(settings, 'PYBIRDAI_REFERENCE_CACHE_MAX_ROWS', DEFAULT_MAX_ROWS),
+                )
+    return _process_cache
+
+
+def invalidate_process_reference_cache(model=None):
+    if _process_cache is not None:
+        _process_cache.invalidate(model)
+
+
+@contextmanager
+def process_reference_cache():
+    """
+    Use the process-wide reference cache for the executions in this block.
+
+    Inside an existing shared_reference_cache() the batch cache is kept, so a
+    batch never mixes its snapshot with rows loaded by other requests.
+    """
+    from pybirdai.process_steps.pybird.orchestration import _reference_queryset_cache
+
+    if _reference_queryset_cache.get() is not None:
+        yield
+        return
+
+    token = _reference_queryset_cache.set(process_reference_data_cache())
+    try:
+        yield
+    finally:
+        _reference_queryset_cache.reset(token)
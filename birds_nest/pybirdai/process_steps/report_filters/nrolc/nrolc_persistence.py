@@ -99,3 +99,7 @@ class PersistenceManager:
             TABLE_CELL.objects.bulk_update(
                 cells_to_update, ['table_cell_combination_id'], batch_size=BULK_CREATE_BATCH_SIZE_DEFAULT
             )
+            # bulk_update sends no signals, and the cells' combinations are
+            # part of the rendered templates
+            from pybirdai.services.table_render_cache import invalidate_table_render_cache
+            invalidate_table_render_cache()
@@ -22,3 +22,10 @@ BULK_CREATE_BATCH_SIZE_ORDINATE_ITEMS = 50000
 # Note: For databases with strict parameter limits (e.g., SQLite with 999 parameter limit),
 # consider using dynamic batch size calculation based on model field count.
 # See pybirdai/utils/clone_mode/import_from_metadata_export.py for an example.
+
+# Worker processes used by ImportScheduler to parse SDD CSV files ahead of the
+# importers that need them. 0 parses every file in the importer itself.
+CSV_PARSE_WORKERS_DEFAULT = 4
+
+# Parsed files the scheduler may hold in memory before their importers have run
+CSV_PARSE_MAX_PREFETCHED_FILES = 6
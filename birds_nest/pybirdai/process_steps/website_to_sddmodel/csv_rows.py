@@ -0,0 +1,28 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+
+"""
+CSV parsing for the ImportScheduler worker processes.
+
+Workers are spawned, not forked, so they import the function they run from
+scratch. This module imports nothing from Django or the import_func package,
+whose __init__ loads the models, so a worker never needs django.setup().
+"""
+
+import csv
+
+
+def read_csv_rows(file_location):
+    """Parse a whole SDD CSV file, header included."""
+    with open(file_location, encoding='utf-8') as csvfile:
+        return list(csv.reader(csvfile, delimiter=',', quotechar='"'))
@@ -14,11 +14,14 @@
 """CSV copy import functionality with backup/restore capabilities."""
 
 import os
+import csv as csv_module
+import itertools
 import subprocess
 import platform
 import time
+from contextlib import contextmanager
 from pathlib import Path
-from django.db import connection
+from django.db import connection, transaction
 from pybirdai.process_steps.website_to_sddmodel.import_func.database_helpers import (
     backup_table_data,
     restore_backed_up_data_bulk,
@@ -39,6 +42,10 @@ CSV_COPY_CONFIG = {
     'ENABLE_COMPRESSION': os.environ.get('CSV_COPY_ENABLE_COMPRESSION', 'False').lower() == 'true',
     'RETRY_ATTEMPTS': int(os.environ.get('CSV_COPY_RETRY_ATTEMPTS', 3)),
     'RETRY_BACKOFF_SECONDS': float(os.environ.get('CSV_COPY_RETRY_BACKOFF_SECONDS', 1.0)),
+    # Load SQLite tables in-process instead of piping a script to the sqlite3 CLI
+    'ENABLE_NATIVE_SQLITE': os.environ.get('CSV_COPY_ENABLE_NATIVE_SQLITE', 'True').lower() == 'true',
+    # Page cache used during a native SQLite load, in KiB
+    'SQLITE_LOAD_CACHE_KB': int(os.environ.get('CSV_COPY_SQLITE_LOAD_CACHE_KB', 262144)),
 }
 
 # Column name mapping from CSV headers to database columns
@@ -69,6 +76,22 @@ CSV_TO_DB_COLUMN_MAPPING = {
 }
 
 
+def map_csv_headers_to_db_columns(csv_headers, table_name):
+    """
+    Map CSV header names to database column names.
+
+    Args:
+        csv_headers: Header row of the CSV file
+        table_name: Name of the table
+
+    Returns:
+        List of database column names, in CSV column order
+    """
+    column_mapping = CSV_TO_DB_COLUMN_MAPPING.get(table_name, {})
+    # Fallback: convert to lowercase
+    return [column_mapping.get(header, header.lower()) for header in csv_headers]
+
+
 def retry_with_backoff(func, max_attempts=None, backoff_seconds=None):
     """
     Retry a function with exponential backoff on failure.
@@ -125,7 +148,7 @@ def bulk_import_with_fallback(context, cls, csv_file, delimiter, table_name, con
     csv_copy_config = CSV_COPY_CONFIG
     batch_error = None
 
-    # Try fast bulk import first (uses temp table approach for SQLite)
+    # Try fast bulk import first (in-process load for SQLite)
     try:
         return perform_bulk_import(csv_file, delimiter, table_name)
     except Exception as bulk_error:
@@ -160,9 +183,11 @@ def bulk_import_with_fallback(context, cls, csv_file, delimiter, table_name, con
 
 def perform_bulk_import(csv_file, delimiter, table_name):
     """
-    Perform database-native bulk import using temp table approach.
+    Perform database-native bulk import.
 
-    For SQLite, uses temp table to handle auto-increment id:
+    For SQLite, loads the file in-process with perform_native_sqlite_import.
+    With CSV_COPY_ENABLE_NATIVE_SQLITE=False it uses the sqlite3 CLI and a
+    temp table to handle auto-increment id instead:
     1. Read CSV header to get column names
     2. Create temp table with those columns (no id)
     3. Fast .import into temp table
@@ -177,22 +202,17 @@ def perform_bulk_import(csv_file, delimiter, table_name):
     Returns:
         Result of the import operation
     """
-    if connection.vendor == 'sqlite':
-        import csv as csv_module
+    if connection.vendor == 'sqlite' and CSV_COPY_CONFIG.get('ENABLE_NATIVE_SQLITE', True):
+        return perform_native_sqlite_import(csv_file, delimiter, table_name)
 
+    if connection.vendor == 'sqlite':
         # Read CSV header to get column names
         with open(csv_file, 'r', encoding='utf-8') as f:
             reader = csv_module.reader(f, delimiter=delimiter)
             csv_headers = next(reader)
 
         # Map CSV headers to database column names
-        column_mapping = CSV_TO_DB_COLUMN_MAPPING.get(table_name, {})
-        db_columns = []
-        for header in csv_headers:
-            if header in column_mapping:
-                db_columns.append(column_mapping[header])
-            else:
-                db_columns.append(header.lower())
+        db_columns = map_csv_headers_to_db_columns(csv_headers, table_name)
 
         db_file = Path(connection.settings_dict['NAME']).absolute()
         temp_table = f"temp_{table_name.replace('pybirdai_', '')}_import"
@@ -254,6 +274,117 @@ def perform_bulk_import(csv_file, delimiter, table_name):
         raise Exception(f"Unsupported database vendor: {connection.vendor}")
 
 
+@contextmanager
+def sqlite_load_pragmas(raw_connection):
+    """
+    Tune a SQLite connection for a bulk load and restore its settings afterwards.
+
+    Journal mode, synchronous and foreign key enforcement cannot change inside
+    a transaction, so within an atomic block only the page cache is enlarged.
+    A database in WAL mode stays in WAL: switching it needs exclusive access
+    and WAL already suits bulk writes.
+
+    Args:
+        raw_connection: sqlite3 connection underlying Django's connection
+    """
+    def pragma(statement):
+        # Read every result row: a pending PRAGMA statement keeps the table locked
+        cursor = raw_connection.cursor()
+        try:
+            rows = cursor.execute(statement).fetchall()
+        finally:
+            cursor.close()
+        return rows[0][0] if rows else None
+
+    previous = {}
+    settings = {'cache_size': -CSV_COPY_CONFIG.get('SQLITE_LOAD_CACHE_KB', 262144)}
+    if not connection.in_atomic_block:
+        settings['foreign_keys'] = 0
+        settings['synchronous'] = 'OFF'
+        if str(pragma("PRAGMA journal_mode")).lower() != 'wal':
+            settings['journal_mode'] = 'MEMORY'
+
+    try:
+        for name, value in settings.items():
+            previous[name] = pragma(f"PRAGMA {name}")
+            pragma(f"PRAGMA {name} = {value}")
+        yield
+    finally:
+        for name, value in reversed(list(previous.items())):
+            pragma(f"PRAGMA {name} = {value}")
+
+
+def perform_native_sqlite_import(csv_file, delimiter, table_name):
+    """
+    Load a CSV file into a SQLite table in-process.
+
+    The file is streamed into executemany inside one transaction on Django's
+    own connection, so no sqlite3 binary is needed and nothing waits on a
+    second connection's lock. The table's secondary indexes are dropped
+    before the load and rebuilt once after it, and the connection is tuned
+    for the load with sqlite_load_pragmas. A failure rolls everything back,
+    dropped indexes included.
+
+    Empty CSV values are stored as empty strings, not NULL, in every column,
+    as the sqlite3 CLI .import this replaces stored them.
+
+    Args:
+        csv_file: Path to CSV file
+        delimiter: CSV delimiter
+        table_name: Name of the table
+
+    Returns:
+        Number of rows imported
+    """
+    batch_size = CSV_COPY_CONFIG.get('BATCH_SIZE', 10000)
+    connection.ensure_connection()
+    raw_connection = connection.connection
+
+    with open(csv_file, 'r', encoding='utf-8', newline='') as f:
+        reader = csv_module.reader(f, delimiter=delimiter)
+        db_columns = map_csv_headers_to_db_columns(next(reader), table_name)
+
+        cursor = raw_connection.cursor()
+        try:
+            deferred_indexes = cursor.execute(
+                "SELECT name, sql FROM sqlite_master WHERE type = 'index' AND tbl_name = ? AND sql IS NOT NULL",
+                [table_name]
+            ).fetchall()
+        finally:
+            cursor.close()
+
+        insert_sql = f"INSERT INTO {table_name} ({', '.join(db_columns)}) VALUES ({', '.join(['?'] * len(db_columns))})"
+        total_rows = 0
+        start_time = time.perf_counter()
+
+        with sqlite_load_pragmas(raw_connection):
+            with transaction.atomic():
+                cursor = raw_connection.cursor()
+                try:
+                    for index_name, _ in deferred_indexes:
+                        cursor.execute(f'DROP INDEX "{index_name}"')
+
+                    while True:
+                        batch = list(itertools.islice(reader, batch_size))
+                        if not batch:
+                            break
+                        cursor.executemany(insert_sql, batch)
+                        total_rows += len(batch)
+
+                    load_seconds = time.perf_counter() - start_time
+                    for _, index_sql in deferred_indexes:
+                        cursor.execute(index_sql)
+                finally:
+                    cursor.close()
+
+    elapsed = time.perf_counter() - start_time
+    rows_per_second = total_rows / elapsed if elapsed > 0 else float(total_rows)
+    print(f"Native SQLite import into {table_name}: {total_rows} rows in {elapsed:.2f}s "
+          f"({rows_per_second:,.0f} rows/sec, {len(deferred_indexes)} indexes rebuilt in "
+          f"{elapsed - load_seconds:.2f}s)")
+    return total_rows
+
+
 def perform_batch_import(csv_file, delimiter, table_name, batch_size=10000):
     """
     Import CSV data using executemany with configurable batch size.
@@ -267,21 +398,12 @@ def perform_batch_import(csv_file, delimiter, table_name, batch_size=10000):
     Returns:
         Number of rows imported
     """
-    import csv as csv_module
-
     with open(csv_file, 'r', encoding='utf-8') as f:
         reader = csv_module.reader(f, delimiter=delimiter)
         csv_headers = next(reader)  # Get CSV headers
 
         # Map CSV headers to database column names
-        column_mapping = CSV_TO_DB_COLUMN_MAPPING.get(table_name, {})
-        db_columns = []
-        for header in csv_headers:
-            if header in column_mapping:
-                db_columns.append(column_mapping[header])
-            else:
-                # Fallback: convert to lowercase
-                db_columns.append(header.lower())
+        db_columns = map_csv_headers_to_db_columns(csv_headers, table_name)
 
         batch = []
         total_rows = 0
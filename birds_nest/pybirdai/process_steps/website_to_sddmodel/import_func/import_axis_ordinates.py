@@ -14,13 +14,13 @@
 """Import axis ordinates from CSV file."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import AXIS_ORDINATE
 from pybirdai.context.csv_column_index_context import ColumnIndexes
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
 from .utilities import replace_dots
 from .lookups import find_axis_with_id
 from .config import get_csv_file_path
+from .import_scheduler import open_csv_reader
 
 
 def import_axis_ordinates(context, config=None):
@@ -35,8 +35,7 @@ def import_axis_ordinates(context, config=None):
     header_skipped = False
     ordinates_to_create = []
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         for row in filereader:
             if not header_skipped:
                 header_skipped = True
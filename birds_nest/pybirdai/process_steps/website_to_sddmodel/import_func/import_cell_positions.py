@@ -14,13 +14,13 @@
 """Import cell positions from CSV file."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import CELL_POSITION
 from pybirdai.context.csv_column_index_context import ColumnIndexes
 from .utilities import replace_dots
 from .lookups import find_axis_ordinate_with_id, find_table_cell_with_id
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_cell_positions(context, dpm=False, config=None):
@@ -36,8 +36,7 @@ def import_cell_positions(context, dpm=False, config=None):
     header_skipped = False
     cell_positions_to_create = []
     id_increment = 0
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         for row in filereader:
             if not header_skipped:
                 header_skipped = True
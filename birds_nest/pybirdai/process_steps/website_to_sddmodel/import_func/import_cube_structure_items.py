@@ -14,12 +14,12 @@
 """Import cube structure items from ANCRDT CSV files."""
 
 import os
-import csv
 import logging
 from pybirdai.models.bird_meta_data_model import CUBE_STRUCTURE, CUBE_STRUCTURE_ITEM, SUBDOMAIN
 from pybirdai.process_steps.ancrdt_transformation.csv_column_index_context_ancrdt import ColumnIndexes
 from .utils import find_variable_with_id, find_member_with_id
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 logger = logging.getLogger(__name__)
 
@@ -39,8 +39,7 @@ def import_cube_structure_items(base_path, context):
 
     csi_counter = dict()
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         for row in filereader:
             if not header_skipped:
                 header_skipped = True
@@ -14,11 +14,11 @@
 """Import cube structures from ANCRDT CSV files."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import CUBE_STRUCTURE
 from pybirdai.process_steps.ancrdt_transformation.csv_column_index_context_ancrdt import ColumnIndexes
 from .utils import find_maintenance_agency_with_id, replace_dots
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_cube_structures(base_path, context):
@@ -29,8 +29,7 @@ def import_cube_structures(base_path, context):
     header_skipped = False
     structures_to_create = []
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         for row in filereader:
             if not header_skipped:
                 header_skipped = True
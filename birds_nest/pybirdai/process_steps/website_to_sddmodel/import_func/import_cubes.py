@@ -14,12 +14,12 @@
 """Import cubes from ANCRDT CSV files."""
 
 import os
-import csv
 import logging
 from pybirdai.models.bird_meta_data_model import CUBE, CUBE_STRUCTURE, FRAMEWORK
 from pybirdai.process_steps.ancrdt_transformation.csv_column_index_context_ancrdt import ColumnIndexes
 from .utils import find_maintenance_agency_with_id, replace_dots
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 logger = logging.getLogger(__name__)
 
@@ -34,8 +34,7 @@ def import_cubes(base_path, context):
     missing_frameworks = set()
     total_cube_rows = 0
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         for row in filereader:
             if not header_skipped:
                 header_skipped = True
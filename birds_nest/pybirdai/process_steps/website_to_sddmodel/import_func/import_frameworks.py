@@ -14,12 +14,12 @@
 """Import frameworks from CSV file."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import FRAMEWORK
 from pybirdai.context.csv_column_index_context import ColumnIndexes
 from .utilities import replace_dots
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_frameworks(context, config=None):
@@ -34,8 +34,7 @@ def import_frameworks(context, config=None):
     header_skipped = False
     frameworks_to_create = []
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         for row in filereader:
             if not header_skipped:
                 header_skipped = True
@@ -14,6 +14,8 @@
 """Orchestrator function for importing hierarchies from SDD."""
 
 from .utilities import delete_hierarchy_warnings_files
+from .config import get_csv_file_path
+from .import_scheduler import ImportScheduler
 from .import_member_hierarchies import import_member_hierarchies
 from .import_parent_members_with_children import import_parent_members_with_children
 from .import_member_hierarchy_nodes import import_member_hierarchy_nodes
@@ -30,6 +32,14 @@ def import_hierarchies_from_sdd(sdd_context):
         sdd_context: SDDContext containing file paths and dictionaries
     """
     delete_hierarchy_warnings_files(sdd_context)
-    import_member_hierarchies(sdd_context)
-    import_parent_members_with_children(sdd_context)
-    import_member_hierarchy_nodes(sdd_context)
+
+    # Both node steps read member_hierarchy_node.csv; it is parsed only once
+    node_csv = get_csv_file_path(sdd_context, "member_hierarchy_node.csv")
+    scheduler = ImportScheduler()
+    scheduler.add("member_hierarchies", lambda: import_member_hierarchies(sdd_context),
+                  csv_files=[get_csv_file_path(sdd_context, "member_hierarchy.csv")])
+    scheduler.add("parent_members_with_children", lambda: import_parent_members_with_children(sdd_context),
+                  depends_on=["member_hierarchies"], csv_files=[node_csv])
+    scheduler.add("member_hierarchy_nodes", lambda: import_member_hierarchy_nodes(sdd_context),
+                  depends_on=["parent_members_with_children"], csv_files=[node_csv])
+    scheduler.run()
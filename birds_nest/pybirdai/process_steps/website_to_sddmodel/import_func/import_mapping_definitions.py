@@ -14,12 +14,12 @@
 """Import mapping definitions from CSV file."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import MAPPING_DEFINITION
 from pybirdai.context.csv_column_index_context import ColumnIndexes
 from .lookups import find_member_mapping_with_id, find_variable_mapping_with_id
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_mapping_definitions(context):
@@ -36,8 +36,8 @@ def import_mapping_definitions(context):
     member_mapping_cache = {}
     variable_mapping_cache = {}
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        rows = list(csv.reader(csvfile))[1:]  # Skip header
+    with open_csv_reader(file_location) as filereader:
+        rows = list(filereader)[1:]  # Skip header
 
         for row in rows:
             mapping_id = row[ColumnIndexes().mapping_definition_mapping_id]
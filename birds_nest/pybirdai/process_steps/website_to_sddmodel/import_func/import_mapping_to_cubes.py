@@ -14,13 +14,13 @@
 """Import mapping to cubes from CSV file."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import MAPPING_TO_CUBE
 from pybirdai.context.csv_column_index_context import ColumnIndexes
 from .utilities import replace_dots
 from .lookups import find_mapping_definition_with_id
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_mapping_to_cubes(context):
@@ -34,8 +34,7 @@ def import_mapping_to_cubes(context):
     header_skipped = False
     mapping_to_cubes_to_create = []
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         id_increment = 0
         for row in filereader:
             if not header_skipped:
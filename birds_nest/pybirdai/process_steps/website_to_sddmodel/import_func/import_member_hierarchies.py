@@ -13,7 +13,6 @@
 
 """Import member hierarchies from CSV file."""
 
-import csv
 import logging
 import os
 from pybirdai.models.bird_meta_data_model import MEMBER_HIERARCHY, FRAMEWORK, FRAMEWORK_HIERARCHY
@@ -23,6 +22,7 @@ from .lookups import find_maintenance_agency_with_id, find_domain_with_id
 from .warning_writers import save_missing_domains_to_csv
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 logger = logging.getLogger(__name__)
 
@@ -37,9 +37,9 @@ def import_member_hierarchies(context):
     missing_domains = set()  # Using set for faster lookups
     hierarchies_to_create = []
 
-    with open(get_csv_file_path(context, "member_hierarchy.csv"), encoding='utf-8') as csvfile:
-        next(csvfile)  # Skip header more efficiently
-        for row in csv.reader(csvfile):
+    with open_csv_reader(get_csv_file_path(context, "member_hierarchy.csv")) as filereader:
+        next(filereader)  # Skip header
+        for row in filereader:
             maintenance_agency_id = row[ColumnIndexes().member_hierarchy_maintenance_agency]
             code = row[ColumnIndexes().member_hierarchy_code]
             id = row[ColumnIndexes().member_hierarchy_id]
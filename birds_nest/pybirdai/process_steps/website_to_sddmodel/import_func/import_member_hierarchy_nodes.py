@@ -14,7 +14,6 @@
 """Import member hierarchy nodes from CSV file."""
 
 import os
-import csv
 from collections import defaultdict
 from pybirdai.models.bird_meta_data_model import MEMBER, MEMBER_HIERARCHY_NODE
 from pybirdai.context.csv_column_index_context import ColumnIndexes
@@ -22,6 +21,7 @@ from .lookups import find_member_hierarchy_with_id
 from .warning_writers import save_missing_members_to_csv, save_missing_hierarchies_to_csv
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_member_hierarchy_nodes(context):
@@ -47,8 +47,7 @@ def import_member_hierarchy_nodes(context):
         # Also add to general cache for parent member lookup
         context.member_dictionary[m.member_id] = m
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         id_increment = 0
         for row in filereader:
             if not header_skipped:
@@ -14,13 +14,13 @@
 """Import member mapping items from CSV file."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import MEMBER_MAPPING_ITEM
 from pybirdai.context.csv_column_index_context import ColumnIndexes
 from .lookups import find_member_with_id, find_variable_with_id, find_member_mapping_with_id
 from .warning_writers import save_missing_mapping_variables_to_csv, save_missing_mapping_members_to_csv
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_member_mapping_items(context):
@@ -36,8 +36,7 @@ def import_member_mapping_items(context):
     missing_variables = []
     member_mapping_items_to_create = []
     id_increment = 0
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         for row in filereader:
             if not header_skipped:
                 header_skipped = True
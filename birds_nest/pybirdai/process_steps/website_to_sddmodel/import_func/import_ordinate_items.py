@@ -14,7 +14,6 @@
 """Import ordinate items from CSV file."""
 
 import os
-import csv
 import logging
 from pybirdai.models.bird_meta_data_model import ORDINATE_ITEM
 from pybirdai.context.csv_column_index_context import ColumnIndexes
@@ -27,6 +26,7 @@ from .lookups import (
     find_member_hierarchy_with_id
 )
 from .config import get_csv_file_path
+from .import_scheduler import open_csv_reader
 
 logger = logging.getLogger(__name__)
 
@@ -50,8 +50,7 @@ def import_ordinate_items(context, config=None):
     null_hierarchy_count = 0
     null_starting_member_count = 0
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         id_increment = 0
         for row in filereader:
             if not header_skipped:
@@ -13,7 +13,6 @@
 
 """Import parent members with children from CSV file."""
 
-import csv
 import os
 from pybirdai.models.bird_meta_data_model import MEMBER
 from pybirdai.context.csv_column_index_context import ColumnIndexes
@@ -23,6 +22,7 @@ from .warning_writers import save_missing_children_to_csv
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
 from pybirdai.process_steps.input_model.sql_developer_metadata import load_sql_developer_member_descriptions
+from .import_scheduler import open_csv_reader
 
 
 def _resolve_node_member_description(context, domain, member_id):
@@ -62,10 +62,10 @@ def import_parent_members_with_children(context):
     # Pre-fetch all hierarchies for faster lookup
     hierarchy_cache = {}
 
-    with open(get_csv_file_path(context, "member_hierarchy_node.csv"), encoding='utf-8') as csvfile:
+    with open_csv_reader(get_csv_file_path(context, "member_hierarchy_node.csv")) as filereader:
         header_skipped = False
         id_increment = 0
-        for row in csv.reader(csvfile):
+        for row in filereader:
             if not header_skipped:
                 header_skipped = True
                 if row[0].upper() == 'ID':  # sometimes exported data without a  primary key has an ID field added at the time of export, exported data is re-imported
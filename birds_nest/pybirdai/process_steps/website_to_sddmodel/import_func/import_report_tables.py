@@ -14,7 +14,6 @@
 """Import report tables from CSV file."""
 
 import os
-import csv
 import logging
 from pybirdai.models.bird_meta_data_model import TABLE, FRAMEWORK, FRAMEWORK_TABLE
 from pybirdai.context.csv_column_index_context import ColumnIndexes
@@ -22,6 +21,7 @@ from .utilities import replace_dots
 from .lookups import find_maintenance_agency_with_id
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 logger = logging.getLogger(__name__)
 
@@ -38,8 +38,7 @@ def import_report_tables(context, config=None):
     header_skipped = False
     tables_to_create = []
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         for row in filereader:
             if not header_skipped:
                 header_skipped = True
@@ -15,7 +15,8 @@
 """Orchestrator function for importing report templates from SDD."""
 
 import os
-from .config import DatasetConfig
+from .config import DatasetConfig, get_csv_file_path
+from .import_scheduler import ImportScheduler
 from .import_maintenance_agencies import import_maintenance_agencies
 from .import_frameworks import import_frameworks
 from .import_domains import import_domains
@@ -67,40 +68,84 @@ def import_report_templates_from_sdd(sdd_context, dataset_type="finrep", file_di
     # Build base_path
     base_path = os.path.join(sdd_context.file_directory, config.file_directory)
 
+    def csv_path(filename):
+        return get_csv_file_path(sdd_context, filename, config)
+
+    scheduler = ImportScheduler()
+
     # Import basic entities (always needed)
-    import_maintenance_agencies(sdd_context, config)
-    import_frameworks(sdd_context, config)
-    import_domains(sdd_context, False, config)
-    import_members(sdd_context, False, config)
-    import_variables(sdd_context, False, config)
+    scheduler.add("maintenance_agencies", lambda: import_maintenance_agencies(sdd_context, config),
+                  csv_files=[csv_path("maintenance_agency.csv")])
+    scheduler.add("frameworks", lambda: import_frameworks(sdd_context, config),
+                  depends_on=["maintenance_agencies"], csv_files=[csv_path("framework.csv")])
+    scheduler.add("domains", lambda: import_domains(sdd_context, False, config),
+                  depends_on=["maintenance_agencies"], csv_files=[csv_path("domain.csv")])
+    scheduler.add("members", lambda: import_members(sdd_context, False, config),
+                  depends_on=["domains"], csv_files=[csv_path("member.csv")])
+    scheduler.add("variables", lambda: import_variables(sdd_context, False, config),
+                  depends_on=["domains"], csv_files=[csv_path("variable.csv")])
 
     # Import ANCRDT-specific entities if applicable
     if config.includes_subdomains:
-        import_subdomains(base_path, sdd_context)
+        scheduler.add("subdomains", lambda: import_subdomains(base_path, sdd_context),
+                      depends_on=["domains"], csv_files=[os.path.join(base_path, "subdomain.csv")])
 
     if config.includes_cubes:
+        cube_structure_dependencies = ["maintenance_agencies"]
         if config.includes_subdomains:
             # subdomains must be imported before cube structures
-            import_subdomain_enumerations(base_path, sdd_context)
-        import_cube_structures(base_path, sdd_context)
-        import_cube_structure_items(base_path, sdd_context)
-        import_cubes(base_path, sdd_context)
-
+            scheduler.add("subdomain_enumerations", lambda: import_subdomain_enumerations(base_path, sdd_context),
+                          depends_on=["subdomains", "members"],
+                          csv_files=[os.path.join(base_path, "subdomain_enumeration.csv")])
+            cube_structure_dependencies.append("subdomain_enumerations")
+        scheduler.add("cube_structures", lambda: import_cube_structures(base_path, sdd_context),
+                      depends_on=cube_structure_dependencies,
+                      csv_files=[os.path.join(base_path, "cube_structure.csv")])
+        scheduler.add("cube_structure_items", lambda: import_cube_structure_items(base_path, sdd_context),
+                      depends_on=["cube_structures", "members", "variables"],
+                      csv_files=[os.path.join(base_path, "cube_structure_item.csv")])
+        scheduler.add("cubes", lambda: import_cubes(base_path, sdd_context),
+                      depends_on=["cube_structures", "frameworks"],
+                      csv_files=[os.path.join(base_path, "cube.csv")])
 
     if config.includes_rendering_package:
         # Import rendering entities (tables, axes, cells)
-        import_report_tables(sdd_context, config)
-        import_axis(sdd_context, config)
-        import_axis_ordinates(sdd_context, config)
+        scheduler.add("report_tables", lambda: import_report_tables(sdd_context, config),
+                      depends_on=["maintenance_agencies", "frameworks"], csv_files=[csv_path("table.csv")])
+        scheduler.add("axes", lambda: import_axis(sdd_context, config),
+                      depends_on=["report_tables"], csv_files=[csv_path("axis.csv")])
+        scheduler.add("axis_ordinates", lambda: import_axis_ordinates(sdd_context, config),
+                      depends_on=["axes"], csv_files=[csv_path("axis_ordinate.csv")])
 
         # Import table cells and related entities (conditional based on dataset type)
         if config.use_csv_copy:
-            # Use optimized CSV copy imports for large datasets
-            import_table_cells_csv_copy(sdd_context, config)
-            import_ordinate_items_csv_copy(sdd_context, config)
-            import_cell_positions_csv_copy(sdd_context, config)
+            # Use optimized CSV copy imports for large datasets; these load
+            # the files straight into the database, so nothing is parsed ahead
+            scheduler.add("table_cells", lambda: import_table_cells_csv_copy(sdd_context, config),
+                          depends_on=["report_tables"])
+            scheduler.add("ordinate_items", lambda: import_ordinate_items_csv_copy(sdd_context, config),
+                          depends_on=["axis_ordinates", "members", "variables"])
+            scheduler.add("cell_positions", lambda: import_cell_positions_csv_copy(sdd_context, config),
+                          depends_on=["table_cells", "axis_ordinates"])
         else:
             # Use standard imports
-            import_table_cells(sdd_context, config=config)
-            import_ordinate_items(sdd_context, config)
-            import_cell_positions(sdd_context, config=config)
+            scheduler.add("table_cells", lambda: import_table_cells(sdd_context, config=config),
+                          depends_on=["report_tables"], csv_files=[csv_path("table_cell.csv")])
+            scheduler.add("ordinate_items", lambda: import_ordinate_items(sdd_context, config),
+                          depends_on=["axis_ordinates", "members", "variables"],
+                          csv_files=[csv_path("ordinate_item.csv")])
+            scheduler.add("cell_positions", lambda: import_cell_positions(sdd_context, config=config),
+                          depends_on=["table_cells", "axis_ordinates"], csv_files=[csv_path("cell_position.csv")])
+
+    scheduler.run()
+
+    if config.includes_rendering_package:
+        # Templates rendered before the import are stale. The new ones are
+        # rendered on first view, or ahead of it when warming is enabled
+        from django.conf import settings
+        from pybirdai.services.table_render_cache import (
+            invalidate_table_render_cache, warm_table_render_cache
+        )
+        invalidate_table_render_cache()
+        if getattr(settings, 'PYBIRDAI_WARM_TABLE_RENDER_CACHE', False):
+            warm_table_render_cache()
@@ -0,0 +1,222 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+
+"""
+Dependency-ordered scheduler for the SDD CSV importers.
+
+Each import step is a node in a graph: a callable, the steps whose rows it
+looks up or references by foreign key, and the CSV files it reads. The
+scheduler parses those CSV files ahead of time in worker processes while
+earlier steps are still building objects and writing them. The steps
+themselves run one at a time on the calling thread, in the order they were
+added, because they share the SDDContext dictionaries and the database
+connection and the importers were written for that order.
+
+The workers are spawned rather than forked: the import may run inside a
+threaded server, and a forked child would inherit locks held by other
+threads and the open database connection.
+
+Importers read their files through open_csv_reader. It hands out the
+pre-parsed rows when the scheduler has them and reads the file otherwise, so
+every importer still works when called on its own.
+"""
+
+import csv
+import logging
+import multiprocessing
+import os
+import time
+from concurrent.futures import ProcessPoolExecutor
+from contextlib import contextmanager
+from contextvars import ContextVar
+
+from pybirdai.process_steps.website_to_sddmodel.constants import (
+    CSV_PARSE_MAX_PREFETCHED_FILES,
+    CSV_PARSE_WORKERS_DEFAULT,
+)
+from pybirdai.process_steps.website_to_sddmodel.csv_rows import read_csv_rows
+
+logger = logging.getLogger(__name__)
+
+# {absolute path: parsed rows, header included} for the running scheduler
+_prefetched_rows = ContextVar('pybirdai_sdd_prefetched_csv_rows', default=None)
+
+
+@contextmanager
+def open_csv_reader(file_location):
+    """
+    Iterate over the rows of an SDD CSV file, header included.
+
+    Args:
+        file_location: Path to the CSV file
+    """
+    prefetched = _prefetched_rows.get()
+    rows = prefetched.get(os.path.abspath(file_location)) if prefetched else None
+    if rows is not None:
+        yield iter(rows)
+        return
+    with open(file_location, encoding='utf-8') as csvfile:
+        yield csv.reader(csvfile, delimiter=',', quotechar='"')
+
+
+def _parse_executor(max_workers):
+    # read_csv_rows lives in a module without Django imports, so spawned
+    # workers start without setting Django up
+    return ProcessPoolExecutor(max_workers=max_workers, mp_context=multiprocessing.get_context('spawn'))
+
+
+class ImportNode:
+    """One import step of an ImportScheduler."""
+
+    __slots__ = ('name', 'run', 'depends_on', 'csv_files')
+
+    def __init__(self, name, run, depends_on=(), csv_files=()):
+        self.name = name
+        self.run = run
+        self.depends_on = tuple(depends_on)
+        self.csv_files = tuple(os.path.abspath(path) for path in csv_files)
+
+    def __repr__(self):
+        return f"ImportNode({self.name!r}, depends_on={self.depends_on!r})"
+
+
+class ImportScheduler:
+    """
+    Run SDD import steps in dependency order while their CSV files are parsed in parallel.
+
+    Example:
+        scheduler = ImportScheduler()
+        scheduler.add("domains", lambda: import_domains(context, False, config),
+                      depends_on=["maintenance_agencies"], csv_files=[domain_csv])
+        scheduler.run()
+    """
+
+    def __init__(self, max_workers=None, max_prefetched_files=None):
+        """
+        Args:
+            max_workers: Parser worker count. 0 disables parsing ahead of time.
+            max_prefetched_files: Parsed files held before their steps have run
+        """
+        self.max_workers = CSV_PARSE_WORKERS_DEFAULT if max_workers is None else max_workers
+        self.max_prefetched_files = max_prefetched_files or CSV_PARSE_MAX_PREFETCHED_FILES
+        self._nodes = {}
+
+    def add(self, name, run, depends_on=(), csv_files=()):
+        """
+        Add an import step.
+
+        Args:
+            name: Unique step name, used by depends_on of later steps
+            run: Callable without arguments doing the import
+            depends_on: Names of the steps that must be finished first
+            csv_files: CSV files the step reads through open_csv_reader
+        """
+        if name in self._nodes:
+            raise ValueError(f"Duplicate import step: {name}")
+        self._nodes[name] = ImportNode(name, run, depends_on, csv_files)
+        return self
+
+    def execution_order(self):
+        """
+        Return the steps in a dependency-respecting order.
+
+        Steps run in the order in which they were added; a step is only
+        moved after the steps it depends on.
+
+        Raises:
+            ValueError: For an unknown dependency or a dependency cycle
+        """
+        for node in self._nodes.values():
+            for dependency in node.depends_on:
+                if dependency not in self._nodes:
+                    raise ValueError(f"Import step {node.name} depends on unknown step {dependency}")
+
+        ordered = []
+        done = set()
+        remaining = list(self._nodes.values())
+        while remaining:
+            node = next((node for node in remaining
+                         if all(dependency in done for dependency in node.depends_on)), None)
+            if node is None:
+                raise ValueError(f"Dependency cycle between import steps: {[node.name for node in remaining]}")
+            ordered.append(node)
+            done.add(node.name)
+            remaining.remove(node)
+        return ordered
+
+    def run(self):
+        """Run every step. Returns {step name: seconds spent in the step}."""
+        order = self.execution_order()
+        readers = {}
+        for node in order:
+            for path in node.csv_files:
+                readers[path] = readers.get(path, 0) + 1
+        # Missing files are left to the importer, which reports them as before
+        files = [path for path in readers if os.path.exists(path)]
+
+        executor = None
+        if self.max_workers > 0 and files:
+            executor = _parse_executor(min(self.max_workers, len(files)))
+
+        self._futures = {}
+        self._unsubmitted = files
+        self._executor = executor
+        prefetched = {}
+        token = _prefetched_rows.set(prefetched)
+        timings = {}
+        try:
+            self._submit_parses()
+            for node in order:
+                self._install(node, prefetched)
+
+                started = time.perf_counter()
+                node.run()
+                timings[node.name] = time.perf_counter() - started
+
+                for path in node.csv_files:
+                    readers[path] -= 1
+                    if readers[path] == 0:
+                        prefetched.pop(path, None)
+                        self._futures.pop(path, None)
+                        if path in self._unsubmitted:
+                            self._unsubmitted.remove(path)
+                self._submit_parses()
+        finally:
+            _prefetched_rows.reset(token)
+            if executor is not None:
+                executor.shutdown(wait=False, cancel_futures=True)
+            self._futures = {}
+            self._executor = None
+
+        logger.info("SDD import steps finished: %s",
+                    ", ".join(f"{name} {seconds:.1f}s" for name, seconds in timings.items()))
+        return timings
+
+    def _submit_parses(self):
+        if self._executor is None:
+            return
+        while self._unsubmitted and len(self._futures) < self.max_prefetched_files:
+            path = self._unsubmitted.pop(0)
+            self._futures[path] = self._executor.submit(read_csv_rows, path)
+
+    def _install(self, node, prefetched):
+        for path in node.csv_files:
+            future = self._futures.get(path)
+            if future is None or path in prefetched:
+                continue
+            try:
+                prefetched[path] = future.result()
+            except Exception as e:
+                # The importer reads the file itself and reports any real problem
+                logger.warning("Parsing %s ahead of time failed: %s", path, e)
+                self._futures.pop(path, None)
@@ -14,6 +14,8 @@
 """Orchestrator function for importing semantic integrations from SDD."""
 
 from .utilities import delete_mapping_warnings_files
+from .config import get_csv_file_path
+from .import_scheduler import ImportScheduler
 from .import_variable_mappings import import_variable_mappings
 from .import_variable_mapping_items import import_variable_mapping_items
 from .import_member_mappings import import_member_mappings
@@ -33,9 +35,22 @@ def import_semantic_integrations_from_sdd(sdd_context):
         sdd_context: SDDContext containing file paths and dictionaries
     """
     delete_mapping_warnings_files(sdd_context)
-    import_variable_mappings(sdd_context)
-    import_variable_mapping_items(sdd_context)
-    import_member_mappings(sdd_context)
-    import_member_mapping_items(sdd_context)
-    import_mapping_definitions(sdd_context)
-    import_mapping_to_cubes(sdd_context)
+
+    def csv_path(filename):
+        return get_csv_file_path(sdd_context, filename)
+
+    scheduler = ImportScheduler()
+    scheduler.add("variable_mappings", lambda: import_variable_mappings(sdd_context),
+                  csv_files=[csv_path("variable_mapping.csv")])
+    scheduler.add("variable_mapping_items", lambda: import_variable_mapping_items(sdd_context),
+                  depends_on=["variable_mappings"], csv_files=[csv_path("variable_mapping_item.csv")])
+    scheduler.add("member_mappings", lambda: import_member_mappings(sdd_context),
+                  csv_files=[csv_path("member_mapping.csv")])
+    scheduler.add("member_mapping_items", lambda: import_member_mapping_items(sdd_context),
+                  depends_on=["member_mappings"], csv_files=[csv_path("member_mapping_item.csv")])
+    scheduler.add("mapping_definitions", lambda: import_mapping_definitions(sdd_context),
+                  depends_on=["variable_mappings", "member_mappings"],
+                  csv_files=[csv_path("mapping_definition.csv")])
+    scheduler.add("mapping_to_cubes", lambda: import_mapping_to_cubes(sdd_context),
+                  depends_on=["mapping_definitions"], csv_files=[csv_path("mapping_to_cube.csv")])
+    scheduler.run()
@@ -14,11 +14,11 @@
 """Import subdomain enumerations from ANCRDT CSV files."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import SUBDOMAIN, SUBDOMAIN_ENUMERATION
 from pybirdai.process_steps.ancrdt_transformation.csv_column_index_context_ancrdt import ColumnIndexes
 from .utils import find_member_with_id
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_subdomain_enumerations(base_path, sdd_context):
@@ -28,8 +28,8 @@ def import_subdomain_enumerations(base_path, sdd_context):
     file_location = base_path + os.sep + "subdomain_enumeration.csv"
     enumerations_to_create = []
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        rows = list(csv.reader(csvfile))[1:]  # Skip header
+    with open_csv_reader(file_location) as filereader:
+        rows = list(filereader)[1:]  # Skip header
 
         for row in rows:
             subdomain_id = row[ColumnIndexes().sdd_subdomain_enumeration_subdomain_id_id]
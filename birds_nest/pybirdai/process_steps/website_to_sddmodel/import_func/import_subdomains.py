@@ -14,12 +14,12 @@
 """Import subdomains from ANCRDT CSV files."""
 
 import os
-import csv
 import logging
 from pybirdai.models.bird_meta_data_model import SUBDOMAIN, FRAMEWORK, FRAMEWORK_SUBDOMAIN
 from pybirdai.process_steps.ancrdt_transformation.csv_column_index_context_ancrdt import ColumnIndexes
 from .utils import find_domain_with_id, find_maintenance_agency_with_id
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 logger = logging.getLogger(__name__)
 
@@ -31,8 +31,8 @@ def import_subdomains(base_path, sdd_context):
     file_location = base_path + os.sep + "subdomain.csv"
     subdomains_to_create = []
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        rows = list(csv.reader(csvfile))[1:]  # Skip header
+    with open_csv_reader(file_location) as filereader:
+        rows = list(filereader)[1:]  # Skip header
 
         for row in rows:
             subdomain_id = row[ColumnIndexes().sdd_subdomain_subdomain_id]
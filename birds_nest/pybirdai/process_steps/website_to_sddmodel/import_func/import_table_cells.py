@@ -14,7 +14,6 @@
 """Import table cells from CSV file."""
 
 import os
-import csv
 import logging
 from pybirdai.models.bird_meta_data_model import TABLE_CELL
 from pybirdai.context.csv_column_index_context import ColumnIndexes
@@ -22,6 +21,7 @@ from .utilities import replace_dots
 from .lookups import find_table_with_id
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 logger = logging.getLogger(__name__)
 
@@ -45,8 +45,7 @@ def import_table_cells(context, dpm=False, config=None):
     skipped_rows = 0
     null_table_count = 0
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         id_increment = 0
         for row in filereader:
             if not header_skipped:
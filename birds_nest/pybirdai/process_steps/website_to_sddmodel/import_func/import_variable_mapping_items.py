@@ -14,13 +14,13 @@
 """Import variable mapping items from CSV file."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import VARIABLE_MAPPING_ITEM
 from pybirdai.context.csv_column_index_context import ColumnIndexes
 from .lookups import find_variable_with_id, find_variable_mapping_with_id
 from .warning_writers import save_missing_mapping_variables_to_csv
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_variable_mapping_items(context):
@@ -37,8 +37,7 @@ def import_variable_mapping_items(context):
     # Cache variable lookups
     variable_cache = {}
 
-    with open(file_location, encoding='utf-8') as csvfile:
-        filereader = csv.reader(csvfile, delimiter=',', quotechar='"')
+    with open_csv_reader(file_location) as filereader:
         header_skipped = False
         id_increment = 0
         for row in filereader:
@@ -14,12 +14,12 @@
 """Import variable mappings from CSV file."""
 
 import os
-import csv
 from pybirdai.models.bird_meta_data_model import VARIABLE_MAPPING
 from pybirdai.context.csv_column_index_context import ColumnIndexes
 from .lookups import find_maintenance_agency_with_id
 from .config import get_csv_file_path
 from pybirdai.process_steps.website_to_sddmodel.constants import BULK_CREATE_BATCH_SIZE_DEFAULT
+from .import_scheduler import open_csv_reader
 
 
 def import_variable_mappings(context):
@@ -35,8 +35,8 @@ def import_variable_mappings(context):
     variable_mappings_to_create = []
 
     # Read entire CSV at once instead of line by line
-    with open(file_location, encoding='utf-8') as csvfile:
-        rows = list(csv.reader(csvfile))[1:]  # Skip header
+    with open_csv_reader(file_location) as filereader:
+        rows = list(filereader)[1:]  # Skip header
 
         # Process in a single pass
         for row in rows:
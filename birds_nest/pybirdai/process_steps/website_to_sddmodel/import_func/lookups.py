@@ -44,16 +44,10 @@ def find_member_with_id(element_id, context):
     Returns:
         MEMBER instance or None
     """
-    try:
-        return context.member_dictionary[element_id]
-    except:
-        try:
-            return context.member_dictionary[element_id]
-        except KeyError:
-            try:
-                return context.members_that_are_nodes[element_id]
-            except KeyError:
-                return None
+    member = context.member_dictionary.get(element_id)
+    if member is None:
+        member = context.members_that_are_nodes.get(element_id)
+    return member
 
 
 def find_member_hierarchy_with_id(element_id, context):
@@ -17,6 +17,10 @@ ImportWebsiteToSDDModel class - orchestrator for SDD import operations.
 This class serves as a thin wrapper around the import_func module,
 maintaining backward compatibility with existing code while delegating
 all actual import work to standalone functions in import_func/.
+
+Each orchestrator describes its import steps as a dependency graph and runs
+them through import_func.import_scheduler.ImportScheduler, which parses the
+CSV files in worker processes while earlier steps write to the database.
 """
 
 from pybirdai.process_steps.website_to_sddmodel.import_func import (
@@ -3,9 +3,11 @@
 
 from .cell_execution_service import CellExecutionService, CellExecutionResult
 from .table_rendering_service import TableRenderingService
+from .template_execution_service import TemplateExecutionService
 
 __all__ = [
     'CellExecutionService',
     'CellExecutionResult',
     'TableRenderingService',
+    'TemplateExecutionService',
 ]
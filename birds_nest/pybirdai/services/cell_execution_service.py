@@ -181,7 +181,10 @@ class CellExecutionService:
 
             try:
                 from pybirdai.entry_points.execute_datapoint import RunExecuteDataPoint
-                result = RunExecuteDataPoint.run_execute_data_point(datapoint_id)
+                from pybirdai.process_steps.pybird.reference_data_cache import process_reference_cache
+                # Reuse input layer rows loaded by earlier clicks
+                with process_reference_cache():
+                    result = RunExecuteDataPoint.run_execute_data_point(datapoint_id)
             except Exception:
                 logger.exception(f"Error executing datapoint {datapoint_id}")
                 duration_ms = int((time.time() - start_time) * 1000)
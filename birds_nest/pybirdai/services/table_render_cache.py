@@ -0,0 +1,218 @@
+"""
+Table Render Cache
+
+Keeps the output of TableRenderingService.render_table, together with its
+JSON serialisation, so template pages are not rebuilt from the rendering
+package on every request. Templates only change when metadata is imported
+or edited.
+
+Entries are keyed by table_id and stamped with the metadata version at the
+time they were rendered. The version moves on when:
+- a post_save or post_delete signal fires for one of the RENDERING_MODELS,
+- invalidate_table_render_cache() is called (e.g. after an import or a
+  bulk_update of one of those models), or
+- the row count or highest primary key of TABLE, AXIS_ORDINATE, TABLE_CELL or
+  CELL_POSITION changes. This catches bulk_create and raw SQL imports, which
+  send no signals, and is checked at most every STATE_CHECK_SECONDS.
+"""
+
+import logging
+import threading
+import time
+from collections import OrderedDict
+
+from django.db import connections
+from django.db.models import Count, Max
+from django.db.models.signals import post_delete, post_save
+
+from pybirdai.models import TABLE, AXIS, AXIS_ORDINATE, ORDINATE_ITEM, TABLE_CELL, CELL_POSITION
+from pybirdai.utils.secure_logging import sanitize_log_value
+
+logger = logging.getLogger(__name__)
+
+# Models a rendered template is built from
+RENDERING_MODELS = (TABLE, AXIS, AXIS_ORDINATE, ORDINATE_ITEM, TABLE_CELL, CELL_POSITION)
+# Models whose row count and highest key make up the version stamp
+STAMPED_MODELS = (TABLE, AXIS_ORDINATE, TABLE_CELL, CELL_POSITION)
+STATE_CHECK_SECONDS = 5.0
+DEFAULT_MAX_TABLES = 2000
+DEFAULT_MAX_BYTES = 512 * 1024 * 1024
+
+
+def _table_state(model):
+    totals = model.objects.order_by().aggregate(row_count=Count('pk'), max_pk=Max('pk'))
+    return totals['row_count'], totals['max_pk']
+
+
+class TableRenderCache:
+    """
+    Size-bounded, thread-safe map from table_id to render result and its JSON.
+    The size bound counts the JSON bytes.
+    """
+
+    def __init__(self, max_tables=DEFAULT_MAX_TABLES, max_bytes=DEFAULT_MAX_BYTES):
+        self.max_tables = max_tables
+        self.max_bytes = max_bytes
+        self._entries = OrderedDict()
+        self._bytes = 0
+        self._lock = threading.RLock()
+        self._generation = 0
+        self._state = None
+        self._state_checked_at = None
+        self._signals_connected = False
+        self.hits = 0
+        self.misses = 0
+
+    def metadata_version(self):
+        """
+        Version stamp of the rendering metadata: the invalidation count and
+        the row counts and highest keys of the STAMPED_MODELS.
+        """
+        self._connect_signals()
+        now = time.monotonic()
+        with self._lock:
+            if self._state_checked_at is not None and now - self._state_checked_at < STATE_CHECK_SECONDS:
+                return self._generation, self._state
+
+        state = tuple(_table_state(model) for model in STAMPED_MODELS)
+        with self._lock:
+            if state != self._state:
+                if self._state is not None:
+                    logger.info("Rendering metadata changed, discarding %s rendered tables", len(self._entries))
+                self._clear()
+                self._state = state
+            self._state_checked_at = now
+            return self._generation, self._state
+
+    def get(self, table_id, version):
+        """The (result, payload) stored for a table at this version, or None."""
+        with self._lock:
+            stored = self._entries.get(table_id)
+            if stored is None or stored[0] != version:
+                self.misses += 1
+                return None
+            self._entries.move_to_end(table_id)
+            self.hits += 1
+            return stored[1], stored[2]
+
+    def put(self, table_id, version, result, payload):
+        """
+        Args:
+            result: the render result; callers must not change it
+            payload: result serialised to JSON bytes
+        """
+        if len(payload) > self.max_bytes:
+            return
+        with self._lock:
+            if version != (self._generation, self._state):
+                # Metadata changed while this table was being rendered
+                return
+            self._discard(table_id)
+            self._entries[table_id] = (version, result, payload)
+            self._bytes += len(payload)
+            while self._entries and (len(self._entries) > self.max_tables or self._bytes > self.max_bytes):
+                self._discard(next(iter(self._entries)))
+
+    def invalidate(self):
+        """Discard every rendered table and move the version on."""
+        with self._lock:
+            self._generation += 1
+            self._state_checked_at = None
+            self._clear()
+
+    def _clear(self):
+        self._entries.clear()
+        self._bytes = 0
+
+    def _discard(self, table_id):
+        stored = self._entries.pop(table_id, None)
+        if stored is not None:
+            self._bytes -= len(stored[2])
+
+    def _connect_signals(self):
+        if self._signals_connected:
+            return
+        # Connected per model: a receiver without a sender would disable
+        # Django's fast delete path for every model in the project
+        for model in RENDERING_MODELS:
+            post_save.connect(self._on_model_changed, sender=model, weak=False,
+                              dispatch_uid=f'table_render_cache_save_{id(self)}_{model._meta.label}')
+            post_delete.connect(self._on_model_changed, sender=model, weak=False,
+                                dispatch_uid=f'table_render_cache_delete_{id(self)}_{model._meta.label}')
+        self._signals_connected = True
+
+    def _on_model_changed(self, sender, **kwargs):
+        self.invalidate()
+
+    def stats(self):
+        with self._lock:
+            return {
+                'tables': len(self._entries),
+                'bytes': self._bytes,
+                'hits': self.hits,
+                'misses': self.misses,
+            }
+
+
+_render_cache = TableRenderCache()
+
+
+def table_render_cache():
+    return _render_cache
+
+
+def invalidate_table_render_cache():
+    _render_cache.invalidate()
+
+
+def warm_table_render_cache(table_ids=None, background=True):
+    """
+    Render templates into the cache ahead of the first request.
+
+    Only worth it in a long-running web server: the renders compete with
+    whatever runs next for the database, and the cache lives in this process.
+    The rendering package import calls this only when the
+    PYBIRDAI_WARM_TABLE_RENDER_CACHE setting is on; otherwise each table is
+    rendered and cached on its first view.
+
+    Args:
+        table_ids: Tables to render; by default every table with axes
+        background: Render on a daemon thread and return immediately
+
+    Returns:
+        The thread when background is True, else the number of tables rendered
+    """
+    if background:
+        thread = threading.Thread(
+            target=_warm_in_background, args=(table_ids,),
+            name='table-render-cache-warmer', daemon=True,
+        )
+        thread.start()
+        return thread
+
+    from pybirdai.services.table_rendering_service import TableRenderingService
+
+    started = time.monotonic()
+    rendered = 0
+    if table_ids is None:
+        table_ids = list(
+            TABLE.objects.filter(axis__isnull=False).distinct().values_list('table_id', flat=True)
+        )
+    for table_id in table_ids:
+        try:
+            TableRenderingService.render_table_json(table_id)
+            rendered += 1
+        except Exception:
+            logger.exception("Could not pre-render table %s", sanitize_log_value(table_id))
+    logger.info("Pre-rendered %s tables in %.1fs", rendered, time.monotonic() - started)
+    return rendered
+
+
+def _warm_in_background(table_ids):
+    try:
+        warm_table_render_cache(table_ids, background=False)
+    except Exception:
+        logger.exception("Pre-rendering tables failed")
+    finally:
+        # The thread's own database connections
+        connections.close_all()
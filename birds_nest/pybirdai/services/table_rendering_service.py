@@ -7,9 +7,13 @@ Used by the Interactive Report Viewer to display regulatory templates.
 
 from typing import List, Dict, Any, Optional, Tuple
 from collections import defaultdict
+import copy
+import json
 import logging
 import re
 
+from django.core.serializers.json import DjangoJSONEncoder
+
 from pybirdai.models import TABLE, AXIS, AXIS_ORDINATE, TABLE_CELL, CELL_POSITION, ORDINATE_ITEM
 
 logger = logging.getLogger(__name__)
@@ -27,8 +31,39 @@ class TableRenderingService:
             table_id: The ID of the TABLE to render
 
         Returns:
-            Dictionary with table structure for frontend rendering
+            Dictionary with table structure for frontend rendering; a new
+            copy on every call, so callers may annotate it
+        """
+        return copy.deepcopy(TableRenderingService._render_table_cached(table_id)[0])
+
+    @staticmethod
+    def render_table_json(table_id: str) -> bytes:
+        """render_table() serialised to JSON."""
+        return TableRenderingService._render_table_cached(table_id)[1]
+
+    @staticmethod
+    def _render_table_cached(table_id: str) -> Tuple[Dict[str, Any], bytes]:
         """
+        (render result, JSON payload), served from the table render cache
+        while the rendering metadata is unchanged (see table_render_cache.py).
+        The result is shared with the cache and must not be changed.
+        """
+        from pybirdai.services.table_render_cache import table_render_cache
+
+        cache = table_render_cache()
+        version = cache.metadata_version()
+        cached = cache.get(table_id, version)
+        if cached is not None:
+            return cached
+
+        result = TableRenderingService._render_table_uncached(table_id)
+        payload = json.dumps(result, cls=DjangoJSONEncoder).encode('utf-8')
+        if result.get('success'):
+            cache.put(table_id, version, result, payload)
+        return result, payload
+
+    @staticmethod
+    def _render_table_uncached(table_id: str) -> Dict[str, Any]:
         try:
             table = TABLE.objects.get(table_id=table_id)
         except TABLE.DoesNotExist:
@@ -0,0 +1,149 @@
+"""
+Template Execution Service
+
+Executes every executable cell of a TABLE in one pass instead of one HTTP
+request per cell.
+
+Cells are grouped by the product tables their generated Cell_ class reads
+(its *_Table references). Each group runs inside one shared derived table
+cache, so a product table is built once for all of its cells. With the
+vectorised filter mode, the column of each variable is then read once per
+table (see filter_kernels.py) rather than once per cell. Tables of a group
+are released before the next group starts.
+
+Results are yielded one cell at a time so callers can stream them, e.g. as
+server-sent events.
+"""
+
+from dataclasses import dataclass, field
+from typing import Any, Dict, Iterator, List, Optional, Tuple
+import importlib
+import logging
+import time
+
+from pybirdai.models import TABLE_CELL
+from pybirdai.services.cell_execution_service import CellExecutionService
+from pybirdai.utils.secure_logging import sanitize_log_value
+
+logger = logging.getLogger(__name__)
+
+REPORT_CELLS_MODULE = 'pybirdai.process_steps.filter_code.report_cells'
+
+
+@dataclass
+class CellGroup:
+    """Executable cells that read the same product tables."""
+    product_tables: Tuple[str, ...]
+    cells: List[TABLE_CELL] = field(default_factory=list)
+
+    def to_dict(self) -> Dict[str, Any]:
+        return {
+            'product_tables': list(self.product_tables),
+            'cell_count': len(self.cells),
+        }
+
+
+class TemplateExecutionService:
+    """Service for executing all cells of a template."""
+
+    @staticmethod
+    def executable_cells(table_id: str, cell_ids: Optional[List[str]] = None) -> List[TABLE_CELL]:
+        """Executable cells of a table, optionally limited to cell_ids (in that order)."""
+        cells_query = TABLE_CELL.objects.filter(table_id=table_id).select_related('table_id')
+        if cell_ids:
+            cell_ids = [str(cell_id) for cell_id in cell_ids]
+            cells_by_id = {cell.cell_id: cell for cell in cells_query.filter(cell_id__in=cell_ids)}
+            cells = [cells_by_id[cell_id] for cell_id in cell_ids if cell_id in cells_by_id]
+        else:
+            cells = list(cells_query)
+        return [cell for cell in cells if CellExecutionService.is_cell_executable(cell)]
+
+    @staticmethod
+    def plan(cells: List[TABLE_CELL]) -> List[CellGroup]:
+        """
+        Group cells by the *_Table references of their Cell_ class.
+
+        Cells whose class cannot be found form a group without product tables;
+        executing them reports the usual per-cell error.
+        """
+        from pybirdai.process_steps.pybird.orchestration import _class_descriptor
+
+        try:
+            report_cells = importlib.import_module(REPORT_CELLS_MODULE)
+        except ImportError:
+            logger.warning("Generated report cells not found; executing cells ungrouped")
+            report_cells = None
+
+        groups = {}
+        for cell in cells:
+            product_tables = ()
+            datapoint_id = CellExecutionService._build_datapoint_id(cell)
+            cell_class = getattr(report_cells, f'Cell_{datapoint_id}', None) if report_cells and datapoint_id else None
+            if cell_class is not None:
+                references, _ = _class_descriptor(cell_class)
+                product_tables = tuple(sorted(reference.name for reference in references))
+            group = groups.get(product_tables)
+            if group is None:
+                group = groups[product_tables] = CellGroup(product_tables)
+            group.cells.append(cell)
+        return sorted(groups.values(), key=lambda group: group.product_tables)
+
+    @staticmethod
+    def execute(table_id: str, cell_ids: Optional[List[str]] = None,
+                include_lineage: bool = False) -> Iterator[Dict[str, Any]]:
+        """
+        Execute the executable cells of a table, grouped by product table.
+
+        Without include_lineage the cells run value-only, which lets the
+        cells of a group share their product tables; a lineage run has to
+        build the tables for every cell's own Trail.
+
+        Yields dictionaries with an 'event' key:
+            plan      {total, groups}
+            group     {index, product_tables, cell_count}
+            result    {completed, total, result: CellExecutionResult}
+            complete  {completed, total, errors, duration_ms}
+        """
+        from contextlib import nullcontext
+        from pybirdai.context.context import lineage_tracking_override
+        from pybirdai.process_steps.pybird.execute_datapoint import lineage_file_cleanup_scope
+        from pybirdai.process_steps.pybird.orchestration import shared_derived_table_cache, shared_reference_cache
+
+        start_time = time.time()
+        cells = TemplateExecutionService.executable_cells(table_id, cell_ids)
+        groups = TemplateExecutionService.plan(cells)
+        total = len(cells)
+        completed = 0
+        errors = 0
+        logger.info(
+            "Executing %s cells of %s in %s product table groups",
+            total, sanitize_log_value(table_id), len(groups),
+        )
+        yield {'event': 'plan', 'total': total, 'groups': [group.to_dict() for group in groups]}
+
+        lineage_context = nullcontext() if include_lineage else lineage_tracking_override(False)
+        with lineage_context, lineage_file_cleanup_scope(), shared_reference_cache():
+            for index, group in enumerate(groups):
+                yield {'event': 'group', 'index': index, **group.to_dict()}
+                # A fresh derived table cache per group: its tables are built
+                # by the first cell and dropped once the group is done
+                with shared_derived_table_cache():
+                    for cell in group.cells:
+                        result = CellExecutionService.execute_loaded_cell(cell)
+                        completed += 1
+                        if not result.success:
+                            errors += 1
+                        yield {
+                            'event': 'result',
+                            'completed': completed,
+                            'total': total,
+                            'result': result,
+                        }
+
+        yield {
+            'event': 'complete',
+            'completed': completed,
+            'total': total,
+            'errors': errors,
+            'duration_ms': int((time.time() - start_time) * 1000),
+        }
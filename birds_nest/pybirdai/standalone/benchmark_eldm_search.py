@@ -0,0 +1,104 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Benchmark finding the related entities of every ELDM entity, as
+JoinsMetaDataCreator.create_ldm_entity_to_linked_entities_map does, with the
+recursive ELDMSearch search and with ELDMReachabilityIndex.
+
+Needs the generated ELDM models (pybirdai/models/bird_data_model.py), so run
+it after the database setup step. The index has to return the same related
+entities as the recursive search, so the benchmark fails if any entity's
+related entities differ.
+
+Usage (from birds_nest/):
+    python pybirdai/standalone/benchmark_eldm_search.py --repeat 3
+    python pybirdai/standalone/benchmark_eldm_search.py --show-differences
+"""
+import argparse
+import contextlib
+import io
+import os
+import sys
+import time
+
+import django
+
+
+def _setup_django():
+    project_root = os.path.abspath(os.path.join(os.path.dirname(__file__), '../..'))
+    sys.path.insert(0, project_root)
+    os.environ.setdefault('DJANGO_SETTINGS_MODULE', 'birds_nest.settings')
+    django.setup()
+
+
+def _best_of(repeat, run):
+    timings = []
+    result = None
+    for _ in range(repeat):
+        start_time = time.perf_counter()
+        result = run()
+        timings.append(time.perf_counter() - start_time)
+    return min(timings), result
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument('--repeat', type=int, default=3)
+    parser.add_argument('--show-differences', action='store_true',
+                        help='List the related entities that differ, per entity')
+    args = parser.parse_args()
+
+    _setup_django()
+    from django.apps import apps
+    from pybirdai.process_steps.joins_meta_data.ldm_search import ELDMReachabilityIndex, ELDMSearch
+
+    models = [model for model in apps.get_models() if model._meta.app_label == 'pybirdai']
+
+    def search():
+        memoization = {}
+        # _get_parents_from_disjoint_subtyping prints a line per call
+        with contextlib.redirect_stdout(io.StringIO()):
+            return {model: set(ELDMSearch.search_related_entities(None, None, model, memoization)) for model in models}
+
+    def index():
+        reachability = ELDMReachabilityIndex.from_models(models)
+        return {model: set(reachability.related_entities(model)) for model in models}
+
+    search_seconds, searched = _best_of(args.repeat, search)
+    index_seconds, indexed = _best_of(args.repeat, index)
+    reachability = ELDMReachabilityIndex.from_models(models)
+    for model in models:
+        reachability.related_entities(model)
+    lookup_seconds, _ = _best_of(args.repeat, lambda: [reachability.related_entities(model) for model in models])
+
+    print(f"{len(models)} entities, best of {args.repeat} runs")
+    print(f"{'method':<24}{'ms':>12}{'vs search':>12}")
+    for name, seconds in (('recursive search', search_seconds),
+                          ('index build + closure', index_seconds),
+                          ('index lookups', lookup_seconds)):
+        print(f"{name:<24}{seconds * 1000:>12.1f}{search_seconds / max(seconds, 1e-9):>11.1f}x")
+
+    differences = [model for model in models if indexed[model] != searched[model]]
+    print(f"{len(models) - len(differences)} of {len(models)} entities with the same related entities")
+    if args.show_differences:
+        for model in sorted(differences, key=lambda model: model.__name__):
+            print(f"  {model.__name__}: "
+                  f"index only {', '.join(sorted(entity.__name__ for entity in indexed[model] - searched[model]))}; "
+                  f"search only {', '.join(sorted(entity.__name__ for entity in searched[model] - indexed[model]))}")
+    if differences:
+        raise SystemExit(f"The index and the recursive search differ for: "
+                         f"{', '.join(model.__name__ for model in differences)}")
+
+
+if __name__ == '__main__':
+    main()
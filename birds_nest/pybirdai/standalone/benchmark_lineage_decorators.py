@@ -0,0 +1,137 @@
+# coding=UTF-8
+# Copyright (c) 2025 Bird Software Solutions Ltd
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Neil Mackenzie - initial API and implementation
+#
+"""
+Benchmark the cost of the @lineage / @lineage_polymorphic decorators when no
+lineage is being recorded.
+
+The decorator mode is fixed when pybirdai.annotations.decorators is imported,
+so every mode runs in its own interpreter:
+
+    runtime  - decorators installed, lineage disabled at runtime (default)
+    off      - PYBIRDAI_LINEAGE_MODE=off, decorators resolved to plain methods
+    plain    - the same classes without any decorator, as a lower bound
+
+Usage (from birds_nest/):
+    python pybirdai/standalone/benchmark_lineage_decorators.py --rows 200000 --repeat 5
+"""
+import argparse
+import os
+import subprocess
+import sys
+import time
+
+MODES = ('runtime', 'off', 'plain')
+
+
+def _build_classes(mode):
+    """Mirror the shape of generated join classes: a base row and a UnionItem wrapper."""
+    if mode == 'plain':
+        def lineage(dependencies=None):
+            return lambda func: func
+
+        def lineage_polymorphic(base_dependencies=None, concrete_dependencies=None):
+            return lambda func: func
+    else:
+        from pybirdai.annotations.decorators import lineage, lineage_polymorphic
+
+    class Other_loans:
+        def __init__(self, index):
+            self._carrying_amount = index % 1000
+            self._instrument_type = '970' if index % 3 else '1004'
+
+        @lineage(dependencies={"INSTRMNT.GRSS_CRRYNG_AMNT"})
+        def GRSS_CRRYNG_AMNT(self):
+            return self._carrying_amount
+
+        @lineage(dependencies={"INSTRMNT.TYP_INSTRMNT"})
+        def TYP_INSTRMNT(self):
+            return self._instrument_type
+
+    class F_05_01_REF_FINREP_3_0_UnionItem:
+        def __init__(self, base):
+            self.base = base
+
+        @lineage_polymorphic(base_dependencies={"base.GRSS_CRRYNG_AMNT"})
+        def GRSS_CRRYNG_AMNT(self):
+            return self.base.GRSS_CRRYNG_AMNT()
+
+        @lineage_polymorphic(base_dependencies={"base.TYP_INSTRMNT"})
+        def TYP_INSTRMNT(self):
+            return self.base.TYP_INSTRMNT()
+
+    return Other_loans, F_05_01_REF_FINREP_3_0_UnionItem
+
+
+def _run_mode(mode, rows, repeat):
+    row_class, union_class = _build_classes(mode)
+    items = [union_class(row_class(index)) for index in range(rows)]
+
+    timings = []
+    total = 0
+    for _ in range(repeat):
+        start_time = time.perf_counter()
+        total = 0
+        for item in items:
+            if item.TYP_INSTRMNT() in ('970',):
+                total += item.GRSS_CRRYNG_AMNT()
+        timings.append(time.perf_counter() - start_time)
+
+    best = min(timings)
+    # Each selected row costs 4 decorated calls, every other row 2
+    calls = rows * 2 + sum(1 for item in items if item.base._instrument_type == '970') * 2
+    print(f"{mode}\t{best * 1000:.1f}\t{calls / best:,.0f}\t{total}")
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument('--rows', type=int, default=200000)
+    parser.add_argument('--repeat', type=int, default=5)
+    parser.add_argument('--mode', choices=MODES, help=argparse.SUPPRESS)
+    args = parser.parse_args()
+
+    if args.mode:
+        _run_mode(args.mode, args.rows, args.repeat)
+        return
+
+    project_root = os.path.abspath(os.path.join(os.path.dirname(__file__), '../..'))
+    results = {}
+    for mode in MODES:
+        env = dict(os.environ)
+        env['PYTHONPATH'] = project_root + os.pathsep + env.get('PYTHONPATH', '')
+        env.pop('PYBIRDAI_DEBUG_LINEAGE', None)
+        if mode == 'off':
+            env['PYBIRDAI_LINEAGE_MODE'] = 'off'
+        else:
+            env.pop('PYBIRDAI_LINEAGE_MODE', None)
+        completed = subprocess.run(
+            [sys.executable, os.path.abspath(__file__), '--mode', mode,
+             '--rows', str(args.rows), '--repeat', str(args.repeat)],
+            env=env, check=True, capture_output=True, text=True,
+        )
+        name, best_ms, calls_per_second, checksum = completed.stdout.strip().splitlines()[-1].split('\t')
+        results[name] = (float(best_ms), calls_per_second, checksum)
+
+    checksums = {checksum for _, _, checksum in results.values()}
+    if len(checksums) != 1:
+        raise SystemExit(f"Modes computed different totals: {results}")
+
+    print(f"{args.rows} rows, best of {args.repeat} runs")
+    print(f"{'mode':<10}{'ms':>10}{'calls/s':>16}{'vs runtime':>12}")
+    runtime_ms = results['runtime'][0]
+    for mode in MODES:
+        best_ms, calls_per_second, _ = results[mode]
+        print(f"{mode:<10}{best_ms:>10.1f}{calls_per_second:>16}{runtime_ms / best_ms:>11.2f}x")
+
+
+if __name__ == '__main__':
+    main()
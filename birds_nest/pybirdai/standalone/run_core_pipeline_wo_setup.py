@@ -134,7 +134,8 @@ def run_step_2(sdd_context, context):
         JoinsMetaDataCreator().generate_joins_meta_data(
             context,
             sdd_context,
-            "FINREP_REF"
+            "FINREP_REF",
+            max_workers=os.cpu_count() or 1
         )
 
         pr.dump_stats("CoreStep2.prof")
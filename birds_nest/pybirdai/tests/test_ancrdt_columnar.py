@@ -0,0 +1,86 @@
+from django.test import SimpleTestCase
+
+from pybirdai.process_steps.ancrdt_transformation import ancrdt_columnar
+from pybirdai.process_steps.ancrdt_transformation.execute_ancrdt_table import ExecuteANCRDTTable
+
+
+class InstrumentRow:
+    def __init__(self, index):
+        self.index = index
+
+    def INSTRMNT_TYP_PRDCT(self):
+        return ['51', '80', '1004'][self.index % 3]
+
+    def PRPS(self):
+        if self.index % 7 == 0:
+            raise ValueError("no purpose")
+        return str(self.index % 2 + 7)
+
+    def CMMTMNT_INCPTN(self):
+        if self.index % 5 == 0:
+            return None
+        return self.index * 1.5
+
+
+class LegacyRow:
+    """A row type without the PRPS dimension."""
+
+    def __init__(self, index):
+        self.index = index
+
+    INSTRMNT_TYP_PRDCT = InstrumentRow.INSTRMNT_TYP_PRDCT
+    CMMTMNT_INCPTN = InstrumentRow.CMMTMNT_INCPTN
+
+
+def make_rows(count):
+    return [InstrumentRow(index) if index % 11 else LegacyRow(index) for index in range(count)]
+
+
+class ANCRDTColumnarTests(SimpleTestCase):
+    def test_filters_match_the_row_by_row_implementation(self):
+        rows = make_rows(300)
+        filters = {'PRPS': ['7'], 'INSTRMNT_TYP_PRDCT': ['51', '1004']}
+
+        frame = ancrdt_columnar.materialise(rows, filters)
+        columnar = [row for row, keep in zip(rows, ancrdt_columnar.filter_mask(frame, filters)) if keep]
+
+        self.assertEqual(columnar, ExecuteANCRDTTable._filter_rows_per_row(rows, filters))
+
+    def test_aggregates_match_the_row_by_row_implementation(self):
+        rows = make_rows(300)
+        for aggregate_func, aggregate_column in (('count', None), ('sum', 'CMMTMNT_INCPTN'),
+                                                 ('mean', 'CMMTMNT_INCPTN')):
+            frame = ancrdt_columnar.materialise(rows, ['INSTRMNT_TYP_PRDCT'], aggregate_column)
+            columnar = ancrdt_columnar.aggregate(frame, ['INSTRMNT_TYP_PRDCT'], aggregate_func)
+            expected = ExecuteANCRDTTable._aggregate_rows_per_row(
+                rows, ['INSTRMNT_TYP_PRDCT'], aggregate_func, aggregate_column)
+
+            self.assertEqual(len(columnar), len(expected))
+            for actual, wanted in zip(columnar, expected):
+                self.assertEqual(actual['INSTRMNT_TYP_PRDCT'], wanted['INSTRMNT_TYP_PRDCT'])
+                self.assertAlmostEqual(actual[aggregate_func], wanted[aggregate_func])
+
+    def test_filter_and_aggregate_uses_the_filtered_rows(self):
+        rows = make_rows(2000)
+        filters = {'INSTRMNT_TYP_PRDCT': ['80']}
+
+        filtered, aggregated = ExecuteANCRDTTable.filter_and_aggregate(
+            rows, filters, 'INSTRMNT_TYP_PRDCT', 'count')
+
+        self.assertEqual(filtered, ExecuteANCRDTTable._filter_rows_per_row(rows, filters))
+        self.assertEqual(aggregated, [{'INSTRMNT_TYP_PRDCT': '80', 'count': len(filtered)}])
+
+    def test_streaming_aggregate_matches_a_single_aggregate(self):
+        rows = make_rows(1000)
+        for aggregate_func, aggregate_column in (('count', None), ('mean', 'CMMTMNT_INCPTN')):
+            streaming = ancrdt_columnar.StreamingAggregate(['INSTRMNT_TYP_PRDCT'], aggregate_func)
+            for chunk in ExecuteANCRDTTable._chunks(rows, 128):
+                streaming.add(ancrdt_columnar.materialise(chunk, ['INSTRMNT_TYP_PRDCT'], aggregate_column))
+            frame = ancrdt_columnar.materialise(rows, ['INSTRMNT_TYP_PRDCT'], aggregate_column)
+            expected = ancrdt_columnar.aggregate(frame, ['INSTRMNT_TYP_PRDCT'], aggregate_func)
+
+            actual = streaming.results()
+            self.assertEqual(len(actual), len(expected))
+            for streamed_row, wanted in zip(actual, expected):
+                self.assertEqual(streamed_row['INSTRMNT_TYP_PRDCT'], wanted['INSTRMNT_TYP_PRDCT'])
+                self.assertAlmostEqual(streamed_row[aggregate_func], wanted[aggregate_func])
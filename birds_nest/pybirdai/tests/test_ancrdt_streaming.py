@@ -0,0 +1,215 @@
+import ast
+import inspect
+import logging
+import os
+import tempfile
+import types
+from unittest.mock import patch
+
+from django.test import SimpleTestCase
+
+from pybirdai.process_steps.ancrdt_transformation.ancrdt_transformation_func import (
+    create_join_table_class, create_output_table_class, create_union_table_class,
+)
+from pybirdai.process_steps.ancrdt_transformation.execute_ancrdt_table import ExecuteANCRDTTable
+from pybirdai.process_steps.pybird.orchestration import _TableReference
+
+ROLC_ID = 'ANCRDT_TEST_C_1'
+JOIN_IDS = ('Loans', 'Credit cards')
+MAIN_CUBES = ('INSTRMNT', 'CRDT_CRD')
+
+
+class Instrument:
+    def __init__(self, index):
+        self.index = index
+        self.pk = index
+
+
+class InputRows:
+    """The part of a queryset ExecuteANCRDTTable reads input pages through."""
+
+    def __init__(self, rows, page_sizes):
+        self.rows = rows
+        self.page_sizes = page_sizes
+
+    def all(self):
+        return self
+
+    def none(self):
+        return InputRows([], self.page_sizes)
+
+    def order_by(self, field):
+        return InputRows(sorted(self.rows, key=lambda row: row.pk), self.page_sizes)
+
+    def filter(self, pk__gt):
+        return InputRows([row for row in self.rows if row.pk > pk__gt], self.page_sizes)
+
+    def __getitem__(self, page):
+        self.page_sizes.append(len(self.rows[page]))
+        return self.rows[page]
+
+
+class InputModel:
+    _meta = types.SimpleNamespace(fields=[])
+
+    def __init__(self, indexes):
+        self.page_sizes = []
+        self.objects = InputRows([Instrument(index) for index in indexes], self.page_sizes)
+
+
+class JoinItem:
+    INSTRMNT = None
+    CRDT_CRD = None
+
+    @property
+    def index(self):
+        return (self.INSTRMNT or self.CRDT_CRD).index
+
+
+class Join:
+    """A join table the generated union reads from, as Orchestration().init() wires it."""
+
+    def __init__(self, join_id, instruments):
+        setattr(self, f"{join_id.replace(' ', '_')}s", instruments)
+
+
+class UnionItem:
+    base = None
+
+
+class OutputItem:
+    unionOfLayers = None
+
+    def INSTRMNT_TYP_PRDCT(self):
+        return ['51', '80'][self.unionOfLayers.base.index % 2]
+
+    def CMMTMNT_INCPTN(self):
+        return self.unionOfLayers.base.index * 10.0
+
+
+def generated_module(paged_joins=False):
+    """
+    The union and output table classes the ANCRDT generator writes for two
+    joins, and with paged_joins the join table classes, each looping over
+    its own main cube.
+    """
+    cube_links = {
+        f'{ROLC_ID}:{join_id}': [types.SimpleNamespace(
+            foreign_cube_id=types.SimpleNamespace(cube_id=ROLC_ID), join_identifier=join_id)]
+        for join_id in JOIN_IDS
+    }
+    classes = [
+        create_union_table_class(ROLC_ID, cube_links, logging.getLogger(__name__)),
+        create_output_table_class(ROLC_ID),
+    ]
+    if paged_joins:
+        classes += [
+            create_join_table_class(ROLC_ID, join_id, [types.SimpleNamespace(cube_link_id=types.SimpleNamespace(
+                primary_cube_id=types.SimpleNamespace(cube_id=cube_id)))], logging.getLogger(__name__))
+            for join_id, cube_id in zip(JOIN_IDS, MAIN_CUBES)
+        ]
+    tree = ast.Module(body=classes, type_ignores=[])
+    namespace = {
+        **{join_id.replace(' ', '_'): type(join_id.replace(' ', '_'), (JoinItem,), {}) for join_id in JOIN_IDS},
+        f'{ROLC_ID}_UnionItem': type(f'{ROLC_ID}_UnionItem', (UnionItem,), {}),
+        ROLC_ID: type(ROLC_ID, (OutputItem,), {}),
+        'track_table_init': lambda method: method,
+    }
+    exec(compile(ast.fix_missing_locations(tree), '<generated>', 'exec'), namespace)
+    module = types.SimpleNamespace(**namespace)
+    union_class = getattr(module, f'{ROLC_ID}_UnionTable')
+    if paged_joins:
+        return module
+    # Two instruments per join
+    for offset, join_id in enumerate(JOIN_IDS):
+        instruments = [Instrument(offset * 2), Instrument(offset * 2 + 1)]
+        setattr(union_class, f"{ROLC_ID}_{join_id.replace(' ', '_')}_Table", Join(join_id, instruments))
+    return module
+
+
+class GeneratedIterMethodTests(SimpleTestCase):
+    def test_the_iter_methods_yield_what_the_calc_methods_return(self):
+        module = generated_module()
+        union = getattr(module, f'{ROLC_ID}_UnionTable')()
+        table = getattr(module, f'{ROLC_ID}_Table')()
+        setattr(table, f'{ROLC_ID}_UnionTable', union)
+
+        union_items = getattr(union, f'iter_{ROLC_ID}_UnionItems')()
+        rows = getattr(table, f'iter_{ROLC_ID}s')()
+
+        self.assertTrue(inspect.isgenerator(union_items))
+        self.assertTrue(inspect.isgenerator(rows))
+        self.assertEqual([item.base.index for item in union_items], [0, 1, 2, 3])
+        self.assertEqual([item.base.index for item in getattr(union, f'calc_{ROLC_ID}_UnionItems')()],
+                         [0, 1, 2, 3])
+        self.assertEqual([row.unionOfLayers.base.index for row in rows], [0, 1, 2, 3])
+        setattr(union, f'{ROLC_ID}_UnionItems', getattr(union, f'calc_{ROLC_ID}_UnionItems')())
+        self.assertEqual([row.unionOfLayers.base.index for row in getattr(table, f'calc_{ROLC_ID}s')()],
+                         [0, 1, 2, 3])
+
+
+class StreamTableTests(SimpleTestCase):
+    def setUp(self):
+        directory = tempfile.TemporaryDirectory()
+        self.addCleanup(directory.cleanup)
+        self.directory = directory.name
+        self.csv_path = os.path.join(self.directory, f'{ROLC_ID}.csv')
+        # The join tables are wired by generated_module() instead
+        patcher = patch('pybirdai.process_steps.pybird.orchestration.Orchestration')
+        patcher.start()
+        self.addCleanup(patcher.stop)
+
+    def stream(self, paged_joins=False, chunk_size=3, **kwargs):
+        module = generated_module(paged_joins)
+        table = getattr(module, f'{ROLC_ID}_Table')()
+        return ExecuteANCRDTTable.stream_table(
+            module, table, ROLC_ID, self.csv_path, chunk_size=chunk_size, **kwargs)
+
+    def test_rows_are_written_filtered_and_aggregated_in_chunks(self):
+        result = self.stream(filters={'INSTRMNT_TYP_PRDCT': ['51']}, aggregate_by='INSTRMNT_TYP_PRDCT',
+                             aggregate_func='sum', aggregate_column='CMMTMNT_INCPTN')
+
+        self.assertEqual((result['row_count_total'], result['row_count_filtered'], result['chunk_count']),
+                         (4, 2, 2))
+        self.assertEqual(len(result['aggregated']), 1)
+        self.assertEqual(result['aggregated'][0]['INSTRMNT_TYP_PRDCT'], '51')
+        self.assertEqual(result['aggregated'][0]['sum'], 20.0)
+        with open(self.csv_path, encoding='utf-8') as csv_file:
+            self.assertEqual(csv_file.read().splitlines(), [
+                'CMMTMNT_INCPTN,INSTRMNT_TYP_PRDCT', '0.0,51', '10.0,80', '20.0,51', '30.0,80'])
+
+    def test_the_joins_read_their_main_cube_one_page_at_a_time(self):
+        models = {'INSTRMNT': InputModel([1, 0]), 'CRDT_CRD': InputModel([2, 3])}
+
+        with patch.object(_TableReference, 'model', property(lambda reference: models.get(reference.table_name))):
+            result = self.stream(paged_joins=True, chunk_size=1, aggregate_by='INSTRMNT_TYP_PRDCT',
+                                 aggregate_func='count')
+
+        self.assertEqual((result['row_count_total'], result['chunk_count']), (4, 4))
+        self.assertEqual({row['INSTRMNT_TYP_PRDCT']: row['count'] for row in result['aggregated']},
+                         {'51': 2, '80': 2})
+        # One row per page, then the empty page that ends each cube
+        self.assertEqual(models['INSTRMNT'].page_sizes, [1, 1, 0])
+        self.assertEqual(models['CRDT_CRD'].page_sizes, [1, 1, 0])
+        with open(self.csv_path, encoding='utf-8') as csv_file:
+            self.assertEqual(csv_file.read().splitlines(), [
+                'CMMTMNT_INCPTN,INSTRMNT_TYP_PRDCT', '0.0,51', '10.0,80', '20.0,51', '30.0,80'])
+
+    def test_without_aggregation_only_the_preview_is_kept(self):
+        result = self.stream(preview_rows=1)
+
+        self.assertEqual(result['row_count_filtered'], 4)
+        self.assertEqual([row.unionOfLayers.base.index for row in result['preview']], [0])
+        self.assertIsNone(result['aggregated'])
+
+    def test_a_failure_leaves_neither_a_partial_file_nor_its_temporary_file(self):
+        with open(self.csv_path, 'w', encoding='utf-8') as csv_file:
+            csv_file.write('previous run\n')
+
+        with patch.object(ExecuteANCRDTTable, '_filter_rows_per_row', side_effect=RuntimeError('failed')):
+            with self.assertRaises(RuntimeError):
+                self.stream(filters={'INSTRMNT_TYP_PRDCT': '5'})
+
+        self.assertEqual(os.listdir(self.directory), [f'{ROLC_ID}.csv'])
+        with open(self.csv_path, encoding='utf-8') as csv_file:
+            self.assertEqual(csv_file.read(), 'previous run\n')
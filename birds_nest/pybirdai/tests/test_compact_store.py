@@ -0,0 +1,181 @@
+from unittest.mock import patch
+
+from django.test import SimpleTestCase
+
+from pybirdai.context.compact_store import (
+    CompactListStore, CompactModelStore, ValuePool, enable_compact_metadata_stores, memory_report,
+    reset_metadata_dictionary,
+)
+from pybirdai.models.bird_meta_data_model import COMBINATION, COMBINATION_ITEM, DOMAIN, MEMBER, VARIABLE
+
+
+class CompactModelStoreTests(SimpleTestCase):
+    def test_rebuilt_members_keep_their_fields_and_in_memory_domain(self):
+        domain = DOMAIN(domain_id="EBA_CU")
+        domains = {"EBA_CU": domain}
+        store = CompactModelStore(MEMBER, ValuePool(), related={"domain_id": domains.get})
+
+        store["EBA_EUR"] = MEMBER(member_id="EBA_EUR", code="EUR", name="Euro", domain_id=domain)
+        store["EBA_x0"] = MEMBER(member_id="EBA_x0", code=None, name="Euro")
+
+        member = store["EBA_EUR"]
+        self.assertEqual((member.member_id, member.code, member.name), ("EBA_EUR", "EUR", "Euro"))
+        self.assertIs(member.domain_id, domain)
+        self.assertIsNone(store["EBA_x0"].domain_id_id)
+        self.assertIs(store["EBA_EUR"], member)
+        self.assertEqual(len(store.pool), 6)
+
+    def test_behaves_like_a_dict(self):
+        store = CompactModelStore(MEMBER)
+        held = MEMBER(member_id="M1")
+        store["M1"] = held
+        store["M2"] = MEMBER(member_id="M2")
+        store["other"] = "not a member"
+
+        self.assertIs(store["M1"], held)
+        self.assertIn("M2", store)
+        self.assertEqual(store["other"], "not a member")
+        self.assertIsNone(store.get("missing"))
+        with self.assertRaises(KeyError):
+            store["missing"]
+
+        del store["M1"]
+        store["M3"] = MEMBER(member_id="M3")
+        self.assertEqual(sorted(store), ["M2", "M3", "other"])
+        self.assertEqual(store["M3"].member_id, "M3")
+
+    def test_a_change_to_a_rebuilt_member_survives_a_round_trip(self):
+        store = CompactModelStore(MEMBER)
+        store["M1"] = MEMBER(member_id="M1", name="Before")
+        store["M2"] = MEMBER(member_id="M2", name="Before")
+
+        store["M1"].name = "After"
+        stored = MEMBER(member_id="M2", name="Before")
+        store["M2"] = stored
+        stored.code = "C2"
+        del stored
+
+        self.assertEqual(store.live_count, 0)
+        self.assertEqual(store["M1"].name, "After")
+        self.assertEqual(store["M2"].code, "C2")
+
+    def test_a_dropped_instance_does_not_overwrite_a_replaced_record(self):
+        store = CompactModelStore(MEMBER)
+        old = MEMBER(member_id="M1", name="Old")
+        store["M1"] = old
+        store["M1"] = MEMBER(member_id="M1", name="New")
+        old.name = "Changed"
+        del old
+
+        self.assertEqual(store["M1"].name, "New")
+
+    def test_resets_keep_the_dictionary_in_a_compact_store(self):
+        class Context:
+            use_compact_metadata_store = True
+            value_pool = None
+            domain_dictionary = {}
+            agency_dictionary = {}
+
+        context = Context()
+        reset_metadata_dictionary(context, "member_dictionary")
+        self.assertIsInstance(context.member_dictionary, CompactModelStore)
+        self.assertIs(context.member_dictionary.pool, Context.value_pool)
+
+        Context.use_compact_metadata_store = False
+        reset_metadata_dictionary(context, "member_dictionary")
+        self.assertEqual(context.member_dictionary, {})
+
+    def test_the_memory_report_counts_members_held_elsewhere(self):
+        store = CompactModelStore(MEMBER)
+        store["M1"] = MEMBER(member_id="M1", name="Euro")
+        store["M2"] = MEMBER(member_id="M2", name="Euro")
+        empty = memory_report({"members": store})["dictionaries"]["members"]
+
+        held = {store["M1"]: "EBA_CU"}
+        report = memory_report({"members": store})["dictionaries"]["members"]
+
+        self.assertEqual((empty["held"], report["held"]), (0, 1))
+        self.assertGreater(report["bytes"], empty["bytes"])
+        self.assertEqual(len(held), 1)
+
+
+class CompactListStoreTests(SimpleTestCase):
+    def setUp(self):
+        self.combination = COMBINATION(combination_id="C1")
+        self.variable = VARIABLE(variable_id="EBA_MCY")
+        self.store = CompactListStore(COMBINATION_ITEM, ValuePool(), related={
+            "combination_id": {"C1": self.combination}.get,
+            "variable_id": {"EBA_MCY": self.variable}.get,
+        })
+
+    def item(self, member_id=None, id=None):
+        return COMBINATION_ITEM(id=id, combination_id=self.combination, variable_id=self.variable,
+                                member_id=MEMBER(member_id=member_id) if member_id else None)
+
+    def test_items_appended_to_a_returned_list_are_stored(self):
+        self.store.setdefault("C1", []).append(self.item("M1"))
+        try:
+            self.store["C1"].append(self.item("M2", id=7))
+        except KeyError:
+            self.fail("C1 was stored by setdefault")
+        self.store["C2"] = [self.item("M3")]
+
+        self.assertEqual(len(self.store), 2)
+        self.assertEqual(self.store.live_count, 0)
+        items = self.store["C1"]
+        self.assertEqual([item.member_id_id for item in items], ["M1", "M2"])
+        self.assertEqual([item.id for item in items], [None, 7])
+        self.assertIs(items[0].combination_id, self.combination)
+        self.assertIs(items[1].variable_id, self.variable)
+        self.assertEqual(self.store.get("missing", []), [])
+        # Auto field ids are kept in their column, not in the pool
+        self.assertNotIn(7, [self.store.pool.value(value_id) for value_id in range(len(self.store.pool))])
+
+    def test_held_items_keep_their_identity_and_changes(self):
+        held = self.item("M1")
+        self.store.setdefault("C1", []).append(held)
+        self.store["C1"].append(self.item("M2"))
+
+        self.assertIs(self.store["C1"][0], held)
+        self.store["C1"][1].member_id_id = "M9"
+        held.member_id_id = "M8"
+        del held
+
+        self.assertEqual([item.member_id_id for item in self.store["C1"]], ["M8", "M9"])
+
+    def test_removed_items_free_their_records(self):
+        self.store["C1"] = [self.item("M1"), self.item("M2")]
+        del self.store["C1"][0]
+        self.store["C2"] = [self.item("M3")]
+        del self.store["C2"]
+        self.store["C3"] = [self.item("M4"), "not an item"]
+
+        self.assertEqual([item.member_id_id for item in self.store["C1"]], ["M2"])
+        self.assertEqual(self.store["C3"][1], "not an item")
+        self.assertEqual(sorted(self.store), ["C1", "C3"])
+        self.assertEqual(len(self.store._records._columns[0]), 2)
+
+    def test_instances_are_not_tracked_with_finalizers(self):
+        with patch("weakref.finalize", side_effect=AssertionError("finalize registered")):
+            self.store.setdefault("C1", []).append(self.item("M1"))
+            self.assertEqual(self.store["C1"][0].member_id_id, "M1")
+
+    def test_compaction_reports_a_smaller_footprint(self):
+        class Context:
+            use_compact_metadata_store = True
+            value_pool = None
+            member_dictionary = {}
+            combination_dictionary = {"C1": self.combination}
+            table_cell_dictionary = {}
+            cell_positions_dictionary = {}
+            axis_ordinate_to_ordinate_items_map = {}
+            variable_dictionary = {"EBA_MCY": self.variable}
+            combination_item_dictionary = {}
+
+        for index in range(2000):
+            Context.combination_item_dictionary.setdefault(f"C{index % 100}", []).append(self.item(f"M{index}"))
+
+        before, after = enable_compact_metadata_stores(Context)
+
+        self.assertIsInstance(Context.combination_item_dictionary, CompactListStore)
+        self.assertLess(after["total_bytes"], before["total_bytes"] / 2)
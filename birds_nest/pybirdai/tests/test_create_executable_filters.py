@@ -1,9 +1,12 @@
 import tempfile
 from pathlib import Path
+from types import SimpleNamespace
 
 from django.test import SimpleTestCase
 
+from pybirdai.annotations.decorators import set_lineage_orchestration
 from pybirdai.process_steps.pybird.create_executable_filters import CreateExecutableFilters
+from pybirdai.process_steps.pybird.filter_kernels import filter_items
 
 
 class FakeDomain:
@@ -17,6 +20,40 @@ class FakeMember:
         self.domain_id = domain_id
 
 
+class FakeVariable:
+    def __init__(self, name):
+        self.name = name
+
+
+class FakeCombinationItem:
+    def __init__(self, variable_name, member):
+        self.variable_id = FakeVariable(variable_name)
+        self.member_id = member
+        self.member_hierarchy = None
+
+
+class FakeHierarchy:
+    def __init__(self, member_hierarchy_id):
+        self.member_hierarchy_id = member_hierarchy_id
+
+
+class FakeLoan:
+    def __init__(self, typ_instrmnt, accntng_clssfctn):
+        self._typ_instrmnt = typ_instrmnt
+        self._accntng_clssfctn = accntng_clssfctn
+
+    def TYP_INSTRMNT(self):
+        return self._typ_instrmnt
+
+    def ACCNTNG_CLSSFCTN(self):
+        return self._accntng_clssfctn
+
+
+class FakeLoansTable:
+    def __init__(self, loans):
+        self.Other_loanss = loans
+
+
 class FakeSddContext:
     def __init__(self):
         self.domain_to_hierarchy_dictionary = {}
@@ -45,6 +82,27 @@ class CreateExecutableFiltersTests(SimpleTestCase):
 
         self.assertEqual(result, [])
 
+    def test_hierarchy_expansion_returns_each_leaf_once_in_walk_order(self):
+        filters = CreateExecutableFilters()
+        context = FakeSddContext()
+        domain = FakeDomain("DOMAIN")
+        total, loans, deposits, shared, a, b, c = (
+            FakeMember(member_id, domain) for member_id in ("TOTAL", "LOANS", "DEPOSITS", "SHARED", "A", "B", "C")
+        )
+        context.domain_to_hierarchy_dictionary[domain] = [FakeHierarchy("H")]
+        context.member_plus_hierarchy_to_child_literals = {
+            "TOTAL:H": [loans, deposits],
+            "LOANS:H": [a, shared],
+            "DEPOSITS:H": [shared, c],
+            "SHARED:H": [b],
+        }
+        context.members_that_are_nodes = {total, loans, deposits, shared}
+
+        result = filters.get_member_list_considering_hierarchies(context, total, None)
+
+        self.assertEqual(result, [a, b, c])
+        self.assertEqual(context.member_hierarchy_closure.descendants(shared, "H"), (b,))
+
     def test_generated_python_cleanup_removes_cache_directories(self):
         with tempfile.TemporaryDirectory() as tmpdir:
             base_dir = Path(tmpdir)
@@ -59,3 +117,69 @@ class CreateExecutableFiltersTests(SimpleTestCase):
                 CreateExecutableFilters().delete_generated_python_filter_files(None)
 
             self.assertEqual(list(generated_dir.iterdir()), [])
+
+    def test_vectorised_filter_logic_matches_loop_filter_logic(self):
+        filters = CreateExecutableFilters()
+        context = FakeSddContext()
+        loan_type = FakeMember("970", FakeDomain("TYP_INSTRMNT"))
+        classification = FakeMember("2", FakeDomain("ACCNTNG_CLSSFCTN"))
+        for member in (loan_type, classification):
+            member.code = member.member_id
+        combination_items = [
+            FakeCombinationItem("TYP_INSTRMNT", loan_type),
+            FakeCombinationItem("ACCNTNG_CLSSFCTN", classification),
+        ]
+        loans = [FakeLoan("970", "2"), FakeLoan("970", "6"), FakeLoan("1004", "2"), FakeLoan("970", "2")]
+        table = FakeLoansTable(loans)
+
+        loop_source = "def calc(table, result):\n\tfor item in table.Other_loanss:\n\t\tfilter_passed = True\n"
+        loop_source += filters._generate_filter_logic(combination_items, context, "\t\t")
+        loop_source += "\t\tif filter_passed:\n\t\t\tresult.append(item)\n"
+        vectorised_source = "def calc(self, result):\n"
+        vectorised_source += filters._generate_vectorised_filter_logic(
+            combination_items, context, "table", "Other_loanss", "result", "\t"
+        )
+
+        loop_result = []
+        loop_namespace = {}
+        exec(loop_source, loop_namespace)
+        loop_namespace["calc"](table, loop_result)
+
+        vectorised_result = []
+        vectorised_namespace = {"filter_items": filter_items}
+        exec(vectorised_source, vectorised_namespace)
+        holder = type("Holder", (), {"table": table})()
+        vectorised_namespace["calc"](holder, vectorised_result)
+
+        self.assertEqual(vectorised_result, [loans[0], loans[3]])
+        self.assertEqual(vectorised_result, loop_result)
+
+    def test_every_cell_reads_its_own_item_values_while_lineage_is_recorded(self):
+        calls = []
+
+        class RecordingLoan(FakeLoan):
+            def TYP_INSTRMNT(self):
+                calls.append(("TYP_INSTRMNT", self))
+                return super().TYP_INSTRMNT()
+
+            def ACCNTNG_CLSSFCTN(self):
+                calls.append(("ACCNTNG_CLSSFCTN", self))
+                return super().ACCNTNG_CLSSFCTN()
+
+        loans = [RecordingLoan("970", "2"), RecordingLoan("1004", "2")]
+        table = FakeLoansTable(loans)
+        conditions = (("TYP_INSTRMNT", ("970",)), ("ACCNTNG_CLSSFCTN", ("2",)))
+        loop_calls = [(variable_name, loan) for loan in loans for variable_name, _ in conditions]
+
+        set_lineage_orchestration(SimpleNamespace(lineage_enabled=True))
+        self.addCleanup(set_lineage_orchestration, None)
+        for _cell in range(2):
+            calls.clear()
+            self.assertEqual(filter_items(table, "Other_loanss", conditions), [loans[0]])
+            self.assertEqual(calls, loop_calls)
+
+        set_lineage_orchestration(None)
+        filter_items(table, "Other_loanss", conditions)
+        calls.clear()
+        self.assertEqual(filter_items(table, "Other_loanss", conditions), [loans[0]])
+        self.assertEqual(calls, [])
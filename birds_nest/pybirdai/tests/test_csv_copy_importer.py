@@ -0,0 +1,65 @@
+import os
+import sqlite3
+import tempfile
+from contextlib import contextmanager
+from unittest.mock import patch
+
+from django.test import SimpleTestCase
+
+from pybirdai.process_steps.website_to_sddmodel.import_func import csv_copy_importer
+
+
+class SQLiteConnection:
+    vendor = 'sqlite'
+    in_atomic_block = False
+
+    def __init__(self):
+        # Autocommit, as Django opens SQLite connections
+        self.connection = sqlite3.connect(':memory:', isolation_level=None)
+
+    def ensure_connection(self):
+        pass
+
+    @contextmanager
+    def atomic(self):
+        self.connection.execute('BEGIN')
+        self.in_atomic_block = True
+        try:
+            yield
+        except Exception:
+            self.connection.execute('ROLLBACK')
+            raise
+        else:
+            self.connection.execute('COMMIT')
+        finally:
+            self.in_atomic_block = False
+
+
+class NativeSQLiteImportTests(SimpleTestCase):
+    def test_empty_values_are_stored_as_empty_strings_like_the_cli_import(self):
+        database = SQLiteConnection()
+        self.addCleanup(database.connection.close)
+        database.connection.executescript(
+            "CREATE TABLE pybirdai_example (id INTEGER PRIMARY KEY, code TEXT NOT NULL, name TEXT NULL);"
+            "CREATE INDEX pybirdai_example_name ON pybirdai_example (name);"
+        )
+        directory = tempfile.TemporaryDirectory()
+        self.addCleanup(directory.cleanup)
+        csv_file = os.path.join(directory.name, 'example.csv')
+        with open(csv_file, 'w', encoding='utf-8', newline='') as f:
+            f.write('CODE,NAME\nC1,\nC2,"Second, quoted"\n')
+
+        with patch.object(csv_copy_importer, 'connection', database), \
+                patch.object(csv_copy_importer.transaction, 'atomic', database.atomic):
+            imported = csv_copy_importer.perform_native_sqlite_import(csv_file, ',', 'pybirdai_example')
+
+        self.assertEqual(imported, 2)
+        self.assertEqual(
+            database.connection.execute("SELECT code, name FROM pybirdai_example ORDER BY id").fetchall(),
+            [('C1', ''), ('C2', 'Second, quoted')],
+        )
+        self.assertEqual(
+            database.connection.execute(
+                "SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'pybirdai_example'").fetchall(),
+            [('pybirdai_example_name',)],
+        )
@@ -0,0 +1,65 @@
+import multiprocessing
+import os
+import time
+from unittest import skipUnless
+from unittest.mock import patch
+
+from django.test import SimpleTestCase
+
+from pybirdai.process_steps.pybird import execute_datapoint_batch
+from pybirdai.process_steps.pybird.execute_datapoint import ExecuteDataPoint
+from pybirdai.process_steps.pybird.execute_datapoint_batch import ExecuteDataPointBatch
+
+
+def execute_data_point(data_point_id):
+    if data_point_id == "13":
+        raise ValueError("no combination for 13")
+    return str(int(data_point_id) * 10)
+
+
+def slow_execute_data_point(data_point_id):
+    # Long enough that one worker cannot drain the queue alone
+    time.sleep(0.05)
+    return execute_data_point(data_point_id)
+
+
+def outcomes(batch):
+    return [(result.data_point_id, result.success, result.value, result.error) for result in batch.results]
+
+
+class ExecuteDataPointBatchTests(SimpleTestCase):
+    def run_batch(self, parallel_writes, max_workers, suppress_lineage=True, execute=execute_data_point):
+        with patch.object(ExecuteDataPoint, "execute_data_point", execute), \
+                patch.object(ExecuteDataPoint, "delete_lineage_data", lambda: None), \
+                patch.object(execute_datapoint_batch, "_supports_parallel_writes", lambda: parallel_writes):
+            return ExecuteDataPointBatch.execute_data_points(
+                [str(data_point_id) for data_point_id in range(10, 20)],
+                max_workers=max_workers,
+                suppress_lineage=suppress_lineage,
+            )
+
+    def test_sqlite_batches_with_lineage_run_in_the_calling_process(self):
+        batch = self.run_batch(parallel_writes=False, max_workers=4, suppress_lineage=False)
+
+        self.assertEqual(batch.worker_count, 1)
+        self.assertEqual(batch.failed, 1)
+        self.assertEqual(batch.values()["12"], "120")
+
+    @skipUnless("fork" in multiprocessing.get_all_start_methods(), "workers inherit the patched execution through fork")
+    def test_worker_processes_return_the_serial_results_in_request_order(self):
+        serial = self.run_batch(parallel_writes=False, max_workers=1)
+        parallel = self.run_batch(parallel_writes=True, max_workers=3)
+
+        self.assertEqual(parallel.worker_count, 3)
+        self.assertEqual(outcomes(parallel), outcomes(serial))
+
+    @skipUnless("fork" in multiprocessing.get_all_start_methods(), "workers inherit the patched execution through fork")
+    def test_sqlite_batches_without_lineage_fan_out_to_the_workers(self):
+        batch = self.run_batch(parallel_writes=False, max_workers=3, execute=slow_execute_data_point)
+
+        self.assertEqual(batch.worker_count, 3)
+        worker_pids = {result.worker_pid for result in batch.results}
+        self.assertGreater(len(worker_pids), 1)
+        self.assertNotIn(os.getpid(), worker_pids)
+        self.assertEqual(batch.failed, 1)
+        self.assertEqual(batch.values()["12"], "120")
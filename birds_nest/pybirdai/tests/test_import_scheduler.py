@@ -0,0 +1,72 @@
+import csv
+import os
+import tempfile
+
+from django.test import SimpleTestCase
+
+from pybirdai.process_steps.website_to_sddmodel.import_func.import_scheduler import (
+    ImportScheduler,
+    open_csv_reader,
+)
+
+
+class ImportSchedulerOrderTests(SimpleTestCase):
+    def test_dependencies_run_first_and_other_steps_keep_insertion_order(self):
+        scheduler = ImportScheduler(max_workers=0)
+        scheduler.add("agencies", lambda: None)
+        scheduler.add("members", lambda: None, depends_on=["domains"])
+        scheduler.add("domains", lambda: None, depends_on=["agencies"])
+        scheduler.add("frameworks", lambda: None, depends_on=["agencies"])
+
+        order = [node.name for node in scheduler.execution_order()]
+
+        self.assertEqual(order, ["agencies", "domains", "members", "frameworks"])
+
+    def test_steps_run_in_the_order_they_were_added(self):
+        ran = []
+        scheduler = ImportScheduler(max_workers=0)
+        for name in ("agencies", "frameworks", "domains", "members", "variables"):
+            scheduler.add(name, lambda name=name: ran.append(name),
+                          depends_on=[] if name == "agencies" else ["agencies"])
+
+        scheduler.run()
+
+        self.assertEqual(ran, ["agencies", "frameworks", "domains", "members", "variables"])
+
+    def test_cycles_and_unknown_dependencies_are_rejected(self):
+        cyclic = ImportScheduler(max_workers=0)
+        cyclic.add("a", lambda: None, depends_on=["b"])
+        cyclic.add("b", lambda: None, depends_on=["a"])
+        with self.assertRaises(ValueError):
+            cyclic.execution_order()
+
+        unknown = ImportScheduler(max_workers=0)
+        unknown.add("a", lambda: None, depends_on=["missing"])
+        with self.assertRaises(ValueError):
+            unknown.execution_order()
+
+
+class ImportSchedulerPrefetchTests(SimpleTestCase):
+    def test_steps_read_the_same_rows_with_and_without_workers(self):
+        directory = tempfile.TemporaryDirectory()
+        self.addCleanup(directory.cleanup)
+        path = os.path.join(directory.name, "member.csv")
+        with open(path, "w", newline="", encoding="utf-8") as csvfile:
+            csv.writer(csvfile).writerows([["MEMBER_ID", "NAME"], ["M1", "a, quoted \"name\""], ["M2", ""]])
+
+        with open_csv_reader(path) as reader:
+            expected = list(reader)
+
+        for workers in (0, 2):
+            seen = []
+
+            def read_members():
+                with open_csv_reader(path) as reader:
+                    seen.append(list(reader))
+
+            scheduler = ImportScheduler(max_workers=workers)
+            scheduler.add("members", read_members, csv_files=[path])
+            scheduler.add("members_again", read_members, depends_on=["members"], csv_files=[path])
+            scheduler.run()
+
+            self.assertEqual(seen, [expected, expected])
@@ -0,0 +1,67 @@
+import importlib.util
+import json
+import os
+import subprocess
+import sys
+import tempfile
+from contextlib import nullcontext
+from unittest import skipUnless
+from unittest.mock import patch
+
+from django.test import SimpleTestCase
+
+from pybirdai.utils.datapoint_test_run.in_process_runner import InProcessScenarioRunner, scenario_spec
+from pybirdai.utils.datapoint_test_run.parser_for_tests import PytestOutputParser
+
+GENERATED_TESTS = '''
+RESULTS = {'F_01_01_REF_FINREP_3_0_1': '120'}
+
+
+def test_execute_datapoint(value: int=120):
+    result = RESULTS['F_01_01_REF_FINREP_3_0_1']
+    assert result == str(value)
+
+
+def test_cell_metric():
+    result = RESULTS['F_01_01_REF_FINREP_3_0_1']
+    assert isinstance(result, (int, float))
+'''
+
+
+def outcomes(result):
+    test_results = result['test_results']
+    return sorted(test_results['passed']), sorted(test_results['failed'])
+
+
+@skipUnless(importlib.util.find_spec('pytest'), 'the subprocess path runs the generated tests with pytest')
+class InProcessRunnerParityTests(SimpleTestCase):
+    def test_a_scenario_has_the_same_outcome_in_process_and_under_pytest(self):
+        with tempfile.TemporaryDirectory() as directory:
+            test_path = os.path.join(directory, 'test_cell_f_01_01_ref_finrep_3_0_1__base.py')
+            with open(test_path, 'w', encoding='utf-8') as test_file:
+                test_file.write(GENERATED_TESTS)
+            spec = scenario_spec('F_01_01_REF_FINREP_3_0', '1', 120, 'base', directory,
+                                 os.path.join(directory, 'sql_inserts.sql'),
+                                 os.path.join(directory, 'in_process.txt'),
+                                 os.path.join(directory, 'in_process.json'), test_path)
+
+            txt_path = os.path.join(directory, 'pytest.txt')
+            with open(txt_path, 'w', encoding='utf-8') as output:
+                subprocess.run([sys.executable, '-m', 'pytest', '-v', '-p', 'no:cacheprovider', test_path],
+                               stdout=output, cwd=directory, env=dict(os.environ, COLUMNS='80'))
+            parsed = json.loads(PytestOutputParser(txt_path, '120', spec['reg_tid'], spec['dp_suffix'], 'base').parse())
+
+            runner = InProcessScenarioRunner.__new__(InProcessScenarioRunner)
+            runner.tables_to_clean = []
+            runner._test_modules = {}
+            with patch('django.db.transaction.atomic', nullcontext), \
+                    patch('django.db.transaction.set_rollback'), \
+                    patch.object(runner, '_reset_input_tables'), \
+                    patch.object(runner, '_load_fixtures'), \
+                    patch.object(InProcessScenarioRunner, '_reset_runtime_state'):
+                in_process = runner.run_scenario(spec)
+
+            self.assertEqual(outcomes(parsed), (['test_execute_datapoint'], ['test_cell_metric']))
+            self.assertEqual(outcomes(in_process), outcomes(parsed))
+            with open(spec['json_path'], encoding='utf-8') as json_file:
+                self.assertEqual(outcomes(json.load(json_file)), outcomes(parsed))
@@ -0,0 +1,66 @@
+from types import SimpleNamespace
+
+from django.test import SimpleTestCase
+
+from pybirdai.models.bird_meta_data_model import CUBE, CUBE_STRUCTURE_ITEM
+from pybirdai.process_steps.joins_meta_data.create_joins_meta_data import (
+    JoinsMetaDataCreator,
+)
+
+
+def sdd_context():
+    return SimpleNamespace(
+        bird_cube_dictionary={
+            cube_id: CUBE(cube_id=cube_id) for cube_id in ('F_01_01_REF_FINREP_3_0', 'LOAN')
+        },
+        bird_cube_structure_item_dictionary={
+            'F_01_01_cube_structure': [CUBE_STRUCTURE_ITEM(), CUBE_STRUCTURE_ITEM()],
+            'LOAN': [CUBE_STRUCTURE_ITEM()],
+        },
+        cube_link_dictionary={},
+        cube_link_to_foreign_cube_map={},
+        cube_link_to_join_identifier_map={},
+        cube_link_to_join_for_report_id_map={},
+        cube_structure_item_links_dictionary={},
+        cube_structure_item_link_to_cube_link_map={},
+    )
+
+
+def report_links(cube_link_id, primary_cube_id):
+    return [(
+        (cube_link_id, 'name', 'description', 'Loans', primary_cube_id, 'F_01_01_REF_FINREP_3_0'),
+        [(f'{cube_link_id}:A:A', ('F_01_01_cube_structure', 1), ('LOAN', 0))],
+    )]
+
+
+class JoinsMetaDataMergeTests(SimpleTestCase):
+    def test_worker_links_are_rebuilt_from_the_parents_objects(self):
+        context = SimpleNamespace(save_derived_sdd_items=True)
+        sdd = sdd_context()
+        cube_links, item_links = [], []
+
+        JoinsMetaDataCreator()._merge_report_joins(
+            context, sdd, report_links('L1', 'LOAN'), cube_links, item_links
+        )
+
+        self.assertEqual([cube_link.cube_link_id for cube_link in cube_links], ['L1'])
+        self.assertIs(cube_links[0].primary_cube_id, sdd.bird_cube_dictionary['LOAN'])
+        self.assertIs(item_links[0].foreign_cube_variable_code,
+                      sdd.bird_cube_structure_item_dictionary['F_01_01_cube_structure'][1])
+        self.assertIs(item_links[0].primary_cube_variable_code,
+                      sdd.bird_cube_structure_item_dictionary['LOAN'][0])
+        self.assertEqual(sdd.cube_link_to_join_for_report_id_map['F_01_01_REF_FINREP_3_0:Loans'], cube_links)
+        self.assertEqual(sdd.cube_structure_item_link_to_cube_link_map['L1'], item_links)
+
+    def test_links_an_earlier_report_created_are_skipped(self):
+        context = SimpleNamespace(save_derived_sdd_items=True)
+        sdd = sdd_context()
+        cube_links, item_links = [], []
+        creator = JoinsMetaDataCreator()
+
+        creator._merge_report_joins(context, sdd, report_links('L1', None), cube_links, item_links)
+        creator._merge_report_joins(context, sdd, report_links('L1', None), cube_links, item_links)
+
+        self.assertEqual(len(cube_links), 1)
+        self.assertEqual(len(item_links), 1)
+        self.assertIsNone(cube_links[0].primary_cube_id)
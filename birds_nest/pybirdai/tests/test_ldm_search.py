@@ -0,0 +1,110 @@
+import contextlib
+import io
+from unittest.mock import patch
+
+from django.db import models
+from django.test import SimpleTestCase
+from django.test.utils import isolate_apps
+
+from pybirdai.process_steps.joins_meta_data import ldm_search
+from pybirdai.process_steps.joins_meta_data.ldm_search import ELDMReachabilityIndex, ELDMSearch
+
+
+class ELDMReachabilityIndexTests(SimpleTestCase):
+    def test_foreign_keys_are_followed_up_to_the_link_limit(self):
+        associations = {'A': ['B'], 'B': ['C'], 'C': ['D'], 'D': ['E'], 'E': ['F']}
+
+        index = ELDMReachabilityIndex(associations, {})
+
+        self.assertEqual(set(index.related_entities('A')), {'B', 'C', 'D', 'E'})
+
+    def test_parents_and_their_links_are_reached_without_using_a_link(self):
+        associations = {'LOAN': ['PARTY'], 'INSTRUMENT': ['COLLATERAL'], 'PARTY_ROLE': ['PROTECTION']}
+        parents = {'LOAN': ['INSTRUMENT'], 'PARTY': ['PARTY_ROLE']}
+
+        index = ELDMReachabilityIndex(associations, parents, link_limit=1)
+
+        self.assertEqual(set(index.related_entities('LOAN')),
+                         {'INSTRUMENT', 'PARTY', 'COLLATERAL', 'PARTY_ROLE'})
+
+    def test_a_parent_is_expanded_where_the_search_first_meets_it(self):
+        # P is first met two links away, through B and C, and its links are
+        # followed from there. Meeting it again one link away, through Q,
+        # does not expand it a second time, so E stays out of reach.
+        associations = {'A': ['B', 'Q'], 'B': ['C'], 'P': ['D'], 'D': ['E']}
+        parents = {'C': ['P'], 'Q': ['P']}
+
+        index = ELDMReachabilityIndex(associations, parents, link_limit=3)
+        reordered = ELDMReachabilityIndex(dict(associations, A=['Q', 'B']), parents, link_limit=3)
+
+        self.assertEqual(set(index.related_entities('A')), {'B', 'C', 'P', 'D', 'Q'})
+        self.assertIn('E', reordered.related_entities('A'))
+        self.assertIs(index.related_entities('A'), index.related_entities('A'))
+
+    @isolate_apps('pybirdai', attr_name='apps')
+    def test_the_index_finds_what_the_recursive_search_finds(self):
+        class CRRNCY(models.Model):
+            pass
+
+        class CNTRY(models.Model):
+            CRRNCY = models.ForeignKey(CRRNCY, models.CASCADE)
+
+        class PRTY(models.Model):
+            CNTRY = models.ForeignKey(CNTRY, models.CASCADE)
+            PRNT_PRTY = models.ForeignKey('self', models.CASCADE)
+
+        class ENTTY(PRTY):
+            pass
+
+        class INSTRMNT(models.Model):
+            CRRNCY = models.ForeignKey(CRRNCY, models.CASCADE)
+
+        class LN(INSTRMNT):
+            BRRWR = models.ForeignKey(ENTTY, models.CASCADE)
+
+        class INSTRMNT_TYP(models.Model):
+            LN_delegate = models.ForeignKey(LN, models.CASCADE)
+            parent_INSTRMNT = models.ForeignKey(INSTRMNT, models.CASCADE)
+
+        class CLLTRL(models.Model):
+            PRTCTN = models.ForeignKey('PRTCTN', models.CASCADE)
+
+        class PRTCTN(models.Model):
+            INSTRMNT = models.ForeignKey(INSTRMNT, models.CASCADE)
+            CLLTRL = models.ForeignKey(CLLTRL, models.CASCADE)
+            PRVDR = models.ForeignKey(PRTY, models.CASCADE)
+
+        class CHN_5(models.Model):
+            PRTY = models.ForeignKey(PRTY, models.CASCADE)
+
+        class CHN_4(models.Model):
+            NXT = models.ForeignKey(CHN_5, models.CASCADE)
+
+        class CHN_3(models.Model):
+            NXT = models.ForeignKey(CHN_4, models.CASCADE)
+
+        class CHN_2(models.Model):
+            NXT = models.ForeignKey(CHN_3, models.CASCADE)
+
+        class CHN_1(models.Model):
+            NXT = models.ForeignKey(CHN_2, models.CASCADE)
+
+        class INSTRMNT_RL(models.Model):
+            CHN = models.ForeignKey(CHN_1, models.CASCADE)
+            INSTRMNT = models.ForeignKey(LN, models.CASCADE)
+            PRTY = models.ForeignKey(ENTTY, models.CASCADE)
+
+        eldm = [model for model in self.apps.get_models() if model._meta.app_label == 'pybirdai']
+        index = ELDMReachabilityIndex.from_models(eldm)
+
+        memoization = {}
+        with patch.object(ldm_search, 'apps', self.apps), contextlib.redirect_stdout(io.StringIO()):
+            for model in eldm:
+                # The same entities, added in the same order, so even the
+                # order of the list create_ldm_entity_to_linked_entities_map
+                # joins is the same
+                self.assertEqual(list(index.related_entities(model)),
+                                 ELDMSearch.search_related_entities(None, None, model, memoization),
+                                 model.__name__)
+        self.assertEqual(len(eldm), 15)
+        self.assertIn(INSTRMNT_TYP, index.related_entities(INSTRMNT_RL))
@@ -0,0 +1,128 @@
+import tempfile
+from collections import deque
+from unittest.mock import patch
+
+from django.contrib.contenttypes.models import ContentType
+from django.test import TestCase
+
+from pybirdai.models import (
+    CalculationUsedRow, CellLineage, DatabaseRow, DatabaseTable, DerivedRowSourceReference,
+    DerivedTable, DerivedTableRow, EvaluatedDerivedTable, MetaDataTrail, PopulatedDataBaseTable,
+    Trail,
+)
+from pybirdai.process_steps.pybird import lineage_closure
+from pybirdai.process_steps.pybird.lineage_closure import RowSourceIndex, build_cell_closures, cell_closure
+from pybirdai.process_steps.pybird.lineage_output_tables import get_output_table_names
+from pybirdai.process_steps.pybird.lineage_store import ColumnarLineageStore
+
+OUTPUT_CELL = 'Cell_F_01_01_REF_1'
+OTHER_CELL = 'Cell_OTHER_2'
+
+
+def live_closure(trail, calculation_name):
+    """The filtered lineage view's walk, one DerivedRowSourceReference query per row."""
+    derived_type = ContentType.objects.get_for_model(DerivedTableRow)
+    used = CalculationUsedRow.objects.filter(trail=trail, calculation_name=calculation_name)
+    derived_row_ids = {row.object_id for row in used if row.content_type == derived_type}
+    database_row_ids = {row.object_id for row in used if row.content_type != derived_type}
+
+    output_table_names = get_output_table_names(trail, calculation_name)
+    root_row_ids = set(DerivedTableRow.objects.filter(
+        id__in=derived_row_ids, populated_table__table__name__in=output_table_names,
+    ).values_list('id', flat=True)) if output_table_names else set()
+    if not root_row_ids:
+        reused = set(DerivedRowSourceReference.objects.filter(
+            derived_row_id__in=derived_row_ids, content_type=derived_type, object_id__in=derived_row_ids,
+        ).values_list('object_id', flat=True))
+        root_row_ids = (derived_row_ids - reused) or set(derived_row_ids)
+
+    traced_derived, traced_database = set(root_row_ids), set()
+    queue = deque(root_row_ids)
+    found_row_sources = False
+    while queue:
+        references = DerivedRowSourceReference.objects.filter(derived_row_id=queue.popleft())
+        found_row_sources = found_row_sources or references.exists()
+        for reference in references:
+            if reference.content_type == derived_type:
+                if reference.object_id not in traced_derived:
+                    traced_derived.add(reference.object_id)
+                    queue.append(reference.object_id)
+            else:
+                traced_database.add(reference.object_id)
+
+    if found_row_sources:
+        return root_row_ids, traced_derived, database_row_ids | traced_database
+    return root_row_ids, derived_row_ids, database_row_ids
+
+
+class CellClosureParityTests(TestCase):
+    def setUp(self):
+        self.trail = Trail.objects.create(name='closure', metadata_trail=MetaDataTrail.objects.create())
+        loans = PopulatedDataBaseTable.objects.create(
+            trail=self.trail, table=DatabaseTable.objects.create(name='LOANS'))
+        view = EvaluatedDerivedTable.objects.create(
+            trail=self.trail, table=DerivedTable.objects.create(name='LOANS_VIEW'))
+        report = EvaluatedDerivedTable.objects.create(
+            trail=self.trail, table=DerivedTable.objects.create(name='F_01_01_REF'))
+
+        database_rows = [DatabaseRow.objects.create(populated_table=loans, row_identifier=f'loan {index}')
+                         for index in range(3)]
+        view_rows = [DerivedTableRow.objects.create(populated_table=view, row_identifier=f'view {index}')
+                     for index in range(3)]
+        output_row = DerivedTableRow.objects.create(populated_table=report, row_identifier='output')
+        for view_row, database_row in zip(view_rows, database_rows):
+            self.source(view_row, database_row)
+        self.source(output_row, view_rows[0])
+        self.source(output_row, view_rows[1])
+
+        for cell_code in (OUTPUT_CELL, OTHER_CELL):
+            CellLineage.objects.create(trail=self.trail, report_template='F_01.01', cell_code=cell_code)
+            for row in (output_row, view_rows[0], view_rows[2], database_rows[2]):
+                CalculationUsedRow.objects.create(
+                    trail=self.trail, calculation_name=cell_code,
+                    content_type=ContentType.objects.get_for_model(row), object_id=row.id)
+
+    @staticmethod
+    def source(derived_row, source_row):
+        DerivedRowSourceReference.objects.create(
+            derived_row=derived_row, content_type=ContentType.objects.get_for_model(source_row),
+            object_id=source_row.id)
+
+    def index_result(self, index, calculation_name):
+        derived_type = ContentType.objects.get_for_model(DerivedTableRow)
+        used = CalculationUsedRow.objects.filter(trail=self.trail, calculation_name=calculation_name)
+        roots = index.root_derived_row_ids(
+            {row.object_id for row in used if row.content_type == derived_type},
+            get_output_table_names(self.trail, calculation_name))
+        _, traced_derived, traced_database = index.trace_backwards(roots)
+        database_row_ids = {row.object_id for row in used if row.content_type != derived_type}
+        return roots, traced_derived, database_row_ids | traced_database
+
+    def test_stored_closures_match_the_live_traversal(self):
+        expected = {name: live_closure(self.trail, name) for name in (OUTPUT_CELL, OTHER_CELL)}
+
+        build_cell_closures(self.trail)
+
+        for name, closure in expected.items():
+            self.assertEqual(cell_closure(self.trail, name), closure, name)
+            self.assertEqual(self.index_result(RowSourceIndex(self.trail), name), closure, name)
+        # The output cell starts from the report row, the other one from
+        # the used rows that no other used row was derived from
+        self.assertEqual(len(expected[OUTPUT_CELL][0]), 1)
+        self.assertEqual(len(expected[OTHER_CELL][0]), 2)
+
+    def test_an_archived_trail_is_walked_without_its_database_row_sources(self):
+        expected = {name: live_closure(self.trail, name) for name in (OUTPUT_CELL, OTHER_CELL)}
+        directory = tempfile.TemporaryDirectory()
+        self.addCleanup(directory.cleanup)
+        store = ColumnarLineageStore(directory.name)
+        store.export_trail(self.trail)
+        DerivedRowSourceReference.objects.filter(derived_row__populated_table__trail=self.trail).delete()
+
+        with patch.object(lineage_closure, 'open_trail_store', store.open_trail):
+            index = RowSourceIndex.for_trail(self.trail)
+            build_cell_closures(self.trail)
+
+        for name, closure in expected.items():
+            self.assertEqual(self.index_result(index, name), closure, name)
+            self.assertEqual(cell_closure(self.trail, name), closure, name)
@@ -0,0 +1,52 @@
+from django.test import SimpleTestCase
+
+from pybirdai.process_steps.pybird.lineage_graph_index import (
+    CONTAINS, DATA_FLOW, DATABASE_ROW, DATABASE_TABLE, DERIVED_FROM, DERIVED_ROW, DERIVED_TABLE,
+    DOWNSTREAM, UPSTREAM, LineageGraphBuilder,
+)
+
+
+def build_graph():
+    builder = LineageGraphBuilder()
+    loans = builder.add_node(DATABASE_TABLE, 1, "LOANS")
+    report = builder.add_node(DERIVED_TABLE, 2, "F_01_01_REF")
+    builder.add_edge(loans, report, DATA_FLOW)
+    rows = [builder.add_node(DATABASE_ROW, 10 + index, f"row {index}", loans) for index in range(3)]
+    for row in rows:
+        builder.add_edge(loans, row, CONTAINS)
+    derived = builder.add_node(DERIVED_ROW, 20, "derived", report)
+    builder.add_edge(report, derived, CONTAINS)
+    for row in rows[:2]:
+        builder.add_edge(row, derived, DERIVED_FROM)
+    return builder.build("v1")
+
+
+class LineageGraphExpansionTests(SimpleTestCase):
+    def test_expansion_is_limited_by_depth_and_direction(self):
+        graph = build_graph()
+        start = graph.find_node("derived_row:20")
+
+        upstream = graph.expand(start, 1, UPSTREAM)
+        self.assertEqual(
+            [graph.node_key(node) for node in upstream.order],
+            ["derived_row:20", "derived_table:2", "database_row:10", "database_row:11"],
+        )
+        self.assertEqual(graph.expand(start, 1, DOWNSTREAM).order, [start])
+        self.assertEqual(graph.expand(start, 2, UPSTREAM).depths[graph.find_node("database_table:1")], 2)
+
+    def test_pages_return_every_expansion_edge_once(self):
+        graph = build_graph()
+        expansion = graph.expand(graph.find_node("derived_row:20"), 2, UPSTREAM)
+
+        edges = []
+        for start in range(0, len(expansion), 2):
+            edges.extend(expansion.edges_for_page(start, start + 2))
+
+        self.assertEqual(len(edges), len(set(edges)))
+        self.assertEqual(sorted(edges), [0, 1, 2, 4, 5, 6])
+
+    def test_unknown_nodes_are_not_found(self):
+        graph = build_graph()
+        self.assertIsNone(graph.find_node("derived_row:99"))
+        self.assertIsNone(graph.find_node("bogus:1"))
+        self.assertEqual(graph.counts()["derived_from_edges"], 2)
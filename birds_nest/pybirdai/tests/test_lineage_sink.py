@@ -0,0 +1,143 @@
+import threading
+from contextlib import nullcontext
+from types import SimpleNamespace
+from unittest.mock import patch
+
+from django.test import SimpleTestCase, TestCase
+
+from pybirdai.models import (
+    DatabaseColumnValue,
+    DatabaseField,
+    DatabaseRow,
+    DatabaseTable,
+    DerivedTableRow,
+    EvaluatedFunction,
+    EvaluatedFunctionSourceValue,
+    MetaDataTrail,
+    PopulatedDataBaseTable,
+    Trail,
+)
+from pybirdai.process_steps.pybird import lineage_sink
+from pybirdai.process_steps.pybird.lineage_sink import LineageSink
+
+
+class LineageSinkWriteOrderTests(SimpleTestCase):
+    def test_parents_are_written_before_children(self):
+        batch = {
+            EvaluatedFunctionSourceValue: [(EvaluatedFunctionSourceValue(), None)],
+            EvaluatedFunction: [(EvaluatedFunction(), None)],
+            DerivedTableRow: [(DerivedTableRow(), None)],
+        }
+
+        order = LineageSink.write_order(batch)
+
+        self.assertLess(order.index(DerivedTableRow), order.index(EvaluatedFunction))
+        self.assertLess(order.index(EvaluatedFunction), order.index(EvaluatedFunctionSourceValue))
+
+    def test_generic_references_to_buffered_instances_order_the_write(self):
+        column_value = DatabaseColumnValue()
+        batch = {
+            EvaluatedFunctionSourceValue: [
+                (EvaluatedFunctionSourceValue(), {'object_id': column_value}),
+            ],
+            DatabaseColumnValue: [(column_value, None)],
+            DatabaseRow: [(DatabaseRow(), None)],
+        }
+
+        order = LineageSink.write_order(batch)
+
+        self.assertLess(order.index(DatabaseRow), order.index(DatabaseColumnValue))
+        self.assertLess(order.index(DatabaseColumnValue), order.index(EvaluatedFunctionSourceValue))
+
+
+class RecordingSink(LineageSink):
+    def __init__(self, fail=False, **kwargs):
+        self.fail = fail
+        self.writes = []
+        super().__init__(background=True, **kwargs)
+
+    def _write(self, batch):
+        if self.fail:
+            raise RuntimeError("database went away")
+        self.writes.append((threading.current_thread().name, sum(len(entries) for entries in batch.values())))
+
+
+@patch.object(lineage_sink, 'connections')
+@patch.object(lineage_sink.transaction, 'atomic', nullcontext)
+class LineageSinkBackgroundWriterTests(SimpleTestCase):
+    def test_flush_waits_for_the_writer_thread(self, connections):
+        sink = RecordingSink(max_pending=2)
+
+        for _ in range(3):
+            sink.add(DatabaseRow())
+        sink.flush()
+
+        self.assertEqual(sink.writes, [('lineage-sink-writer', 2), ('lineage-sink-writer', 1)])
+        self.assertEqual(len(sink), 0)
+        sink.close()
+
+    def test_a_failed_write_is_raised_on_the_next_flush(self, connections):
+        sink = RecordingSink(fail=True)
+        sink.add(DatabaseRow())
+
+        with self.assertRaisesMessage(RuntimeError, "database went away"):
+            sink.flush()
+        sink.flush()
+        sink.close()
+
+    def test_close_stops_the_writer_after_a_failed_write(self, connections):
+        sink = RecordingSink(fail=True)
+        sink.add(DatabaseRow())
+        sink.flush(wait=False)
+        writer = sink._writer
+
+        with self.assertRaises(RuntimeError):
+            sink.close()
+
+        self.assertFalse(writer.is_alive())
+        self.assertIsNone(sink._writer)
+        connections.close_all.assert_called_once_with()
+
+    def test_background_writes_only_outside_transactions_on_server_databases(self, connections):
+        for vendor, in_atomic_block, expected in (('postgresql', False, True),
+                                                  ('postgresql', True, False),
+                                                  ('sqlite', False, False)):
+            database = SimpleNamespace(vendor=vendor, in_atomic_block=in_atomic_block)
+            with patch.object(lineage_sink, 'connection', database):
+                self.assertIs(LineageSink.background_writes_safe(), expected)
+
+
+class LineageSinkReserveTests(TestCase):
+    def setUp(self):
+        trail = Trail.objects.create(name='reserve', metadata_trail=MetaDataTrail.objects.create())
+        table = DatabaseTable.objects.create(name='LOANS')
+        self.amount = DatabaseField.objects.create(name='AMOUNT', table=table)
+        self.populated_table = PopulatedDataBaseTable.objects.create(trail=trail, table=table)
+
+    def test_reserved_rows_have_ids_before_they_are_written(self):
+        sink = LineageSink(batch_size=2)
+        rows = [sink.reserve(DatabaseRow(populated_table=self.populated_table, row_identifier=f'loan {index}'))
+                for index in range(3)]
+        values = [sink.reserve(DatabaseColumnValue(row=row, column=self.amount, value=1.0)) for row in rows]
+
+        self.assertEqual(len({row.pk for row in rows}), 3)
+        self.assertEqual([value.row_id for value in values], [row.pk for row in rows])
+        self.assertFalse(DatabaseRow.objects.filter(populated_table=self.populated_table).exists())
+
+        created = DatabaseRow.objects.create(populated_table=self.populated_table, row_identifier='created')
+        sink.close()
+
+        self.assertNotIn(created.pk, [row.pk for row in rows])
+        self.assertEqual(
+            sorted(DatabaseColumnValue.objects.filter(row__populated_table=self.populated_table)
+                   .values_list('row__row_identifier', flat=True)),
+            ['loan 0', 'loan 1', 'loan 2'])
+
+    def test_rows_are_saved_at_once_where_ids_cannot_be_reserved(self):
+        sink = LineageSink()
+
+        with patch.object(LineageSink, 'reserve_ids', return_value=None):
+            row = sink.reserve(DatabaseRow(populated_table=self.populated_table, row_identifier='loan'))
+
+        self.assertEqual(len(sink), 0)
+        self.assertTrue(DatabaseRow.objects.filter(pk=row.pk).exists())
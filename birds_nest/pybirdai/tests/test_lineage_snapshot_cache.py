@@ -0,0 +1,120 @@
+import os
+import tempfile
+from unittest.mock import patch
+
+from django.db.models.signals import post_save
+from django.test import SimpleTestCase, TestCase
+
+from pybirdai.models.bird_meta_data_model import DOMAIN, MEMBER
+from pybirdai.process_steps.pybird import lineage_snapshot_cache as snapshot_module
+from pybirdai.process_steps.pybird.lineage_snapshot_cache import LineageSnapshotCache
+
+
+class FakeQuerySet:
+    model = MEMBER
+    query = 'SELECT * FROM pybirdai_member'
+
+    def __init__(self, row_count, max_pk, checksum='1-2-3-4'):
+        self.totals = {'row_count': row_count, 'max_pk': max_pk}
+        self.content_checksum = checksum
+
+    def order_by(self, *fields):
+        return self
+
+    def aggregate(self, **aggregates):
+        return self.totals
+
+
+class LineageSnapshotCacheTests(SimpleTestCase):
+    def setUp(self):
+        directory = tempfile.TemporaryDirectory()
+        self.addCleanup(directory.cleanup)
+        self.cache = LineageSnapshotCache(os.path.join(directory.name, 'snapshots'))
+        self.csv_path = os.path.join(directory.name, 'MEMBER_longnames.csv')
+        with open(self.csv_path, 'w', encoding='utf-8') as csv_file:
+            csv_file.write('MEMBER_ID\nM_1\n')
+        for patcher in (
+            patch.object(snapshot_module, '_shared_cache', self.cache),
+            patch.object(LineageSnapshotCache, 'checksum',
+                         staticmethod(lambda queryset: queryset.content_checksum)),
+        ):
+            patcher.start()
+            self.addCleanup(patcher.stop)
+
+    def remember(self, row_count=1, max_pk='M_1'):
+        fingerprint = LineageSnapshotCache.fingerprint(FakeQuerySet(row_count, max_pk))
+        self.cache.remember(self.csv_path, fingerprint, LineageSnapshotCache.change_count(MEMBER))
+        os.remove(self.csv_path)
+        return fingerprint
+
+    def test_an_unchanged_table_is_restored(self):
+        fingerprint = self.remember()
+
+        self.assertTrue(self.cache.restore(self.csv_path, LineageSnapshotCache.fingerprint(FakeQuerySet(1, 'M_1'))))
+        self.assertEqual(self.cache.restored_count, 1)
+        self.assertEqual(fingerprint['max_pk'], 'M_1')
+        with open(self.csv_path, encoding='utf-8') as csv_file:
+            self.assertEqual(csv_file.read(), 'MEMBER_ID\nM_1\n')
+
+    def test_a_new_row_misses(self):
+        self.remember()
+
+        self.assertFalse(self.cache.restore(self.csv_path, LineageSnapshotCache.fingerprint(FakeQuerySet(2, 'M_2'))))
+        self.assertFalse(os.path.exists(self.csv_path))
+
+    def test_an_edit_this_process_did_not_see_misses(self):
+        # Written by an earlier process, then edited by raw SQL: no receiver
+        # fired, only the checksum differs
+        self.remember()
+
+        self.assertFalse(self.cache.restore(
+            self.csv_path, LineageSnapshotCache.fingerprint(FakeQuerySet(1, 'M_1', checksum='5-6-7-8'))))
+
+    def test_an_edit_that_keeps_the_count_makes_the_snapshot_stale(self):
+        fingerprint = self.remember()
+
+        post_save.send(sender=MEMBER, instance=MEMBER(member_id='M_1'), created=False,
+                       raw=False, using='default', update_fields=None)
+
+        self.assertFalse(self.cache.restore(self.csv_path, fingerprint))
+
+    def test_an_edit_to_a_referenced_model_makes_the_snapshot_stale(self):
+        fingerprint = self.remember()
+
+        post_save.send(sender=DOMAIN, instance=DOMAIN(domain_id='D_1'), created=False,
+                       raw=False, using='default', update_fields=None)
+
+        self.assertFalse(self.cache.restore(self.csv_path, fingerprint))
+
+    def test_a_csv_rendered_while_its_model_changed_is_not_remembered(self):
+        fingerprint = LineageSnapshotCache.fingerprint(FakeQuerySet(1, 'M_1'))
+        change_count = LineageSnapshotCache.change_count(MEMBER)
+        self.cache.model_changed(MEMBER)
+
+        self.cache.remember(self.csv_path, fingerprint, change_count)
+
+        self.assertEqual(self.cache.written_count, 0)
+        self.assertFalse(self.cache.restore(self.csv_path, fingerprint))
+
+
+class LineageSnapshotChecksumTests(TestCase):
+    def setUp(self):
+        domain = DOMAIN.objects.create(domain_id='D_1')
+        for index in range(3):
+            MEMBER.objects.create(member_id=f'M_{index}', name=f'member {index}', domain_id=domain)
+
+    def test_the_checksum_follows_the_column_values(self):
+        checksum = LineageSnapshotCache.checksum(MEMBER.objects.all())
+
+        self.assertEqual(LineageSnapshotCache.checksum(MEMBER.objects.order_by('-member_id')), checksum)
+        # update() sends no signals, like an edit made by another process
+        MEMBER.objects.filter(member_id='M_1').update(name='renamed')
+        self.assertNotEqual(LineageSnapshotCache.checksum(MEMBER.objects.all()), checksum)
+        MEMBER.objects.filter(member_id='M_1').update(name='member 1')
+        self.assertEqual(LineageSnapshotCache.checksum(MEMBER.objects.all()), checksum)
+
+    def test_filters_and_empty_selections(self):
+        self.assertNotEqual(LineageSnapshotCache.checksum(MEMBER.objects.filter(member_id='M_0')),
+                            LineageSnapshotCache.checksum(MEMBER.objects.all()))
+        self.assertIsNone(LineageSnapshotCache.checksum(MEMBER.objects.none()))
+        self.assertIsNone(LineageSnapshotCache.checksum(MEMBER.objects.filter(member_id='missing')))
@@ -0,0 +1,126 @@
+import os
+import tempfile
+from unittest.mock import patch
+
+from django.contrib.contenttypes.models import ContentType
+from django.test import TestCase
+
+from pybirdai.context.context import Context
+from pybirdai.models import (
+    DatabaseColumnValue, DatabaseField, DatabaseRow, DatabaseTable, DerivedRowSourceReference,
+    DerivedTable, DerivedTableRow, EvaluatedDerivedTable, EvaluatedFunction,
+    EvaluatedFunctionSourceValue, Function, FunctionText, MetaDataTrail, PopulatedDataBaseTable,
+    Trail,
+)
+from pybirdai.process_steps.pybird import lineage_store
+from pybirdai.process_steps.pybird.lineage_store import ArchivedTrailRows, TrailRows, archive_trail_if_configured
+
+
+def snapshot(trail_rows, loans, report, function):
+    """Everything the lineage views read through TrailRows, as plain values."""
+    database_rows = [
+        (row.id, row.row_identifier,
+         [(value.id, value.value, value.string_value, value.row_id, value.column.name)
+          for value in row.column_values.all()])
+        for row in trail_rows.database_rows(loans)
+    ]
+    derived_rows = [
+        (row.id, row.row_identifier,
+         [(value.id, value.value, value.string_value, value.row_id, value.function.name)
+          for value in row.evaluated_functions.all()])
+        for row in trail_rows.derived_rows(report)
+    ]
+    column_value_id = database_rows[0][2][0][0]
+    function_value_id = derived_rows[0][2][0][0]
+    column_value = trail_rows.column_value(column_value_id)
+    evaluated_function = trail_rows.evaluated_function(function_value_id)
+    return {
+        'database_rows': database_rows,
+        'derived_rows': derived_rows,
+        'counts': (trail_rows.database_row_count(loans), trail_rows.derived_row_count(report)),
+        'row_sources': trail_rows.row_sources(evaluated_table_ids=[report.id]),
+        'row_sources_of_one_row': trail_rows.row_sources(derived_row_ids=[derived_rows[0][0]], limit=1),
+        'value_sources': trail_rows.value_sources([report.id]),
+        'column_value': (column_value.value, column_value.string_value, column_value.row_id,
+                         column_value.column.name),
+        'evaluated_function': (evaluated_function.value, evaluated_function.row_id,
+                               evaluated_function.function.table.name),
+        'missing_value': trail_rows.column_value(0),
+        'table_names': trail_rows.derived_row_table_names([row[0] for row in derived_rows]),
+        'function_values': (trail_rows.has_function_values([function.id], evaluated_table=report),
+                            trail_rows.has_function_values(evaluated_table=report),
+                            trail_rows.has_function_values([0])),
+    }
+
+
+class ColumnarTrailMoveTests(TestCase):
+    def setUp(self):
+        self.trail = Trail.objects.create(name='move', metadata_trail=MetaDataTrail.objects.create())
+        loans_table = DatabaseTable.objects.create(name='LOANS')
+        amount = DatabaseField.objects.create(name='AMOUNT', table=loans_table)
+        currency = DatabaseField.objects.create(name='CURRENCY', table=loans_table)
+        report_table = DerivedTable.objects.create(name='F_01_01_REF')
+        self.function = Function.objects.create(
+            name='F_01_01_REF.TOTAL', table=report_table, function_text=FunctionText.objects.create(text='sum'))
+        self.loans = PopulatedDataBaseTable.objects.create(trail=self.trail, table=loans_table)
+        self.report = EvaluatedDerivedTable.objects.create(trail=self.trail, table=report_table)
+
+        values = []
+        for index in range(3):
+            row = DatabaseRow.objects.create(populated_table=self.loans, row_identifier=f'loan {index}')
+            values.append(DatabaseColumnValue.objects.create(row=row, column=amount, value=100.0 * index))
+            DatabaseColumnValue.objects.create(row=row, column=currency, string_value='EUR')
+        output_row = DerivedTableRow.objects.create(populated_table=self.report, row_identifier=None)
+        total = EvaluatedFunction.objects.create(row=output_row, function=self.function, value=300.0)
+        for value in values:
+            DerivedRowSourceReference.objects.create(
+                derived_row=output_row, content_type=ContentType.objects.get_for_model(DatabaseRow),
+                object_id=value.row_id)
+            EvaluatedFunctionSourceValue.objects.create(
+                evaluated_function=total, content_type=ContentType.objects.get_for_model(value),
+                object_id=value.id)
+
+        directory = tempfile.TemporaryDirectory()
+        self.addCleanup(directory.cleanup)
+        for patcher in (
+            patch.object(lineage_store, '_store_directory', return_value=directory.name),
+            patch.object(Context, 'lineage_storage_backend', lineage_store.BACKEND_COLUMNAR),
+            patch.object(Context, 'columnar_lineage_min_rows', 1),
+        ):
+            patcher.start()
+            self.addCleanup(patcher.stop)
+
+    def test_archiving_moves_the_rows_out_of_the_database(self):
+        path = archive_trail_if_configured(self.trail)
+
+        self.assertTrue(os.path.exists(path))
+        for model, trail_filter in (
+            (DatabaseRow, 'populated_table__trail'),
+            (DatabaseColumnValue, 'row__populated_table__trail'),
+            (DerivedTableRow, 'populated_table__trail'),
+            (EvaluatedFunction, 'row__populated_table__trail'),
+            (DerivedRowSourceReference, 'derived_row__populated_table__trail'),
+            (EvaluatedFunctionSourceValue, 'evaluated_function__row__populated_table__trail'),
+        ):
+            self.assertFalse(model.objects.filter(**{trail_filter: self.trail}).exists(), model.__name__)
+        self.assertTrue(PopulatedDataBaseTable.objects.filter(trail=self.trail).exists())
+
+    def test_small_trails_stay_in_the_database(self):
+        with patch.object(Context, 'columnar_lineage_min_rows', 5):
+            self.assertIsNone(archive_trail_if_configured(self.trail))
+
+        self.assertEqual(DatabaseRow.objects.filter(populated_table__trail=self.trail).count(), 3)
+
+    def test_moved_rows_read_the_same_as_the_database_rows(self):
+        with TrailRows.for_trail(self.trail) as trail_rows:
+            self.assertNotIsInstance(trail_rows, ArchivedTrailRows)
+            expected = snapshot(trail_rows, self.loans, self.report, self.function)
+
+        archive_trail_if_configured(self.trail)
+
+        with TrailRows.for_trail(self.trail) as trail_rows:
+            self.assertIsInstance(trail_rows, ArchivedTrailRows)
+            self.assertEqual(snapshot(trail_rows, self.loans, self.report, self.function), expected)
+        self.assertEqual(expected['counts'], (3, 1))
+        self.assertEqual(len(expected['value_sources']), 3)
+        self.assertEqual(expected['row_sources'][0].source_type, 'databaserow')
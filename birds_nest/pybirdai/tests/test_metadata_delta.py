@@ -0,0 +1,75 @@
+from django.test import SimpleTestCase
+
+from pybirdai.models.bird_meta_data_model import (
+    CUBE_STRUCTURE_ITEM,
+    CUBE_STRUCTURE_ITEM_LINK,
+    DOMAIN,
+    MAINTENANCE_AGENCY,
+    MEMBER,
+)
+from pybirdai.utils.clone_mode.metadata_delta import (
+    ContentIndex,
+    ContentTableDiff,
+    KeyedTableDiff,
+    RowDigester,
+    dependency_order,
+)
+
+
+class MetadataDeltaDiffTests(SimpleTestCase):
+    def test_keyed_rows_are_compared_on_their_primary_key(self):
+        diff = KeyedTableDiff({'A': 'digest-a', 'B': 'digest-b', 'C': 'digest-c'})
+
+        exported = [diff.add('A', 'digest-a'), diff.add('B', 'changed'), diff.add('D', 'digest-d')]
+
+        self.assertEqual(exported, [False, True, True])
+        self.assertEqual(diff.deleted(), ['C'])
+        self.assertEqual(diff.rows, {'A': 'digest-a', 'B': 'changed', 'D': 'digest-d'})
+
+    def test_content_rows_are_compared_as_a_multiset(self):
+        diff = ContentTableDiff({'same': 2, 'gone': 1})
+
+        exported = [diff.add('same'), diff.add('new'), diff.add('same'), diff.add('same')]
+
+        self.assertEqual(exported, [False, True, False, True])
+        self.assertEqual(diff.deleted(), {'gone': 1})
+        self.assertEqual(diff.changed, 2)
+
+    def test_tables_without_previous_state_are_exported_in_full(self):
+        diff = ContentTableDiff(None)
+
+        self.assertTrue(diff.add('digest'))
+        self.assertEqual(diff.deleted(), {})
+
+    def test_content_index_hands_out_each_row_once(self):
+        index = ContentIndex()
+        for row_id, digest in ((1, 'a'), (2, 'a'), (3, 'b')):
+            index.add(row_id, digest)
+
+        self.assertEqual(index.take('a', 1), [1])
+        self.assertEqual(index.first('a'), 2)
+        self.assertEqual(index.take('missing', 1), [])
+        self.assertNotIn(1, index.by_id)
+
+
+class MetadataDeltaModelTests(SimpleTestCase):
+    def test_referenced_tables_come_first(self):
+        table_models = {
+            model._meta.db_table: model
+            for model in (MEMBER, CUBE_STRUCTURE_ITEM_LINK, DOMAIN, MAINTENANCE_AGENCY, CUBE_STRUCTURE_ITEM)
+        }
+
+        order = dependency_order(table_models)
+
+        self.assertEqual(set(order), set(table_models))
+        for before, after in (('pybirdai_maintenance_agency', 'pybirdai_domain'),
+                              ('pybirdai_domain', 'pybirdai_member'),
+                              ('pybirdai_cube_structure_item', 'pybirdai_cube_structure_item_link')):
+            self.assertLess(order.index(before), order.index(after))
+
+    def test_auto_id_references_are_exported_by_content(self):
+        fields = {field.name: field for field in RowDigester.fields(CUBE_STRUCTURE_ITEM_LINK)}
+
+        self.assertTrue(RowDigester.is_content_reference(fields['foreign_cube_variable_code']))
+        self.assertFalse(RowDigester.is_content_reference(fields['cube_link_id']))
+        self.assertNotIn('id', {field.name for field in RowDigester.fields(CUBE_STRUCTURE_ITEM)})
@@ -0,0 +1,40 @@
+from django.db.models.signals import post_delete, post_save
+from django.test import SimpleTestCase
+
+from pybirdai.models.bird_meta_data_model import MEMBER
+from pybirdai.process_steps.pybird import orchestration
+from pybirdai.process_steps.pybird.orchestration import (
+    _get_shared_derived_table,
+    _reference_queryset_cache,
+    _remember_shared_derived_table,
+    shared_reference_cache,
+    watch_input_model,
+)
+
+
+class InputDataCacheInvalidationTests(SimpleTestCase):
+    def setUp(self):
+        watch_input_model(MEMBER)
+        self.addCleanup(orchestration._watched_input_models.discard, MEMBER)
+        self.addCleanup(post_save.disconnect, sender=MEMBER, dispatch_uid='input_data_save_pybirdai.MEMBER')
+        self.addCleanup(post_delete.disconnect, sender=MEMBER, dispatch_uid='input_data_delete_pybirdai.MEMBER')
+
+    def test_an_edit_between_two_executions_is_picked_up(self):
+        with shared_reference_cache():
+            loans = object()
+            _reference_queryset_cache.get()[MEMBER] = {'rows': [], 'queryset': None, 'csv_persisted': True}
+            _remember_shared_derived_table('LOANS_Table', loans)
+            self.assertIs(_get_shared_derived_table('LOANS_Table'), loans)
+
+            post_save.send(sender=MEMBER, instance=MEMBER(member_id='M_1'), created=False,
+                           raw=False, using='default', update_fields=None)
+
+            self.assertIsNone(_get_shared_derived_table('LOANS_Table'))
+            self.assertEqual(_reference_queryset_cache.get(), {})
+
+    def test_deleting_a_row_invalidates_the_derived_tables(self):
+        version = orchestration.get_input_data_version()
+
+        post_delete.send(sender=MEMBER, instance=MEMBER(member_id='M_1'), using='default', origin=None)
+
+        self.assertEqual(orchestration.get_input_data_version(), version + 1)
@@ -0,0 +1,99 @@
+from unittest.mock import patch
+
+from django.db.models.signals import post_delete, post_save
+from django.test import SimpleTestCase, override_settings
+
+from pybirdai.models.bird_meta_data_model import DOMAIN, MAINTENANCE_AGENCY, MEMBER
+from pybirdai.process_steps.pybird import orchestration, reference_data_cache
+from pybirdai.process_steps.pybird.orchestration import _reference_queryset_cache, shared_reference_cache
+from pybirdai.process_steps.pybird.reference_data_cache import (
+    ReferenceDataCache,
+    process_reference_cache,
+    process_reference_data_cache,
+)
+
+
+def entry(*rows):
+    return {'queryset': None, 'rows': list(rows), 'csv_persisted': True}
+
+
+class ReferenceDataCacheTests(SimpleTestCase):
+    def make_cache(self, **kwargs):
+        cache = ReferenceDataCache(validate_table_state=False, **kwargs)
+        self.addCleanup(self.disconnect, cache)
+        return cache
+
+    @staticmethod
+    def disconnect(cache):
+        for model in cache._connected_models:
+            post_save.disconnect(sender=model, dispatch_uid=f'reference_data_cache_save_{id(cache)}_{model._meta.label}')
+            post_delete.disconnect(sender=model, dispatch_uid=f'reference_data_cache_delete_{id(cache)}_{model._meta.label}')
+
+    def test_a_second_execution_reuses_the_rows(self):
+        cache = self.make_cache()
+        cache[MEMBER] = entry('M_1', 'M_2')
+
+        cached = cache.get(MEMBER)
+
+        self.assertEqual(cached['rows'], ['M_1', 'M_2'])
+        # results/lineage is emptied between executions
+        self.assertFalse(cached['csv_persisted'])
+        self.assertEqual(cache.stats(), {'models': 1, 'rows': 2, 'hits': 1, 'misses': 0})
+
+    def test_saving_a_row_drops_only_that_model(self):
+        cache = self.make_cache()
+        cache[MEMBER] = entry('M_1')
+        cache[DOMAIN] = entry('D_1')
+
+        post_save.send(sender=MEMBER, instance=MEMBER(member_id='M_1'), created=False,
+                       raw=False, using='default', update_fields=None)
+
+        self.assertIsNone(cache.get(MEMBER))
+        self.assertIsNotNone(cache.get(DOMAIN))
+
+    def test_a_new_input_data_version_misses(self):
+        cache = self.make_cache()
+        cache[MEMBER] = entry('M_1')
+
+        with patch.object(orchestration, '_input_data_version', orchestration.get_input_data_version() + 1):
+            self.assertIsNone(cache.get(MEMBER))
+        self.assertEqual(cache.misses, 1)
+        self.assertNotIn(MEMBER, cache)
+
+    def test_a_raw_import_is_caught_by_the_table_state(self):
+        cache = ReferenceDataCache()
+        self.addCleanup(self.disconnect, cache)
+        with patch.object(reference_data_cache, '_table_state', return_value=(1, 'M_1')):
+            cache[MEMBER] = entry('M_1')
+            self.assertIsNotNone(cache.get(MEMBER))
+        with patch.object(reference_data_cache, '_table_state', return_value=(2, 'M_2')):
+            self.assertIsNone(cache.get(MEMBER))
+
+    def test_least_recently_used_models_are_evicted_first(self):
+        cache = self.make_cache(max_rows=3)
+        cache[MEMBER] = entry('M_1')
+        cache[DOMAIN] = entry('D_1')
+        cache.get(MEMBER)
+
+        cache[MAINTENANCE_AGENCY] = entry('A_1', 'A_2')
+
+        self.assertEqual(cache.keys(), [MEMBER, MAINTENANCE_AGENCY])
+        self.assertEqual(cache.stats()['rows'], 3)
+
+    def test_a_batch_keeps_its_own_cache_inside_interactive_executions(self):
+        with process_reference_cache():
+            self.assertIs(_reference_queryset_cache.get(), process_reference_data_cache())
+
+        with shared_reference_cache():
+            batch_cache = _reference_queryset_cache.get()
+            with process_reference_cache():
+                self.assertIs(_reference_queryset_cache.get(), batch_cache)
+
+        self.assertIsNone(_reference_queryset_cache.get())
+
+    @override_settings(PYBIRDAI_REFERENCE_CACHE_MAX_MODELS=8, PYBIRDAI_REFERENCE_CACHE_MAX_ROWS=500)
+    def test_the_process_cache_is_bounded_by_the_settings(self):
+        with patch.object(reference_data_cache, '_process_cache', None):
+            cache = process_reference_data_cache()
+
+        self.assertEqual((cache.max_models, cache.max_rows), (8, 500))
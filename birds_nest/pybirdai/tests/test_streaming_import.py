@@ -0,0 +1,98 @@
+import io
+import zipfile
+
+from django.test import SimpleTestCase
+
+from pybirdai.models.bird_meta_data_model import (
+    CUBE_STRUCTURE_ITEM,
+    CUBE_STRUCTURE_ITEM_LINK,
+    DOMAIN,
+    MAINTENANCE_AGENCY,
+    MEMBER,
+)
+from pybirdai.utils.clone_mode.streaming_import import (
+    TableLoad,
+    chunked,
+    open_csv_member,
+    plan_levels,
+)
+
+
+def convert_value(field, value, defer_foreign_keys=False):
+    return value or None
+
+
+class StreamingImportPlanTests(SimpleTestCase):
+    def test_tables_load_after_the_tables_they_reference(self):
+        table_models = {
+            model._meta.db_table: model
+            for model in (MEMBER, CUBE_STRUCTURE_ITEM_LINK, DOMAIN, MAINTENANCE_AGENCY, CUBE_STRUCTURE_ITEM)
+        }
+        order = ['pybirdai_maintenance_agency', 'pybirdai_domain', 'pybirdai_member',
+                 'pybirdai_cube_structure_item', 'pybirdai_cube_structure_item_link']
+
+        self.assertEqual(plan_levels(table_models, order), [
+            ['pybirdai_maintenance_agency', 'pybirdai_cube_structure_item'],
+            ['pybirdai_domain', 'pybirdai_cube_structure_item_link'],
+            ['pybirdai_member'],
+        ])
+
+    def test_tables_outside_the_import_order_load_last_one_at_a_time(self):
+        table_models = {model._meta.db_table: model for model in (MEMBER, DOMAIN)}
+
+        self.assertEqual(plan_levels(table_models, ['pybirdai_domain']), [
+            ['pybirdai_domain'],
+            ['pybirdai_member'],
+        ])
+
+
+class StreamingImportConversionTests(SimpleTestCase):
+    def test_chunks_are_read_from_the_zip_member(self):
+        buffer = io.BytesIO()
+        with zipfile.ZipFile(buffer, 'w') as zip_file:
+            zip_file.writestr('member.csv', 'A,B\n1,"two, quoted"\n3,4\n5,6\n')
+
+        with zipfile.ZipFile(buffer) as zip_file, open_csv_member(zip_file, 'member.csv') as reader:
+            header = next(reader)
+            chunks = list(chunked(reader, 2))
+
+        self.assertEqual(header, ['A', 'B'])
+        self.assertEqual(chunks, [[['1', 'two, quoted'], ['3', '4']], [['5', '6']]])
+
+    def test_foreign_keys_are_converted_without_loading_related_objects(self):
+        load = TableLoad(
+            'member.csv', 'member.csv', 'pybirdai_member', MEMBER,
+            {0: 'maintenance_agency_id', 1: 'member_id', 2: 'code', 4: 'domain_id'},
+            convert_value, {},
+        )
+        load.configure(['MAINTENANCE_AGENCY_ID', 'MEMBER_ID', 'CODE', 'NAME', 'DOMAIN_ID'])
+
+        chunk = load.convert([
+            ['ECB', 'M1', '1', '', 'DOM'],
+            ['', '', '', '', ''],
+            ['ECB', 'M1', 'duplicate', '', 'DOM'],
+            ['ECB', 'M2', '2', '', ''],
+        ])
+
+        self.assertEqual([member.member_id for member in chunk.objects], ['M1', 'M2'])
+        self.assertEqual(chunk.objects[0].domain_id_id, 'DOM')
+        self.assertIsNone(chunk.objects[1].domain_id_id)
+        self.assertEqual(chunk.references['pybirdai_domain'][1], {'DOM'})
+        self.assertEqual(chunk.references['pybirdai_maintenance_agency'][1], {'ECB'})
+        self.assertEqual(load.duplicates, 1)
+
+    def test_auto_id_references_go_through_the_exported_id_map(self):
+        load = TableLoad(
+            'cube_structure_item_link.csv', 'cube_structure_item_link.csv',
+            'pybirdai_cube_structure_item_link', CUBE_STRUCTURE_ITEM_LINK,
+            {0: 'cube_structure_item_link_id', 2: 'foreign_cube_variable_code', 3: 'primary_cube_variable_code'},
+            convert_value, {'pybirdai_cube_structure_item': {7: 107, 8: 108}},
+        )
+        load.configure(['CUBE_STRUCTURE_ITEM_LINK_ID', 'CUBE_LINK_ID', 'FOREIGN', 'PRIMARY'])
+
+        chunk = load.convert([['L1', '', '7', '8.0'], ['L2', '', '9', '7']])
+
+        self.assertEqual(chunk.objects[0].foreign_cube_variable_code_id, 107)
+        self.assertEqual(chunk.objects[0].primary_cube_variable_code_id, 108)
+        self.assertIsNone(chunk.objects[1].foreign_cube_variable_code_id)
+        self.assertEqual(load.unresolved, 1)
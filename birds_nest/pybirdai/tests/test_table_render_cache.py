@@ -0,0 +1,69 @@
+from datetime import date
+from decimal import Decimal
+from unittest.mock import patch
+
+from django.test import SimpleTestCase
+
+from pybirdai.services import table_render_cache as render_cache_module
+from pybirdai.services.table_render_cache import TableRenderCache
+from pybirdai.services.table_rendering_service import TableRenderingService
+
+
+class TableRenderCacheTests(SimpleTestCase):
+    def test_entries_are_served_for_the_version_they_were_rendered_at(self):
+        cache = TableRenderCache()
+        version = (0, None)
+        result = {'success': True}
+        cache.put('F_01_01', version, result, b'{"success": true}')
+
+        self.assertEqual(cache.get('F_01_01', version), (result, b'{"success": true}'))
+        self.assertIsNone(cache.get('F_01_01', (1, None)))
+
+    def test_invalidate_discards_entries_and_late_renders(self):
+        cache = TableRenderCache()
+        version = (0, None)
+        cache.put('F_01_01', version, {}, b'{}')
+
+        cache.invalidate()
+        cache.put('F_01_02', version, {}, b'{}')
+
+        self.assertEqual(cache.stats()['tables'], 0)
+        self.assertIsNone(cache.get('F_01_01', (1, None)))
+
+    def test_least_recently_used_tables_are_evicted(self):
+        cache = TableRenderCache(max_tables=2)
+        version = (0, None)
+        cache.put('A', version, {}, b'1')
+        cache.put('B', version, {}, b'2')
+        cache.get('A', version)
+        cache.put('C', version, {}, b'3')
+
+        self.assertIsNone(cache.get('B', version))
+        self.assertEqual(cache.get('A', version), ({}, b'1'))
+        self.assertEqual(cache.stats()['bytes'], 2)
+
+
+class CachedRenderTableTests(SimpleTestCase):
+    def setUp(self):
+        cache = TableRenderCache()
+        for patcher in (patch.object(render_cache_module, '_render_cache', cache),
+                        patch.object(cache, 'metadata_version', return_value=(0, None))):
+            patcher.start()
+            self.addCleanup(patcher.stop)
+
+    def test_a_cached_render_keeps_its_value_types_and_is_copied(self):
+        rendered = {'success': True, 'reference_date': date(2024, 12, 31),
+                    'rows': [{'ordinate': Decimal('1.5'), 'span': (1, 2)}]}
+
+        with patch.object(TableRenderingService, '_render_table_uncached', return_value=rendered) as render:
+            first = TableRenderingService.render_table('F_01_01')
+            first['rows'][0]['annotation'] = 'changed by a caller'
+            second = TableRenderingService.render_table('F_01_01')
+            payload = TableRenderingService.render_table_json('F_01_01')
+
+        self.assertEqual(render.call_count, 1)
+        self.assertEqual(second, rendered)
+        self.assertIsInstance(second['reference_date'], date)
+        self.assertIsInstance(second['rows'][0]['ordinate'], Decimal)
+        self.assertEqual(second['rows'][0]['span'], (1, 2))
+        self.assertIn(b'"2024-12-31"', payload)
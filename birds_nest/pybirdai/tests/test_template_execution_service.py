@@ -0,0 +1,68 @@
+from types import SimpleNamespace
+from unittest import mock
+
+from django.test import RequestFactory, SimpleTestCase
+
+from pybirdai.services.template_execution_service import TemplateExecutionService
+from pybirdai.views.workflow.dpm import interactive_report_views
+
+
+def make_cell(combination_id):
+    table = SimpleNamespace(table_id='F_01_01', code='F_01.01_REF', version='FINREP 3.0')
+    return SimpleNamespace(cell_id=f'cell_{combination_id}', table_cell_combination_id=combination_id,
+                           is_shaded=False, table_id=table)
+
+
+def cell_class(*table_refs):
+    return type('Cell', (), {'__table_refs__': list(table_refs)})
+
+
+class TemplateExecutionPlanTests(SimpleTestCase):
+    def test_cells_are_grouped_by_product_tables(self):
+        report_cells = SimpleNamespace(
+            Cell_F_01_01_REF_FINREP_3_0_1_REF=cell_class('Loans_Table'),
+            Cell_F_01_01_REF_FINREP_3_0_2_REF=cell_class('Debt_securities_Table'),
+            Cell_F_01_01_REF_FINREP_3_0_3_REF=cell_class('Loans_Table'),
+        )
+        cells = [make_cell(combination) for combination in ('EBA_1', 'EBA_2', 'EBA_3', 'EBA_4')]
+
+        with mock.patch('pybirdai.services.template_execution_service.importlib.import_module',
+                        return_value=report_cells):
+            groups = TemplateExecutionService.plan(cells)
+
+        self.assertEqual(
+            [(group.product_tables, [cell.cell_id for cell in group.cells]) for group in groups],
+            [
+                ((), ['cell_EBA_4']),
+                (('Debt_securities_Table',), ['cell_EBA_2']),
+                (('Loans_Table',), ['cell_EBA_1', 'cell_EBA_3']),
+            ],
+        )
+
+
+class ExecuteAllStreamTests(SimpleTestCase):
+    def stream(self, query):
+        result = SimpleNamespace(cell_id='cell_EBA_1', success=True, value=120, formatted_value='120',
+                                 error=None, error_code=None, datapoint_id='F_01_01_REF_FINREP_3_0_1')
+        events = [
+            {'event': 'result', 'completed': 1, 'total': 1, 'result': result},
+            {'event': 'complete', 'completed': 1, 'total': 1, 'errors': 0, 'duration_ms': 1},
+        ]
+        request = RequestFactory().get('/pybirdai/api/report/F_01_01/execute-all/stream/', query)
+        with mock.patch.object(TemplateExecutionService, 'execute', return_value=iter(events)) as execute:
+            response = interactive_report_views.api_execute_all_stream(request, 'F_01_01')
+            content = b''.join(response.streaming_content).decode()
+        return execute.call_args.args, content
+
+    def test_cells_keep_their_lineage_unless_the_caller_opts_out(self):
+        self.assertEqual(self.stream({})[0], ('F_01_01', None, True))
+        self.assertEqual(self.stream({'lineage': '0', 'cell_ids': 'cell_EBA_1'})[0],
+                         ('F_01_01', ['cell_EBA_1'], False))
+
+    def test_each_result_is_sent_as_a_progress_event(self):
+        _, content = self.stream({'lineage': '0'})
+
+        self.assertIn('event: progress\ndata: {"completed": 1, "total": 1, "cell_id": "cell_EBA_1", '
+                      '"success": true, "result": 120', content)
+        self.assertTrue(content.endswith('event: complete\ndata: {"completed": 1, "total": 1, '
+                                         '"errors": 0, "duration_ms": 1}\n\n'))
@@ -16,6 +16,7 @@ from .views import joins_metadata_embed_views
 from .api import lineage_api
 from .api import enhanced_lineage_api
 from .api import enhanced_lineage_api_v2
+from .api import lineage_graph_api
 from .api import ancrdt_tables_graph_api
 from .views import ancrdt_tables_graph_views
 from .views import bpmn_metadata_lineage_views
@@ -516,6 +517,22 @@ urlpatterns = [
         enhanced_lineage_api_v2.get_lineage_sankey_data,
         name="get_lineage_sankey_data",
     ),
+    # Paginated lineage graph API for large trails
+    path(
+        "api/trail/<int:trail_id>/lineage-graph/nodes/",
+        lineage_graph_api.get_lineage_graph_nodes,
+        name="get_lineage_graph_nodes",
+    ),
+    path(
+        "api/trail/<int:trail_id>/lineage-graph/edges/",
+        lineage_graph_api.get_lineage_graph_edges,
+        name="get_lineage_graph_edges",
+    ),
+    path(
+        "api/trail/<int:trail_id>/lineage-graph/expand/",
+        lineage_graph_api.expand_lineage_graph_node,
+        name="expand_lineage_graph_node",
+    ),
     path(
         "api/trail/<int:trail_id>/debug/",
         lambda request, trail_id: __import__(
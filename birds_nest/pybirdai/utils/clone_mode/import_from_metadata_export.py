@@ -63,6 +63,7 @@ class CSVDataImporter:
         self.column_mappings = {}
         self.results_dir = results_dir
         self.id_mappings = {}  # Track ID mappings for models with auto-generated IDs
+        self.pk_maps = {}  # Exported ID -> new pk for auto-ID tables loaded by import_zip_streaming
         # Define allowed table names to prevent SQL injection
         self.allowed_table_names = set()
         self._build_model_map()
@@ -1075,6 +1076,47 @@ class CSVDataImporter:
                 logger.error(f"SQLite stdout: {e.stdout}")
             raise
 
+    def _clear_table(self, model_class, table_name):
+        """Delete every row of a table before it is imported again"""
+        existing_count = model_class.objects.count()
+        logger.info(
+            "Table %s has %s existing records before import",
+            sanitize_log_value(table_name),
+            sanitize_log_value(existing_count),
+        )
+        if existing_count > 0:
+            # Use raw SQL for more efficient clearing and proper foreign key handling
+            # Validate table_name against allowed tables before using in raw SQL to prevent SQL injection
+            allowed_tables = set(self.model_map.keys())  # Model map should use canonical table names
+            # SQLite can have table names with/without "pybirdai_" prefix
+            if table_name not in allowed_tables:
+                raise Exception(f"Blocked potentially unsafe table_name: {table_name}")
+            if not self._is_safe_table_name(table_name):
+                raise Exception(f"Unsafe table name (violates allowed character rules): {table_name}")
+            table_name = model_class._meta.db_table
+            quoted_table_name = connection.ops.quote_name(table_name)
+            with connection.cursor() as cursor:
+                # Disable foreign key constraints for SQLite during clearing
+                if connection.vendor == 'sqlite':
+                    cursor.execute("PRAGMA foreign_keys = 0;")
+                
+                # Delete all records from the table
+                cursor.execute(f"DELETE FROM {quoted_table_name};")
+                
+                # For SQLite, also reset the auto-increment counter if it exists
+                if connection.vendor == 'sqlite':
+                    cursor.execute("DELETE FROM sqlite_sequence WHERE name=%s;", [table_name])
+                    cursor.execute("PRAGMA foreign_keys = 1;")
+                
+            logger.info(f"Cleared {existing_count} existing records from {table_name}")
+            
+            # Verify clearing worked
+            remaining_count = model_class.objects.count()
+            logger.info(f"After clearing, table {table_name} has {remaining_count} records")
+            
+            if remaining_count > 0:
+                raise Exception(f"Failed to clear table {table_name}. Still has {remaining_count} records after clearing.")
+
     def import_csv_file(self, csv_filename, csv_content, use_fast_import=False):
         """Import a single CSV file using column index mappings
         
@@ -1328,44 +1370,7 @@ class CSVDataImporter:
         logger.info(f"Final adjusted column mapping: {adjusted_column_mapping}")
 
         # Clear existing data in the table first with proper foreign key handling
-        existing_count = model_class.objects.count()
-        logger.info(
-            "Table %s has %s existing records before import",
-            sanitize_log_value(table_name),
-            sanitize_log_value(existing_count),
-        )
-        if existing_count > 0:
-            # Use raw SQL for more efficient clearing and proper foreign key handling
-            # Validate table_name against allowed tables before using in raw SQL to prevent SQL injection
-            allowed_tables = set(self.model_map.keys())  # Model map should use canonical table names
-            # SQLite can have table names with/without "pybirdai_" prefix
-            if table_name not in allowed_tables:
-                raise Exception(f"Blocked potentially unsafe table_name: {table_name}")
-            if not self._is_safe_table_name(table_name):
-                raise Exception(f"Unsafe table name (violates allowed character rules): {table_name}")
-            table_name = model_class._meta.db_table
-            quoted_table_name = connection.ops.quote_name(table_name)
-            with connection.cursor() as cursor:
-                # Disable foreign key constraints for SQLite during clearing
-                if connection.vendor == 'sqlite':
-                    cursor.execute("PRAGMA foreign_keys = 0;")
-                
-                # Delete all records from the table
-                cursor.execute(f"DELETE FROM {quoted_table_name};")
-                
-                # For SQLite, also reset the auto-increment counter if it exists
-                if connection.vendor == 'sqlite':
-                    cursor.execute("DELETE FROM sqlite_sequence WHERE name=%s;", [table_name])
-                    cursor.execute("PRAGMA foreign_keys = 1;")
-                
-            logger.info(f"Cleared {existing_count} existing records from {table_name}")
-            
-            # Verify clearing worked
-            remaining_count = model_class.objects.count()
-            logger.info(f"After clearing, table {table_name} has {remaining_count} records")
-            
-            if remaining_count > 0:
-                raise Exception(f"Failed to clear table {table_name}. Still has {remaining_count} records after clearing.")
+        self._clear_table(model_class, table_name)
 
         # First pass: collect all foreign key references
         foreign_key_refs = {}
@@ -2097,6 +2102,67 @@ class CSVDataImporter:
         logger.info(f"Completed ordered CSV strings import. Processed {len(results)} files")
         return results
 
+    def import_zip_streaming(self, zip_path_or_bytes, members=None, max_workers=None, chunk_rows=None):
+        """Import the CSV files of an export zip without reading them into memory.
+
+        Members are read through zipfile.open and written in chunks, tables
+        that do not depend on each other are read concurrently. See
+        streaming_import.py.
+
+        Args:
+            zip_path_or_bytes: Path to zip file or bytes content
+            members: {CSV filename: zip member name}; by default the CSV files at the root of the zip
+            max_workers: Reader threads, 0 to read on the calling thread
+            chunk_rows: Rows converted and written at a time
+
+        Returns:
+            Dict of results per CSV file, like import_from_csv_strings_ordered
+        """
+        from pybirdai.utils.clone_mode.streaming_import import StreamingZipImport
+
+        if members is None:
+            source = io.BytesIO(zip_path_or_bytes) if isinstance(zip_path_or_bytes, bytes) else zip_path_or_bytes
+            with zipfile.ZipFile(source, 'r') as zip_file:
+                members = {
+                    name: name for name in zip_file.namelist()
+                    if name.endswith('.csv') and '/' not in name
+                }
+        logger.info(f"Starting streaming import of {len(members)} CSV files")
+        results = StreamingZipImport(
+            self, zip_path_or_bytes, members, max_workers=max_workers, chunk_rows=chunk_rows
+        ).run()
+        self._save_results(results, "streaming_zip_import")
+        return results
+
+    def apply_delta_zip(self, zip_path_or_bytes, force=False):
+        """Apply a metadata delta written by the delta export.
+
+        Changed rows are upserted and deleted rows removed in one
+        transaction. The applied state is recorded in the results directory,
+        and a delta computed from another state is refused unless force is set.
+
+        Args:
+            zip_path_or_bytes: Path to the delta zip or bytes content
+            force: Apply even when the delta does not follow the last applied one
+
+        Returns:
+            Dict of {table name: {'changed': count, 'deleted': count}}
+        """
+        from pybirdai.utils.clone_mode.metadata_delta import APPLIED_STATE_FILENAME, apply_metadata_delta
+
+        logger.info("Applying metadata delta")
+        results = apply_metadata_delta(
+            self, zip_path_or_bytes,
+            os.path.join(self.results_dir, APPLIED_STATE_FILENAME),
+            force=force,
+        )
+        self._save_results(
+            {table_name: {'success': True, 'imported_count': counts['changed']}
+             for table_name, counts in results.items()},
+            "delta_import",
+        )
+        return results
+
     def _is_enhanced_format(self, zip_file):
         """Check if zip uses enhanced format (has manifest.json or database/ folder)."""
         namelist = zip_file.namelist()
@@ -2299,7 +2365,7 @@ class CSVDataImporter:
                    f"{results['skipped']} skipped")
         return results
 
-    def import_from_enhanced_zip(self, zip_path_or_bytes, use_fast_import=False):
+    def import_from_enhanced_zip(self, zip_path_or_bytes, use_fast_import=False, streaming=True):
         """Import from enhanced zip format with database, filter code, and derivation files.
 
         This method handles both legacy (flat CSV) and enhanced (structured) export formats.
@@ -2307,6 +2373,7 @@ class CSVDataImporter:
         Args:
             zip_path_or_bytes: Path to zip file or bytes content
             use_fast_import: If True, use fast SQL-based import for database
+            streaming: Import the database through import_zip_streaming, unless use_fast_import is set
 
         Returns:
             Dict with import results
@@ -2342,7 +2409,7 @@ class CSVDataImporter:
                 logger.info(f"Read manifest: version={results['manifest'].get('version')}")
 
             # Collect CSV files for database import
-            csv_files_data = {}
+            csv_members = {}
 
             for name in zip_file.namelist():
                 if is_enhanced:
@@ -2350,16 +2417,21 @@ class CSVDataImporter:
                     if name.startswith('database/') and name.endswith('.csv'):
                         basename = os.path.basename(name)
                         if basename:
-                            csv_content = zip_file.read(name).decode('utf-8')
-                            csv_files_data[basename] = csv_content
+                            csv_members[basename] = name
                 else:
                     # Legacy format: CSVs are at root level
                     if name.endswith('.csv') and '/' not in name:
-                        csv_content = zip_file.read(name).decode('utf-8')
-                        csv_files_data[name] = csv_content
+                        csv_members[name] = name
 
             # Import database tables
-            if csv_files_data:
+            if csv_members and streaming and not use_fast_import:
+                logger.info(f"Streaming {len(csv_members)} database CSV files")
+                results['database'] = self.import_zip_streaming(zip_path_or_bytes, csv_members)
+            elif csv_members:
+                csv_files_data = {
+                    filename: zip_file.read(name).decode('utf-8')
+                    for filename, name in csv_members.items()
+                }
                 logger.info(f"Importing {len(csv_files_data)} database CSV files")
                 results['database'] = self.import_from_csv_strings_ordered(
                     csv_files_data, use_fast_import=use_fast_import
@@ -2382,37 +2454,19 @@ class CSVDataImporter:
         logger.info(f"Completed enhanced import: format={results['format']}")
         return results
 
-def import_bird_data_from_csv_export(path_or_content, use_fast_import=False):
-    """
-    Convenience function to import bird data from a CSV export.
-
-    Args:
-        path_or_content: Either a file path (string) to a zip file, folder, or CSV file, or file content (bytes) for zip
-        use_fast_import: If True, use fast SQL-based import method
+    def import_from_path_ordered(self, path, use_fast_import=False, streaming=True):
+        """Import CSV files from a path in dependency order
 
-    Returns:
-        Dictionary with import results for each CSV file
-    """
-    logger.info("Starting bird data import from CSV export")
-    importer = CSVDataImporter()
-
-    # If it's bytes, treat as zip content
-    if isinstance(path_or_content, bytes):
-        logger.info("Processing as zip file content (bytes)")
-        result = importer.import_zip_file(path_or_content)
-        importer._save_results(result, "bird_data_import_bytes")
-    else:
-        logger.info(f"Processing as file path: {path_or_content}")
-        result = importer.import_from_path(path_or_content)
-        importer._save_results(result, "bird_data_import_path")
-
-    logger.info("Completed bird data import from CSV export")
-    return result
-
-    def import_from_path_ordered(self, path, use_fast_import=False):
-        """Import CSV files from a path in dependency order"""
+        Zip files are imported through import_zip_streaming when streaming is
+        set and use_fast_import is not.
+        """
         logger.info(f"Starting ordered import from path: {path} (fast_import={use_fast_import})")
 
+        if os.path.isfile(path) and path.endswith('.zip') and streaming and not use_fast_import:
+            with zipfile.ZipFile(path, 'r') as zip_file:
+                csv_members = {name: name for name in zip_file.namelist() if name.endswith('.csv')}
+            return self.import_zip_streaming(path, csv_members)
+
         # First, collect all available CSV files
         csv_files_data = {}
 
@@ -2488,6 +2542,33 @@ def import_bird_data_from_csv_export(path_or_content, use_fast_import=False):
         logger.info(f"Completed ordered import. Processed {len(results)} files")
         return results
 
+def import_bird_data_from_csv_export(path_or_content, use_fast_import=False):
+    """
+    Convenience function to import bird data from a CSV export.
+
+    Args:
+        path_or_content: Either a file path (string) to a zip file, folder, or CSV file, or file content (bytes) for zip
+        use_fast_import: If True, use fast SQL-based import method
+
+    Returns:
+        Dictionary with import results for each CSV file
+    """
+    logger.info("Starting bird data import from CSV export")
+    importer = CSVDataImporter()
+
+    # If it's bytes, treat as zip content
+    if isinstance(path_or_content, bytes):
+        logger.info("Processing as zip file content (bytes)")
+        result = importer.import_zip_file(path_or_content)
+        importer._save_results(result, "bird_data_import_bytes")
+    else:
+        logger.info(f"Processing as file path: {path_or_content}")
+        result = importer.import_from_path(path_or_content)
+        importer._save_results(result, "bird_data_import_path")
+
+    logger.info("Completed bird data import from CSV export")
+    return result
+
 def import_bird_data_from_csv_export_ordered(path_or_content, use_fast_import=False):
     """
     Convenience function to import bird data from a CSV export in dependency order.
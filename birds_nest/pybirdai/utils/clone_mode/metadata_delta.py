@@ -0,0 +1,518 @@
+# coding=UTF-8
+# Copyright (c) 2025 Arfa Digital Consulting
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Benjamin Arfa - initial API and implementation
+#
+"""
+Delta exports of the metadata tables.
+
+A full export writes every row of every table. A delta export writes only
+the rows that changed or were deleted since the previous delta export, so
+two environments can be kept in sync by moving the delta zip alone.
+
+The metadata tables have no modification timestamps, so changes are found
+through row digests. Every export stores the digest of each row in a state
+file, and the next export compares against it:
+- Tables with an explicit primary key are compared row by row on the key.
+  Changed rows are written in full and deleted rows by key.
+- Tables using Django's auto id are compared by row content. Their ids are
+  generated anew on every import and differ between environments. A changed
+  row is a deleted digest plus an added row. A foreign key to such a table
+  is written as the digest of the referenced row, and resolved to a local id
+  when the delta is applied.
+- A table missing from the previous state is written in full and replaces
+  the table when the delta is applied.
+
+Zip layout:
+    manifest.json            base state, new state and per-table counts
+    changed/<table>.csv      changed or added rows, with a header
+    deleted/<table>.csv      deleted keys, or DIGEST,COUNT for auto id tables
+
+A delta applies on top of the state it was computed from. apply_metadata_delta
+refuses a delta whose base state is not the last one applied, unless forced.
+"""
+
+import csv
+import gzip
+import hashlib
+import inspect
+import io
+import json
+import logging
+import os
+import shutil
+import tempfile
+import uuid
+import zipfile
+from datetime import date, datetime
+
+from django.db import connection, models, transaction
+
+from pybirdai.utils.clone_mode.streaming_import import has_explicit_pk
+from pybirdai.utils.secure_logging import sanitize_log_value
+
+logger = logging.getLogger(__name__)
+
+DELTA_FORMAT_VERSION = '1.0'
+STATE_FILENAME = 'metadata_delta_state.json.gz'
+APPLIED_STATE_FILENAME = 'metadata_delta_applied.json'
+KEY_BY_PK = 'pk'
+KEY_BY_CONTENT = 'content'
+MODE_DELTA = 'delta'
+MODE_FULL = 'full'
+DIGEST_SIZE = 8
+ROW_CHUNK_SIZE = 5000
+# Keys per DELETE statement, below SQLite's variable limit
+DELETE_BATCH_SIZE = 900
+# Changed rows kept in memory before spilling to disk during an export
+SPOOL_MAX_BYTES = 16 * 1024 * 1024
+
+
+def metadata_models():
+    """{table name: model class} of the metadata tables, as in the full export."""
+    from pybirdai.models import bird_meta_data_model
+
+    table_models = {}
+    for name, obj in inspect.getmembers(bird_meta_data_model):
+        if inspect.isclass(obj) and issubclass(obj, models.Model) and obj != models.Model:
+            table_models[obj._meta.db_table] = obj
+    return table_models
+
+
+def dependency_order(table_models):
+    """Table names with every table after the tables it references, else by name."""
+    ordered = []
+    visiting = set()
+
+    def visit(table_name):
+        if table_name in ordered or table_name in visiting:
+            return
+        visiting.add(table_name)
+        for field in table_models[table_name]._meta.fields:
+            if isinstance(field, models.ForeignKey):
+                related_table = field.related_model._meta.db_table
+                if related_table in table_models:
+                    visit(related_table)
+        visiting.discard(table_name)
+        ordered.append(table_name)
+
+    for table_name in sorted(table_models):
+        visit(table_name)
+    return ordered
+
+
+def format_value(value):
+    if value is None:
+        return ''
+    if isinstance(value, (date, datetime)):
+        return value.isoformat()
+    return str(value)
+
+
+def row_digest(values):
+    return hashlib.blake2b('\x1f'.join(values).encode('utf-8'), digest_size=DIGEST_SIZE).hexdigest()
+
+
+def key_kind(model_class):
+    return KEY_BY_PK if has_explicit_pk(model_class) else KEY_BY_CONTENT
+
+
+class ContentIndex:
+    """Ids and digests of the rows of an auto id table."""
+
+    def __init__(self):
+        self.by_id = {}
+        self.by_digest = {}
+
+    def add(self, row_id, digest):
+        self.by_id[row_id] = digest
+        self.by_digest.setdefault(digest, []).append(row_id)
+
+    def take(self, digest, count):
+        """Remove and return up to count ids of rows with the digest."""
+        row_ids = self.by_digest.get(digest, [])
+        taken, self.by_digest[digest] = row_ids[:count], row_ids[count:]
+        for row_id in taken:
+            self.by_id.pop(row_id, None)
+        return taken
+
+    def first(self, digest):
+        row_ids = self.by_digest.get(digest)
+        return row_ids[0] if row_ids else None
+
+
+class RowDigester:
+    """Formats and digests metadata rows the same way on the exporting and the applying side."""
+
+    def __init__(self):
+        self._indexes = {}
+
+    @staticmethod
+    def fields(model_class):
+        """Exported fields: all of them except the auto id."""
+        explicit_pk = has_explicit_pk(model_class)
+        return [field for field in model_class._meta.fields if explicit_pk or not field.primary_key]
+
+    @staticmethod
+    def is_content_reference(field):
+        return isinstance(field, models.ForeignKey) and not has_explicit_pk(field.related_model)
+
+    def headers(self, model_class):
+        return [field.name.upper() for field in self.fields(model_class)]
+
+    def rows(self, model_class):
+        """Yield (pk, digest, formatted values) for every row of a table."""
+        fields = self.fields(model_class)
+        references = {
+            position: self.index(field.related_model)
+            for position, field in enumerate(fields)
+            if self.is_content_reference(field) and field.related_model is not model_class
+        }
+        query = model_class.objects.order_by('pk').values_list('pk', *[field.attname for field in fields])
+        for pk, *raw_values in query.iterator(chunk_size=ROW_CHUNK_SIZE):
+            values = [
+                references[position].by_id.get(value, '') if position in references and value is not None
+                else format_value(value)
+                for position, value in enumerate(raw_values)
+            ]
+            yield pk, row_digest(values), values
+
+    def reset_index(self, model_class):
+        """Start an empty ContentIndex for a table that was just cleared."""
+        index = self._indexes[model_class._meta.db_table] = ContentIndex()
+        return index
+
+    def index(self, model_class):
+        """ContentIndex of an auto id table, read once and then kept up to date by the caller."""
+        table_name = model_class._meta.db_table
+        index = self._indexes.get(table_name)
+        if index is None:
+            index = self._indexes[table_name] = ContentIndex()
+            for pk, digest, _ in self.rows(model_class):
+                index.add(pk, digest)
+        return index
+
+
+class KeyedTableDiff:
+    """Row changes of a table with an explicit primary key."""
+
+    def __init__(self, previous_rows):
+        self.previous_rows = previous_rows
+        self.rows = {}
+        self.changed = 0
+
+    def add(self, key, digest):
+        """Record a current row. Returns whether it has to be exported."""
+        self.rows[key] = digest
+        if self.previous_rows is not None and self.previous_rows.get(key) == digest:
+            return False
+        self.changed += 1
+        return True
+
+    def deleted(self):
+        if self.previous_rows is None:
+            return []
+        return [key for key in self.previous_rows if key not in self.rows]
+
+
+class ContentTableDiff:
+    """Row changes of an auto id table, as a multiset of row digests."""
+
+    def __init__(self, previous_rows):
+        self.full = previous_rows is None
+        self.unmatched = dict(previous_rows or {})
+        self.rows = {}
+        self.changed = 0
+
+    def add(self, digest):
+        """Record a current row. Returns whether it has to be exported."""
+        self.rows[digest] = self.rows.get(digest, 0) + 1
+        remaining = self.unmatched.get(digest, 0)
+        if remaining:
+            self.unmatched[digest] = remaining - 1
+            return False
+        self.changed += 1
+        return True
+
+    def deleted(self):
+        return {digest: count for digest, count in self.unmatched.items() if count}
+
+
+def load_state(state_path):
+    if not state_path or not os.path.exists(state_path):
+        return None
+    with gzip.open(state_path, 'rt', encoding='utf-8') as f:
+        return json.load(f)
+
+
+def _save_state(state_path, state):
+    temp_path = f"{state_path}.tmp"
+    with gzip.open(temp_path, 'wt', encoding='utf-8') as f:
+        json.dump(state, f, separators=(',', ':'))
+    os.replace(temp_path, state_path)
+
+
+def _add_member(zip_file, name, spool):
+    spool.seek(0)
+    with zip_file.open(name, 'w') as member:
+        shutil.copyfileobj(spool, member)
+
+
+def export_metadata_delta(zip_file_path, state_path, rebase=False):
+    """
+    Write the metadata rows changed since the previous delta export.
+
+    Args:
+        zip_file_path: Delta zip to write
+        state_path: State file of the previous export, replaced by the new state
+        rebase: Ignore the previous state and write every table in full
+
+    Returns:
+        The manifest written to the zip
+    """
+    previous = None if rebase else load_state(state_path)
+    previous_tables = previous['tables'] if previous else {}
+    table_models = metadata_models()
+    digester = RowDigester()
+    state = {'state_id': uuid.uuid4().hex, 'tables': {}}
+    manifest = {
+        'version': DELTA_FORMAT_VERSION,
+        'format': 'delta',
+        'exported_at': datetime.now().isoformat(),
+        'base_state': previous['state_id'] if previous else None,
+        'state': state['state_id'],
+        'tables': {},
+        'unchanged_tables': 0,
+    }
+
+    temp_zip_path = f"{zip_file_path}.tmp"
+    full_tables = set()
+    with zipfile.ZipFile(temp_zip_path, 'w', zipfile.ZIP_DEFLATED) as zip_file:
+        for table_name in dependency_order(table_models):
+            model_class = table_models[table_name]
+            kind = key_kind(model_class)
+            previous_table = previous_tables.get(table_name)
+            previous_rows = previous_table['rows'] if previous_table and previous_table['key'] == kind else None
+            # Rows referencing a rewritten auto id table must be rewritten as well,
+            # because the referenced rows get new ids where the delta is applied
+            if any(RowDigester.is_content_reference(field) and field.related_model._meta.db_table in full_tables
+                   for field in model_class._meta.fields):
+                previous_rows = None
+            mode = MODE_FULL if previous_rows is None else MODE_DELTA
+            if mode == MODE_FULL:
+                full_tables.add(table_name)
+            diff = KeyedTableDiff(previous_rows) if kind == KEY_BY_PK else ContentTableDiff(previous_rows)
+
+            with tempfile.SpooledTemporaryFile(max_size=SPOOL_MAX_BYTES) as spool:
+                text = io.TextIOWrapper(spool, encoding='utf-8', newline='')
+                writer = csv.writer(text)
+                writer.writerow(digester.headers(model_class))
+                for pk, digest, values in digester.rows(model_class):
+                    exported = diff.add(format_value(pk), digest) if kind == KEY_BY_PK else diff.add(digest)
+                    if exported:
+                        writer.writerow(values)
+                text.flush()
+                text.detach()
+                state['tables'][table_name] = {'key': kind, 'rows': diff.rows}
+                deleted = diff.deleted()
+                # A table written in full replaces the table, even when it is empty
+                if mode == MODE_DELTA and not diff.changed and not deleted:
+                    manifest['unchanged_tables'] += 1
+                    continue
+                if diff.changed:
+                    _add_member(zip_file, f'changed/{table_name}.csv', spool)
+
+            if deleted:
+                with zip_file.open(f'deleted/{table_name}.csv', 'w') as member:
+                    text = io.TextIOWrapper(member, encoding='utf-8', newline='')
+                    writer = csv.writer(text)
+                    if kind == KEY_BY_PK:
+                        writer.writerow([model_class._meta.pk.name.upper()])
+                        writer.writerows([key] for key in deleted)
+                    else:
+                        writer.writerow(['DIGEST', 'COUNT'])
+                        writer.writerows(sorted(deleted.items()))
+                    text.flush()
+                    text.detach()
+
+            manifest['tables'][table_name] = {
+                'key': kind,
+                'mode': mode,
+                'changed': diff.changed,
+                'deleted': len(deleted) if kind == KEY_BY_PK else sum(deleted.values()),
+            }
+            logger.info(
+                "Delta of %s (%s): %s changed, %s deleted",
+                sanitize_log_value(table_name), mode, diff.changed, manifest['tables'][table_name]['deleted'],
+            )
+
+        zip_file.writestr('manifest.json', json.dumps(manifest, indent=2))
+
+    os.replace(temp_zip_path, zip_file_path)
+    _save_state(state_path, state)
+    logger.info(
+        "Wrote metadata delta with %s changed tables, %s unchanged",
+        len(manifest['tables']), manifest['unchanged_tables'],
+    )
+    return manifest
+
+
+def _read_applied_state(applied_state_path):
+    if not applied_state_path or not os.path.exists(applied_state_path):
+        return None
+    with open(applied_state_path, encoding='utf-8') as f:
+        return json.load(f).get('state_id')
+
+
+def _delete_rows(model_class, column, keys):
+    quoted_table = connection.ops.quote_name(model_class._meta.db_table)
+    quoted_column = connection.ops.quote_name(column)
+    keys = list(keys)
+    with connection.cursor() as cursor:
+        for start in range(0, len(keys), DELETE_BATCH_SIZE):
+            batch = keys[start:start + DELETE_BATCH_SIZE]
+            placeholders = ', '.join(['%s'] * len(batch))
+            cursor.execute(f"DELETE FROM {quoted_table} WHERE {quoted_column} IN ({placeholders})", batch)
+
+
+def _read_member(zip_file, name):
+    with zip_file.open(name) as raw:
+        reader = csv.reader(io.TextIOWrapper(raw, encoding='utf-8', newline=''))
+        header = next(reader, [])
+        for row in reader:
+            if any(row):
+                yield header, row
+
+
+def apply_metadata_delta(importer, zip_path_or_bytes, applied_state_path, force=False):
+    """
+    Apply a delta zip written by export_metadata_delta, in one transaction.
+
+    Args:
+        importer: CSVDataImporter used for value conversion and table clearing
+        zip_path_or_bytes: Path to the delta zip or its content
+        applied_state_path: File recording the state of the last applied delta
+        force: Apply even when the delta was computed from another state
+
+    Returns:
+        {table name: {'changed': rows written, 'deleted': rows deleted}}
+
+    Raises:
+        ValueError: For a zip that is not a delta, or a delta on another base state
+    """
+    source = io.BytesIO(zip_path_or_bytes) if isinstance(zip_path_or_bytes, bytes) else zip_path_or_bytes
+    with zipfile.ZipFile(source, 'r') as zip_file:
+        manifest = json.loads(zip_file.read('manifest.json').decode('utf-8'))
+        if manifest.get('format') != 'delta':
+            raise ValueError("Not a metadata delta export")
+        applied_state = _read_applied_state(applied_state_path)
+        base_state = manifest.get('base_state')
+        if not force and base_state is not None and applied_state != base_state:
+            raise ValueError(
+                f"Delta was computed from state {base_state}, but the last applied state is {applied_state}"
+            )
+
+        table_models = metadata_models()
+        names = set(zip_file.namelist())
+        digester = RowDigester()
+        results = {}
+        with transaction.atomic():
+            for table_name in dependency_order(table_models):
+                info = manifest['tables'].get(table_name)
+                if info is None:
+                    continue
+                results[table_name] = _apply_table(
+                    importer, zip_file, names, digester, table_models[table_name], info,
+                )
+
+    with open(applied_state_path, 'w', encoding='utf-8') as f:
+        json.dump({'state_id': manifest['state'], 'applied_at': datetime.now().isoformat()}, f)
+    logger.info("Applied metadata delta %s to %s tables", manifest['state'], len(results))
+    return results
+
+
+def _apply_table(importer, zip_file, names, digester, model_class, info):
+    table_name = model_class._meta.db_table
+    explicit_pk = info['key'] == KEY_BY_PK
+    index = None
+    deleted = 0
+
+    if info['mode'] == MODE_FULL:
+        importer._clear_table(model_class, table_name)
+        if not explicit_pk:
+            index = digester.reset_index(model_class)
+    else:
+        if not explicit_pk:
+            index = digester.index(model_class)
+    if info['mode'] == MODE_DELTA and f'deleted/{table_name}.csv' in names:
+        if explicit_pk:
+            keys = [row[0] for _, row in _read_member(zip_file, f'deleted/{table_name}.csv')]
+            _delete_rows(model_class, model_class._meta.pk.column, keys)
+            deleted = len(keys)
+        else:
+            row_ids = []
+            for _, (digest, count) in _read_member(zip_file, f'deleted/{table_name}.csv'):
+                row_ids.extend(index.take(digest, int(count)))
+            _delete_rows(model_class, model_class._meta.pk.column, row_ids)
+            deleted = len(row_ids)
+
+    changed = 0
+    member_name = f'changed/{table_name}.csv'
+    if member_name in names:
+        fields = {field.name.upper(): field for field in digester.fields(model_class)}
+        batch_size = importer._calculate_optimal_batch_size(model_class)
+        pending = []
+        for header, row in _read_member(zip_file, member_name):
+            pending.append((row_digest(row), _build_instance(importer, digester, model_class, fields, header, row)))
+            if len(pending) >= ROW_CHUNK_SIZE:
+                changed += _write_rows(model_class, pending, batch_size, index)
+                pending = []
+        if pending:
+            changed += _write_rows(model_class, pending, batch_size, index)
+
+    logger.info(
+        "Applied delta of %s: %s changed, %s deleted",
+        sanitize_log_value(table_name), changed, deleted,
+    )
+    return {'changed': changed, 'deleted': deleted}
+
+
+def _build_instance(importer, digester, model_class, fields, header, row):
+    values = {}
+    for column, value in zip(header, row):
+        field = fields.get(column)
+        if field is None or value == '':
+            continue
+        if digester.is_content_reference(field):
+            values[field.attname] = digester.index(field.related_model).first(value)
+        elif isinstance(field, models.ForeignKey):
+            values[field.attname] = field.related_model._meta.pk.to_python(value)
+        else:
+            values[field.name] = importer._convert_value(field, value)
+    return model_class(**values)
+
+
+def _write_rows(model_class, pending, batch_size, index):
+    objects = [obj for _, obj in pending]
+    if index is None:
+        update_fields = [field.name for field in model_class._meta.concrete_fields if not field.primary_key]
+        model_class.objects.bulk_create(
+            objects, batch_size=batch_size,
+            update_conflicts=bool(update_fields),
+            unique_fields=[model_class._meta.pk.name] if update_fields else None,
+            update_fields=update_fields or None,
+            ignore_conflicts=not update_fields,
+        )
+    else:
+        created = model_class.objects.bulk_create(objects, batch_size=batch_size)
+        for (digest, _), obj in zip(pending, created):
+            if obj.pk is not None:
+                index.add(obj.pk, digest)
+    return len(objects)
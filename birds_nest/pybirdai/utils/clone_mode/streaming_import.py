@@ -0,0 +1,471 @@
+# coding=UTF-8
+# Copyright (c) 2025 Arfa Digital Consulting
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Benjamin Arfa - initial API and implementation
+#
+"""
+Streaming import of a metadata export zip.
+
+CSVDataImporter.import_csv_file takes the whole text of a CSV file, parses it
+into lists and, for large tables, writes it out again to a temporary CSV for
+the sqlite3 command line tool. Here each zip member is read through
+zipfile.open and converted in chunks of STREAM_CHUNK_ROWS rows, so only a few
+chunks are held in memory at any time.
+
+Foreign keys are converted without loading the related objects:
+- To a model with an explicit primary key, the CSV value is the key. Keys
+  that do not exist yet are first created as empty rows, as import_csv_file
+  does. Rows loaded later with the same key replace them.
+- To a model with Django's auto id, the exported ID is looked up in the
+  {exported ID: new pk} map recorded while that table was loaded.
+
+Tables are loaded in levels, where a table's level is one more than the
+highest level of the tables it references. The tables of a level are read
+and converted concurrently in worker threads. SQLite only takes one writer at
+a time, so the calling thread writes the converted chunks and the workers
+never touch the database.
+"""
+
+import csv
+import io
+import itertools
+import logging
+import queue
+import threading
+import time
+import zipfile
+from concurrent.futures import ThreadPoolExecutor
+from contextlib import contextmanager
+
+from django.db import models
+
+from pybirdai.utils.secure_logging import sanitize_log_value
+
+logger = logging.getLogger(__name__)
+
+STREAM_CHUNK_ROWS = 5000
+STREAM_IMPORT_WORKERS = 4
+# Converted chunks waiting for the writer, per worker
+STREAM_QUEUED_CHUNKS_PER_WORKER = 2
+EMPTY_VALUES = ('', 'None', 'NULL')
+
+# Queue item marking that a worker has read its whole member
+_DONE = object()
+
+
+def has_explicit_pk(model_class):
+    return any(field.primary_key for field in model_class._meta.fields if field.name != 'id')
+
+
+@contextmanager
+def open_csv_member(zip_file, member_name):
+    """Iterate over the rows of a CSV member of a zip, header included."""
+    with zip_file.open(member_name) as raw:
+        yield csv.reader(io.TextIOWrapper(raw, encoding='utf-8', newline=''))
+
+
+def chunked(rows, chunk_rows):
+    """Yield lists of up to chunk_rows rows."""
+    rows = iter(rows)
+    chunk = list(itertools.islice(rows, chunk_rows))
+    while chunk:
+        yield chunk
+        chunk = list(itertools.islice(rows, chunk_rows))
+
+
+def plan_levels(table_models, import_order):
+    """
+    Group tables into levels whose tables can be loaded at the same time.
+
+    Args:
+        table_models: {table name: model class} of the tables to load
+        import_order: Table names in dependency order
+
+    Returns:
+        List of lists of table names. The tables of import_order come first;
+        a table only depends on tables of earlier levels. The other tables
+        follow one per level, in the order of table_models.
+    """
+    levels = {}
+    for table_name in import_order:
+        model_class = table_models.get(table_name)
+        if model_class is None:
+            continue
+        level = 0
+        for field in model_class._meta.fields:
+            if isinstance(field, models.ForeignKey):
+                related_table = field.related_model._meta.db_table
+                if related_table != table_name and related_table in levels:
+                    level = max(level, levels[related_table] + 1)
+        levels[table_name] = level
+
+    planned = [[] for _ in range(max(levels.values(), default=-1) + 1)]
+    for table_name, level in levels.items():
+        planned[level].append(table_name)
+    planned.extend([table_name] for table_name in table_models if table_name not in levels)
+    return planned
+
+
+class ConvertedChunk:
+    """Model instances converted from one chunk of CSV rows."""
+
+    __slots__ = ('objects', 'old_ids', 'references', 'row_errors', 'first_error')
+
+    def __init__(self):
+        self.objects = []
+        # Exported ID of each object, for tables using Django's auto id
+        self.old_ids = []
+        # {related table: (related model, keys)} of explicit primary key references
+        self.references = {}
+        self.row_errors = 0
+        self.first_error = None
+
+
+class TableLoad:
+    """
+    Conversion of the rows of one CSV member into model instances.
+
+    configure() and convert() run on a worker thread and only read pk_maps
+    entries of tables loaded in earlier levels.
+    """
+
+    def __init__(self, csv_filename, member_name, table_name, model_class, column_mapping,
+                 convert_value, pk_maps):
+        self.csv_filename = csv_filename
+        self.member_name = member_name
+        self.table_name = table_name
+        self.model_class = model_class
+        self.column_mapping = column_mapping
+        self.convert_value = convert_value
+        self.pk_maps = pk_maps
+        self.explicit_pk = has_explicit_pk(model_class)
+        self.tracks_ids = False
+        self.columns = []
+        self.seen_pks = set()
+        self.imported_count = 0
+        self.row_errors = 0
+        self.duplicates = 0
+        self.unresolved = 0
+        self.stubs = 0
+        self.failed = False
+        self.started = None
+
+    def configure(self, headers):
+        """Map the CSV columns to model fields, as import_csv_file does."""
+        has_id_column = bool(headers) and headers[0].upper() == 'ID'
+        self.tracks_ids = has_id_column and not self.explicit_pk
+        offset = 1 if self.tracks_ids else 0
+        model_fields = {field.name: field for field in self.model_class._meta.fields}
+
+        self.columns = []
+        for column_index, field_name in self.column_mapping.items():
+            field = model_fields.get(field_name)
+            if field is None:
+                continue
+            if isinstance(field, models.ForeignKey):
+                related_model = field.related_model
+                kind = 'key' if has_explicit_pk(related_model) else 'auto_id'
+            else:
+                kind = 'value'
+            self.columns.append((column_index + offset, field, kind))
+
+    def convert(self, rows):
+        chunk = ConvertedChunk()
+        for row in rows:
+            if not any(row):
+                continue
+            try:
+                old_id, obj = self._convert_row(row, chunk.references)
+            except Exception as e:
+                chunk.row_errors += 1
+                if chunk.first_error is None:
+                    chunk.first_error = e
+                continue
+            if self.explicit_pk:
+                if obj.pk is None:
+                    chunk.row_errors += 1
+                    if chunk.first_error is None:
+                        chunk.first_error = ValueError("row without a primary key")
+                    continue
+                if obj.pk in self.seen_pks:
+                    self.duplicates += 1
+                    continue
+                self.seen_pks.add(obj.pk)
+            chunk.objects.append(obj)
+            chunk.old_ids.append(old_id)
+        return chunk
+
+    def _convert_row(self, row, references):
+        old_id = None
+        if self.tracks_ids and row[0].strip():
+            old_id = int(float(row[0].strip()))
+
+        values = {}
+        for column_index, field, kind in self.columns:
+            if column_index >= len(row):
+                continue
+            value = row[column_index].strip()
+            if kind == 'value':
+                converted = self.convert_value(field, value, defer_foreign_keys=True)
+                if converted is not None:
+                    values[field.name] = converted
+                continue
+            if value in EMPTY_VALUES:
+                continue
+            related_model = field.related_model
+            related_table = related_model._meta.db_table
+            if kind == 'key':
+                key = related_model._meta.pk.to_python(value)
+                values[field.attname] = key
+                references.setdefault(related_table, (related_model, set()))[1].add(key)
+            else:
+                new_pk = self.pk_maps.get(related_table, {}).get(int(float(value)))
+                if new_pk is None:
+                    self.unresolved += 1
+                else:
+                    values[field.attname] = new_pk
+        return old_id, self.model_class(**values)
+
+
+class StreamingZipImport:
+    """
+    Load the CSV members of an export zip into the database, level by level.
+
+    Example:
+        results = StreamingZipImport(importer, 'export.zip', members).run()
+    """
+
+    def __init__(self, importer, zip_path_or_bytes, members, max_workers=None, chunk_rows=None):
+        """
+        Args:
+            importer: CSVDataImporter providing the model map, column mappings and import order
+            zip_path_or_bytes: Path to the zip file or its content
+            members: {CSV filename: zip member name} of the files to import
+            max_workers: Reader threads. 0 reads and writes on the calling thread.
+            chunk_rows: Rows converted and written at a time
+        """
+        self.importer = importer
+        self.zip_source = zip_path_or_bytes
+        self.max_workers = STREAM_IMPORT_WORKERS if max_workers is None else max_workers
+        self.chunk_rows = chunk_rows or STREAM_CHUNK_ROWS
+        self.pk_maps = importer.pk_maps
+        # {table name: primary keys in the database} of explicit primary key tables
+        self.known_keys = {}
+        self.results = {}
+        self.loads = {}
+        for csv_filename, member_name in members.items():
+            self._add(csv_filename, member_name)
+
+    def _add(self, csv_filename, member_name):
+        importer = self.importer
+        table_name = importer._get_table_name_from_csv_filename(csv_filename)
+        if "bird" in csv_filename or table_name not in importer.model_map \
+                or table_name not in importer.column_mappings:
+            # Skipped with an empty result, as import_csv_file does
+            logger.info("Not importing %s", sanitize_log_value(csv_filename))
+            self.results[csv_filename] = {'success': True, 'imported_count': 0}
+            return
+        if table_name in self.loads:
+            logger.warning(
+                "Ignoring %s: %s is already imported from %s",
+                sanitize_log_value(csv_filename),
+                sanitize_log_value(table_name),
+                sanitize_log_value(self.loads[table_name].csv_filename),
+            )
+            return
+        self.loads[table_name] = TableLoad(
+            csv_filename, member_name, table_name,
+            importer.model_map[table_name],
+            importer.column_mappings[table_name],
+            importer._convert_value,
+            self.pk_maps,
+        )
+
+    def run(self):
+        """Import every member. Returns {CSV filename: result} like import_from_csv_strings_ordered."""
+        started = time.perf_counter()
+        levels = plan_levels(
+            {table_name: load.model_class for table_name, load in self.loads.items()},
+            self.importer._get_import_order(),
+        )
+        for index, table_names in enumerate(levels):
+            logger.info("Importing level %s: %s", index, ", ".join(table_names))
+            self._run_level([self.loads[table_name] for table_name in table_names])
+
+        imported = sum(result.get('imported_count', 0) for result in self.results.values())
+        logger.info(
+            "Streaming import of %s files finished: %s rows in %.1fs",
+            len(self.results), imported, time.perf_counter() - started,
+        )
+        return self.results
+
+    def _run_level(self, loads):
+        for load in loads:
+            self.importer._clear_table(load.model_class, load.table_name)
+            if load.explicit_pk:
+                self.known_keys[load.table_name] = set()
+            else:
+                self.pk_maps[load.table_name] = {}
+            load.started = time.perf_counter()
+
+        if self.max_workers <= 0:
+            for load in loads:
+                try:
+                    for chunk in self._read(load):
+                        self._write(load, chunk)
+                except Exception as e:
+                    self._fail(load, e)
+                self._finish(load)
+            return
+
+        self._queue = queue.Queue(maxsize=self.max_workers * STREAM_QUEUED_CHUNKS_PER_WORKER)
+        self._stopped = threading.Event()
+        executor = ThreadPoolExecutor(max_workers=min(self.max_workers, len(loads)),
+                                      thread_name_prefix='csv-import-reader')
+        try:
+            for load in loads:
+                executor.submit(self._produce, load)
+            pending = len(loads)
+            while pending:
+                load, item = self._queue.get()
+                if item is _DONE:
+                    pending -= 1
+                    self._finish(load)
+                elif isinstance(item, Exception):
+                    pending -= 1
+                    self._fail(load, item)
+                    self._finish(load)
+                elif not load.failed:
+                    try:
+                        self._write(load, item)
+                    except Exception as e:
+                        self._fail(load, e)
+        finally:
+            self._stopped.set()
+            executor.shutdown(wait=True, cancel_futures=True)
+
+    def _open_zip(self):
+        if isinstance(self.zip_source, (bytes, bytearray)):
+            return zipfile.ZipFile(io.BytesIO(self.zip_source), 'r')
+        return zipfile.ZipFile(self.zip_source, 'r')
+
+    def _read(self, load):
+        # Every reader opens its own handle on the zip
+        with self._open_zip() as zip_file, open_csv_member(zip_file, load.member_name) as reader:
+            load.configure(next(reader, []))
+            for rows in chunked(reader, self.chunk_rows):
+                if load.failed:
+                    return
+                yield load.convert(rows)
+
+    def _produce(self, load):
+        try:
+            for chunk in self._read(load):
+                if not self._put((load, chunk)):
+                    return
+            self._put((load, _DONE))
+        except Exception as e:
+            self._put((load, e))
+
+    def _put(self, item):
+        while not self._stopped.is_set():
+            try:
+                self._queue.put(item, timeout=0.5)
+                return True
+            except queue.Full:
+                continue
+        return False
+
+    def _known_keys(self, table_name, model_class):
+        keys = self.known_keys.get(table_name)
+        if keys is None:
+            keys = self.known_keys[table_name] = set(model_class.objects.values_list('pk', flat=True))
+        return keys
+
+    def _write(self, load, chunk):
+        model_class = load.model_class
+        batch_size = self.importer._calculate_optimal_batch_size(model_class)
+        load.row_errors += chunk.row_errors
+        if chunk.first_error is not None:
+            logger.warning(
+                "Skipped %s rows of %s: %s",
+                chunk.row_errors,
+                sanitize_log_value(load.csv_filename),
+                sanitize_log_value(chunk.first_error),
+            )
+        if not chunk.objects:
+            return
+
+        if load.explicit_pk:
+            # Rows of the chunk itself are no missing references
+            self.known_keys[load.table_name].update(obj.pk for obj in chunk.objects)
+        for related_table, (related_model, keys) in chunk.references.items():
+            known = self._known_keys(related_table, related_model)
+            missing = keys - known
+            if missing:
+                related_model.objects.bulk_create(
+                    [related_model(pk=key) for key in missing],
+                    batch_size=self.importer._calculate_optimal_batch_size(related_model),
+                    ignore_conflicts=True,
+                )
+                known.update(missing)
+                load.stubs += len(missing)
+
+        if load.explicit_pk:
+            pk_name = model_class._meta.pk.name
+            update_fields = [field.name for field in model_class._meta.concrete_fields if not field.primary_key]
+            if update_fields:
+                # Fills in rows created empty for an earlier reference
+                model_class.objects.bulk_create(
+                    chunk.objects, batch_size=batch_size,
+                    update_conflicts=True, unique_fields=[pk_name], update_fields=update_fields,
+                )
+            else:
+                model_class.objects.bulk_create(chunk.objects, batch_size=batch_size, ignore_conflicts=True)
+        else:
+            created = model_class.objects.bulk_create(chunk.objects, batch_size=batch_size)
+            if load.tracks_ids:
+                pk_map = self.pk_maps[load.table_name]
+                for old_id, obj in zip(chunk.old_ids, created):
+                    if old_id is not None and obj.pk is not None:
+                        pk_map[old_id] = obj.pk
+        load.imported_count += len(chunk.objects)
+
+    def _fail(self, load, error):
+        load.failed = True
+        logger.error(
+            "Failed to import %s: %s",
+            sanitize_log_value(load.csv_filename),
+            sanitize_log_value(error),
+        )
+        self.results[load.csv_filename] = {'success': False, 'error': str(error)}
+
+    def _finish(self, load):
+        if load.failed:
+            return
+        seconds = time.perf_counter() - load.started
+        if load.duplicates:
+            logger.warning("Ignored %s duplicate primary keys in %s",
+                           load.duplicates, sanitize_log_value(load.table_name))
+        if load.unresolved:
+            logger.warning("Could not resolve %s foreign keys to auto id tables in %s",
+                           load.unresolved, sanitize_log_value(load.table_name))
+        if load.stubs:
+            logger.info("Created %s missing referenced rows for %s",
+                        load.stubs, sanitize_log_value(load.table_name))
+        logger.info(
+            "Imported %s rows into %s in %.1fs",
+            load.imported_count, sanitize_log_value(load.table_name), seconds,
+        )
+        self.results[load.csv_filename] = {
+            'success': True,
+            'imported_count': load.imported_count,
+            'skipped_rows': load.row_errors,
+        }
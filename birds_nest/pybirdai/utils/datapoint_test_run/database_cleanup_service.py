@@ -31,6 +31,13 @@ from django.conf import settings
 # Configure logging
 logger = logging.getLogger(__name__)
 
+
+def _invalidate_input_data_caches():
+    """Drop the cached input data of earlier executions; raw SQL deletes send no signals."""
+    from pybirdai.process_steps.pybird.orchestration import invalidate_input_data_caches
+    invalidate_input_data_caches()
+
+
 class DatabaseCleanupService:
     """
     Service for cleaning up BIRD data model tables using Django ORM.
@@ -330,6 +337,7 @@ class DatabaseCleanupService:
 
         total_deleted = sum(count for count in deletion_results.values() if count > 0)
         logger.info(f"Successfully deleted {total_deleted} records from BIRD data tables")
+        _invalidate_input_data_caches()
 
         return deletion_results
 
@@ -445,6 +453,8 @@ class DatabaseCleanupService:
         except Exception as e:
             logger.error(f"Error during specific table cleanup: {e}")
             raise
+        finally:
+            _invalidate_input_data_caches()
 
         return deletion_results
 
@@ -424,6 +424,34 @@ class TestCodeGenerator:
 
         logger.debug(f"Saved generated code to {output_file}")
 
+    @classmethod
+    def write_test_file(cls, output_file, datapoint_value, regulatory_template_id, datapoint_suffix, logger=logger):
+        """
+        Generate the test module for one datapoint and save it to output_file.
+
+        Args:
+            output_file (str): Path of the generated test module.
+            datapoint_value (int): Expected value of the datapoint.
+            regulatory_template_id (str): ID of the regulatory template.
+            datapoint_suffix (str): Suffix of the datapoint and cell IDs.
+            logger (logging.Logger): Logger instance for logging debug messages.
+        """
+        datapoint_id = f"{regulatory_template_id}_{datapoint_suffix}"
+        cell_class = f"Cell_{datapoint_id}"
+        logger.debug(f"Generating test code for cell class: {cell_class}")
+
+        # Generate code components
+        import_code = cls.create_import_statements(cell_class)
+        logger.debug("Generated import code")
+
+        test_code = cls.create_test_functions(datapoint_value, datapoint_id)
+        logger.debug("Generated test functions")
+
+        #test_code_additional = cls.create_additional_test_functions(cell_class, regulatory_template_id)
+        #logger.debug("Generated additional test functions")
+
+        cls.save_generated_code(output_file, import_code, test_code, logger)
+
     @classmethod
     def generate_test_code(cls):
         """
@@ -439,28 +467,13 @@ class TestCodeGenerator:
         logger.debug(f"Running with arguments: {args}")
 
         # Initialize variables from arguments
-        datapoint_value = args.dp_value
-        regulatory_template_id = args.reg_tid
-        datapoint_id = f"{args.reg_tid}_{args.dp_suffix}"
         cell_class = f"Cell_{args.reg_tid}_{args.dp_suffix}"
         scenario_name = args.scenario
         suite_name = args.suite_name
 
-        logger.debug(f"Generating test code for cell class: {cell_class}")
-
-        # Generate code components
-        import_code = cls.create_import_statements(cell_class)
-        logger.debug("Generated import code")
-
-        test_code = cls.create_test_functions(datapoint_value, datapoint_id)
-        logger.debug("Generated test functions")
-
-        #test_code_additional = cls.create_additional_test_functions(cell_class, regulatory_template_id)
-        #logger.debug("Generated additional test functions")
-
         # Save generated code to suite structure
         output_file = os.path.join('tests', suite_name, 'tests', 'code', f'test_{cell_class.lower()}__{scenario_name}.py')
-        cls.save_generated_code(output_file, import_code, test_code, logger)
+        cls.write_test_file(output_file, args.dp_value, args.reg_tid, args.dp_suffix, logger)
 
 
 def main():
@@ -0,0 +1,379 @@
+# coding=UTF-8
+# Copyright (c) 2025 Arfa Digital Consulting
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Benjamin Arfa - initial API and implementation
+#
+"""
+In-process runner for datapoint regression scenarios.
+
+RegulatoryTemplateTestRunner.process_scenario starts three interpreters per
+scenario (test generator, pytest, output parser), and each of them boots
+Django and imports the generated filter code again. This runner keeps one
+warmed runtime instead and, for every scenario:
+
+1. opens a transaction (a SAVEPOINT when already inside one),
+2. empties the BIRD input tables and loads the scenario fixtures,
+3. calls every test_* function of the scenario's generated pytest module,
+   the same file the subprocess path hands to pytest, each in a savepoint,
+4. rolls the transaction back, leaving the database as it was.
+
+Results are written to the same txt/json files and in the same JSON layout
+as PytestOutputParser, so display_test_results and generate_test_url keep
+working unchanged.
+
+Scenarios can also be sharded across pytest-xdist workers with
+run_scenarios_in_workers. Every worker warms its own runtime once, and on
+SQLite works on a private copy of the database: a scenario holds the write
+lock until it is rolled back, so workers sharing one file would serialise.
+"""
+import contextlib
+import importlib.util
+import inspect
+import io
+import json
+import logging
+import os
+import shutil
+import subprocess
+import sys
+import tempfile
+import time
+import traceback
+from datetime import datetime
+
+logger = logging.getLogger(__name__)
+
+# Environment variable holding the path of the scenario spec file for workers
+SCENARIO_SPEC_ENV = 'PYBIRDAI_REGRESSION_SCENARIOS'
+WORKER_MODULE_PATH = os.path.join(os.path.dirname(os.path.abspath(__file__)), 'pytest_in_process_scenarios.py')
+# Reported when the scenario fails before its generated tests can run
+TEST_NAME = 'test_execute_datapoint'
+
+# Statements that would end the scenario transaction early
+_TRANSACTION_CONTROL_PREFIXES = ('BEGIN', 'COMMIT', 'END', 'ROLLBACK', 'PRAGMA', 'VACUUM')
+
+
+def setup_django(database_name=None):
+    """
+    Configure Django once for this process.
+
+    Args:
+        database_name: optional path of an SQLite database to use instead of
+            the configured one. Only honoured before the first connection.
+    """
+    if '.' not in sys.path:
+        sys.path.insert(0, '.')
+    os.environ.setdefault('DJANGO_SETTINGS_MODULE', 'birds_nest.settings')
+
+    import django
+    from django.apps import apps
+    from django.conf import settings
+
+    if database_name is not None:
+        settings.DATABASES['default']['NAME'] = database_name
+    if not apps.ready:
+        django.setup()
+
+
+def scenario_spec(reg_tid, dp_suffix, dp_value, scenario, fixture_dir, sql_insert_path, txt_path, json_path,
+                  test_path=None):
+    """Describe one scenario as a JSON-serialisable dict."""
+    return {
+        'reg_tid': reg_tid,
+        'dp_suffix': dp_suffix,
+        'dp_value': str(dp_value),
+        'scenario': scenario,
+        'fixture_dir': fixture_dir,
+        'sql_insert_path': sql_insert_path,
+        'txt_path': txt_path,
+        'json_path': json_path,
+        'test_path': test_path,
+    }
+
+
+def scenario_id(spec):
+    return f"{spec['reg_tid']}_{spec['dp_suffix']}__{spec['scenario']}"
+
+
+def load_scenario_specs(spec_path):
+    """Read the scenario specs and cleanup tables written by run_scenarios_in_workers."""
+    if not spec_path or not os.path.exists(spec_path):
+        return [], []
+    with open(spec_path, 'r', encoding='utf-8') as spec_file:
+        payload = json.load(spec_file)
+    return payload.get('scenarios', []), payload.get('tables', [])
+
+
+class InProcessScenarioRunner:
+    """Run datapoint scenarios against one warmed Django and filter code runtime."""
+
+    def __init__(self, tables_to_clean=None):
+        setup_django()
+        # Importing the entry point imports every generated cell class once
+        import pybirdai.entry_points.execute_datapoint  # noqa: F401
+
+        self.tables_to_clean = list(tables_to_clean or [])
+        # (path, modification time) -> loaded generated test module
+        self._test_modules = {}
+
+    def run_scenario(self, spec):
+        """
+        Execute one scenario inside a transaction that is always rolled back.
+
+        Returns:
+            dict: the result in PytestOutputParser's layout, also written to
+            spec['json_path'] when set
+        """
+        from django.db import transaction
+
+        result = self._initial_result(spec)
+        output = io.StringIO()
+        durations = {}
+
+        with transaction.atomic():
+            try:
+                try:
+                    self._reset_input_tables()
+                    self._load_fixtures(spec)
+                    self._reset_runtime_state()
+                    tests = self._scenario_tests(spec)
+                except Exception:
+                    self._record_failure(result, TEST_NAME, traceback.format_exc().splitlines())
+                    tests = []
+
+                # Like the pytest session, the tests share the scenario's data
+                for test_name, test_function in tests:
+                    started = time.perf_counter()
+                    try:
+                        # A failing test must not leave the transaction unusable for the next one
+                        with transaction.atomic(), contextlib.redirect_stdout(output):
+                            test_function()
+                        result['test_results']['passed'].append(test_name)
+                    except Exception:
+                        self._record_failure(result, test_name, self._failure_lines())
+                    durations[test_name] = time.perf_counter() - started
+            finally:
+                transaction.set_rollback(True)
+
+        # The rolled back fixture rows must not linger in any cache
+        self._reset_runtime_state()
+        self._write_results(spec, result, output.getvalue(), durations)
+        return result
+
+    def _scenario_tests(self, spec):
+        """Return the (name, function) pairs pytest would collect from the scenario's generated module."""
+        test_path = spec.get('test_path')
+        if not test_path or not os.path.exists(test_path):
+            raise FileNotFoundError(f"Test file not found: {test_path}")
+
+        key = (os.path.abspath(test_path), os.path.getmtime(test_path))
+        module = self._test_modules.get(key)
+        if module is None:
+            module_spec = importlib.util.spec_from_file_location(
+                f"pybirdai_generated_test_{len(self._test_modules)}", test_path)
+            module = importlib.util.module_from_spec(module_spec)
+            module_spec.loader.exec_module(module)
+            self._test_modules[key] = module
+
+        return [(name, function) for name, function in vars(module).items()
+                if name.startswith('test_') and inspect.isfunction(function)]
+
+    @staticmethod
+    def _failure_lines():
+        error_type, error, trace = sys.exc_info()
+        lines = traceback.format_exc().splitlines()
+        if isinstance(error, AssertionError):
+            # Without pytest's assertion rewriting, show the values the assert compared
+            while trace.tb_next is not None:
+                trace = trace.tb_next
+            lines.append("where " + ", ".join(
+                f"{name} = {value!r}" for name, value in trace.tb_frame.f_locals.items()))
+        return lines
+
+    @staticmethod
+    def _initial_result(spec):
+        return {
+            "timestamp": datetime.now().isoformat(),
+            "test_information": {
+                "datapoint_value": spec['dp_value'],
+                "regulatory_template_id": spec['reg_tid'],
+                "datapoint_suffix": spec['dp_suffix'],
+                "scenario_name": spec['scenario']
+            },
+            'platform_info': {
+                "os": sys.platform,
+                "packages": "",
+                "python": sys.version.split()[0]
+            },
+            'paths': {
+                "cachedir": "",
+                "rootdir": os.getcwd(),
+                "configfile": ""
+            },
+            'test_results': {
+                "passed": [],
+                "failed": [],
+                "details": {
+                    "failures": {},
+                    "captured_stdout": [],
+                    "captured_stderr": []
+                }
+            }
+        }
+
+    @staticmethod
+    def _record_failure(result, test_name, lines):
+        result['test_results']['failed'].append(test_name)
+        result['test_results']['details']['failures'][test_name] = lines
+
+    def _reset_input_tables(self):
+        from django.db import connection
+
+        # Plain DELETE on every backend: TRUNCATE is not transactional everywhere,
+        # and foreign keys are only checked at commit, which never happens here
+        with connection.cursor() as cursor:
+            for table_name in self.tables_to_clean:
+                cursor.execute(f"DELETE FROM {connection.ops.quote_name(table_name)}")
+
+    def _load_fixtures(self, spec):
+        from pybirdai.utils.datapoint_test_run.csv_fixture_loader import CSVFixtureLoader
+
+        loader = CSVFixtureLoader()
+        if loader.has_csv_fixtures(spec['fixture_dir']):
+            loader.load_scenario_fixtures(spec['fixture_dir'])
+            return
+        self._load_sql_fixture(spec['sql_insert_path'])
+
+    @staticmethod
+    def _load_sql_fixture(file_path):
+        import sqlparse
+        from django.db import connection
+
+        with open(file_path, 'r') as sql_file:
+            sql_script = sql_file.read()
+
+        # executescript() would commit first, so run the statements one by one
+        with connection.cursor() as cursor:
+            for statement in sqlparse.split(sql_script):
+                statement = statement.strip()
+                if not statement or statement.upper().startswith(_TRANSACTION_CONTROL_PREFIXES):
+                    continue
+                cursor.execute(statement)
+
+    @staticmethod
+    def _reset_runtime_state():
+        from pybirdai.process_steps.pybird.orchestration import (
+            OrchestrationOriginal,
+            OrchestrationWithLineage,
+            invalidate_input_data_caches,
+        )
+
+        invalidate_input_data_caches()
+        with contextlib.redirect_stdout(io.StringIO()):
+            OrchestrationWithLineage.reset_initialization()
+            OrchestrationOriginal.reset_initialization()
+
+    @staticmethod
+    def _write_results(spec, result, captured_output, durations):
+        txt_path = spec.get('txt_path')
+        if txt_path:
+            os.makedirs(os.path.dirname(txt_path), exist_ok=True)
+            failures = result['test_results']['details']['failures']
+            with open(txt_path, 'w', encoding='utf-8') as txt_file:
+                txt_file.write(captured_output)
+                txt_file.write("\n")
+                for test_name in result['test_results']['passed']:
+                    txt_file.write(f"{scenario_id(spec)}::{test_name} PASSED in {durations.get(test_name, 0):.2f}s\n")
+                for test_name in result['test_results']['failed']:
+                    txt_file.write(f"{scenario_id(spec)}::{test_name} FAILED in {durations.get(test_name, 0):.2f}s\n")
+                    for line in failures.get(test_name, []):
+                        txt_file.write(f"E {line}\n")
+
+        json_path = spec.get('json_path')
+        if json_path:
+            os.makedirs(os.path.dirname(json_path), exist_ok=True)
+            with open(json_path, 'w', encoding='utf-8') as json_file:
+                json.dump(result, json_file, indent=2)
+
+
+@contextlib.contextmanager
+def worker_database():
+    """
+    Give the current pytest-xdist worker a private copy of the SQLite database.
+
+    Yields the path of the copy, or None when no copy is needed (no xdist
+    worker, or a database server that isolates transactions itself).
+    """
+    worker_id = os.environ.get('PYTEST_XDIST_WORKER')
+    os.environ.setdefault('DJANGO_SETTINGS_MODULE', 'birds_nest.settings')
+    if '.' not in sys.path:
+        sys.path.insert(0, '.')
+    from django.conf import settings
+
+    database = settings.DATABASES['default']
+    if worker_id is None or 'sqlite' not in database['ENGINE']:
+        yield None
+        return
+
+    import sqlite3
+
+    copy_directory = tempfile.mkdtemp(prefix=f'pybirdai_{worker_id}_')
+    copy_path = os.path.join(copy_directory, 'db.sqlite3')
+    source = sqlite3.connect(str(database['NAME']))
+    target = sqlite3.connect(copy_path)
+    try:
+        # The backup API gives a consistent copy even while others read the file
+        source.backup(target)
+    finally:
+        target.close()
+        source.close()
+    try:
+        yield copy_path
+    finally:
+        from django.db import connections
+        connections.close_all()
+        shutil.rmtree(copy_directory, ignore_errors=True)
+
+
+def run_scenarios_in_workers(specs, tables_to_clean, workers, use_uv=False):
+    """
+    Shard scenarios across pytest-xdist workers.
+
+    Every worker writes the result files named in its specs; the caller reads
+    them back once this returns.
+
+    Returns:
+        bool: whether pytest ran (failing scenarios still return True)
+    """
+    if not specs:
+        return True
+
+    spec_file = tempfile.NamedTemporaryFile('w', suffix='.json', delete=False, encoding='utf-8')
+    try:
+        with spec_file:
+            json.dump({'scenarios': specs, 'tables': tables_to_clean}, spec_file)
+
+        commands = ["uv", "run", "pytest"] if use_uv else [sys.executable, "-m", "pytest"]
+        commands += ["-n", str(workers), "-q", "-p", "no:cacheprovider", WORKER_MODULE_PATH]
+
+        env = os.environ.copy()
+        env['PYTHONPATH'] = '.'
+        env[SCENARIO_SPEC_ENV] = spec_file.name
+        started = time.perf_counter()
+        completed = subprocess.run(commands, env=env)
+        logger.info(f"Ran {len(specs)} scenarios on {workers} workers in "
+                    f"{time.perf_counter() - started:.1f}s (pytest exit code {completed.returncode})")
+        # 0: all passed, 1: some scenarios failed; anything else is a pytest error
+        return completed.returncode in (0, 1)
+    except Exception as e:
+        logger.error(f"Sharded scenario run failed: {e}")
+        return False
+    finally:
+        os.remove(spec_file.name)
@@ -0,0 +1,50 @@
+# coding=UTF-8
+# Copyright (c) 2025 Arfa Digital Consulting
+# This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License 2.0
+# which accompanies this distribution, and is available at
+# https://www.eclipse.org/legal/epl-2.0/
+#
+# SPDX-License-Identifier: EPL-2.0
+#
+# Contributors:
+#    Benjamin Arfa - initial API and implementation
+#
+"""
+pytest entry point used by run_scenarios_in_workers.
+
+The scenarios come from the spec file named in PYBIRDAI_REGRESSION_SCENARIOS
+and are spread over the workers by pytest-xdist. Each scenario runs every
+test_* function of its generated test module and fails when any of them
+does. Not meant to be collected on its own.
+"""
+import os
+
+import pytest
+
+from pybirdai.utils.datapoint_test_run.in_process_runner import (
+    SCENARIO_SPEC_ENV,
+    InProcessScenarioRunner,
+    load_scenario_specs,
+    scenario_id,
+    setup_django,
+    worker_database,
+)
+
+SCENARIOS, TABLES_TO_CLEAN = load_scenario_specs(os.environ.get(SCENARIO_SPEC_ENV))
+
+
+@pytest.fixture(scope="session")
+def scenario_runner():
+    with worker_database() as database_name:
+        setup_django(database_name)
+        yield InProcessScenarioRunner(TABLES_TO_CLEAN)
+
+
+@pytest.mark.parametrize("spec", SCENARIOS, ids=[scenario_id(spec) for spec in SCENARIOS])
+def test_scenario(scenario_runner, spec):
+    result = scenario_runner.run_scenario(spec)
+    failures = result['test_results']['details']['failures']
+    assert not result['test_results']['failed'], "\n".join(
+        line for lines in failures.values() for line in lines
+    )
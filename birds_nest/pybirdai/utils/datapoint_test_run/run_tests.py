@@ -99,6 +99,8 @@ class FakeArgs:
         self.scenario = None
         self.suite_name = None
         self.framework = None
+        self.in_process = None
+        self.workers = None
 
 class RegulatoryTemplateTestRunner:
     """
@@ -133,12 +135,20 @@ class RegulatoryTemplateTestRunner:
                         help=f'Test suite name (default: auto-detect from config path or {DEFAULT_SUITE_NAME})')
             self.parser.add_argument('--framework', type=str, default=None,
                         help='Framework to test (e.g., FINREP, COREP, ANCRDT). If specified, loads framework-specific test config.')
+            self.parser.add_argument('--in-process', type=str, default="False",
+                        help='Run scenarios in this process with one warmed Django runtime instead of subprocesses (default: False)')
+            self.parser.add_argument('--workers', type=int, default=0,
+                        help='With --in-process, shard scenarios across this many pytest-xdist workers (default: 0, no sharding)')
 
             self.args = self.parser.parse_args()
 
         # Initialize cache for BIRD table discovery
         self._bird_tables_cache = None
 
+        # In-process mode: one runner for the whole run, scenarios queued for sharding
+        self._in_process_runner = None
+        self._pending_in_process_specs = []
+
     def get_file_paths(self, reg_tid: str, dp_suffix: str, suite_name: str = None) -> tuple:
         """
         Generate file paths for test results.
@@ -591,10 +601,35 @@ class RegulatoryTemplateTestRunner:
         txt_path_stub, json_path_stub = self.get_file_paths(reg_tid, dp_suffix, suite_name)
 
         logger.debug(f"Starting scenario: {scenario_path} from {reg_tid} at datapoint {dp_suffix}")
+
+        insert_path = f"{test_data_sql_path}{SQL_INSERT_FILE_NAME}"
+
+        # Check if test file already exists
+        test_path = os.path.join(TESTS_DIR, suite_name, "tests", "code",
+            f"test_cell_{reg_tid}_{dp_suffix}__{scenario_path}.py".lower())
+
+        if self.in_process_enabled():
+            from pybirdai.utils.datapoint_test_run.generator_for_tests import TestCodeGenerator
+            from pybirdai.utils.datapoint_test_run.in_process_runner import scenario_spec
+
+            # The in-process runner executes the same generated test module as pytest
+            if self.should_regenerate_test_file(test_path, dp_value):
+                TestCodeGenerator.write_test_file(test_path, int(dp_value), reg_tid, dp_suffix)
+
+            spec = scenario_spec(
+                reg_tid, dp_suffix, dp_value, scenario_path, test_data_sql_path, insert_path,
+                f"{txt_path_stub}__{scenario_path}.txt", f"{json_path_stub}__{scenario_path}.json",
+                test_path
+            )
+            if self.worker_count() > 1:
+                self._pending_in_process_specs.append(spec)
+            else:
+                self.process_scenario_in_process(spec)
+            return
+
         logger.debug(f"Loading fixture data for scenario: {scenario_path}")
 
         # Clean up database using dynamic table discovery
-        insert_path = f"{test_data_sql_path}{SQL_INSERT_FILE_NAME}"
 
         # Get tables to clean dynamically from BIRD data models
         tables_to_clean = self.get_bird_models_for_cleanup()
@@ -613,10 +648,6 @@ class RegulatoryTemplateTestRunner:
         # Load test data - try CSV first, fall back to SQL
         self._load_test_fixtures(connection, cursor, test_data_sql_path, insert_path)
 
-        # Check if test file already exists
-        test_path = os.path.join(TESTS_DIR, suite_name, "tests", "code",
-            f"test_cell_{reg_tid}_{dp_suffix}__{scenario_path}.py".lower())
-
         # Prepare commands
         test_generation, test_runs, test_results_conversion = self.setup_subprocess_commands(
             use_uv, scenario_path, dp_value, reg_tid, dp_suffix, suite_name
@@ -670,7 +701,43 @@ class RegulatoryTemplateTestRunner:
 
         logger.debug(f"Finished scenario: {scenario_path} from {reg_tid} at datapoint {dp_suffix}")
 
-    
+    def in_process_enabled(self) -> bool:
+        """Whether scenarios run in this process instead of generator/pytest/parser subprocesses."""
+        return _parse_bool(getattr(self.args, 'in_process', None) or False)
+
+    def worker_count(self) -> int:
+        return int(getattr(self.args, 'workers', None) or 0)
+
+    def process_scenario_in_process(self, spec: dict) -> None:
+        """
+        Run one scenario with the warmed in-process runner and display its results.
+
+        Args:
+            spec: Scenario description built by in_process_runner.scenario_spec
+        """
+        if self._in_process_runner is None:
+            from pybirdai.utils.datapoint_test_run.in_process_runner import InProcessScenarioRunner
+            self._in_process_runner = InProcessScenarioRunner(self.get_bird_models_for_cleanup())
+
+        self._in_process_runner.run_scenario(spec)
+        self.display_test_results(spec['json_path'], spec['scenario'], spec['reg_tid'], spec['dp_suffix'], spec['dp_value'])
+
+    def run_pending_in_process_scenarios(self, use_uv: bool) -> None:
+        """Shard the scenarios queued by process_scenario across pytest-xdist workers."""
+        specs = self._pending_in_process_specs
+        self._pending_in_process_specs = []
+        if not specs:
+            return
+
+        from pybirdai.utils.datapoint_test_run.in_process_runner import run_scenarios_in_workers
+
+        if not run_scenarios_in_workers(specs, self.get_bird_models_for_cleanup(), self.worker_count(), use_uv):
+            logger.error("Sharded in-process scenario run failed")
+            return
+        for spec in specs:
+            self.display_test_results(spec['json_path'], spec['scenario'], spec['reg_tid'], spec['dp_suffix'], spec['dp_value'])
+
+
 
     def get_safe_config_path(self, user_config_path: str) -> str:
         """
@@ -837,6 +904,7 @@ class RegulatoryTemplateTestRunner:
                 except Exception as e:
                     logger.error(f"Error processing scenarios: {str(e)}")
 
+        self.run_pending_in_process_scenarios(use_uv)
         cursor.close()
         connection.close()
         try:
@@ -892,6 +960,7 @@ class RegulatoryTemplateTestRunner:
                     use_uv,
                     suite_name
                 )
+        self.run_pending_in_process_scenarios(use_uv)
         cursor.close()
         connection.close()
 
@@ -959,6 +1028,11 @@ class RegulatoryTemplateTestRunner:
         except ValueError as e:
             logger.error("Invalid --uv value: %s", e)
             return
+        try:
+            self.in_process_enabled()
+        except ValueError as e:
+            logger.error("Invalid --in-process value: %s", e)
+            return
 
         if config_file:
             self.run_tests_from_config(config_file, use_uv, suite_name)
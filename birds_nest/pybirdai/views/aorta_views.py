@@ -25,6 +25,7 @@ from pybirdai.models.lineage_model import (
     AortaTableReference, FunctionColumnReference, DerivedRowSourceReference,
     EvaluatedFunctionSourceValue, TableCreationSourceTable
 )
+from ..process_steps.pybird.lineage_store import TrailRows
 from ..process_steps.pybird.orchestration import Orchestration
 
 
@@ -86,19 +87,20 @@ class AortaTrailDetailView(View):
 
         # Get populated tables
         populated_tables = []
-        for pop_table in trail.populated_database_tables.all():
-            populated_tables.append({
-                'id': pop_table.id,
-                'table_name': pop_table.table.name,
-                'row_count': pop_table.databaserow_set.count()
-            })
+        with TrailRows.for_trail(trail) as trail_rows:
+            for pop_table in trail.populated_database_tables.all():
+                populated_tables.append({
+                    'id': pop_table.id,
+                    'table_name': pop_table.table.name,
+                    'row_count': trail_rows.database_row_count(pop_table)
+                })
 
-        for pop_table in trail.evaluated_derived_tables.all():
-            populated_tables.append({
-                'id': pop_table.id,
-                'table_name': pop_table.table.name,
-                'row_count': pop_table.derivedtablerow_set.count()
-            })
+            for pop_table in trail.evaluated_derived_tables.all():
+                populated_tables.append({
+                    'id': pop_table.id,
+                    'table_name': pop_table.table.name,
+                    'row_count': trail_rows.derived_row_count(pop_table)
+                })
 
         return JsonResponse({
             'trail': {
@@ -248,11 +248,23 @@ def import_variables_from_csv(request):
 
 
 def export_database_to_csv(request):
-    """Export entire database to CSV zip with filter code and derivation files."""
-    from pybirdai.views.core.export_db import _export_database_to_csv_enhanced
+    """Export entire database to CSV zip with filter code and derivation files.
+
+    POST with mode=delta exports only the metadata rows changed since the
+    previous delta export (rebase=true starts over with every row).
+    """
+    from pybirdai.views.core.export_db import _export_database_delta, _export_database_to_csv_enhanced
 
     if request.method == 'GET':
         return render(request, 'pybirdai/miscellaneous/export_database.html')
+    elif request.method == 'POST' and request.POST.get('mode') == 'delta':
+        zip_file_path, manifest = _export_database_delta(
+            rebase=request.POST.get('rebase', '').lower() == 'true'
+        )
+        with open(zip_file_path, 'rb') as f:
+            response = HttpResponse(f.read(), content_type='application/zip')
+            response['Content-Disposition'] = 'attachment; filename="database_export_delta.zip"'
+            return response
     elif request.method == 'POST':
         zip_file_path, extract_dir = _export_database_to_csv_enhanced()
         with open(zip_file_path, 'rb') as f:
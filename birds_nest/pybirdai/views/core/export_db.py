@@ -551,6 +551,29 @@ def _export_database_to_csv_enhanced():
     return zip_file_path, artefacts_dir
 
 
+def _export_database_delta(rebase=False):
+    """Export only the metadata rows changed since the previous delta export.
+
+    The delta is written next to database_export.zip, and the row digests it
+    was computed from are kept in results/ for the next delta. See
+    pybirdai/utils/clone_mode/metadata_delta.py for the format.
+
+    Args:
+        rebase: Forget the previous delta and write every table in full
+
+    Returns:
+        Tuple of (zip file path, manifest dict)
+    """
+    from pybirdai.utils.clone_mode.metadata_delta import STATE_FILENAME, export_metadata_delta
+
+    results_dir = os.path.join(settings.BASE_DIR, 'results')
+    os.makedirs(results_dir, exist_ok=True)
+    zip_file_path = os.path.join(results_dir, 'database_export_delta.zip')
+    manifest = export_metadata_delta(
+        zip_file_path, os.path.join(results_dir, STATE_FILENAME), rebase=rebase
+    )
+    return zip_file_path, manifest
+
 if __name__ == '__main__':
     DjangoSetup.configure_django()
     _export_database_to_csv_enhanced()
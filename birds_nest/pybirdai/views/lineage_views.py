@@ -26,6 +26,7 @@ from pybirdai.models import (
 )
 import json
 import logging
+from pybirdai.process_steps.pybird.lineage_store import TrailRows
 from pybirdai.utils.secure_error_handling import SecureErrorHandler
 
 
@@ -73,6 +74,7 @@ def get_trail_lineage_data(request, trail_id):
             node_id_counter += 1
         return node_map[key]
     
+    trail_rows = TrailRows.for_trail(trail)
     try:
         # 1. Add database tables and their complete lineage
         populated_db_tables = PopulatedDataBaseTable.objects.filter(
@@ -87,7 +89,7 @@ def get_trail_lineage_data(request, trail_id):
             table_node_id = get_node_id('database_table', table.id)
             
             # Add table node with instance information
-            row_count = pop_table.databaserow_set.count()
+            row_count = trail_rows.database_row_count(pop_table)
             
             # Skip empty tables if requested
             if hide_empty_tables and row_count == 0:
@@ -140,7 +142,7 @@ def get_trail_lineage_data(request, trail_id):
             
             # Add rows if detail level includes rows
             if detail_level in ['row', 'value']:
-                for row in pop_table.databaserow_set.all()[:max_rows_per_table]:
+                for row in trail_rows.database_rows(pop_table)[:max_rows_per_table]:
                     row_node_id = get_node_id('database_row', row.id)
                     nodes.append({
                         'id': row_node_id,
@@ -209,7 +211,7 @@ def get_trail_lineage_data(request, trail_id):
             eval_table_ids.append(eval_table.id)  # Store for later queries
             
             # Add table node with instance information
-            row_count = eval_table.derivedtablerow_set.count()
+            row_count = trail_rows.derived_row_count(eval_table)
             
             # Skip empty tables if requested
             if hide_empty_tables and row_count == 0:
@@ -264,7 +266,7 @@ def get_trail_lineage_data(request, trail_id):
             
             # Add rows if detail level includes rows
             if detail_level in ['row', 'value']:
-                for row in eval_table.derivedtablerow_set.all()[:max_rows_per_table]:
+                for row in trail_rows.derived_rows(eval_table)[:max_rows_per_table]:
                     row_node_id = get_node_id('derived_row', row.id)
                     nodes.append({
                         'id': row_node_id,
@@ -341,17 +343,14 @@ def get_trail_lineage_data(request, trail_id):
             eval_table_ids = [eval_table.id for eval_table in evaluated_tables]
             
             if eval_table_ids:
-                eval_func_sources = EvaluatedFunctionSourceValue.objects.filter(
-                    evaluated_function__row__populated_table__id__in=eval_table_ids
-                ).select_related(
-                    'evaluated_function', 'content_type'
-                )[:100]  # Limit to prevent overwhelming
+                # Limit to prevent overwhelming
+                eval_func_sources = trail_rows.value_sources(eval_table_ids, limit=100)
             else:
                 eval_func_sources = []
             
             for source_ref in eval_func_sources:
                 try:
-                    eval_func_node_id = get_node_id('evaluated_function', source_ref.evaluated_function.id)
+                    eval_func_node_id = get_node_id('evaluated_function', source_ref.owner_id)
                     
                     # Create node for EvaluatedFunctionSourceValue
                     source_ref_node_id = get_node_id('eval_func_source_value', source_ref.id)
@@ -361,9 +360,9 @@ def get_trail_lineage_data(request, trail_id):
                         'type': 'eval_func_source_value',
                         'details': {
                             'id': source_ref.id,
-                            'evaluated_function_id': source_ref.evaluated_function.id,
-                            'source_type': source_ref.content_type.model,
-                            'source_id': source_ref.object_id
+                            'evaluated_function_id': source_ref.owner_id,
+                            'source_type': source_ref.source_type,
+                            'source_id': source_ref.source_id
                         }
                     })
                     
@@ -376,53 +375,49 @@ def get_trail_lineage_data(request, trail_id):
                     })
                     
                     # Edge from EvaluatedFunctionSourceValue to actual source value
-                    if source_ref.content_type.model == 'databasecolumnvalue':
-                        source_node_id = get_node_id('database_column_value', source_ref.object_id)
+                    if source_ref.source_type == 'databasecolumnvalue':
+                        source_node_id = get_node_id('database_column_value', source_ref.source_id)
                         
                         # Ensure the DatabaseColumnValue node exists
                         source_exists = any(node['id'] == source_node_id for node in nodes)
                         if not source_exists:
-                            try:
-                                from pybirdai.models import DatabaseColumnValue
-                                col_value = DatabaseColumnValue.objects.get(id=source_ref.object_id)
-                                value_display = str(col_value.value or col_value.string_value or 'NULL')[:20]
-                                nodes.append({
-                                    'id': source_node_id,
-                                    'label': f"{col_value.column.name}: {value_display}",
-                                    'type': 'database_column_value',
-                                    'details': {
-                                        'value': col_value.value or col_value.string_value,
-                                        'column': col_value.column.name,
-                                        'row_id': col_value.row.id,
-                                        'value_id': col_value.id
-                                    }
-                                })
-                            except DatabaseColumnValue.DoesNotExist:
+                            col_value = trail_rows.column_value(source_ref.source_id)
+                            if col_value is None:
                                 continue
+                            value_display = str(col_value.value or col_value.string_value or 'NULL')[:20]
+                            nodes.append({
+                                'id': source_node_id,
+                                'label': f"{col_value.column.name}: {value_display}",
+                                'type': 'database_column_value',
+                                'details': {
+                                    'value': col_value.value or col_value.string_value,
+                                    'column': col_value.column.name,
+                                    'row_id': col_value.row_id,
+                                    'value_id': col_value.id
+                                }
+                            })
                                 
-                    elif source_ref.content_type.model == 'evaluatedfunction':
-                        source_node_id = get_node_id('evaluated_function', source_ref.object_id)
+                    elif source_ref.source_type == 'evaluatedfunction':
+                        source_node_id = get_node_id('evaluated_function', source_ref.source_id)
                         
                         # Ensure the EvaluatedFunction node exists
                         source_exists = any(node['id'] == source_node_id for node in nodes)
                         if not source_exists:
-                            try:
-                                from pybirdai.models import EvaluatedFunction
-                                eval_func = EvaluatedFunction.objects.get(id=source_ref.object_id)
-                                value_display = str(eval_func.value or eval_func.string_value or 'NULL')[:20]
-                                nodes.append({
-                                    'id': source_node_id,
-                                    'label': f"{eval_func.function.name}: {value_display}",
-                                    'type': 'evaluated_function',
-                                    'details': {
-                                        'value': eval_func.value or eval_func.string_value,
-                                        'function': eval_func.function.name,
-                                        'row_id': eval_func.row.id,
-                                        'eval_func_id': eval_func.id
-                                    }
-                                })
-                            except EvaluatedFunction.DoesNotExist:
+                            eval_func = trail_rows.evaluated_function(source_ref.source_id)
+                            if eval_func is None:
                                 continue
+                            value_display = str(eval_func.value or eval_func.string_value or 'NULL')[:20]
+                            nodes.append({
+                                'id': source_node_id,
+                                'label': f"{eval_func.function.name}: {value_display}",
+                                'type': 'evaluated_function',
+                                'details': {
+                                    'value': eval_func.value or eval_func.string_value,
+                                    'function': eval_func.function.name,
+                                    'row_id': eval_func.row_id,
+                                    'eval_func_id': eval_func.id
+                                }
+                            })
                     else:
                         continue
                     
@@ -439,20 +434,18 @@ def get_trail_lineage_data(request, trail_id):
         if detail_level in ['row', 'value']:
             # Use the eval_table_ids we already have
             if eval_table_ids:
-                row_sources = DerivedRowSourceReference.objects.filter(
-                    derived_row__populated_table__id__in=eval_table_ids
-                ).select_related('derived_row', 'content_type')[:50]
+                row_sources = trail_rows.row_sources(evaluated_table_ids=eval_table_ids, limit=50)
             else:
                 row_sources = []
             
             for source_ref in row_sources:
                 try:
-                    derived_row_node_id = get_node_id('derived_row', source_ref.derived_row.id)
+                    derived_row_node_id = get_node_id('derived_row', source_ref.owner_id)
                     
-                    if source_ref.content_type.model == 'databaserow':
-                        source_node_id = get_node_id('database_row', source_ref.object_id)
-                    elif source_ref.content_type.model == 'derivedtablerow':
-                        source_node_id = get_node_id('derived_row', source_ref.object_id)
+                    if source_ref.source_type == 'databaserow':
+                        source_node_id = get_node_id('database_row', source_ref.source_id)
+                    elif source_ref.source_type == 'derivedtablerow':
+                        source_node_id = get_node_id('derived_row', source_ref.source_id)
                     else:
                         continue
                     
@@ -592,6 +585,8 @@ def get_trail_lineage_data(request, trail_id):
                 'detail_level': detail_level
             }
         }, status=500)
+    finally:
+        trail_rows.close()
 
 
 @require_http_methods(["GET"])
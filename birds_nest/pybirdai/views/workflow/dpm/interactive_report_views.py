@@ -14,13 +14,14 @@ from concurrent.futures import ThreadPoolExecutor
 from typing import Generator
 
 from django.shortcuts import render
-from django.http import JsonResponse, StreamingHttpResponse
+from django.http import HttpResponse, JsonResponse, StreamingHttpResponse
 from django.views.decorators.http import require_http_methods, require_GET, require_POST
 from django.db import close_old_connections, connection
 
 from pybirdai.models import TABLE, TABLE_CELL
 from pybirdai.services.cell_execution_service import CellExecutionService
 from pybirdai.services.table_rendering_service import TableRenderingService
+from pybirdai.services.template_execution_service import TemplateExecutionService
 
 logger = logging.getLogger(__name__)
 SAFE_CELL_ERROR_CODES = {'CELL_NOT_FOUND', 'CELL_SHADED', 'NO_DATAPOINT', 'INVALID_DATAPOINT'}
@@ -234,8 +235,7 @@ def api_render_table(request, table_id: str):
     Returns:
         JSON with table structure including headers and cells
     """
-    result = TableRenderingService.render_table(table_id)
-    return JsonResponse(result)
+    return HttpResponse(TableRenderingService.render_table_json(table_id), content_type='application/json')
 
 
 @require_POST
@@ -343,58 +343,42 @@ def api_execute_all_stream(request, table_id: str):
     """
     Execute all executable cells with SSE streaming for progress updates.
 
+    Cells are executed in one pass grouped by product table (see
+    TemplateExecutionService), and each result is sent as soon as it is known.
+
     Args:
         table_id: The table ID
 
+    Query Parameters:
+        cell_ids: Comma separated cells to execute (optional, default all)
+        lineage: Record a lineage trail per cell (optional, default true).
+            lineage=0 runs the cells value-only, which lets the cells of a
+            group share their product tables
+
     Returns:
-        Server-Sent Events stream with progress updates
+        Server-Sent Events stream with plan, group, progress and complete events
     """
+    cell_ids = [cell_id for cell_id in request.GET.get('cell_ids', '').split(',') if cell_id]
+    include_lineage = request.GET.get('lineage', '1').lower() not in {'0', 'false', 'no', 'off'}
+
     def generate_events() -> Generator[str, None, None]:
         """Generate SSE events for cell execution progress."""
-        start_time = time.time()
-
-        # Get all executable cells
-        cells = TABLE_CELL.objects.filter(table_id=table_id)
-        executable_cells = [
-            c for c in cells
-            if CellExecutionService.is_cell_executable(c)
-        ]
-
-        total = len(executable_cells)
-        completed = 0
-        errors = 0
-
-        from pybirdai.process_steps.pybird.execute_datapoint import lineage_file_cleanup_scope
-        from pybirdai.process_steps.pybird.orchestration import shared_reference_cache
-        with lineage_file_cleanup_scope(), shared_reference_cache():
-            for cell in executable_cells:
-                result = CellExecutionService.execute_cell(cell.cell_id)
-                completed += 1
-
-                if not result.success:
-                    errors += 1
-
-                # Send progress event
-                event_data = {
-                    'completed': completed,
-                    'total': total,
-                    'cell_id': cell.cell_id,
+        for event in TemplateExecutionService.execute(table_id, cell_ids or None, include_lineage):
+            event_type = event.pop('event')
+            if event_type == 'result':
+                result = event['result']
+                event_type = 'progress'
+                event = {
+                    'completed': event['completed'],
+                    'total': event['total'],
+                    'cell_id': result.cell_id,
+                    'success': result.success,
                     'result': result.value if result.success else None,
                     'formatted_result': result.formatted_value if result.success else None,
                     'error': _public_cell_error(result),
                     'datapoint_id': result.datapoint_id
                 }
-                yield f"event: progress\ndata: {json.dumps(event_data)}\n\n"
-
-        # Send complete event
-        total_duration_ms = int((time.time() - start_time) * 1000)
-        complete_data = {
-            'completed': completed,
-            'total': total,
-            'errors': errors,
-            'duration_ms': total_duration_ms
-        }
-        yield f"event: complete\ndata: {json.dumps(complete_data)}\n\n"
+            yield f"event: {event_type}\ndata: {json.dumps(event)}\n\n"
 
     response = StreamingHttpResponse(
         generate_events(),